@@ -8,7 +8,8 @@ importFiles = [
 	"libs/jquery/jquery-2.1.0.js",
 	"libs/instance/instance.ui.js",
 	"ui/common/allmenu.js",
-	"ui/common/common.js"
+	"ui/common/common.js",
+	"ui/common/bridge.async.js"
 ];
 
 M.ScriptLoader.writeScript( importFiles, M.ScriptLoader.scriptPath(thisFileName) );
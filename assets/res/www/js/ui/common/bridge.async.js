@@ -0,0 +1,53 @@
+/**
+ * 비동기 브릿지 호출 (AsyncBridgeExecutor)
+ *
+ * exWNAsync.call("exWNxxx", params) 는 네이티브 작업 스레드에서 실행되며 Promise 를 리턴한다.
+ * Promise 를 지원하지 않는 WebView 에서는 세번째 인자로 콜백 function(err, result) 을 넘긴다.
+ *
+ * 사용 예
+ * var req = exWNAsync.call("exWNTestReturnStringAsync", { "text" : "abc" });
+ * req.then(function(result) { ... }, function(err) { console.log(err.code); });
+ * exWNAsync.cancel(req.callbackId);
+ */
+(function(window, undefined) {
+
+var seq = 0,
+	pending = {};
+
+window.exWNAsync = {
+	call : function(method, params, callback) {
+		var callbackId = "exWNAsync_" + (++seq) + "_" + new Date().getTime(),
+			promise;
+
+		if (typeof callback !== "function" && typeof window.Promise === "function") {
+			promise = new Promise(function(resolve, reject) {
+				pending[callbackId] = { resolve : resolve, reject : reject };
+			});
+		} else {
+			pending[callbackId] = {
+				resolve : function(result) { if (callback) callback(null, result); },
+				reject : function(err) { if (callback) callback(err); }
+			};
+			promise = {};
+		}
+		promise.callbackId = callbackId;
+
+		M.execute(method, JSON.stringify(params || {}), callbackId);
+		return promise;
+	},
+
+	cancel : function(callbackId) {
+		return M.execute("exWNAsyncCancel", callbackId) === "true";
+	},
+
+	// 네이티브에서 호출한다.
+	_settle : function(callbackId, ok, value) {
+		var p = pending[callbackId];
+		if (!p) return;
+		delete pending[callbackId];
+		if (ok) p.resolve(value);
+		else p.reject(value);
+	}
+};
+
+})(window);
@@ -1,10 +1,21 @@
 package mcore.edu.demoGuide;
 
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.customview.MPWebView;
+import m.client.android.library.core.managers.WNInterfaceManager;
 import m.client.android.library.core.utils.Logger;
 import m.client.android.library.core.utils.PLog;
 import m.client.android.library.core.view.MainActivity;
 import mcore.edu.demoGuide.common.Const;
 import mcore.edu.demoGuide.common.Utils;
+import mcore.edu.demoGuide.implementation.CodeCacheWarmup;
+import mcore.edu.demoGuide.implementation.ExtendWebViewClient;
+import mcore.edu.demoGuide.implementation.LocalAssetServer;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
+import mcore.edu.demoGuide.implementation.PagePrefetcher;
+import mcore.edu.demoGuide.implementation.RealtimeSubscriptionManager;
+import mcore.edu.demoGuide.implementation.StartupTrace;
+import mcore.edu.demoGuide.implementation.WebViewPool;
 import mcore.edu.demoGuide.manager.InterfaceManager;
 
 import org.json.JSONArray;
@@ -13,9 +24,11 @@ import org.json.JSONObject;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
+import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
 import android.webkit.WebView;
+import android.widget.FrameLayout;
 
 /**
  * BaseActivity Class
@@ -40,12 +53,107 @@ import android.webkit.WebView;
 public class BaseActivity extends MainActivity {
 	private static final String TAG = BaseActivity.class.getSimpleName();
 
+	// WebViewPool 에서 가져온 WebView (화면 종료시 돌려준다.)
+	private MPWebView mPooledWebView;
+	// 화면 생성 시각 (PageLoadTimeline)
+	private long mCreateNanos;
+
+	@Override
+	public void onCreate(Bundle savedInstanceState) {
+		mCreateNanos = System.nanoTime();
+		StartupTrace trace = StartupTrace.getInstance();
+		trace.end(StartupTrace.NAVIGATION);
+		trace.begin(StartupTrace.WEBVIEW_SETUP);
+		super.onCreate(savedInstanceState);
+	}
+
+	/**
+	 * WebView 생성
+	 * 미리 생성된 WebView 가 있으면 WebViewPool 에서 가져와 사용한다.
+	 * 요청 가로채기(대용량 데이터 전달 등)를 위해 WebViewClient 를 ExtendWebViewClient 로 교체한다.
+	 */
+	@Override
+	protected MPWebView setWebView() {
+		MPWebView webView = WebViewPool.getInstance().acquire(this);
+		if (webView != null) {
+			attachPooledWebView(webView);
+			mPooledWebView = webView;
+		} else {
+			webView = super.setWebView();
+		}
+		ExtendWebViewClient.install(this, webView, isExceptForSsl());
+		// www 정적 리소스 캐시 서버 등록
+		LocalAssetServer.getInstance();
+		String targetUrl = (String) mParams.getParam("TARGET_URL");
+		PageLoadTimeline.getInstance().begin(webView, targetUrl, mCreateNanos);
+		PagePrefetcher.getInstance().onPageEnter(targetUrl);
+		StartupTrace.getInstance().end(StartupTrace.WEBVIEW_SETUP);
+		return webView;
+	}
+
+	/**
+	 * 풀에서 가져온 WebView 를 모피어스(MainActivity.setWebView)와 동일하게 설정한다.
+	 */
+	private void attachPooledWebView(MPWebView webView) {
+		webView.setName((String) mParams.getParam("TARGET_URL"));
+		webView.initParameters((String) mParams.getParam("PARAMETERS"));
+		webView.setLayoutParams(new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+		setCurrentMPWebView(webView);
+		webView.setWNInterfaceManager(new WNInterfaceManager(WebViewPool.BRIDGE_INTERFACE_NAME, this, webView, false, isExceptForSsl()));
+
+		// 재사용된 WebView 는 이미 추가되어 있다.
+		String addUserAgent = CommonLibHandler.getInstance().g_strAddUserAgent;
+		String userAgent = webView.getSettings().getUserAgentString();
+		if (addUserAgent != null && !userAgent.endsWith(addUserAgent))
+			webView.getSettings().setUserAgentString(userAgent + addUserAgent);
+		setUserAgentString(webView.getSettings().getUserAgentString());
+	}
+
+	@Override
+	protected void onResume() {
+		super.onResume();
+		// 이전 화면으로 돌아온 경우 다음 페이지를 다시 예측한다.
+		if (mParams != null)
+			PagePrefetcher.getInstance().onPageResume((String) mParams.getParam("TARGET_URL"));
+	}
+
+	@Override
+	protected void onDestroy() {
+		PageLoadTimeline.getInstance().end(getWebView());
+		// 화면의 실시간 구독 해제
+		RealtimeSubscriptionManager.getInstance().unsubscribeAll(getWebView());
+		super.onDestroy();
+		if (mPooledWebView != null) {
+			WebViewPool.getInstance().release(mPooledWebView);
+			mPooledWebView = null;
+		}
+	}
+
+	/**
+	 * 모피어스(MainActivity)와 동일한 기준으로 SSL 인증서 오류 무시 여부를 판단한다.
+	 */
+	private boolean isExceptForSsl() {
+		if (mHostExceptforSsl == null || mParams == null)
+			return false;
+		String targetUrl = (String) mParams.getParam("TARGET_URL");
+		if (targetUrl == null)
+			return false;
+		for (String host : mHostExceptforSsl) {
+			if (!TextUtils.isEmpty(host) && targetUrl.contains(host.trim()))
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Webview가 시작 될 때 호출되는 함수
 	 */
 	@Override
 	public void onPageStarted (WebView view, String url, Bitmap favicon) {
 		super.onPageStarted(view, url, favicon);
+		PageLoadTimeline.getInstance().mark(view, PageLoadTimeline.PAGE_STARTED, url);
+		if (url != null && !url.startsWith("about:"))
+			StartupTrace.getInstance().begin(StartupTrace.PAGE_LOAD);
 	}
 	
 	/**
@@ -54,6 +162,11 @@ public class BaseActivity extends MainActivity {
 	@Override
 	public void onPageFinished(WebView view, String url)  {
 		super.onPageFinished(view, url);
+		long pageFinishedMs = PageLoadTimeline.getInstance().mark(view, PageLoadTimeline.PAGE_FINISHED, null);
+		CodeCacheWarmup.getInstance().recordPageFinished(pageFinishedMs);
+		// 구동 후 첫 페이지(intro.html)가 끝나면 구동 기록을 끝낸다.
+		if (url != null && !url.startsWith("about:"))
+			StartupTrace.getInstance().finish(url);
 				
 //		try {
 //			//InfoEvent
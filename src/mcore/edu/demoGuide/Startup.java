@@ -6,6 +6,12 @@ import java.io.InputStream;
 
 import m.client.android.library.core.common.CommonLibHandler;
 import m.client.android.library.core.utils.Logger;
+import mcore.edu.demoGuide.implementation.GlobalStateStore;
+import mcore.edu.demoGuide.implementation.LazyPluginLoader;
+import mcore.edu.demoGuide.implementation.StartupOrchestrator;
+import mcore.edu.demoGuide.implementation.StartupTrace;
+import mcore.edu.demoGuide.implementation.WebViewPool;
+import mcore.edu.demoGuide.patternlock.util.PreferenceUtils;
 import android.app.Activity;
 import android.content.res.AssetManager;
 import android.os.Build;
@@ -36,6 +42,8 @@ public class Startup extends Activity {
 	
 	private String CLASS_TAG = "Startup";
 	private CommonLibHandler commLibHandle = CommonLibHandler.getInstance();
+
+	private static final String APP_INIT = "processAppInit";
 	
     /** Called when the activity is first created. */
     @Override
@@ -54,17 +62,54 @@ public class Startup extends Activity {
 //	        .build());
 //    	}	    	
 
+    	StartupTrace trace = StartupTrace.getInstance();
+    	trace.startLaunch();
+    	trace.begin(StartupTrace.STARTUP);
     	super.onCreate(savedInstanceState);
         ////////////////////////////////////////////////////////////////////////////////
         // - 중요 -
         // 최초 시작 Activity에 아래의 코드를 넣어야 한다. 
         
-        commLibHandle.processAppInit(this);
+        // processAppInit 은 Activity 가 필요하므로 메인 스레드에서 바로 실행되고(start 반환 전),
+        // 이후 작업은 의존 관계에 따라 메인 스레드 또는 백그라운드에서 병렬로 실행된다.
+        StartupOrchestrator startup = StartupOrchestrator.begin();
+        startup.add(APP_INIT, true, null, new Runnable() {
+            @Override
+            public void run() {
+                commLibHandle.processAppInit(Startup.this);
+            }
+        });
         ////////////////////////////////////////////////////////////////////////////////
 
+        // 첫 화면 이후 WebView 생성 시간을 줄이기 위해 메인 스레드가 한가할 때 미리 생성해 둔다.
+        startup.add("webViewPool", true, new String[] { APP_INIT }, new Runnable() {
+            @Override
+            public void run() {
+                WebViewPool.getInstance().warmUp();
+            }
+        });
+        // 메모리 매핑 저장소는 처음 조회 전에 백그라운드에서 미리 읽어 둔다.
+        startup.add("preferences", false, null, new Runnable() {
+            @Override
+            public void run() {
+                PreferenceUtils.preload(getApplicationContext());
+            }
+        });
+        startup.add("globalState", false, new String[] { APP_INIT }, new Runnable() {
+            @Override
+            public void run() {
+                GlobalStateStore.getInstance().restore();
+            }
+        });
+        startup.start();
+
+        // 애드온/플러그인 목록은 processAppInit 에서 Manifest.xml 을 읽은 후에 알 수 있으므로 이후에 등록한다.
+        LazyPluginLoader.getInstance().register(startup, APP_INIT);
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
             WebView.setWebContentsDebuggingEnabled(true);
         }
+        trace.end(StartupTrace.STARTUP);
 
     }
 }
@@ -0,0 +1,291 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.utils.PLog;
+import mcore.edu.demoGuide.manager.JavascriptDispatcher;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Process;
+import android.webkit.WebView;
+
+/**
+ * AsyncBridgeExecutor Class
+ *
+ * exWN* 브릿지 메서드를 JavaBridge 스레드가 아닌 작업 스레드 풀에서 실행하고,
+ * 결과를 콜백 아이디로 JS 의 Promise(exWNAsync.call) 에 전달한다. <br/>
+ *
+ * - 스레드 풀과 대기 큐의 크기가 제한되어 있으며, 큐가 가득 차면 바로 BUSY 로 reject 된다. <br/>
+ * - 콜백 아이디로 실행 중인 작업을 취소할 수 있다. (취소된 작업은 CANCELLED 로 reject) <br/>
+ * - 페이지가 바뀌면 이전 페이지에서 요청한 작업은 취소된다. <br/>
+ * - 결과는 JavascriptDispatcher 를 통해 exWNAsync._settle(callbackId, ok, value) 로 전달된다.
+ */
+public class AsyncBridgeExecutor {
+
+	private final String CLASS_TAG = "ASYNC_BRIDGE_EXECUTOR";
+
+	private static final String JS_SETTLE = "exWNAsync._settle";
+
+	public static final String ERROR_BUSY = "BUSY";
+	public static final String ERROR_CANCELLED = "CANCELLED";
+	public static final String ERROR_FAILED = "FAILED";
+
+	private static final int QUEUE_CAPACITY = 32;
+
+	private static AsyncBridgeExecutor instance;
+
+	/**
+	 * 비동기 브릿지 작업
+	 */
+	public interface Task {
+		/**
+		 * 작업 스레드에서 호출된다.
+		 * 오래 걸리는 작업은 중간에 token.isCancelled() 를 확인해야 한다.
+		 * @param params JS 에서 전달한 파라미터
+		 * @param token 취소 여부
+		 * @return JS 로 전달할 결과 (String, Number, Boolean, JSONObject, JSONArray, null)
+		 */
+		Object run(JSONObject params, CancellationToken token) throws Exception;
+	}
+
+	/**
+	 * 작업 취소 여부
+	 */
+	public static class CancellationToken {
+		private volatile boolean cancelled = false;
+
+		public boolean isCancelled() {
+			return cancelled || Thread.currentThread().isInterrupted();
+		}
+
+		void cancel() {
+			cancelled = true;
+		}
+	}
+
+	private static class Job {
+		final String callbackId;
+		final WebView webView;
+		final CancellationToken token = new CancellationToken();
+		final long submittedNanos = System.nanoTime();
+		Future<?> future;
+		boolean settled = false;
+
+		Job(String callbackId, WebView webView) {
+			this.callbackId = callbackId;
+			this.webView = webView;
+		}
+	}
+
+	private final ThreadPoolExecutor executor;
+	private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<String, Job>();
+
+	// Metrics
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong resolvedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong cancelledCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong queueTotalNanos = new AtomicLong();
+	private final AtomicLong runTotalNanos = new AtomicLong();
+	private final AtomicLong startedCount = new AtomicLong();
+
+	public static synchronized AsyncBridgeExecutor getInstance() {
+		if (instance == null) {
+			instance = new AsyncBridgeExecutor();
+		}
+		return instance;
+	}
+
+	private AsyncBridgeExecutor() {
+		int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadFactory() {
+			private final AtomicInteger seq = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread t = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						r.run();
+					}
+				}, "bridge-worker-" + seq.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * 작업을 실행한다. 바로 리턴하며 결과는 JS 로 전달된다.
+	 * @param webView 결과를 전달할 WebView
+	 * @param callbackId JS 에서 발급한 콜백 아이디
+	 * @param params JS 에서 전달한 파라미터 (JSON 문자열, 없으면 null)
+	 * @param task 실행할 작업
+	 */
+	public void submit(WebView webView, String callbackId, String params, final Task task) {
+		submittedCount.incrementAndGet();
+
+		final Job job = new Job(callbackId, webView);
+		final JSONObject paramObj;
+		try {
+			paramObj = params == null || params.length() == 0 ? new JSONObject() : new JSONObject(params);
+		} catch (JSONException e) {
+			failedCount.incrementAndGet();
+			settle(job, false, error(ERROR_FAILED, "invalid params : " + e.getMessage()));
+			return;
+		}
+
+		Job prev = jobs.put(callbackId, job);
+		if (prev != null) {
+			PLog.w(CLASS_TAG, "// duplicated callbackId[" + callbackId + "], cancel previous job");
+			cancelJob(prev);
+		}
+
+		synchronized (job) {
+			try {
+				job.future = executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						execute(job, task, paramObj);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				jobs.remove(callbackId, job);
+				rejectedCount.incrementAndGet();
+				settle(job, false, error(ERROR_BUSY, "bridge worker queue is full"));
+			}
+		}
+	}
+
+	private void execute(Job job, Task task, JSONObject params) {
+		long start = System.nanoTime();
+		queueTotalNanos.addAndGet(start - job.submittedNanos);
+		startedCount.incrementAndGet();
+
+		if (job.token.isCancelled())
+			return;
+
+		try {
+			Object result = task.run(params, job.token);
+			if (!job.token.isCancelled()) {
+				resolvedCount.incrementAndGet();
+				settle(job, true, result);
+			}
+		} catch (InterruptedException e) {
+			// cancel() 에서 이미 reject 되었다.
+		} catch (Exception e) {
+			if (job.token.isCancelled())
+				return;
+			PLog.printTrace(e);
+			failedCount.incrementAndGet();
+			settle(job, false, error(ERROR_FAILED, String.valueOf(e.getMessage())));
+		} finally {
+			runTotalNanos.addAndGet(System.nanoTime() - start);
+			jobs.remove(job.callbackId, job);
+		}
+	}
+
+	/**
+	 * 작업을 취소한다. 취소된 작업은 CANCELLED 로 reject 된다.
+	 * @return 대기 또는 실행 중인 작업이 있었으면 true
+	 */
+	public boolean cancel(String callbackId) {
+		Job job = jobs.remove(callbackId);
+		if (job == null)
+			return false;
+		cancelJob(job);
+		return true;
+	}
+
+	/**
+	 * WebView 에서 요청한 모든 작업을 취소한다. (페이지 이동, 화면 종료시)
+	 */
+	public void cancelAll(WebView webView) {
+		for (Job job : jobs.values()) {
+			if (job.webView == webView && jobs.remove(job.callbackId, job))
+				cancelJob(job);
+		}
+	}
+
+	private void cancelJob(Job job) {
+		job.token.cancel();
+		synchronized (job) {
+			if (job.future != null)
+				job.future.cancel(true);
+		}
+		cancelledCount.incrementAndGet();
+		settle(job, false, error(ERROR_CANCELLED, "cancelled"));
+	}
+
+	/**
+	 * 작업 결과는 한 번만 전달된다.
+	 */
+	private void settle(Job job, boolean ok, Object value) {
+		synchronized (job) {
+			if (job.settled)
+				return;
+			job.settled = true;
+		}
+		JavascriptDispatcher.getInstance().dispatch(job.webView, JS_SETTLE, job.callbackId, ok, value);
+	}
+
+	private static JSONObject error(String code, String message) {
+		JSONObject obj = new JSONObject();
+		try {
+			obj.put("code", code);
+			obj.put("message", message);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return obj;
+	}
+
+	/**
+	 * 작업 통계
+	 * avgQueueMs : 요청부터 실행 시작까지, avgRunMs : 작업 실행 시간
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		long started = startedCount.get();
+		try {
+			metrics.put("poolSize", executor.getMaximumPoolSize());
+			metrics.put("active", executor.getActiveCount());
+			metrics.put("queued", executor.getQueue().size());
+			metrics.put("submitted", submittedCount.get());
+			metrics.put("resolved", resolvedCount.get());
+			metrics.put("failed", failedCount.get());
+			metrics.put("cancelled", cancelledCount.get());
+			metrics.put("rejected", rejectedCount.get());
+			metrics.put("avgQueueMs", started == 0 ? 0 : (queueTotalNanos.get() / started) / 1000000.0);
+			metrics.put("avgRunMs", started == 0 ? 0 : (runTotalNanos.get() / started) / 1000000.0);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public void resetMetrics() {
+		submittedCount.set(0);
+		resolvedCount.set(0);
+		failedCount.set(0);
+		cancelledCount.set(0);
+		rejectedCount.set(0);
+		queueTotalNanos.set(0);
+		runTotalNanos.set(0);
+		startedCount.set(0);
+	}
+}
@@ -0,0 +1,290 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+/**
+ * BitmapLoader Class
+ *
+ * 리소스 이미지를 화면에 표시할 크기로 줄여서(inSampleSize) 백그라운드 스레드에서 디코딩하고 메모리 캐시에 보관한다. <br/>
+ *
+ * - 같은 이미지, 같은 크기 요청은 캐시된 Bitmap 을 바로 사용한다. (같은 프로세스에서의 재실행, 다른 화면) <br/>
+ * - 디코딩 중인 같은 요청은 한 번만 디코딩하고 결과를 함께 받는다. <br/>
+ * - 투명도가 없는 이미지(jpeg)는 RGB_565, 그 외에는 ARGB_8888 로 디코딩한다.
+ *   (화면 캡쳐(setViewForMovingScreen)가 소프트웨어 Canvas 로 그리므로 HARDWARE 설정은 사용하지 않는다.) <br/>
+ */
+public class BitmapLoader {
+
+	private final String CLASS_TAG = "BITMAP_LOADER";
+
+	private static BitmapLoader instance;
+
+	/**
+	 * 디코딩 결과 (메인 스레드에서 호출된다.)
+	 */
+	public interface Callback {
+		/**
+		 * @param bitmap 디코딩 실패시 null
+		 */
+		void onBitmap(Bitmap bitmap);
+	}
+
+	private final Resources resources;
+	private final LruCache<String, Bitmap> cache;
+	private final HashMap<String, ArrayList<Callback>> inFlight = new HashMap<String, ArrayList<Callback>>();
+	// ImageView 별 마지막 요청 (이전 요청의 결과가 늦게 도착해도 덮어쓰지 않는다.)
+	private final WeakHashMap<ImageView, String> targets = new WeakHashMap<ImageView, String>();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final ExecutorService executor;
+
+	// Metrics
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong decodeCount = new AtomicLong();
+	private final AtomicLong decodeTotalMs = new AtomicLong();
+	private final AtomicLong decodedBytes = new AtomicLong();
+	private final AtomicLong fullSizeBytes = new AtomicLong();
+
+	public static synchronized BitmapLoader getInstance() {
+		if (instance == null) {
+			instance = new BitmapLoader(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	private BitmapLoader(Context context) {
+		resources = context.getResources();
+
+		// 앱 메모리 한도의 1/16 (2MB ~ 16MB)
+		ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+		int memoryClassMb = am == null ? 64 : am.getMemoryClass();
+		int maxBytes = Math.max(2, Math.min(16, memoryClassMb / 16)) * 1024 * 1024;
+		cache = new LruCache<String, Bitmap>(maxBytes) {
+			@Override
+			protected int sizeOf(String key, Bitmap value) {
+				return byteCount(value);
+			}
+		};
+
+		executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+						r.run();
+					}
+				}, "bitmap-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		PLog.i(CLASS_TAG, "// cache size[" + maxBytes + "]");
+	}
+
+	/**
+	 * 리소스 이미지를 ImageView 크기로 디코딩하여 표시한다. 메인 스레드에서 호출한다.
+	 * ImageView 의 크기가 아직 정해지지 않았으면(레이아웃 전) 화면 크기를 기준으로 한다.
+	 * @param view 표시할 ImageView
+	 * @param resId 이미지 리소스
+	 */
+	public void loadInto(ImageView view, int resId) {
+		int width = view.getWidth();
+		int height = view.getHeight();
+		if (width <= 0 || height <= 0) {
+			DisplayMetrics metrics = resources.getDisplayMetrics();
+			width = metrics.widthPixels;
+			height = metrics.heightPixels;
+		}
+		final String key = keyOf(resId, width, height);
+		final WeakReference<ImageView> viewRef = new WeakReference<ImageView>(view);
+		targets.put(view, key);
+		load(resId, width, height, new Callback() {
+			@Override
+			public void onBitmap(Bitmap bitmap) {
+				ImageView target = viewRef.get();
+				if (target == null || bitmap == null || !key.equals(targets.get(target)))
+					return;
+				targets.remove(target);
+				target.setImageBitmap(bitmap);
+			}
+		});
+	}
+
+	/**
+	 * 리소스 이미지를 요청 크기 이상이 되는 가장 작은 크기로 디코딩한다. 메인 스레드에서 호출한다.
+	 * 캐시에 있으면 callback 이 바로 호출된다.
+	 * @param resId 이미지 리소스
+	 * @param reqWidth 표시할 너비 (px)
+	 * @param reqHeight 표시할 높이 (px)
+	 * @param callback 결과
+	 */
+	public void load(final int resId, final int reqWidth, final int reqHeight, Callback callback) {
+		final String key = keyOf(resId, reqWidth, reqHeight);
+		Bitmap cached = cache.get(key);
+		if (cached != null) {
+			hitCount.incrementAndGet();
+			callback.onBitmap(cached);
+			return;
+		}
+		missCount.incrementAndGet();
+		synchronized (inFlight) {
+			ArrayList<Callback> callbacks = inFlight.get(key);
+			if (callbacks != null) {
+				callbacks.add(callback);
+				return;
+			}
+			callbacks = new ArrayList<Callback>();
+			callbacks.add(callback);
+			inFlight.put(key, callbacks);
+		}
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				final Bitmap bitmap = decode(resId, reqWidth, reqHeight);
+				if (bitmap != null)
+					cache.put(key, bitmap);
+				mainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						ArrayList<Callback> callbacks;
+						synchronized (inFlight) {
+							callbacks = inFlight.remove(key);
+						}
+						if (callbacks == null)
+							return;
+						for (Callback callback : callbacks) {
+							callback.onBitmap(bitmap);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private Bitmap decode(int resId, int reqWidth, int reqHeight) {
+		long start = System.currentTimeMillis();
+		try {
+			// 크기만 먼저 읽는다. (decodeResource 는 화면 밀도에 맞춘 크기를 돌려준다.)
+			BitmapFactory.Options options = new BitmapFactory.Options();
+			options.inJustDecodeBounds = true;
+			BitmapFactory.decodeResource(resources, resId, options);
+			if (options.outWidth <= 0 || options.outHeight <= 0) {
+				PLog.e(CLASS_TAG, "// decode bounds failed : " + resId);
+				return null;
+			}
+			int srcWidth = options.outWidth;
+			int srcHeight = options.outHeight;
+
+			options.inJustDecodeBounds = false;
+			options.inSampleSize = sampleSize(srcWidth, srcHeight, reqWidth, reqHeight);
+			options.inPreferredConfig = "image/jpeg".equals(options.outMimeType) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+			Bitmap bitmap = BitmapFactory.decodeResource(resources, resId, options);
+			if (bitmap == null)
+				return null;
+
+			long elapsed = System.currentTimeMillis() - start;
+			decodeCount.incrementAndGet();
+			decodeTotalMs.addAndGet(elapsed);
+			decodedBytes.addAndGet(byteCount(bitmap));
+			fullSizeBytes.addAndGet((long) srcWidth * srcHeight * 4);
+			PLog.i(CLASS_TAG, "// decoded " + resId + " " + srcWidth + "x" + srcHeight + " -> " + bitmap.getWidth() + "x" + bitmap.getHeight()
+					+ " (sample " + options.inSampleSize + ", " + bitmap.getConfig() + ") in " + elapsed + "ms");
+			return bitmap;
+		} catch (OutOfMemoryError e) {
+			PLog.e(CLASS_TAG, "// decode out of memory : " + resId);
+			cache.evictAll();
+			return null;
+		}
+	}
+
+	/**
+	 * 요청 크기 이상을 유지하는 가장 큰 2의 거듭제곱 축소 비율
+	 */
+	static int sampleSize(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+		int sampleSize = 1;
+		if (reqWidth <= 0 || reqHeight <= 0)
+			return sampleSize;
+		while (srcWidth / (sampleSize * 2) >= reqWidth && srcHeight / (sampleSize * 2) >= reqHeight) {
+			sampleSize *= 2;
+		}
+		return sampleSize;
+	}
+
+	private static String keyOf(int resId, int width, int height) {
+		return resId + ":" + width + "x" + height;
+	}
+
+	private static int byteCount(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT)
+			return bitmap.getAllocationByteCount();
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	/**
+	 * 메모리가 부족할 때 캐시를 줄인다. (ExtendApplication.onTrimMemory)
+	 */
+	public static void trimMemory(int level) {
+		BitmapLoader loader;
+		synchronized (BitmapLoader.class) {
+			loader = instance;
+		}
+		if (loader == null)
+			return;
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE)
+			loader.cache.evictAll();
+		else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+			loader.cache.trimToSize(loader.cache.maxSize() / 2);
+	}
+
+	/**
+	 * 캐시 적중, 디코딩 시간, 원본 크기(ARGB_8888) 대비 디코딩된 크기
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			long decodes = decodeCount.get();
+			metrics.put("hits", hitCount.get());
+			metrics.put("misses", missCount.get());
+			metrics.put("decodes", decodes);
+			metrics.put("avgDecodeMs", decodes == 0 ? 0 : decodeTotalMs.get() / decodes);
+			metrics.put("decodedBytes", decodedBytes.get());
+			metrics.put("fullSizeBytes", fullSizeBytes.get());
+			metrics.put("cacheBytes", cache.size());
+			metrics.put("cacheMaxBytes", cache.maxSize());
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,162 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * BridgeProfiler Class
+ *
+ * JS -> 네이티브 브릿지 호출과 네이티브 -> JS 콜백 전달을 메서드별로 집계한다. <br/>
+ *
+ * - 브릿지 호출 : wnCommonInterface 를 거치는 모든 호출 (exWN*, addon, plugin) 의
+ *   호출 수, 에러 수, 인자/결과 크기, 네이티브 실행 시간 <br/>
+ * - 콜백 전달 : JavascriptDispatcher 로 전달되는 JS 함수별 요청부터 실행까지 걸린 시간 <br/>
+ *
+ * 웹에서는 exWNBridgeProfile 로 조회/초기화한다.
+ */
+public class BridgeProfiler {
+
+	private final String CLASS_TAG = "BRIDGE_PROFILER";
+
+	private static BridgeProfiler instance;
+
+	/**
+	 * 메서드(또는 콜백 함수)별 통계
+	 */
+	private static class Stats {
+		long count;
+		long errors;
+		long inBytes;
+		long inMaxBytes;
+		long outBytes;
+		long totalNanos;
+		long maxNanos;
+
+		synchronized void record(long nanos, int in, int out, boolean error) {
+			count++;
+			if (error)
+				errors++;
+			inBytes += in;
+			if (in > inMaxBytes)
+				inMaxBytes = in;
+			outBytes += out;
+			totalNanos += nanos;
+			if (nanos > maxNanos)
+				maxNanos = nanos;
+		}
+
+		synchronized JSONObject toJson(boolean call) throws JSONException {
+			JSONObject obj = new JSONObject();
+			obj.put("count", count);
+			if (call) {
+				obj.put("errors", errors);
+				obj.put("avgArgBytes", count == 0 ? 0 : inBytes / count);
+				obj.put("maxArgBytes", inMaxBytes);
+				obj.put("avgResultBytes", count == 0 ? 0 : outBytes / count);
+				obj.put("totalMs", totalNanos / 1000000.0);
+				obj.put("avgMs", count == 0 ? 0 : (totalNanos / count) / 1000000.0);
+				obj.put("maxMs", maxNanos / 1000000.0);
+			} else {
+				obj.put("avgDeliveryMs", count == 0 ? 0 : (totalNanos / count) / 1000000.0);
+				obj.put("maxDeliveryMs", maxNanos / 1000000.0);
+			}
+			return obj;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Stats> calls = new ConcurrentHashMap<String, Stats>();
+	private final ConcurrentHashMap<String, Stats> callbacks = new ConcurrentHashMap<String, Stats>();
+	private volatile boolean enabled = true;
+	private volatile long startedAt = System.currentTimeMillis();
+
+	public static synchronized BridgeProfiler getInstance() {
+		if (instance == null) {
+			instance = new BridgeProfiler();
+		}
+		return instance;
+	}
+
+	private BridgeProfiler() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	private static Stats get(ConcurrentHashMap<String, Stats> map, String name) {
+		Stats stats = map.get(name);
+		if (stats == null) {
+			Stats created = new Stats();
+			stats = map.putIfAbsent(name, created);
+			if (stats == null)
+				stats = created;
+		}
+		return stats;
+	}
+
+	/**
+	 * 브릿지 호출 기록
+	 * @param method 메서드명
+	 * @param nanos 네이티브 실행 시간
+	 * @param argLength 인자 길이 (문자 수)
+	 * @param resultLength 결과 길이 (문자 수)
+	 * @param error 예외 발생 여부
+	 */
+	public void recordCall(String method, long nanos, int argLength, int resultLength, boolean error) {
+		if (!enabled || method == null)
+			return;
+		get(calls, method).record(nanos, argLength, resultLength, error);
+	}
+
+	/**
+	 * 콜백 전달 기록 (JavascriptDispatcher 에서 호출)
+	 * @param function JS 함수명
+	 * @param deliveryNanos 요청부터 WebView 실행까지 걸린 시간
+	 */
+	public void recordCallback(String function, long deliveryNanos) {
+		if (!enabled || function == null)
+			return;
+		get(callbacks, function).record(deliveryNanos, 0, 0, false);
+	}
+
+	/**
+	 * 현재까지의 통계
+	 * { "since" : 시작 시각, "calls" : { 메서드명 : {...} }, "callbacks" : { 함수명 : {...} } }
+	 */
+	public JSONObject snapshot() {
+		JSONObject obj = new JSONObject();
+		try {
+			obj.put("enabled", enabled);
+			obj.put("since", startedAt);
+			JSONObject callObj = new JSONObject();
+			for (Map.Entry<String, Stats> entry : calls.entrySet()) {
+				callObj.put(entry.getKey(), entry.getValue().toJson(true));
+			}
+			obj.put("calls", callObj);
+			JSONObject callbackObj = new JSONObject();
+			for (Map.Entry<String, Stats> entry : callbacks.entrySet()) {
+				callbackObj.put(entry.getKey(), entry.getValue().toJson(false));
+			}
+			obj.put("callbacks", callbackObj);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return obj;
+	}
+
+	public void reset() {
+		calls.clear();
+		callbacks.clear();
+		startedAt = System.currentTimeMillis();
+		PLog.i(CLASS_TAG, "// reset");
+	}
+}
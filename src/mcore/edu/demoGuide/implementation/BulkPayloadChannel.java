@@ -0,0 +1,389 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+/**
+ * BulkPayloadChannel Class
+ *
+ * 큰 결과 데이터(목록, 파일, DB 조회 결과 등)를 javascript: 문자열로 넘기지 않고
+ * 파일에 저장한 후 핸들(URL)만 JS 로 전달한다. <br/>
+ *
+ * JS 는 전달받은 URL 을 fetch / XMLHttpRequest 로 읽으며, 요청은 ExtendWebViewClient 에서 가로채어
+ * 저장된 파일을 스트림으로 돌려준다. 문자열 생성, escape, JS 파싱 비용이 없다. <br/>
+ *
+ * - 핸들은 기본적으로 한 번 읽으면 삭제된다. (reusable 로 저장한 경우 release 까지 유지) <br/>
+ * - 읽지 않은 핸들은 TTL 이 지나면 삭제된다. <br/>
+ * - 웹에서 요청한 파일(stageAllowedFile)은 채널 디렉토리와 allowDirectory 로 허용한 디렉토리의 파일만 전달한다. <br/>
+ * - 응답 헤더(CORS)가 필요하므로 Lollipop 이상에서만 사용할 수 있다. (isSupported) file:// 페이지(origin null)에만 허용한다.
+ */
+public class BulkPayloadChannel implements ExtendWebViewClient.RequestInterceptor {
+
+	private final String CLASS_TAG = "BULK_PAYLOAD_CHANNEL";
+
+	/** 가상 호스트 (실제 네트워크 요청은 발생하지 않는다.) */
+	public static final String SCHEME = "https";
+	public static final String HOST = "bulk.mcore.local";
+
+	/** 읽지 않은 핸들 유지 시간 */
+	public static final long DEFAULT_TTL_MS = 60 * 1000;
+
+	private static final String DIR_NAME = "bulk_payload";
+	/** file:// 페이지의 origin. 다른 origin 에는 허용하지 않는다. */
+	private static final String FILE_ORIGIN = "null";
+
+	private static BulkPayloadChannel instance;
+
+	private static class Payload {
+		final String handle;
+		final File file;
+		final String mimeType;
+		final boolean ownsFile;
+		final boolean reusable;
+		final long stagedAtNanos;
+
+		Payload(String handle, File file, String mimeType, boolean ownsFile, boolean reusable) {
+			this.handle = handle;
+			this.file = file;
+			this.mimeType = mimeType;
+			this.ownsFile = ownsFile;
+			this.reusable = reusable;
+			this.stagedAtNanos = System.nanoTime();
+		}
+	}
+
+	private final Map<String, Payload> payloads = new ConcurrentHashMap<String, Payload>();
+	private final File dir;
+	// 웹에서 전달을 요청할 수 있는 디렉토리 (canonical path)
+	private final CopyOnWriteArrayList<String> allowedDirs = new CopyOnWriteArrayList<String>();
+	private long ttlMs = DEFAULT_TTL_MS;
+
+	// Metrics
+	private final AtomicLong stagedCount = new AtomicLong();
+	private final AtomicLong stagedBytes = new AtomicLong();
+	private final AtomicLong stageTotalNanos = new AtomicLong();
+	private final AtomicLong servedCount = new AtomicLong();
+	private final AtomicLong servedBytes = new AtomicLong();
+	private final AtomicLong serveTotalNanos = new AtomicLong();
+	private final AtomicLong pickupTotalNanos = new AtomicLong();
+	private final AtomicLong expiredCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	public static synchronized BulkPayloadChannel getInstance() {
+		if (instance == null) {
+			instance = new BulkPayloadChannel(CommonLibHandler.getInstance().getApplicationContext());
+			ExtendWebViewClient.addInterceptor(instance);
+		}
+		return instance;
+	}
+
+	private BulkPayloadChannel(Context context) {
+		dir = new File(context.getCacheDir(), DIR_NAME);
+		if (!dir.exists())
+			dir.mkdirs();
+
+		// 이전 실행에서 남은 파일 정리
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		allowDirectory(dir);
+	}
+
+	public static boolean isSupported() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+	}
+
+	public void setTtl(long ttlMs) {
+		this.ttlMs = ttlMs;
+	}
+
+	/**
+	 * 웹에서 전달을 요청할 수 있는 디렉토리를 추가한다. (하위 디렉토리 포함)
+	 * 앱 내부 저장소의 설정, DB 등이 노출되지 않도록 웹에 보여줄 파일만 있는 디렉토리를 등록한다.
+	 */
+	public void allowDirectory(File directory) {
+		try {
+			allowedDirs.addIfAbsent(directory.getCanonicalPath());
+		} catch (IOException e) {
+			PLog.printTrace(e);
+		}
+	}
+	/**
+	 * 데이터를 파일로 저장하고 핸들을 발급한다.
+	 * @param data 전달할 데이터
+	 * @param mimeType 응답 mime type (예 : application/json)
+	 * @param reusable true 이면 release 할 때까지 여러 번 읽을 수 있다.
+	 * @return 핸들 정보 (describe 참고)
+	 */
+	public JSONObject stage(byte[] data, String mimeType, boolean reusable) throws IOException {
+		purgeExpired();
+
+		long start = System.nanoTime();
+		String handle = newHandle();
+		File file = new File(dir, handle);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(data);
+		} finally {
+			out.close();
+		}
+		stageTotalNanos.addAndGet(System.nanoTime() - start);
+
+		return register(new Payload(handle, file, mimeType, true, reusable));
+	}
+
+	/**
+	 * 스트림을 끝까지 파일로 저장하고 핸들을 발급한다. (데이터 전체를 메모리에 만들지 않는다.)
+	 * 스트림은 닫지 않는다.
+	 */
+	public JSONObject stage(InputStream in, String mimeType, boolean reusable) throws IOException {
+		purgeExpired();
+
+		long start = System.nanoTime();
+		String handle = newHandle();
+		File file = new File(dir, handle);
+		FileOutputStream out = new FileOutputStream(file);
+		boolean written = false;
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, n);
+			}
+			written = true;
+		} finally {
+			out.close();
+			if (!written)
+				file.delete();
+		}
+		stageTotalNanos.addAndGet(System.nanoTime() - start);
+
+		return register(new Payload(handle, file, mimeType, true, reusable));
+	}
+
+	/**
+	 * 문자열(JSON 등)을 UTF-8 로 저장하고 핸들을 발급한다.
+	 */
+	public JSONObject stage(String data, String mimeType) throws IOException {
+		return stage(data.getBytes("UTF-8"), mimeType, false);
+	}
+
+	/**
+	 * 이미 존재하는 파일을 복사하지 않고 핸들만 발급한다. 파일은 삭제하지 않는다.
+	 */
+	public JSONObject stageFile(File file, String mimeType, boolean reusable) throws IOException {
+		if (!file.isFile())
+			throw new IOException("file not found : " + file.getAbsolutePath());
+		purgeExpired();
+		return register(new Payload(newHandle(), file, mimeType, false, reusable));
+	}
+
+	/**
+	 * 웹에서 요청한 파일의 핸들을 발급한다. 허용된 디렉토리(allowDirectory)의 파일만 전달한다.
+	 */
+	public JSONObject stageAllowedFile(File file, String mimeType, boolean reusable) throws IOException {
+		String path = file.getCanonicalPath();
+		for (String allowed : allowedDirs) {
+			if (path.startsWith(allowed + File.separator))
+				return stageFile(new File(path), mimeType, reusable);
+		}
+		PLog.w(CLASS_TAG, "// not allowed file[" + path + "]");
+		throw new IOException("not allowed : " + path);
+	}
+
+	private JSONObject register(Payload payload) {
+		payloads.put(payload.handle, payload);
+		stagedCount.incrementAndGet();
+		stagedBytes.addAndGet(payload.file.length());
+		return describe(payload);
+	}
+
+	/**
+	 * 핸들을 해제한다. (reusable 핸들 또는 읽지 않을 핸들)
+	 */
+	public void release(String handle) {
+		Payload payload = payloads.remove(handle);
+		if (payload != null)
+			discard(payload);
+	}
+
+	private String newHandle() {
+		return UUID.randomUUID().toString().replace("-", "");
+	}
+
+	/**
+	 * JS 로 전달하는 핸들 정보
+	 * { "handle" : "...", "url" : "https://bulk.mcore.local/...", "size" : 123, "mimeType" : "..." }
+	 */
+	private JSONObject describe(Payload payload) {
+		JSONObject obj = new JSONObject();
+		try {
+			obj.put("handle", payload.handle);
+			obj.put("url", SCHEME + "://" + HOST + "/" + payload.handle);
+			obj.put("size", payload.file.length());
+			obj.put("mimeType", payload.mimeType);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return obj;
+	}
+
+	@Override
+	public WebResourceResponse intercept(WebView view, Uri uri) {
+		if (!HOST.equals(uri.getHost()))
+			return null;
+
+		String handle = uri.getLastPathSegment();
+		Payload payload = handle == null ? null : payloads.get(handle);
+		Map<String, String> headers = new HashMap<String, String>();
+		// file:// 페이지(origin null)에서만 읽을 수 있도록 허용한다.
+		headers.put("Access-Control-Allow-Origin", FILE_ORIGIN);
+		headers.put("Cache-Control", "no-store");
+
+		if (payload == null) {
+			missCount.incrementAndGet();
+			PLog.w(CLASS_TAG, "// unknown handle[" + handle + "]");
+			return ExtendWebViewClient.newResponse("text/plain", "UTF-8", 404, "Not Found", null, headers);
+		}
+
+		if (!payload.reusable)
+			payloads.remove(handle);
+		pickupTotalNanos.addAndGet(System.nanoTime() - payload.stagedAtNanos);
+
+		try {
+			headers.put("Content-Length", String.valueOf(payload.file.length()));
+			InputStream in = new ServeStream(payload, new FileInputStream(payload.file));
+			return ExtendWebViewClient.newResponse(payload.mimeType, "UTF-8", in, headers);
+		} catch (IOException e) {
+			PLog.printTrace(e);
+			return ExtendWebViewClient.newResponse("text/plain", "UTF-8", 500, "Internal Error", null, headers);
+		}
+	}
+
+	/**
+	 * 전송량, 전송 시간 집계 및 1회용 파일 삭제
+	 */
+	private class ServeStream extends FilterInputStream {
+		private final Payload payload;
+		private final long openedAtNanos = System.nanoTime();
+		private long bytes = 0;
+		private boolean closed = false;
+
+		ServeStream(Payload payload, InputStream in) {
+			super(in);
+			this.payload = payload;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0)
+				bytes++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int count) throws IOException {
+			int n = super.read(buffer, offset, count);
+			if (n > 0)
+				bytes += n;
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			super.close();
+			if (closed)
+				return;
+			closed = true;
+
+			servedCount.incrementAndGet();
+			servedBytes.addAndGet(bytes);
+			serveTotalNanos.addAndGet(System.nanoTime() - openedAtNanos);
+			if (!payload.reusable)
+				discard(payload);
+		}
+	}
+
+	private void discard(Payload payload) {
+		if (payload.ownsFile)
+			payload.file.delete();
+	}
+
+	private void purgeExpired() {
+		long now = System.nanoTime();
+		Iterator<Payload> it = payloads.values().iterator();
+		while (it.hasNext()) {
+			Payload payload = it.next();
+			if ((now - payload.stagedAtNanos) / 1000000 > ttlMs) {
+				it.remove();
+				discard(payload);
+				expiredCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 전송 통계
+	 * avgStageMs : 파일 저장 시간, avgPickupMs : 발급부터 JS 요청까지, throughputMBps : 파일 -> WebView 전송 속도
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		long staged = stagedCount.get();
+		long served = servedCount.get();
+		long serveNanos = serveTotalNanos.get();
+		try {
+			metrics.put("pending", payloads.size());
+			metrics.put("staged", staged);
+			metrics.put("stagedBytes", stagedBytes.get());
+			metrics.put("avgStageMs", staged == 0 ? 0 : (stageTotalNanos.get() / staged) / 1000000.0);
+			metrics.put("served", served);
+			metrics.put("servedBytes", servedBytes.get());
+			metrics.put("avgPickupMs", served == 0 ? 0 : (pickupTotalNanos.get() / served) / 1000000.0);
+			metrics.put("throughputMBps", serveNanos == 0 ? 0 : (servedBytes.get() / 1048576.0) / (serveNanos / 1000000000.0));
+			metrics.put("expired", expiredCount.get());
+			metrics.put("missed", missCount.get());
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public void resetMetrics() {
+		stagedCount.set(0);
+		stagedBytes.set(0);
+		stageTotalNanos.set(0);
+		servedCount.set(0);
+		servedBytes.set(0);
+		serveTotalNanos.set(0);
+		pickupTotalNanos.set(0);
+		expiredCount.set(0);
+		missCount.set(0);
+	}
+}
@@ -0,0 +1,266 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.File;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+/**
+ * CodeCacheWarmup Class
+ *
+ * 설치 후, 리소스 업데이트 후 처음 실행될 때 공통 스크립트(mcore.min.js, jquery, muikit, swiper 등)를
+ * 숨겨진 WebView 에서 한 번 로딩하여 JS 엔진의 컴파일 캐시와 LocalAssetServer 캐시를 미리 채운다. <br/>
+ *
+ * - 메인 스레드가 한가할 때 시작하며, 로딩이 끝나거나 제한 시간이 지나면 WebView 를 해제한다. <br/>
+ * - 스크립트는 실제 페이지와 같은 경로(www 기준 상대 경로, LocalAssetServer 응답)로 로딩된다. <br/>
+ * - 숨겨진 WebView 에는 브릿지가 없으므로 스크립트의 브릿지 호출은 실패한다. (화면에는 영향 없음) <br/>
+ *
+ * 효과 측정 : 설치/업데이트 후 첫 실행에서 처음 열리는 페이지들의 로딩 시간(PageLoadTimeline pageFinished)을
+ * 웜업 완료 여부에 따라 나누어 누적한다. setEnabled(false) 로 끄면 다음 실행이 웜업 없는 첫 실행으로 측정된다.
+ */
+public class CodeCacheWarmup implements MessageQueue.IdleHandler {
+
+	private final String CLASS_TAG = "CODE_CACHE_WARMUP";
+
+	private static final String PREF_NAME = "code_cache_warmup";
+	private static final String PREF_KEY_STAMP = "stamp";
+	private static final String PREF_KEY_ENABLED = "enabled";
+
+	/** 웜업할 스크립트 (www 기준) */
+	private static final String[] SCRIPTS = {
+		"js/mcore.min.js",
+		"js/jquery-2.1.4.min.js",
+		"js/muikit-1.0.0.min.js",
+		"js/swiper.min.js"
+	};
+
+	private static final long TIMEOUT_MS = 15 * 1000;
+	/** 로딩 완료 후 지연 로딩 스크립트(importFiles)를 기다리는 시간 */
+	private static final long SETTLE_MS = 1000;
+	/** 효과 측정에 사용하는 프로세스 시작 후 페이지 수 */
+	private static final int MEASURE_PAGES = 3;
+
+	private static CodeCacheWarmup instance;
+
+	private final Context appContext;
+	private final SharedPreferences prefs;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private WebView webView;
+	private boolean scheduled = false;
+	private boolean warmed = false;
+	// 설치/업데이트 후 첫 실행 (이번 실행의 첫 페이지들을 측정한다.)
+	private boolean measuring = false;
+	private long startedAt = 0;
+	private long lastDurationMs = 0;
+	private int measuredPages = 0;
+
+	public static synchronized CodeCacheWarmup getInstance() {
+		if (instance == null) {
+			instance = new CodeCacheWarmup(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	private CodeCacheWarmup(Context context) {
+		appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+		prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+	}
+
+	public boolean isEnabled() {
+		return prefs.getBoolean(PREF_KEY_ENABLED, true);
+	}
+
+	/**
+	 * 사용 여부 (다음 실행부터 적용)
+	 * 웜업 기록을 지우므로 다음 실행은 설치 직후와 같이 측정된다.
+	 */
+	public void setEnabled(boolean enabled) {
+		prefs.edit().putBoolean(PREF_KEY_ENABLED, enabled).remove(PREF_KEY_STAMP).apply();
+	}
+
+	/**
+	 * 설치 또는 리소스 업데이트 후 처음이면 메인 스레드가 한가할 때 웜업을 시작한다. 메인 스레드에서 호출한다.
+	 */
+	public void schedule() {
+		if (scheduled)
+			return;
+		scheduled = true;
+		long stamp = currentStamp();
+		if (stamp == prefs.getLong(PREF_KEY_STAMP, 0))
+			return;
+		measuring = true;
+		if (!isEnabled()) {
+			// 웜업 없이 첫 실행만 측정한다.
+			prefs.edit().putLong(PREF_KEY_STAMP, stamp).apply();
+			return;
+		}
+		Looper.myQueue().addIdleHandler(this);
+	}
+
+	@Override
+	public boolean queueIdle() {
+		start();
+		return false;
+	}
+
+	@SuppressLint("SetJavaScriptEnabled")
+	private void start() {
+		String wwwDir = CommonLibHandler.getInstance().g_strWWWDirForWeb;
+		if (wwwDir == null || wwwDir.length() == 0)
+			return;
+
+		StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head>");
+		for (String script : SCRIPTS) {
+			html.append("<script type=\"text/javascript\" src=\"").append(script).append("\"></script>");
+		}
+		html.append("</head><body></body></html>");
+
+		startedAt = System.currentTimeMillis();
+		try {
+			webView = new WebView(new MutableContextWrapper(appContext));
+		} catch (Throwable e) {
+			PLog.e(CLASS_TAG, "// create webview failed : " + e);
+			return;
+		}
+		webView.getSettings().setJavaScriptEnabled(true);
+		webView.getSettings().setAllowFileAccess(true);
+		webView.setWebViewClient(new WarmupClient());
+		webView.loadDataWithBaseURL(wwwDir, html.toString(), "text/html", "UTF-8", null);
+		handler.postDelayed(finishRunnable, TIMEOUT_MS);
+		PLog.i(CLASS_TAG, "// warmup started");
+	}
+
+	private final Runnable finishRunnable = new Runnable() {
+		@Override
+		public void run() {
+			finish();
+		}
+	};
+
+	private void finish() {
+		handler.removeCallbacks(finishRunnable);
+		if (webView == null)
+			return;
+		webView.stopLoading();
+		webView.destroy();
+		webView = null;
+
+		warmed = true;
+		lastDurationMs = System.currentTimeMillis() - startedAt;
+		prefs.edit().putLong(PREF_KEY_STAMP, currentStamp()).apply();
+		PLog.i(CLASS_TAG, "// warmup finished in " + lastDurationMs + "ms");
+	}
+
+	/**
+	 * 스크립트 요청을 LocalAssetServer 로 처리하여 실제 페이지와 같은 경로로 로딩한다.
+	 */
+	private class WarmupClient extends WebViewClient {
+		// LOLLIPOP 미만 단말
+		@SuppressWarnings("deprecation")
+		@Override
+		public WebResourceResponse shouldInterceptRequest(WebView view, String url) {
+			return LocalAssetServer.getInstance().intercept(view, Uri.parse(url));
+		}
+
+		@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+		@Override
+		public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+			return LocalAssetServer.getInstance().intercept(view, request.getUrl());
+		}
+
+		@Override
+		public void onPageStarted(WebView view, String url, Bitmap favicon) {
+		}
+
+		@Override
+		public void onPageFinished(WebView view, String url) {
+			handler.removeCallbacks(finishRunnable);
+			handler.postDelayed(finishRunnable, SETTLE_MS);
+		}
+	}
+
+	/**
+	 * 앱 설치/업데이트 시각과 (내부 저장소로 복사된 경우) 스크립트 파일 수정 시각
+	 */
+	private long currentStamp() {
+		long stamp = 0;
+		try {
+			PackageInfo info = appContext.getPackageManager().getPackageInfo(appContext.getPackageName(), 0);
+			stamp = info.lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			PLog.printTrace(e);
+		}
+		String wwwDir = CommonLibHandler.getInstance().g_strWWWDirForNative;
+		if (wwwDir != null && wwwDir.length() > 0) {
+			if (wwwDir.startsWith("file://"))
+				wwwDir = wwwDir.substring("file://".length());
+			for (String script : SCRIPTS) {
+				stamp = stamp * 31 + new File(wwwDir, script).lastModified();
+			}
+		}
+		return stamp;
+	}
+
+	/**
+	 * 설치/업데이트 후 첫 실행에서 처음 열리는 페이지의 로딩 시간 기록 (BaseActivity.onPageFinished)
+	 * @param pageFinishedMs PageLoadTimeline 의 pageFinished (기록되지 않았으면 음수)
+	 */
+	public synchronized void recordPageFinished(long pageFinishedMs) {
+		if (!measuring || pageFinishedMs < 0 || measuredPages >= MEASURE_PAGES)
+			return;
+		measuredPages++;
+		String key = warmed ? "warm" : "cold";
+		prefs.edit()
+				.putLong(key + "_count", prefs.getLong(key + "_count", 0) + 1)
+				.putLong(key + "_total_ms", prefs.getLong(key + "_total_ms", 0) + pageFinishedMs)
+				.apply();
+	}
+
+	/**
+	 * 통계
+	 * warm/cold : 설치/업데이트 후 첫 실행에서 웜업 완료 후/웜업 없이 열린 첫 페이지들의 평균 로딩 시간 (실행 간 누적)
+	 */
+	public synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("enabled", isEnabled());
+			metrics.put("warmedThisRun", warmed);
+			metrics.put("lastWarmupMs", lastDurationMs);
+			for (String key : new String[] { "warm", "cold" }) {
+				long count = prefs.getLong(key + "_count", 0);
+				JSONObject obj = new JSONObject();
+				obj.put("pages", count);
+				obj.put("avgPageFinishedMs", count == 0 ? 0 : prefs.getLong(key + "_total_ms", 0) / count);
+				metrics.put(key, obj);
+			}
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public synchronized void resetMetrics() {
+		prefs.edit().remove("warm_count").remove("warm_total_ms").remove("cold_count").remove("cold_total_ms").apply();
+	}
+}
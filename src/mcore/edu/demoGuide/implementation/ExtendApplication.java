@@ -6,4 +6,19 @@ public class ExtendApplication extends MorpheusApplication {
 	public ExtendApplication() {
 
 	}
+
+	@Override
+	public void onCreate() {
+		// 구동 시간 기록은 프로세스에서 가장 먼저 실행되는 이 시점부터 시작한다.
+		StartupTrace trace = StartupTrace.getInstance(this);
+		trace.begin(StartupTrace.APPLICATION);
+		super.onCreate();
+		trace.end(StartupTrace.APPLICATION);
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		super.onTrimMemory(level);
+		BitmapLoader.trimMemory(level);
+	}
 }
@@ -1,20 +1,38 @@
 package mcore.edu.demoGuide.implementation;
 
 import m.client.android.library.core.bridge.InterfaceJavascript;
+import m.client.android.library.core.common.DataHandler;
+import m.client.android.library.core.common.LibDefinitions;
+import m.client.android.library.core.common.Parameters;
+import m.client.android.library.core.control.Controller;
+import m.client.android.library.core.utils.CommonLibUtil;
 import m.client.android.library.core.utils.PLog;
 import m.client.android.library.core.view.AbstractActivity;
 import mcore.edu.demoGuide.common.Const;
+import mcore.edu.demoGuide.manager.InterfaceManager;
+import mcore.edu.demoGuide.manager.JavascriptDispatcher;
 import mcore.edu.demoGuide.patternlock.activity.ConfirmPatternLayoutActivity;
 import mcore.edu.demoGuide.patternlock.activity.SetPatternLayoutActivity;
 import mcore.edu.demoGuide.patternlock.util.PatternLockUtils;
+import mcore.edu.demoGuide.patternlock.util.PreferenceUtils;
 import mcore.edu.demoGuide.pinlock.activity.PinActivity;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
 import android.content.Intent;
 import android.graphics.Bitmap;
 import android.os.Build;
 import android.view.KeyEvent;
+import android.webkit.JavascriptInterface;
 import android.webkit.WebView;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -37,6 +55,16 @@ import org.json.JSONObject;
 public class ExtendWNInterface extends InterfaceJavascript {
 	private static final String TAG = ExtendWNInterface.class.getSimpleName();
 
+	// 새 화면을 여는 브릿지 메서드 (PageLoadTimeline 이동 요청 기록)
+	private static final Set<String> NAVIGATION_METHODS = new HashSet<String>(Arrays.asList(
+			"wn2PageHtml", "wnMoveToWebOnNewAct", "wnRequestMoveToWeb", "wnRequestMoveToWebOnActivity"));
+
+	// exWNBulkBenchmark 최대 데이터 크기 (inline 은 같은 크기의 char[] 와 String 을 만든다.)
+	private static final int BULK_BENCHMARK_MAX_MB = 16;
+
+	// 페이지 로딩 시작 시각 (LocalAssetServer 페이지 로딩 시간 측정)
+	private long pageStartedNanos = 0;
+
 	/**
 	 * 아래 생성자 메서드는 반드시 포함되어야 한다. 
 	 * @param callerObject
@@ -54,6 +82,66 @@ public class ExtendWNInterface extends InterfaceJavascript {
 		// callerObject.startActivityForResult(newIntent,libactivities.ACTY_SECU_KEYBOARD);
 	}
 	
+	/**
+	 * 모든 M.execute 호출(exWN*, addon, plugin)이 거치는 공통 인터페이스
+	 * BridgeProfiler 에 메서드별 호출 수, 인자/결과 크기, 실행 시간을 기록한다.
+	 * PageLoadTimeline 에 페이지의 첫 브릿지 호출과 페이지 이동 요청을 기록한다.
+	 */
+	@JavascriptInterface
+	@Override
+	public synchronized String wnCommonInterface(String method, String param) throws Exception {
+		PageLoadTimeline timeline = PageLoadTimeline.getInstance();
+		timeline.mark(webView, PageLoadTimeline.FIRST_BRIDGE_CALL, null);
+		if (NAVIGATION_METHODS.contains(method))
+			timeline.markNavigation();
+
+		BridgeProfiler profiler = BridgeProfiler.getInstance();
+		if (!profiler.isEnabled())
+			return super.wnCommonInterface(method, param);
+
+		long start = System.nanoTime();
+		String result = null;
+		boolean error = true;
+		try {
+			result = super.wnCommonInterface(method, param);
+			error = false;
+			return result;
+		} finally {
+			profiler.recordCall(method, System.nanoTime() - start,
+					param == null ? 0 : param.length(), result == null ? 0 : result.length(), error);
+		}
+	}
+	
+	/**
+	 * WNSetVariable 로 저장된 값을 GlobalStateStore 구독 화면에 알린다.
+	 */
+	@JavascriptInterface
+	@Override
+	public void wnSetVariable(String key, String value) {
+		super.wnSetVariable(key, value);
+		GlobalStateStore.getInstance().onVariableSet(key, value);
+	}
+
+	/**
+	 * WNGetVariable 조회 수를 기록한다. (GlobalStateStore 구독으로 줄어든 조회 확인)
+	 */
+	@JavascriptInterface
+	@Override
+	public String wnGetVariable(String key) {
+		return GlobalStateStore.getInstance().getVariable(key);
+	}
+
+	/**
+	 * WNResetAllVariables 로 삭제된 값을 GlobalStateStore 구독 화면에 알린다.
+	 */
+	@JavascriptInterface
+	@Override
+	public String wnResetAllVariables() {
+		String result = super.wnResetAllVariables();
+		GlobalStateStore.getInstance().onVariablesReset();
+		return result;
+	}
+	
 	////////////////////////////////////////////////////////////////////////////////
 	// 사용자 정의 네이티브 확장 메서드 구현
 	
@@ -95,6 +183,11 @@ public class ExtendWNInterface extends InterfaceJavascript {
 	 */
 	public void onExtendPageStarted (WebView view, String url, Bitmap favicon) {
 		PLog.i("", ">>> 여기는 ExtendWNInterface onPageStarted입니다!!!");
+		// 이전 페이지에서 요청한 비동기 작업은 취소한다.
+		AsyncBridgeExecutor.getInstance().cancelAll(view);
+		GlobalStateStore.getInstance().unsubscribeAll(view);
+		RealtimeSubscriptionManager.getInstance().unsubscribeAll(view);
+		pageStartedNanos = System.nanoTime();
 	}
 	
 	/**
@@ -104,6 +197,10 @@ public class ExtendWNInterface extends InterfaceJavascript {
 	 */
 	public void onExtendPageFinished(WebView view, String url) {
 		PLog.i("", ">>> 여기는 ExtendWNInterface onPageFinished!!!");
+		if (pageStartedNanos != 0) {
+			LocalAssetServer.getInstance().recordPageLoad((System.nanoTime() - pageStartedNanos) / 1000000);
+			pageStartedNanos = 0;
+		}
 	}
 	
 	/**
@@ -142,6 +239,438 @@ public class ExtendWNInterface extends InterfaceJavascript {
 	}
 	*/
 
+	/***********************
+	 * 비동기 브릿지 메서드 (AsyncBridgeExecutor)
+	 ***********************/
+	// JS 에서는 exWNAsync.call("exWNxxx", params) 로 호출하며 Promise 를 리턴받는다.
+	// 네이티브 메서드는 (String jsonData, String callbackId) 를 받아 runAsync 로 작업을 넘기고 바로 리턴한다.
+	private void runAsync(String callbackId, String jsonData, AsyncBridgeExecutor.Task task) {
+		AsyncBridgeExecutor.getInstance().submit(webView, callbackId, jsonData, task);
+	}
+
+	// 사용 예 : exWNAsync.call("exWNTestReturnStringAsync", { "text" : "abc" }).then(function(result) { ... });
+	public void exWNTestReturnStringAsync(String jsonData, String callbackId) {
+		runAsync(callbackId, jsonData, new AsyncBridgeExecutor.Task() {
+			@Override
+			public Object run(JSONObject params, AsyncBridgeExecutor.CancellationToken token) throws Exception {
+				return exWNTestReturnString(params.optString("text"));
+			}
+		});
+	}
+
+	// 비동기 작업 취소 ("true" : 취소됨, "false" : 이미 완료되었거나 없는 작업)
+	public String exWNAsyncCancel(String callbackId) {
+		return String.valueOf(AsyncBridgeExecutor.getInstance().cancel(callbackId));
+	}
+
+	// 비동기 작업 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNAsyncMetrics(String reset) {
+		String metrics = AsyncBridgeExecutor.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			AsyncBridgeExecutor.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	/***********************
+	 * 소켓 실시간 데이터 구독
+	 ***********************/
+	// 실시간 데이터 구독, 구독 아이디를 리턴한다.
+	// jsonData : { "trCode" : "...", "data" : {...}, "callback" : "..." }
+	public int exWNRealtimeSubscribe(String jsonData) throws JSONException {
+		PLog.i(TAG, "exWNRealtimeSubscribe(String jsonData) = " + jsonData);
+		JSONObject jsonObj = new JSONObject(jsonData);
+		String callback = jsonObj.getString("callback");
+		String trCode = jsonObj.getString("trCode");
+		JSONObject data = jsonObj.optJSONObject("data");
+
+		// 구독은 이 WebView 에 묶이며 페이지 이동, 화면 종료시 해제된다.
+		return RealtimeSubscriptionManager.getInstance().subscribe(webView, trCode,
+				data == null ? null : new DataHandler(data), callback);
+	}
+
+	// 실시간 데이터 구독 해제
+	public void exWNRealtimeUnsubscribe(String subscriptionId) {
+		PLog.i(TAG, "exWNRealtimeUnsubscribe(String subscriptionId) = " + subscriptionId);
+		RealtimeSubscriptionManager.getInstance().unsubscribe(Integer.parseInt(subscriptionId));
+	}
+
+	// 실시간 채널 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNRealtimeMetrics(String reset) {
+		String metrics = RealtimeSubscriptionManager.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			RealtimeSubscriptionManager.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	// 네이티브 -> JS 콜백 배치 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNJavascriptDispatchMetrics(String reset) {
+		String metrics = JavascriptDispatcher.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			JavascriptDispatcher.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	/***********************
+	 * 대용량 데이터 전달 (BulkPayloadChannel)
+	 ***********************/
+	// 파일을 복사 없이 URL 핸들로 전달한다. (Lollipop 미만, 허용되지 않은 경로는 null 리턴)
+	// 허용된 디렉토리(BulkPayloadChannel.allowDirectory)의 파일만 전달할 수 있다.
+	// jsonData : { "path" : "...", "mimeType" : "...", "reusable" : false }
+	// return : { "handle" : "...", "url" : "...", "size" : 0, "mimeType" : "..." }
+	public String exWNBulkStageFile(String jsonData) throws JSONException {
+		PLog.i(TAG, "exWNBulkStageFile(String jsonData) = " + jsonData);
+		if (!BulkPayloadChannel.isSupported())
+			return null;
+		JSONObject jsonObj = new JSONObject(jsonData);
+		try {
+			return BulkPayloadChannel.getInstance().stageAllowedFile(new File(jsonObj.getString("path")),
+					jsonObj.optString("mimeType", "application/octet-stream"), jsonObj.optBoolean("reusable")).toString();
+		} catch (IOException e) {
+			PLog.printTrace(e);
+			return null;
+		}
+	}
+
+	// 핸들 해제 (reusable 핸들 또는 읽지 않을 핸들)
+	public void exWNBulkRelease(String handle) {
+		BulkPayloadChannel.getInstance().release(handle);
+	}
+
+	// 대용량 전달 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNBulkMetrics(String reset) {
+		String metrics = BulkPayloadChannel.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			BulkPayloadChannel.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	// 기존 방식(inline 문자열)과 BulkPayloadChannel 전송 비교용 테스트 데이터
+	// jsonData : { "sizeMb" : 1, "mode" : "inline" | "bulk", "callback" : "..." } (sizeMb 는 1 ~ BULK_BENCHMARK_MAX_MB)
+	// callback(mode, payload) : inline 이면 payload 는 문자열, bulk 이면 핸들 정보
+	// 전송 시간은 JS 에서 호출 전후로 측정한다.
+	public void exWNBulkBenchmark(String jsonData) throws JSONException {
+		PLog.i(TAG, "exWNBulkBenchmark(String jsonData) = " + jsonData);
+		JSONObject jsonObj = new JSONObject(jsonData);
+		final int sizeMb = Math.max(1, Math.min(BULK_BENCHMARK_MAX_MB, jsonObj.optInt("sizeMb", 1)));
+		final String mode = jsonObj.optString("mode", "bulk");
+		final String callback = jsonObj.getString("callback");
+
+		new Thread() {
+			public void run() {
+				try {
+					final int size = sizeMb * 1024 * 1024;
+					if ("inline".equals(mode)) {
+						char[] chars = new char[size];
+						for (int i = 0; i < chars.length; i++) {
+							chars[i] = (char) ('a' + i % 26);
+						}
+						InterfaceManager.getInstance().loadUrl(callerObject, callback, mode, new String(chars));
+					} else if (BulkPayloadChannel.isSupported()) {
+						// 파일로 바로 저장한다. (문자열을 만들지 않는다.)
+						InputStream pattern = new InputStream() {
+							private int position = 0;
+
+							@Override
+							public int read() {
+								return position < size ? 'a' + position++ % 26 : -1;
+							}
+
+							@Override
+							public int read(byte[] buffer, int offset, int count) {
+								if (position >= size)
+									return -1;
+								int n = Math.min(count, size - position);
+								for (int i = 0; i < n; i++) {
+									buffer[offset + i] = (byte) ('a' + position++ % 26);
+								}
+								return n;
+							}
+						};
+						JSONObject handle = BulkPayloadChannel.getInstance().stage(pattern, "text/plain", false);
+						InterfaceManager.getInstance().loadUrl(callerObject, callback, mode, handle);
+					}
+				} catch (Exception e) {
+					PLog.e(TAG, "exWNBulkBenchmark failed : " + e);
+				}
+			}
+		}.start();
+	}
+
+	/***********************
+	 * 브릿지 호출 프로파일 (BridgeProfiler)
+	 ***********************/
+	// 메서드별 호출/콜백 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNBridgeProfile(String reset) {
+		String snapshot = BridgeProfiler.getInstance().snapshot().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			BridgeProfiler.getInstance().reset();
+		return snapshot;
+	}
+
+	// 프로파일 기록 사용 여부 ("Y" / "N")
+	public void exWNBridgeProfileEnable(String enable) {
+		BridgeProfiler.getInstance().setEnabled("Y".equalsIgnoreCase(enable));
+	}
+
+	/***********************
+	 * 정적 리소스 캐시 (LocalAssetServer)
+	 ***********************/
+	// 캐시 통계와 페이지 로딩 시간 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNAssetCacheMetrics(String reset) {
+		String metrics = LocalAssetServer.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			LocalAssetServer.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	// 캐시 사용 여부 ("Y" / "N"), 사용 전후 페이지 로딩 시간 비교용
+	public void exWNAssetCacheEnable(String enable) {
+		LocalAssetServer.getInstance().setEnabled("Y".equalsIgnoreCase(enable));
+	}
+
+	// www 번들 재생성 (리소스 업데이트 후), callback(result) : "SUCCESS" / "FAIL"
+	public void exWNAssetBundleRebuild(final String callback) {
+		new Thread() {
+			public void run() {
+				String result = "SUCCESS";
+				try {
+					LocalAssetServer.getInstance().prepareBundle(true);
+				} catch (IOException e) {
+					PLog.printTrace(e);
+					result = "FAIL";
+				}
+				if (callback != null && callback.length() > 0)
+					InterfaceManager.getInstance().loadUrl(callerObject, callback, result);
+			}
+		}.start();
+	}
+
+	/***********************
+	 * 페이지 로딩 타임라인 (PageLoadTimeline)
+	 ***********************/
+	// 페이지별 단계 백분위와 최근 타임라인 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNPageTimeline(String reset) {
+		String snapshot = PageLoadTimeline.getInstance().snapshot().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			PageLoadTimeline.getInstance().reset();
+		return snapshot;
+	}
+
+	/***********************
+	 * 다음 페이지 예측 (PagePrefetcher)
+	 ***********************/
+	// 예측 통계와 페이지 이동 기록
+	public String exWNPagePrefetchMetrics() {
+		return PagePrefetcher.getInstance().getMetrics().toString();
+	}
+
+	// 페이지 이동 기록 삭제
+	public void exWNPagePrefetchClear() {
+		PagePrefetcher.getInstance().clear();
+	}
+
+	/***********************
+	 * 스크립트 웜업 (CodeCacheWarmup)
+	 ***********************/
+	// 웜업 여부에 따른 첫 페이지 로딩 시간 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNCodeCacheWarmupMetrics(String reset) {
+		String metrics = CodeCacheWarmup.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			CodeCacheWarmup.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	// 웜업 사용 여부 ("Y" / "N"), 다음 실행부터 적용
+	public void exWNCodeCacheWarmupEnable(String enable) {
+		CodeCacheWarmup.getInstance().setEnabled("Y".equalsIgnoreCase(enable));
+	}
+
+	/***********************
+	 * WebView 풀 (WebViewPool)
+	 ***********************/
+	// 풀 통계
+	public String exWNWebViewPoolMetrics() {
+		return WebViewPool.getInstance().getMetrics().toString();
+	}
+
+	/***********************
+	 * 이미지 디코딩 캐시 (BitmapLoader)
+	 ***********************/
+	// 캐시 적중, 디코딩 시간과 크기
+	public String exWNBitmapLoaderMetrics() {
+		return BitmapLoader.getInstance().getMetrics().toString();
+	}
+
+	/***********************
+	 * 네이티브 리스트 프레임 시간 (FrameTimeMonitor)
+	 ***********************/
+	// 네이티브 리스트 스크롤 프레임 시간, ViewHolder 재사용 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNNativeListMetrics(String reset) {
+		String metrics = FrameTimeMonitor.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			FrameTimeMonitor.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	// 네이티브 리스트 화면을 열어 rows 개의 행을 끝까지 스크롤하며 프레임 시간을 측정한다. 결과는 exWNNativeListMetrics 로 조회한다.
+	// jsonData : { "rows" : 10000 }
+	public void exWNNativeListBenchmark(String jsonData) throws JSONException {
+		PLog.i(TAG, "exWNNativeListBenchmark(String jsonData) = " + jsonData);
+		JSONObject jsonObj = new JSONObject(jsonData);
+		Parameters pubParams = new Parameters();
+		pubParams.putParam("action", "BENCHMARK");
+		pubParams.putParam("rows", String.valueOf(jsonObj.optInt("rows", 10000)));
+		pubParams.putParam("ORIENT_TYPE", "DEFAULT");
+		Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_CUSTOM,
+				CommonLibUtil.getActionType("NEW_SCR"), callerObject, "SLIDE_LEFT", pubParams, "SampleNativeListActivity");
+	}
+
+	/***********************
+	 * 메모리 매핑 저장소 (MappedPreferences)
+	 ***********************/
+	// PreferenceUtils 저장소 상태
+	public String exWNKeyValueMetrics() {
+		return PreferenceUtils.getPreferences(callerObject).getMetrics().toString();
+	}
+
+	// SharedPreferences 와 비교
+	// jsonData : { "keys" : [1000, 10000], "callback" : "..." }
+	// callback(result) : [ { "keys", "sharedPreferences" : { putAvgUs, getAvgUs, commitOneMs, loadMs, ... }, "mapped" : { ... } } ]
+	public void exWNKeyValueBenchmark(String jsonData) throws JSONException {
+		PLog.i(TAG, "exWNKeyValueBenchmark(String jsonData) = " + jsonData);
+		JSONObject jsonObj = new JSONObject(jsonData);
+		final JSONArray keys = jsonObj.optJSONArray("keys") != null ? jsonObj.optJSONArray("keys") : new JSONArray().put(1000).put(10000);
+		final String callback = jsonObj.getString("callback");
+
+		new Thread() {
+			public void run() {
+				try {
+					JSONArray results = new JSONArray();
+					for (int i = 0; i < keys.length(); i++) {
+						results.put(MappedPreferences.benchmark(callerObject, keys.getInt(i)));
+					}
+					InterfaceManager.getInstance().loadUrl(callerObject, callback, results.toString());
+				} catch (Throwable e) {
+					PLog.e(TAG, "exWNKeyValueBenchmark failed : " + e);
+				}
+			}
+		}.start();
+	}
+
+	/***********************
+	 * 전역 변수 구독 (GlobalStateStore)
+	 ***********************/
+	// 전역 변수 저장 (타입 유지)
+	// jsonData : { "key" : "...", "value" : ..., "persist" : false } 또는 여러 개 { "values" : { key : value, ... }, "persist" : false }
+	public void exWNStateSet(String jsonData) throws JSONException {
+		JSONObject jsonObj = new JSONObject(jsonData);
+		boolean persist = jsonObj.optBoolean("persist", false);
+		GlobalStateStore store = GlobalStateStore.getInstance();
+		JSONObject values = jsonObj.optJSONObject("values");
+		if (values != null) {
+			Iterator<?> keys = values.keys();
+			while (keys.hasNext()) {
+				String key = (String) keys.next();
+				store.set(key, values.get(key), persist);
+			}
+		} else {
+			store.set(jsonObj.getString("key"), jsonObj.opt("value"), persist);
+		}
+	}
+
+	// 전역 변수 조회, 여러 키를 한 번에 조회한다. (keys 가 없으면 전체)
+	// jsonData : { "keys" : ["user_id", ...] }
+	public String exWNStateGet(String jsonData) throws JSONException {
+		JSONArray keys = jsonData == null || jsonData.length() == 0 ? null : new JSONObject(jsonData).optJSONArray("keys");
+		GlobalStateStore store = GlobalStateStore.getInstance();
+		if (keys == null)
+			return store.getValues().toString();
+		JSONObject result = new JSONObject();
+		for (int i = 0; i < keys.length(); i++) {
+			String key = keys.getString(i);
+			Object value = store.get(key);
+			result.put(key, value == null ? JSONObject.NULL : value);
+		}
+		return result.toString();
+	}
+
+	// 전역 변수 변경 구독, 구독 아이디를 리턴한다. 페이지가 바뀌면 해제된다.
+	// jsonData : { "keys" : ["user_id", "cart.*"], "callback" : "..." }
+	// callback(subscriptionId, changes, version) : 바뀐 값을 모아서 { key : value, ... } 로 전달 (삭제된 키는 null)
+	public int exWNStateSubscribe(String jsonData) throws JSONException {
+		PLog.i(TAG, "exWNStateSubscribe(String jsonData) = " + jsonData);
+		JSONObject jsonObj = new JSONObject(jsonData);
+		JSONArray keyArray = jsonObj.optJSONArray("keys");
+		String[] keys = new String[keyArray == null ? 0 : keyArray.length()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = keyArray.getString(i);
+		}
+		return GlobalStateStore.getInstance().subscribe(webView, keys, jsonObj.getString("callback"));
+	}
+
+	// 전역 변수 구독 해제
+	public void exWNStateUnsubscribe(String subscriptionId) {
+		GlobalStateStore.getInstance().unsubscribe(Integer.parseInt(subscriptionId));
+	}
+
+	// 전역 변수 통계 (reset 이 "Y" 이면 조회 후 초기화)
+	public String exWNStateMetrics(String reset) {
+		String metrics = GlobalStateStore.getInstance().getMetrics().toString();
+		if ("Y".equalsIgnoreCase(reset))
+			GlobalStateStore.getInstance().resetMetrics();
+		return metrics;
+	}
+
+	/***********************
+	 * 리소스 구간 업데이트 (ResourceDeltaUpdater)
+	 ***********************/
+	// 마지막 리소스 패키지 다운로드 통계 (download : 구간 병렬 다운로드)
+	public String exWNResourceUpdateMetrics() throws JSONException {
+		JSONObject metrics = ResourceDeltaUpdater.getInstance().getMetrics();
+		metrics.put("download", ParallelRangeDownloader.getMetrics());
+		return metrics.toString();
+	}
+
+	// 재사용할 이전 패키지를 지운다. (다음 업데이트는 패키지 전체를 받는다.)
+	public void exWNResourceUpdateClearBase() {
+		ResourceDeltaUpdater.getInstance().clear();
+	}
+
+	/***********************
+	 * 앱 구동 (StartupOrchestrator)
+	 ***********************/
+	// 구동 컴포넌트별 시간 (plugins : 첫 호출까지 미룬 플러그인)
+	public String exWNStartupMetrics() throws JSONException {
+		JSONObject metrics = StartupOrchestrator.getInstance().getMetrics();
+		metrics.put("plugins", LazyPluginLoader.getInstance().getMetrics());
+		return metrics.toString();
+	}
+
+	/***********************
+	 * 구동 시간 추적 (StartupTrace)
+	 ***********************/
+	// 마지막 구동 기록 (Chrome trace-event JSON, chrome://tracing 에서 열 수 있다.)
+	public String exWNStartupTrace() {
+		return StartupTrace.getInstance().getLastTrace();
+	}
+
+	// 구동별 요약과 cold 구동 백분위 (clear 가 "Y" 이면 조회 후 삭제)
+	public String exWNStartupLaunches(String clear) {
+		String launches = StartupTrace.getInstance().getLaunches().toString();
+		if ("Y".equalsIgnoreCase(clear))
+			StartupTrace.getInstance().clear();
+		return launches;
+	}
+
+	// 구동 목표 시간 (ms), 넘으면 요약에 overBudget 으로 표시되고 경고 로그를 남긴다.
+	public void exWNStartupBudget(String budgetMs) {
+		try {
+			StartupTrace.getInstance().setBudgetMs(Long.parseLong(budgetMs.trim()));
+		} catch (NumberFormatException e) {
+			PLog.e(TAG, "exWNStartupBudget invalid budget : " + budgetMs);
+		}
+	}
+
 	/***********************
 	 * 간편인증 (패턴, 핀)
 	 ***********************/
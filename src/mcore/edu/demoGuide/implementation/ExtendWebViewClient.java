@@ -0,0 +1,131 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import m.client.android.library.core.customview.MPWebView;
+import m.client.android.library.core.managers.WNCallBackClient;
+import m.client.android.library.core.utils.PLog;
+import m.client.android.library.core.view.MainActivity;
+
+import android.annotation.TargetApi;
+import android.net.Uri;
+import android.os.Build;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+/**
+ * ExtendWebViewClient Class
+ *
+ * 모피어스 WNCallBackClient 에 요청 가로채기(shouldInterceptRequest) 확장 지점을 추가한다. <br/>
+ *
+ * 등록된 RequestInterceptor 를 순서대로 호출하여 처음으로 응답을 돌려준 interceptor 의 응답을 사용하고,
+ * 모두 null 을 리턴하면 기존 모피어스 처리(로컬 파일 등)로 넘긴다.
+ * BaseActivity.setWebView() 에서 WebView 생성 직후 설치된다.
+ */
+public class ExtendWebViewClient extends WNCallBackClient {
+
+	private static final String CLASS_TAG = "EXTEND_WEBVIEW_CLIENT";
+
+	/**
+	 * 요청 가로채기 인터페이스
+	 * WebView 의 리소스 로딩 스레드에서 호출된다.
+	 */
+	public interface RequestInterceptor {
+		/**
+		 * @param view 요청한 WebView
+		 * @param uri 요청 URL
+		 * @return 처리하지 않는 요청이면 null
+		 */
+		WebResourceResponse intercept(WebView view, Uri uri);
+	}
+
+	private static final CopyOnWriteArrayList<RequestInterceptor> interceptors = new CopyOnWriteArrayList<RequestInterceptor>();
+
+	public ExtendWebViewClient(MPWebView webView, MainActivity callerObject, Object extWNInterface, boolean isExceptforSsl) {
+		super(webView, callerObject, extWNInterface, isExceptforSsl);
+	}
+
+	/**
+	 * 모피어스가 설정한 WebViewClient 를 ExtendWebViewClient 로 교체한다.
+	 * @param activity WebView 를 가진 화면
+	 * @param webView MainActivity.setWebView() 로 생성된 WebView
+	 * @param isExceptforSsl SSL 인증서 오류 무시 여부 (모피어스 설정과 동일한 값)
+	 */
+	public static void install(MainActivity activity, MPWebView webView, boolean isExceptforSsl) {
+		Object extWNInterface = webView.getWNInterfaceManager() == null ? null : webView.getWNInterfaceManager().getInterfaceJS();
+		webView.setWebViewClient(new ExtendWebViewClient(webView, activity, extWNInterface, isExceptforSsl));
+	}
+
+	public static void addInterceptor(RequestInterceptor interceptor) {
+		interceptors.addIfAbsent(interceptor);
+	}
+
+	public static void removeInterceptor(RequestInterceptor interceptor) {
+		interceptors.remove(interceptor);
+	}
+
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	@Override
+	public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+		if ("GET".equalsIgnoreCase(request.getMethod())) {
+			WebResourceResponse response = dispatch(view, request.getUrl());
+			if (response != null)
+				return response;
+		}
+		return super.shouldInterceptRequest(view, request);
+	}
+
+	@Override
+	public WebResourceResponse shouldInterceptRequest(WebView view, String url) {
+		WebResourceResponse response = dispatch(view, Uri.parse(url));
+		if (response != null)
+			return response;
+		return super.shouldInterceptRequest(view, url);
+	}
+
+	private WebResourceResponse dispatch(WebView view, Uri uri) {
+		if (interceptors.isEmpty())
+			return null;
+
+		for (RequestInterceptor interceptor : interceptors) {
+			try {
+				WebResourceResponse response = interceptor.intercept(view, uri);
+				if (response != null)
+					return response;
+			} catch (Exception e) {
+				PLog.printTrace(e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 응답 생성
+	 * 응답 헤더는 Lollipop 이상에서만 설정할 수 있으며, 그 미만에서는 무시된다.
+	 */
+	public static WebResourceResponse newResponse(String mimeType, String encoding, InputStream data, Map<String, String> headers) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && headers != null) {
+			return newResponseWithHeaders(mimeType, encoding, 200, "OK", data, headers);
+		}
+		return new WebResourceResponse(mimeType, encoding, data);
+	}
+
+	/**
+	 * 상태 코드를 지정한 응답 (Lollipop 미만에서는 null)
+	 */
+	public static WebResourceResponse newResponse(String mimeType, String encoding, int statusCode, String reasonPhrase, InputStream data, Map<String, String> headers) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			return newResponseWithHeaders(mimeType, encoding, statusCode, reasonPhrase, data, headers);
+		}
+		PLog.w(CLASS_TAG, "// status response is not supported. status[" + statusCode + "]");
+		return null;
+	}
+
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	private static WebResourceResponse newResponseWithHeaders(String mimeType, String encoding, int statusCode, String reasonPhrase, InputStream data, Map<String, String> headers) {
+		return new WebResourceResponse(mimeType, encoding, statusCode, reasonPhrase, headers, data);
+	}
+}
@@ -0,0 +1,285 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import m.client.android.library.core.utils.PLog;
+import mcore.edu.demoGuide.samples.utils.RecyclerListAdapter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * FrameTimeMonitor Class
+ *
+ * 네이티브 리스트(RecyclerView)가 스크롤되는 동안 프레임 간격(Choreographer)을 기록한다. <br/>
+ *
+ * - 스크롤이 시작되면(DRAGGING, SETTLING) 기록을 시작하고 멈추면(IDLE) 끝낸다. <br/>
+ * - 화면 주사율 기준 한 프레임의 1.5 배를 넘는 간격은 jank 로, 놓친 프레임 수는 dropped 로 집계한다. <br/>
+ * - benchmark() 는 리스트 끝까지 프레임마다 같은 거리만큼 스크롤하며 기록한다. <br/>
+ *
+ * Choreographer 를 사용할 수 없는 단말(API 16 미만)에서는 기록하지 않는다.
+ * 웹에서는 exWNNativeListMetrics 로 조회한다.
+ */
+public class FrameTimeMonitor {
+
+	private final String CLASS_TAG = "FRAME_TIME_MONITOR";
+
+	/** 리스트별로 보관하는 최근 프레임 간격 수 */
+	private static final int MAX_SAMPLES = 20000;
+
+	private static FrameTimeMonitor instance;
+
+	/**
+	 * 스크롤 벤치마크 종료 (메인 스레드에서 호출된다.)
+	 */
+	public interface BenchmarkCallback {
+		void onFinished(JSONObject metrics);
+	}
+
+	/**
+	 * 리스트 하나의 프레임 기록
+	 */
+	private class Session {
+		final String name;
+		final WeakReference<RecyclerView> view;
+		final long frameBudgetNanos;
+		// 프레임 간격 (us, 최근 MAX_SAMPLES 개)
+		final int[] samples = new int[MAX_SAMPLES];
+		int sampleCount = 0;
+		long frames = 0;
+		long totalNanos = 0;
+		long jankFrames = 0;
+		long droppedFrames = 0;
+		long scrollPx = 0;
+		boolean recording = false;
+		// 다시 시작할 때 프레임 콜백이 두 번 등록되지 않도록 한다.
+		boolean framePosted = false;
+		long lastFrameNanos = 0;
+		Object frameCallback;
+
+		Session(String name, RecyclerView view, long frameBudgetNanos) {
+			this.name = name;
+			this.view = new WeakReference<RecyclerView>(view);
+			this.frameBudgetNanos = frameBudgetNanos;
+		}
+
+		void record(long intervalNanos) {
+			frames++;
+			totalNanos += intervalNanos;
+			if (intervalNanos > frameBudgetNanos * 3 / 2)
+				jankFrames++;
+			droppedFrames += Math.max(0, Math.round((double) intervalNanos / frameBudgetNanos) - 1);
+			samples[sampleCount % MAX_SAMPLES] = (int) Math.min(Integer.MAX_VALUE, intervalNanos / 1000);
+			sampleCount++;
+		}
+
+		JSONObject toJson() throws JSONException {
+			JSONObject obj = new JSONObject();
+			int count = Math.min(sampleCount, MAX_SAMPLES);
+			int[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			obj.put("frames", frames);
+			obj.put("frameBudgetMs", frameBudgetNanos / 1000000.0);
+			obj.put("avgMs", frames == 0 ? 0 : (totalNanos / frames) / 1000000.0);
+			obj.put("p50Ms", percentile(sorted, 50));
+			obj.put("p90Ms", percentile(sorted, 90));
+			obj.put("p99Ms", percentile(sorted, 99));
+			obj.put("maxMs", count == 0 ? 0 : sorted[count - 1] / 1000.0);
+			obj.put("jankFrames", jankFrames);
+			obj.put("droppedFrames", droppedFrames);
+			obj.put("scrollPx", scrollPx);
+			RecyclerView recyclerView = view.get();
+			if (recyclerView != null && recyclerView.getAdapter() instanceof RecyclerListAdapter)
+				obj.put("adapter", ((RecyclerListAdapter<?>) recyclerView.getAdapter()).getMetrics());
+			return obj;
+		}
+	}
+
+	private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<String, Session>();
+
+	public static synchronized FrameTimeMonitor getInstance() {
+		if (instance == null) {
+			instance = new FrameTimeMonitor();
+		}
+		return instance;
+	}
+
+	private FrameTimeMonitor() {
+	}
+
+	/**
+	 * 리스트의 스크롤 프레임 기록을 시작한다. 같은 이름의 이전 기록은 대신한다. 메인 스레드에서 호출한다.
+	 * @param name 리스트 이름 (화면 이름 등)
+	 * @param view 리스트
+	 */
+	public void attach(String name, RecyclerView view) {
+		final Session session = new Session(name, view, frameBudgetNanos(view.getContext()));
+		synchronized (this) {
+			sessions.put(name, session);
+		}
+		view.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+				if (newState == RecyclerView.SCROLL_STATE_IDLE)
+					stop(session);
+				else
+					start(session);
+			}
+
+			@Override
+			public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+				synchronized (FrameTimeMonitor.this) {
+					session.scrollPx += Math.abs(dy) + Math.abs(dx);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 리스트 끝까지 프레임마다 pxPerFrame 만큼 스크롤하면서 프레임 간격을 기록한다. (attach 된 리스트)
+	 * @param name attach 한 리스트 이름
+	 * @param pxPerFrame 프레임당 스크롤 거리 (px)
+	 * @param callback 종료시 해당 리스트의 기록
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void benchmark(String name, final int pxPerFrame, final BenchmarkCallback callback) {
+		final Session session;
+		synchronized (this) {
+			session = sessions.get(name);
+		}
+		final RecyclerView view = session == null ? null : session.view.get();
+		if (view == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			PLog.w(CLASS_TAG, "// benchmark not available : " + name);
+			if (callback != null)
+				callback.onFinished(getMetrics(name));
+			return;
+		}
+		start(session);
+		view.post(new Runnable() {
+			@Override
+			public void run() {
+				if (view.canScrollVertically(1) && session.recording) {
+					view.scrollBy(0, pxPerFrame);
+					view.postOnAnimation(this);
+					return;
+				}
+				stop(session);
+				if (callback != null)
+					callback.onFinished(getMetrics(session.name));
+			}
+		});
+	}
+
+	private void start(Session session) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN)
+			return;
+		synchronized (this) {
+			if (session.recording)
+				return;
+			session.recording = true;
+			session.lastFrameNanos = 0;
+			if (session.framePosted)
+				return;
+			session.framePosted = true;
+		}
+		postFrameCallback(session);
+	}
+
+	private void stop(Session session) {
+		synchronized (this) {
+			if (!session.recording)
+				return;
+			session.recording = false;
+		}
+		PLog.i(CLASS_TAG, "// " + session.name + " " + getMetrics(session.name));
+	}
+
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private void postFrameCallback(final Session session) {
+		if (session.frameCallback == null) {
+			session.frameCallback = new Choreographer.FrameCallback() {
+				@Override
+				public void doFrame(long frameTimeNanos) {
+					synchronized (FrameTimeMonitor.this) {
+						if (!session.recording) {
+							session.framePosted = false;
+							return;
+						}
+						if (session.lastFrameNanos != 0)
+							session.record(frameTimeNanos - session.lastFrameNanos);
+						session.lastFrameNanos = frameTimeNanos;
+					}
+					Choreographer.getInstance().postFrameCallback(this);
+				}
+			};
+		}
+		Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) session.frameCallback);
+	}
+
+	private static long frameBudgetNanos(Context context) {
+		float refreshRate = 60f;
+		WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		if (wm != null && wm.getDefaultDisplay() != null && wm.getDefaultDisplay().getRefreshRate() >= 10f)
+			refreshRate = wm.getDefaultDisplay().getRefreshRate();
+		return (long) (1000000000L / refreshRate);
+	}
+
+	private static double percentile(int[] sorted, int percent) {
+		if (sorted.length == 0)
+			return 0;
+		int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percent / 100.0) - 1);
+		return sorted[Math.max(0, index)] / 1000.0;
+	}
+
+	/**
+	 * 리스트 하나의 기록
+	 * frames : 기록한 프레임 수, avgMs/p50Ms/p90Ms/p99Ms/maxMs : 프레임 간격, jankFrames : 1.5 프레임을 넘긴 수, droppedFrames : 놓친 프레임 수
+	 * adapter : RecyclerListAdapter 의 ViewHolder 생성, bind, diff 통계
+	 */
+	public synchronized JSONObject getMetrics(String name) {
+		Session session = sessions.get(name);
+		try {
+			return session == null ? new JSONObject() : session.toJson();
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+			return new JSONObject();
+		}
+	}
+
+	/**
+	 * 모든 리스트의 기록
+	 */
+	public synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+				metrics.put(entry.getKey(), entry.getValue().toJson());
+			}
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public synchronized void resetMetrics() {
+		for (Session session : sessions.values()) {
+			session.sampleCount = 0;
+			session.frames = 0;
+			session.totalNanos = 0;
+			session.jankFrames = 0;
+			session.droppedFrames = 0;
+			session.scrollPx = 0;
+		}
+	}
+}
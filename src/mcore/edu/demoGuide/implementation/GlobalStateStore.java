@@ -0,0 +1,495 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+import mcore.edu.demoGuide.manager.JavascriptDispatcher;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.webkit.WebView;
+
+/**
+ * GlobalStateStore Class
+ *
+ * 화면(웹, 네이티브)끼리 공유하는 전역 변수(WNSetVariable, WNGetVariable)를 타입을 유지한 채 메모리에 보관하고,
+ * 값이 바뀌면 구독한 화면에 알린다. 웹 화면이 WNGetVariable 로 값을 반복 조회하지 않아도 된다. <br/>
+ *
+ * - 값 : String, Number, Boolean, JSONObject, JSONArray. 라이브러리 전역 변수에도 문자열로 같이 저장하므로 기존 WNGetVariable 은 그대로 동작한다. <br/>
+ * - 웹에서 WNSetVariable 로 바꾼 값도 알린다. (ExtendWNInterface.wnSetVariable) <br/>
+ * - 라이브러리 전역 변수가 직접(CommonLibHandler.setVariable) 바뀌어 보관한 값과 다르면 조회할 때 라이브러리 값으로 맞춘다. <br/>
+ * - 구독별로 바뀐 값을 모아 두었다가 메인 스레드에서 한 번에 { key : value, ... } 로 전달한다. 삭제된 키는 null 이다. <br/>
+ * - persist 로 저장한 키는 MappedPreferences 에 같이 저장되어 프로세스가 종료된 후에도 복원된다. <br/>
+ *
+ * 웹 화면의 구독은 페이지가 바뀌면 해제된다. (ExtendWNInterface.onExtendPageStarted)
+ */
+public class GlobalStateStore {
+
+	private final String CLASS_TAG = "GLOBAL_STATE_STORE";
+
+	/** 프로세스 종료 후 복원할 값을 저장하는 MappedPreferences 이름 */
+	private static final String SNAPSHOT_NAME = "global_state";
+
+	private static GlobalStateStore instance;
+
+	/**
+	 * 값 변경 리스너
+	 * 메인 스레드에서 호출된다.
+	 */
+	public interface StateListener {
+		/**
+		 * @param subscriptionId 구독 아이디
+		 * @param changes 바뀐 키와 값 (삭제된 키는 JSONObject.NULL)
+		 * @param version 마지막 변경 번호
+		 */
+		void onStateChanged(int subscriptionId, JSONObject changes, long version);
+	}
+
+	private static class Subscription {
+		final int id;
+		final String[] keys;
+		final StateListener listener;
+		// 웹 화면 구독 (페이지가 바뀌면 해제)
+		final WeakReference<WebView> webView;
+		// 전달 대기 중인 값 (같은 키는 마지막 값만 전달한다.)
+		LinkedHashMap<String, Object> pending = new LinkedHashMap<String, Object>();
+
+		Subscription(int id, String[] keys, StateListener listener, WebView webView) {
+			this.id = id;
+			this.keys = keys;
+			this.listener = listener;
+			this.webView = webView == null ? null : new WeakReference<WebView>(webView);
+		}
+
+		/**
+		 * 키 목록이 비어 있거나 "*" 이면 모든 키, "user.*" 처럼 끝이 * 이면 앞부분이 같은 키
+		 */
+		boolean matches(String key) {
+			if (keys.length == 0)
+				return true;
+			for (String pattern : keys) {
+				if (pattern.endsWith("*") ? key.startsWith(pattern.substring(0, pattern.length() - 1)) : pattern.equals(key))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<String, Object>();
+	private final LinkedHashMap<Integer, Subscription> subscriptions = new LinkedHashMap<Integer, Subscription>();
+	private final AtomicInteger subscriptionSeq = new AtomicInteger();
+	private final AtomicLong version = new AtomicLong();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final Context context;
+	private MappedPreferences snapshot;
+	private volatile boolean restored = false;
+	private boolean flushScheduled = false;
+
+	// Metrics
+	private final AtomicLong setCount = new AtomicLong();
+	private final AtomicLong getCount = new AtomicLong();
+	private final AtomicLong queuedCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong callbackCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong staleCount = new AtomicLong();
+	private long restoreMs = -1;
+	private int restoredKeys = 0;
+
+	public static synchronized GlobalStateStore getInstance() {
+		if (instance == null) {
+			instance = new GlobalStateStore(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	private GlobalStateStore(Context context) {
+		this.context = context;
+	}
+
+	/**
+	 * persist 로 저장된 값을 복원하여 라이브러리 전역 변수에도 넣는다. 한 번만 실행된다.
+	 * 앱 구동시 백그라운드에서 호출되며(Startup), 그 전에 값을 조회하면 조회하는 스레드에서 복원한다.
+	 */
+	public void restore() {
+		if (restored)
+			return;
+		synchronized (this) {
+			if (restored)
+				return;
+			long start = System.currentTimeMillis();
+			snapshot = MappedPreferences.getInstance(context, SNAPSHOT_NAME);
+			for (Map.Entry<String, ?> entry : snapshot.getAll().entrySet()) {
+				Object value = decode(entry.getValue());
+				// 복원 전에 저장된 값이 있으면 그 값을 유지한다.
+				if (value == null || values.containsKey(entry.getKey()))
+					continue;
+				values.put(entry.getKey(), value);
+				CommonLibHandler.getInstance().setVariable(entry.getKey(), toVariableString(value));
+				restoredKeys++;
+			}
+			restoreMs = System.currentTimeMillis() - start;
+			restored = true;
+			PLog.i(CLASS_TAG, "// restored " + restoredKeys + " keys in " + restoreMs + "ms");
+		}
+	}
+
+	/**
+	 * 값 조회
+	 * @return 값, 없거나 라이브러리 전역 변수와 다르면 라이브러리 전역 변수(문자열), 둘 다 없으면 null
+	 */
+	public Object get(String key) {
+		restore();
+		getCount.incrementAndGet();
+		return current(key);
+	}
+
+	/**
+	 * 보관한 값이 라이브러리 전역 변수와 같으면 보관한 값을, 다르면 라이브러리 값을 돌려준다.
+	 * 다른 경우 보관한 값을 버리고 라이브러리 값으로 맞춘 후 구독한 화면에 알린다.
+	 */
+	private Object current(String key) {
+		Object value = values.get(key);
+		String variable = CommonLibHandler.getInstance().getVariable(key);
+		if (value == null || toVariableString(value).equals(variable))
+			return value != null ? value : variable;
+		// 그 사이에 set 으로 바뀌었으면 그 값이 라이브러리에도 저장되어 있다.
+		if (!values.remove(key, value))
+			return variable;
+
+		staleCount.incrementAndGet();
+		PLog.w(CLASS_TAG, "// " + key + " was changed outside the store. using the library value.");
+		if (variable == null) {
+			if (snapshot.contains(key))
+				snapshot.edit().remove(key).apply();
+			publish(key, JSONObject.NULL);
+		} else {
+			update(key, variable, false);
+		}
+		return variable;
+	}
+
+	/**
+	 * 웹의 WNGetVariable 조회 (라이브러리 전역 변수 문자열)
+	 */
+	String getVariable(String key) {
+		restore();
+		getCount.incrementAndGet();
+		return CommonLibHandler.getInstance().getVariable(key);
+	}
+
+	/**
+	 * 값 저장 (프로세스 안에서만 유지)
+	 * @param key 키
+	 * @param value String, Number, Boolean, JSONObject, JSONArray (null 이면 삭제)
+	 */
+	public void set(String key, Object value) {
+		set(key, value, false);
+	}
+
+	/**
+	 * 값 저장
+	 * @param key 키
+	 * @param value String, Number, Boolean, JSONObject, JSONArray (null 이면 삭제)
+	 * @param persist 프로세스가 종료된 후에도 복원할지 여부
+	 */
+	public void set(String key, Object value, boolean persist) {
+		if (value == null || value == JSONObject.NULL) {
+			remove(key);
+			return;
+		}
+		restore();
+		CommonLibHandler.getInstance().setVariable(key, toVariableString(value));
+		update(key, value, persist);
+	}
+
+	/**
+	 * 웹에서 WNSetVariable 로 값이 저장된 후 호출된다. (라이브러리 전역 변수에는 이미 저장되어 있다.)
+	 */
+	void onVariableSet(String key, String value) {
+		restore();
+		update(key, value, false);
+	}
+
+	/**
+	 * 값 삭제
+	 */
+	public void remove(String key) {
+		restore();
+		CommonLibHandler.getInstance().removeVariable(key);
+		values.remove(key);
+		if (snapshot.contains(key))
+			snapshot.edit().remove(key).apply();
+		publish(key, JSONObject.NULL);
+	}
+
+	/**
+	 * 모든 값 삭제 (WNResetAllVariables 후 호출된다.)
+	 */
+	void onVariablesReset() {
+		restore();
+		ArrayList<String> keys = new ArrayList<String>(values.keySet());
+		values.clear();
+		snapshot.edit().clear().apply();
+		for (String key : keys) {
+			publish(key, JSONObject.NULL);
+		}
+	}
+
+	private void update(String key, Object value, boolean persist) {
+		setCount.incrementAndGet();
+		values.put(key, value);
+		if (persist) {
+			snapshot.edit().putString(key, encode(value)).apply();
+		} else if (snapshot.contains(key)) {
+			// persist 없이 다시 저장하면 복원 대상에서 뺀다.
+			snapshot.edit().remove(key).apply();
+		}
+		publish(key, value);
+	}
+
+	/**
+	 * 값 변경을 구독한다. 현재 값이 있는 키는 첫 번째 콜백으로 전달된다.
+	 * @param keys 키 목록 ("*" 또는 비어 있으면 모든 키, "user.*" 처럼 끝이 * 이면 앞부분이 같은 키)
+	 * @param listener 리스너 (메인 스레드에서 호출)
+	 * @return 구독 아이디
+	 */
+	public int subscribe(String[] keys, StateListener listener) {
+		return subscribe(keys, listener, null);
+	}
+
+	/**
+	 * 웹 화면의 구독. 콜백은 JavascriptDispatcher 로 callback(subscriptionId, changes, version) 형태로 전달된다.
+	 * @param webView 구독한 화면
+	 * @param keys 키 목록
+	 * @param callback JS 함수명
+	 * @return 구독 아이디
+	 */
+	public int subscribe(WebView webView, String[] keys, final String callback) {
+		final WeakReference<WebView> viewRef = new WeakReference<WebView>(webView);
+		return subscribe(keys, new StateListener() {
+			@Override
+			public void onStateChanged(int subscriptionId, JSONObject changes, long version) {
+				WebView target = viewRef.get();
+				if (target != null)
+					JavascriptDispatcher.getInstance().dispatch(target, callback, subscriptionId, changes, version);
+			}
+		}, webView);
+	}
+
+	private int subscribe(String[] keys, StateListener listener, WebView webView) {
+		restore();
+		ArrayList<String> patterns = new ArrayList<String>();
+		if (keys != null) {
+			for (String key : keys) {
+				if ("*".equals(key)) {
+					patterns.clear();
+					break;
+				}
+				if (key != null && key.length() > 0)
+					patterns.add(key);
+			}
+		}
+		Subscription subscription = new Subscription(subscriptionSeq.incrementAndGet(),
+				patterns.toArray(new String[patterns.size()]), listener, webView);
+		synchronized (subscriptions) {
+			subscriptions.put(subscription.id, subscription);
+			for (Map.Entry<String, Object> entry : values.entrySet()) {
+				if (subscription.matches(entry.getKey()))
+					subscription.pending.put(entry.getKey(), entry.getValue());
+			}
+			if (!subscription.pending.isEmpty())
+				scheduleFlushLocked();
+		}
+		PLog.i(CLASS_TAG, "// subscribe " + patterns + ", subscriptionId[" + subscription.id + "]");
+		return subscription.id;
+	}
+
+	/**
+	 * 구독 해제
+	 */
+	public void unsubscribe(int subscriptionId) {
+		synchronized (subscriptions) {
+			subscriptions.remove(subscriptionId);
+		}
+	}
+
+	/**
+	 * 화면의 모든 구독을 해제한다. (페이지 이동)
+	 */
+	public void unsubscribeAll(WebView webView) {
+		synchronized (subscriptions) {
+			Iterator<Subscription> it = subscriptions.values().iterator();
+			while (it.hasNext()) {
+				Subscription subscription = it.next();
+				if (subscription.webView != null && subscription.webView.get() == webView)
+					it.remove();
+			}
+		}
+	}
+
+	private void publish(String key, Object value) {
+		version.incrementAndGet();
+		synchronized (subscriptions) {
+			for (Subscription subscription : subscriptions.values()) {
+				if (!subscription.matches(key))
+					continue;
+				queuedCount.incrementAndGet();
+				if (subscription.pending.remove(key) != null)
+					coalescedCount.incrementAndGet();
+				subscription.pending.put(key, value);
+				scheduleFlushLocked();
+			}
+		}
+	}
+
+	private void scheduleFlushLocked() {
+		if (flushScheduled)
+			return;
+		flushScheduled = true;
+		mainHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	/**
+	 * 구독별로 모아 둔 값을 한 번에 전달한다. 메인 스레드에서 호출된다.
+	 */
+	private void flush() {
+		ArrayList<Subscription> ready = new ArrayList<Subscription>();
+		ArrayList<LinkedHashMap<String, Object>> changes = new ArrayList<LinkedHashMap<String, Object>>();
+		long currentVersion;
+		synchronized (subscriptions) {
+			flushScheduled = false;
+			currentVersion = version.get();
+			Iterator<Subscription> it = subscriptions.values().iterator();
+			while (it.hasNext()) {
+				Subscription subscription = it.next();
+				if (subscription.webView != null && subscription.webView.get() == null) {
+					it.remove();
+					continue;
+				}
+				if (subscription.pending.isEmpty())
+					continue;
+				ready.add(subscription);
+				changes.add(subscription.pending);
+				subscription.pending = new LinkedHashMap<String, Object>();
+			}
+		}
+		if (ready.isEmpty())
+			return;
+
+		flushCount.incrementAndGet();
+		for (int i = 0; i < ready.size(); i++) {
+			Subscription subscription = ready.get(i);
+			try {
+				JSONObject obj = new JSONObject();
+				for (Map.Entry<String, Object> entry : changes.get(i).entrySet()) {
+					obj.put(entry.getKey(), entry.getValue());
+				}
+				callbackCount.incrementAndGet();
+				subscription.listener.onStateChanged(subscription.id, obj, currentVersion);
+			} catch (Exception e) {
+				PLog.printTrace(e);
+			}
+		}
+	}
+
+	private static String toVariableString(Object value) {
+		return value instanceof String ? (String) value : String.valueOf(value);
+	}
+
+	/**
+	 * 타입을 유지하도록 [value] 형태의 JSON 으로 저장한다.
+	 */
+	private static String encode(Object value) {
+		return new JSONArray().put(value).toString();
+	}
+
+	private Object decode(Object stored) {
+		if (!(stored instanceof String))
+			return null;
+		try {
+			return new JSONArray((String) stored).get(0);
+		} catch (JSONException e) {
+			PLog.w(CLASS_TAG, "// invalid snapshot value : " + stored);
+			return null;
+		}
+	}
+
+	/**
+	 * 현재 값 전체 (JSON)
+	 */
+	public JSONObject getValues() {
+		restore();
+		JSONObject obj = new JSONObject();
+		for (String key : new ArrayList<String>(values.keySet())) {
+			try {
+				Object value = current(key);
+				if (value != null)
+					obj.put(key, value);
+			} catch (JSONException e) {
+				PLog.printTrace(e);
+			}
+		}
+		return obj;
+	}
+
+	/**
+	 * 통계
+	 * sets : 저장 수, gets : 조회(WNGetVariable 포함) 수, queued : 구독으로 전달 대기한 변경 수,
+	 * coalesced : 전달 전에 같은 키의 새 값으로 덮어쓰여진 수, callbacks : 콜백 호출 수, flushes : 전달 횟수,
+	 * stale : 라이브러리 전역 변수가 직접 바뀌어 보관한 값을 버린 수
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("keys", values.size());
+			metrics.put("version", version.get());
+			synchronized (subscriptions) {
+				metrics.put("subscriptions", subscriptions.size());
+			}
+			metrics.put("sets", setCount.get());
+			metrics.put("gets", getCount.get());
+			metrics.put("queued", queuedCount.get());
+			metrics.put("coalesced", coalescedCount.get());
+			metrics.put("callbacks", callbackCount.get());
+			metrics.put("flushes", flushCount.get());
+			metrics.put("stale", staleCount.get());
+			synchronized (this) {
+				metrics.put("restoreMs", restoreMs);
+				metrics.put("restoredKeys", restoredKeys);
+				metrics.put("persistedKeys", snapshot == null ? 0 : snapshot.getAll().size());
+			}
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public void resetMetrics() {
+		setCount.set(0);
+		getCount.set(0);
+		queuedCount.set(0);
+		coalescedCount.set(0);
+		callbackCount.set(0);
+		flushCount.set(0);
+		staleCount.set(0);
+	}
+}
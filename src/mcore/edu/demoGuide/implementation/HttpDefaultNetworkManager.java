@@ -1,12 +1,22 @@
 package mcore.edu.demoGuide.implementation;
 
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.HashMap;
 
 import m.client.android.library.core.common.CommonLibHandler;
 import m.client.android.library.core.common.DataHandler;
 import m.client.android.library.core.common.LibDefinitions;
 import m.client.android.library.core.managers.ActivityHistoryManager;
+import m.client.android.library.core.managers.HttpAppUpdatingManager;
+import m.client.android.library.core.managers.HttpAppUpdatingManager.DownloadResourcesThread;
 import m.client.android.library.core.model.NetReqOptions;
 import m.client.android.library.core.networks.http.AsyncHttpNetwork;
 import m.client.android.library.core.networks.http.HttpPacketManager;
@@ -636,95 +646,153 @@ public class HttpDefaultNetworkManager extends AsyncHttpNetwork {
 	}
 	
 	
-//	public void extendResourceFileDownload(String _updateUrl, File _downFile, DownloadResourcesThread _downloadResourcesThread) {
-//		PLog.i(CLASS_TAG, "extendResourceFileDownload");
-//		(new ExtendResourceDownload(_updateUrl, _downFile, _downloadResourcesThread)).start();
-//	}
-//	
-//	/**
-//	 * 선택된 버전의 분할 리소스 다운로드 쓰레드
-//	 * @author rebornvlolv
-//	 */
-//
-//	private class ExtendResourceDownload extends Thread {
-//		
-//		private static final int BUFFER_SIZE = 1024 * 4;
-//		private static final int BASE_VAR_NUM = 1024 * 10;
-//
-//		private String downloadUrl;
-//		private File downFile;
-//		private DownloadResourcesThread downloadResourcesThread;
-//		
-//		boolean isSuccess = true;
-//		
-//		public ExtendResourceDownload(String _updateUrl, File _downFile, DownloadResourcesThread _downloadResourcesThread) {
-//			try {
-//				downloadUrl = _updateUrl.trim();
-//				downFile = _downFile;
-//				downloadResourcesThread = _downloadResourcesThread;
-//			}catch(Exception e) {
-//				PLog.printTrace(e);
-//			}
-//		}
-//		
-//		public void run() {
-//			
-//			try {
-//				PLog.i(CLASS_TAG, downloadUrl);
-//				PLog.i("onProgress", "외부 모듈을 이용하여 다운로드 합니다.");
-//				PLog.i("onProgress", "Will download res file[" + downFile.getPath() + "]");
-//				
-//				////////////////////////////////////////////////////////////////////////////////
-//				// 현재 버전의 파일을 다운로드 한다.
-//				URL _url = new URL(downloadUrl);
-//				HttpURLConnection con = null;
-//				con = (HttpURLConnection) _url.openConnection();
-//				con.setRequestMethod("GET");   
-//				con.setConnectTimeout(10000);
-//				con.setReadTimeout(10000);
-//				con.setUseCaches(false);
-//				con.setDoInput(true);
-//				con.setDoOutput(false);
-//				con.connect();
-//				
-//				byte[] buffer=new byte[BUFFER_SIZE];
-//				BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(downFile));
-//				BufferedInputStream in = new BufferedInputStream(con.getInputStream());
-//				
-//				int baseVarNum = BASE_VAR_NUM;
-//				int accRead = 0;
-//				int read = 0;
-//				while((read = in.read(buffer)) != -1) {
-//					
-//					// 리소스 업데이트 오류가 발생한 경우 압축해제 중지
-//					if (HttpAppUpdatingManager.getIsFailAppUpdating()) return;
-//					
-//					accRead += read;
-//					out.write(buffer, 0, read);
-//					if (accRead > baseVarNum) {
-//						baseVarNum += BASE_VAR_NUM;
-//						//다운로드 중간 화면으로 현재 상태를 리포트
-//						HttpAppUpdatingManager.deliveryProgressInfo(read);
-//					} else {
-//						//다운로드 중간 화면으로 현재 다운로드 상태를 저장함.
-//						HttpAppUpdatingManager.setTotReceivedData(HttpAppUpdatingManager.getTotReceivedData() + read);
-//					}
-//				}
-//				out.flush();
-//				out.close();
-//				in.close();
-//				con.disconnect();
-//				con = null;
-//				
-//				//리소스 다운로드 종료후 반드시 호출해 줘야 
-//				downloadResourcesThread.downloadFinish();
-//				
-//			}catch(Exception e) {
-//				HttpAppUpdatingManager.processResUpdateError();
-//				PLog.i("UpdateResource RES", "httpUpdateCallBack.onFail #3");
-//			}
-//			
-//		}
-//		
-//	}
+	/**
+	 * 리소스 패키지 다운로드
+	 * HttpAppUpdatingManager 에서 업데이트 서버의 네트워크 매니저에 이 메서드가 있으면 reflection 으로 호출한다.
+	 * 다운로드 후 downloadFinish() 를 호출하면 md5 확인과 압축 해제는 기존 과정대로 진행된다.
+	 */
+	public void extendResourceFileDownload(String _updateUrl, File _downFile, DownloadResourcesThread _downloadResourcesThread) {
+		PLog.i(CLASS_TAG, "extendResourceFileDownload");
+		(new ExtendResourceDownload(_updateUrl, _downFile, _downloadResourcesThread)).start();
+	}
+	
+	/**
+	 * 선택된 버전의 분할 리소스 다운로드 쓰레드
+	 * 서버에 패키지의 구간별 해시 목록이 있으면 변경된 구간만 받고(ResourceDeltaUpdater), 없으면 패키지 전체를 받는다.
+	 * 어느 경우든 Range 요청을 지원하는 서버에서는 구간을 나누어 동시에 받고, 중단된 다운로드는 이어받는다. (ParallelRangeDownloader)
+	 * @author rebornvlolv
+	 */
+	private class ExtendResourceDownload extends Thread implements ResourceDeltaUpdater.ProgressListener {
+		
+		private static final int BUFFER_SIZE = 1024 * 32;
+		private static final int BASE_VAR_NUM = 1024 * 10;
+
+		private String downloadUrl;
+		private File downFile;
+		private DownloadResourcesThread downloadResourcesThread;
+		
+		// 진행률로 보고한 크기
+		private long accRead = 0;
+		private long baseVarNum = BASE_VAR_NUM;
+		
+		public ExtendResourceDownload(String _updateUrl, File _downFile, DownloadResourcesThread _downloadResourcesThread) {
+			try {
+				downloadUrl = _updateUrl.trim();
+				downFile = _downFile;
+				downloadResourcesThread = _downloadResourcesThread;
+			}catch(Exception e) {
+				PLog.printTrace(e);
+			}
+		}
+		
+		public void run() {
+			
+			try {
+				PLog.i(CLASS_TAG, downloadUrl);
+				
+				if (!ResourceDeltaUpdater.getInstance().download(downloadUrl, downFile, this)) {
+					// 리소스 업데이트 오류가 발생한 경우 중지
+					if (HttpAppUpdatingManager.getIsFailAppUpdating()) return;
+					downloadFull();
+				}
+				
+				//리소스 다운로드 종료후 반드시 호출해 줘야 
+				downloadResourcesThread.downloadFinish();
+				
+			}catch(Exception e) {
+				HttpAppUpdatingManager.processResUpdateError();
+				PLog.i("UpdateResource RES", "httpUpdateCallBack.onFail #3");
+			}
+			
+		}
+		
+		/**
+		 * 패키지 전체를 받는다.
+		 * 서버가 Range 요청을 지원하면 구간으로 나누어 동시에 받고(중단되면 이어받는다), 지원하지 않으면 한 번에 받는다.
+		 */
+		private void downloadFull() throws IOException {
+			PLog.i("onProgress", "외부 모듈을 이용하여 다운로드 합니다.");
+			PLog.i("onProgress", "Will download res file[" + downFile.getPath() + "]");
+			
+			// 구간별 다운로드를 시도하다 실패한 경우 이미 보고한 크기만큼은 진행률에 다시 더하지 않는다.
+			final long reported = accRead;
+			ResourceDeltaUpdater.ProgressListener listener = new ResourceDeltaUpdater.ProgressListener() {
+				private long received = 0;
+				
+				@Override
+				public void onBytes(int read) throws IOException {
+					synchronized (ExtendResourceDownload.this) {
+						received += read;
+						if (received > reported)
+							ExtendResourceDownload.this.onBytes((int) Math.min(read, received - reported));
+					}
+				}
+			};
+			
+			File part = new File(downFile.getPath() + ".part");
+			ParallelRangeDownloader downloader = new ParallelRangeDownloader(downloadUrl, part, listener);
+			long size = downloader.probe();
+			if (size > 0) {
+				downloader.downloadAll(size);
+			} else {
+				downloadStream(part, listener);
+			}
+			if (downFile.exists() && !downFile.delete())
+				throw new IOException("delete failed : " + downFile.getPath());
+			if (!part.renameTo(downFile))
+				throw new IOException("rename failed : " + downFile.getPath());
+		}
+		
+		/**
+		 * Range 요청을 지원하지 않는 서버에서 한 번에 받는다.
+		 */
+		private void downloadStream(File part, ResourceDeltaUpdater.ProgressListener listener) throws IOException {
+			////////////////////////////////////////////////////////////////////////////////
+			// 현재 버전의 파일을 다운로드 한다.
+			URL _url = new URL(downloadUrl);
+			HttpURLConnection con = null;
+			con = (HttpURLConnection) _url.openConnection();
+			con.setRequestMethod("GET");   
+			con.setConnectTimeout(10000);
+			con.setReadTimeout(10000);
+			con.setUseCaches(false);
+			con.setDoInput(true);
+			con.setDoOutput(false);
+			con.connect();
+			
+			byte[] buffer=new byte[BUFFER_SIZE];
+			BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(part), BUFFER_SIZE);
+			BufferedInputStream in = new BufferedInputStream(con.getInputStream(), BUFFER_SIZE);
+			try {
+				int read = 0;
+				while((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+					listener.onBytes(read);
+				}
+				out.flush();
+			} finally {
+				out.close();
+				in.close();
+				con.disconnect();
+			}
+		}
+		
+		@Override
+		public synchronized void onBytes(int read) throws IOException {
+			// 리소스 업데이트 오류가 발생한 경우 다운로드 중지
+			if (HttpAppUpdatingManager.getIsFailAppUpdating())
+				throw new InterruptedIOException("resource update failed");
+			
+			accRead += read;
+			if (accRead > baseVarNum) {
+				baseVarNum += BASE_VAR_NUM;
+				//다운로드 중간 화면으로 현재 상태를 리포트
+				HttpAppUpdatingManager.deliveryProgressInfo(read);
+			} else {
+				//다운로드 중간 화면으로 현재 다운로드 상태를 저장함.
+				HttpAppUpdatingManager.setTotReceivedData(HttpAppUpdatingManager.getTotReceivedData() + read);
+			}
+		}
+		
+	}
 }
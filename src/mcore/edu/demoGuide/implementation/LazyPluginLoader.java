@@ -0,0 +1,125 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.SystemClock;
+
+/**
+ * LazyPluginLoader Class
+ *
+ * 브릿지 호출(wnCommonInterface)은 Manifest.xml 의 애드온, 플러그인 클래스를 순서대로 로딩하여 메서드를 찾으므로
+ * 첫 브릿지 호출에서 클래스 로딩 비용이 한꺼번에 발생한다. <br/>
+ *
+ * - 애드온, 플러그인 클래스를 앱 구동시 백그라운드에서 클래스별로 병렬로 미리 로딩한다. (StartupOrchestrator) <br/>
+ * - 클래스를 미리 로딩만 하며, 라이브러리의 애드온, 플러그인 목록(CommonLibHandler)과 브릿지 호출 경로는 변경하지 않는다.
+ *   (wnCommonInterface, asyncCommonInterface, PluginManager 가 모두 같은 목록을 사용한다.) <br/>
+ * - 클래스별 로딩 시간과 앱에 없는 클래스를 기록한다. <br/>
+ */
+public class LazyPluginLoader {
+
+	private final String CLASS_TAG = "LAZY_PLUGIN_LOADER";
+
+	/** 미리 로딩이 모두 끝난 후 결과를 기록하는 컴포넌트 이름 (StartupOrchestrator) */
+	public static final String PREPARE = "plugins";
+
+	private static LazyPluginLoader instance;
+
+	// 클래스별 로딩 시간(ms)
+	private final ConcurrentHashMap<String, Long> loaded = new ConcurrentHashMap<String, Long>();
+	private final Set<String> missing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private volatile boolean prepared = false;
+
+	public static synchronized LazyPluginLoader getInstance() {
+		if (instance == null) {
+			instance = new LazyPluginLoader();
+		}
+		return instance;
+	}
+
+	private LazyPluginLoader() {
+	}
+
+	/**
+	 * processAppInit 이후에 애드온/플러그인 미리 로딩 컴포넌트를 등록한다.
+	 * 클래스별로 병렬 로딩하고, 모두 끝나면 결과를 기록한다.
+	 * @param orchestrator 구동 작업
+	 * @param dependsOn processAppInit 컴포넌트 이름
+	 */
+	public void register(StartupOrchestrator orchestrator, String dependsOn) {
+		CommonLibHandler lib = CommonLibHandler.getInstance();
+		ArrayList<String> classes = new ArrayList<String>();
+		if (lib.g_strAddonWNIClassPackageName != null)
+			classes.addAll(Arrays.asList(lib.g_strAddonWNIClassPackageName));
+		if (lib.g_strPluginWNIClassPackageName != null)
+			classes.addAll(Arrays.asList(lib.g_strPluginWNIClassPackageName));
+
+		ArrayList<String> names = new ArrayList<String>();
+		for (final String cls : classes) {
+			String name = "class:" + cls.substring(cls.lastIndexOf('.') + 1);
+			if (names.contains(name))
+				continue;
+			names.add(name);
+			orchestrator.add(name, false, new String[] { dependsOn }, new Runnable() {
+				@Override
+				public void run() {
+					preload(cls);
+				}
+			});
+		}
+		orchestrator.add(PREPARE, false, names.toArray(new String[names.size()]), new Runnable() {
+			@Override
+			public void run() {
+				prepared = true;
+				PLog.i(CLASS_TAG, "// plugins loaded " + loaded.size() + ", missing " + missing);
+			}
+		});
+	}
+
+	/**
+	 * 클래스를 로딩(초기화 포함)한다. 이미 로딩했거나 없는 클래스는 건너뛴다.
+	 */
+	private void preload(String cls) {
+		if (loaded.containsKey(cls) || missing.contains(cls))
+			return;
+		long start = SystemClock.elapsedRealtime();
+		try {
+			Class.forName(cls);
+			loaded.put(cls, SystemClock.elapsedRealtime() - start);
+		} catch (Throwable e) {
+			// ClassNotFoundException, NoClassDefFoundError
+			missing.add(cls);
+			PLog.w(CLASS_TAG, "// " + cls + " not available : " + e);
+		}
+	}
+
+	/**
+	 * 미리 로딩한 클래스별 로딩 시간(ms), 앱에 없는 클래스
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("prepared", prepared);
+			JSONObject loadedObj = new JSONObject();
+			for (Map.Entry<String, Long> entry : loaded.entrySet()) {
+				loadedObj.put(entry.getKey(), entry.getValue().longValue());
+			}
+			metrics.put("loaded", loadedObj);
+			metrics.put("missing", new JSONArray(missing));
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
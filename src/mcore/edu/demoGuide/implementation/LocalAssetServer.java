@@ -0,0 +1,523 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.net.Uri;
+import android.os.Build;
+import android.util.LruCache;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+/**
+ * LocalAssetServer Class
+ *
+ * www 의 정적 리소스(js, css, 이미지, 폰트)를 요청 가로채기로 직접 응답한다. <br/>
+ *
+ * - 자주 사용되는 파일은 크기(byte) 제한이 있는 LRU 에 보관되어 페이지를 이동해도 다시 읽지 않는다. <br/>
+ * - 내부 저장소 파일과 압축되지 않은 asset 은 memory-map 으로 읽는다. (압축된 asset 은 스트림으로 읽는다.) <br/>
+ * - 응답에 Cache-Control, ETag 를 설정한다. <br/>
+ * - html 은 모피어스의 복호화, 로딩 처리를 거쳐야 하므로 처리하지 않는다. <br/>
+ * - www 트리를 묶은 WebResourceBundle 이 준비되면 개별 파일 대신 번들에서 읽는다.
+ *   번들은 원본(asset 또는 내부 저장소)이 바뀌면 백그라운드에서 다시 만들어 교체한다. <br/>
+ *
+ * 사용 전후의 페이지 로딩 시간은 setEnabled 로 끄고 켜면서 getMetrics 의 pageLoad 로 비교한다.
+ */
+public class LocalAssetServer implements ExtendWebViewClient.RequestInterceptor {
+
+	private final String CLASS_TAG = "LOCAL_ASSET_SERVER";
+
+	private static final String ASSET_PREFIX = "/android_asset/";
+	private static final String ASSET_WWW_DIR = "res/www";
+
+	private static final String BUNDLE_FILE_NAME = "www.bundle";
+
+	/** 이 크기보다 큰 파일은 LRU 에 보관하지 않는다. */
+	private static final int MAX_ENTRY_BYTES = 2 * 1024 * 1024;
+
+	private static final String CACHE_CONTROL = "public, max-age=31536000";
+	/** file:// 페이지의 origin. 다른 origin 에는 허용하지 않는다. */
+	private static final String FILE_ORIGIN = "null";
+
+	private static final Map<String, String> MIME_TYPES = new HashMap<String, String>();
+	static {
+		MIME_TYPES.put("js", "application/javascript");
+		MIME_TYPES.put("css", "text/css");
+		MIME_TYPES.put("json", "application/json");
+		MIME_TYPES.put("png", "image/png");
+		MIME_TYPES.put("jpg", "image/jpeg");
+		MIME_TYPES.put("jpeg", "image/jpeg");
+		MIME_TYPES.put("gif", "image/gif");
+		MIME_TYPES.put("svg", "image/svg+xml");
+		MIME_TYPES.put("woff", "font/woff");
+		MIME_TYPES.put("woff2", "font/woff2");
+		MIME_TYPES.put("ttf", "font/ttf");
+		MIME_TYPES.put("otf", "font/otf");
+	}
+
+	private static LocalAssetServer instance;
+
+	/**
+	 * 보관 중인 리소스
+	 * version(파일 수정 시각, 번들 생성 시각)이 바뀌면 (리소스 업데이트) 다시 읽는다.
+	 */
+	private static class Entry {
+		final ByteBuffer data;
+		final long version;
+		final String etag;
+
+		Entry(ByteBuffer data, long version) {
+			this.data = data;
+			this.version = version;
+			this.etag = "\"" + Integer.toHexString(data.capacity()) + "-" + Long.toHexString(version) + "\"";
+		}
+	}
+
+	/**
+	 * 사용 중인 번들과 원본 경로 (요청 경로가 원본 경로로 시작하는 경우만 번들에서 읽는다.)
+	 */
+	private static class MountedBundle {
+		final WebResourceBundle bundle;
+		final String root;
+
+		MountedBundle(WebResourceBundle bundle, String root) {
+			this.bundle = bundle;
+			this.root = root;
+		}
+	}
+
+	private final Context context;
+	private final AssetManager assets;
+	private final File bundleFile;
+	private volatile MountedBundle mounted;
+	private final LruCache<String, Entry> cache;
+	private final int maxBytes;
+	private volatile boolean enabled = true;
+
+	// Metrics
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong bundleReadCount = new AtomicLong();
+	private volatile long bundleBuildMs = 0;
+	private final AtomicLong bypassCount = new AtomicLong();
+	private final AtomicLong servedBytes = new AtomicLong();
+	private final AtomicLong loadTotalNanos = new AtomicLong();
+	private final AtomicLong pageLoadCount = new AtomicLong();
+	private final AtomicLong pageLoadTotalMs = new AtomicLong();
+
+	public static synchronized LocalAssetServer getInstance() {
+		if (instance == null) {
+			instance = new LocalAssetServer(CommonLibHandler.getInstance().getApplicationContext());
+			ExtendWebViewClient.addInterceptor(instance);
+			instance.prepareBundleAsync();
+		}
+		return instance;
+	}
+
+	private LocalAssetServer(Context context) {
+		this.context = context;
+		assets = context.getAssets();
+		bundleFile = new File(context.getFilesDir(), BUNDLE_FILE_NAME);
+
+		// 앱 메모리 한도의 1/8 (4MB ~ 24MB)
+		ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+		int memoryClassMb = am == null ? 64 : am.getMemoryClass();
+		maxBytes = Math.max(4, Math.min(24, memoryClassMb / 8)) * 1024 * 1024;
+
+		cache = new LruCache<String, Entry>(maxBytes) {
+			@Override
+			protected int sizeOf(String key, Entry value) {
+				return value.data.capacity();
+			}
+		};
+		PLog.i(CLASS_TAG, "// cache size[" + maxBytes + "]");
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 사용 여부 (false 이면 모피어스 기본 처리로 넘긴다.)
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * 보관 중인 리소스를 모두 버린다. (리소스 업데이트 후)
+	 */
+	public void clear() {
+		cache.evictAll();
+	}
+
+	@Override
+	public WebResourceResponse intercept(WebView view, Uri uri) {
+		if (!enabled || !"file".equals(uri.getScheme()))
+			return null;
+
+		String path = uri.getPath();
+		String mimeType = path == null ? null : mimeTypeOf(path);
+		if (mimeType == null)
+			return null;
+
+		long start = System.nanoTime();
+		Entry entry;
+		try {
+			entry = load(path);
+		} catch (IOException e) {
+			// 없는 파일 등은 모피어스 기본 처리로 넘긴다.
+			bypassCount.incrementAndGet();
+			return null;
+		}
+		if (entry == null) {
+			bypassCount.incrementAndGet();
+			return null;
+		}
+		loadTotalNanos.addAndGet(System.nanoTime() - start);
+		servedBytes.addAndGet(entry.data.capacity());
+
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Cache-Control", CACHE_CONTROL);
+		headers.put("ETag", entry.etag);
+		headers.put("Content-Length", String.valueOf(entry.data.capacity()));
+		headers.put("Access-Control-Allow-Origin", FILE_ORIGIN);
+
+		String encoding = mimeType.startsWith("text/") || mimeType.startsWith("application/") ? "UTF-8" : null;
+		return ExtendWebViewClient.newResponse(mimeType, encoding, new ByteBufferInputStream(entry.data.duplicate()), headers);
+	}
+
+	/**
+	 * 파일을 미리 읽어 LRU 에 보관한다. (PagePrefetcher)
+	 * @param path 파일 경로 (file:// url 의 path)
+	 * @return 파일 내용, 없으면 null
+	 */
+	public ByteBuffer prefetch(String path) throws IOException {
+		Entry entry = load(path);
+		return entry == null ? null : entry.data.duplicate();
+	}
+
+	/**
+	 * LRU 에서 찾고 없으면 읽는다.
+	 * @return 크기 제한을 넘는 파일은 LRU 에 보관하지 않고 그대로 리턴한다.
+	 */
+	private Entry load(String path) throws IOException {
+		boolean isAsset = path.startsWith(ASSET_PREFIX);
+		File file = isAsset ? null : new File(path);
+		long lastModified = file == null ? 0 : file.lastModified();
+		if (file != null && lastModified == 0)
+			return null;
+
+		// 번들 생성 이후 수정된 파일은 (번들 재생성 전까지) 파일에서 읽는다.
+		MountedBundle m = mounted;
+		WebResourceBundle current = m == null ? null : m.bundle;
+		String key = m != null && path.startsWith(m.root) ? path.substring(m.root.length()) : null;
+		boolean fromBundle = key != null && lastModified <= current.getBuiltAt() && current.contains(key);
+		long version = fromBundle ? current.getBuiltAt() : lastModified;
+
+		Entry entry = cache.get(path);
+		if (entry != null && entry.version == version) {
+			hitCount.incrementAndGet();
+			return entry;
+		}
+		missCount.incrementAndGet();
+
+		ByteBuffer data;
+		if (fromBundle) {
+			data = current.get(key);
+			bundleReadCount.incrementAndGet();
+		} else {
+			data = isAsset ? readAsset(path.substring(ASSET_PREFIX.length())) : map(file);
+		}
+		entry = new Entry(data, version);
+		if (data.capacity() <= MAX_ENTRY_BYTES)
+			cache.put(path, entry);
+		return entry;
+	}
+
+	private ByteBuffer map(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			in.close();
+		}
+	}
+
+	private ByteBuffer readAsset(String assetPath) throws IOException {
+		// 압축되지 않은 asset 은 APK 에서 바로 memory-map 한다.
+		try {
+			AssetFileDescriptor afd = assets.openFd(assetPath);
+			try {
+				FileInputStream in = afd.createInputStream();
+				try {
+					return in.getChannel().map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+				} finally {
+					in.close();
+				}
+			} finally {
+				afd.close();
+			}
+		} catch (IOException e) {
+			// 압축된 asset 은 openFd 를 사용할 수 없다.
+		}
+
+		InputStream in = assets.open(assetPath, AssetManager.ACCESS_STREAMING);
+		try {
+			byte[] buffer = new byte[Math.max(in.available(), 8 * 1024)];
+			int total = 0;
+			int n;
+			while ((n = in.read(buffer, total, buffer.length - total)) != -1) {
+				total += n;
+				if (total == buffer.length) {
+					byte[] grown = new byte[buffer.length * 2];
+					System.arraycopy(buffer, 0, grown, 0, total);
+					buffer = grown;
+				}
+			}
+			ByteBuffer data = ByteBuffer.allocate(total);
+			data.put(buffer, 0, total);
+			data.rewind();
+			return data;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 번들을 백그라운드에서 준비한다.
+	 */
+	private void prepareBundleAsync() {
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					prepareBundle(false);
+				} catch (Throwable e) {
+					PLog.e(CLASS_TAG, "// prepare bundle failed : " + e);
+				}
+			}
+		}, "www-bundle");
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		t.start();
+	}
+
+	/**
+	 * 원본과 같은 번들이 있으면 열고, 없거나 원본이 바뀌었으면 다시 만든다.
+	 * 리소스 업데이트 직후에는 force 로 호출한다. (백그라운드 스레드에서 호출해야 한다.)
+	 * @param force true 이면 원본 비교 없이 다시 만든다.
+	 */
+	public synchronized void prepareBundle(boolean force) throws IOException {
+		WebResourceBundle.Source source;
+		String root;
+		long stamp;
+
+		File wwwDir = nativeWWWDir();
+		if (wwwDir != null) {
+			source = WebResourceBundle.directorySource(wwwDir);
+			root = wwwDir.getAbsolutePath() + "/";
+			stamp = directoryStamp(wwwDir);
+		} else {
+			source = WebResourceBundle.assetSource(assets, ASSET_WWW_DIR);
+			root = ASSET_PREFIX + ASSET_WWW_DIR + "/";
+			stamp = assetStamp();
+		}
+
+		if (!force && bundleFile.exists()) {
+			try {
+				WebResourceBundle existing = WebResourceBundle.open(bundleFile);
+				if (existing.getStamp() == stamp) {
+					swapBundle(existing, root);
+					return;
+				}
+			} catch (IOException e) {
+				PLog.w(CLASS_TAG, "// invalid bundle, rebuild : " + e.getMessage());
+			}
+		}
+
+		long start = System.currentTimeMillis();
+		int count = WebResourceBundle.build(source, bundleFile, stamp);
+		bundleBuildMs = System.currentTimeMillis() - start;
+		PLog.i(CLASS_TAG, "// bundle built, entries[" + count + "] size[" + bundleFile.length() + "] time[" + bundleBuildMs + "ms]");
+		swapBundle(WebResourceBundle.open(bundleFile), root);
+	}
+
+	private void swapBundle(WebResourceBundle next, String root) {
+		// 기존 번들의 mapping 은 읽고 있는 응답이 끝날 때까지 유효하다.
+		mounted = new MountedBundle(next, root);
+	}
+
+	/**
+	 * 내부 저장소로 복사된 www 디렉토리 (asset 에서 바로 읽는 경우 null)
+	 */
+	private static File nativeWWWDir() {
+		String dir = CommonLibHandler.getInstance().g_strWWWDirForNative;
+		if (dir == null || dir.length() == 0)
+			return null;
+		if (dir.startsWith("file://"))
+			dir = dir.substring("file://".length());
+		File f = new File(dir);
+		return f.isDirectory() ? f : null;
+	}
+
+	/**
+	 * 디렉토리 원본 식별값 (경로, 크기, 수정 시각)
+	 */
+	private static long directoryStamp(File dir) {
+		long hash = 17;
+		File[] files = dir.listFiles();
+		if (files == null)
+			return hash;
+		Arrays.sort(files);
+		for (File f : files) {
+			hash = hash * 31 + f.getName().hashCode();
+			if (f.isDirectory()) {
+				hash = hash * 31 + directoryStamp(f);
+			} else {
+				hash = hash * 31 + f.length();
+				hash = hash * 31 + f.lastModified();
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * asset 원본 식별값 (앱 설치/업데이트 시각)
+	 */
+	private long assetStamp() {
+		try {
+			PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+			return info.lastUpdateTime * 31 + versionCodeOf(info);
+		} catch (PackageManager.NameNotFoundException e) {
+			return 0;
+		}
+	}
+
+	private static long versionCodeOf(PackageInfo info) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P)
+			return longVersionCodeOf(info);
+		return legacyVersionCodeOf(info);
+	}
+
+	@TargetApi(Build.VERSION_CODES.P)
+	private static long longVersionCodeOf(PackageInfo info) {
+		return info.getLongVersionCode();
+	}
+
+	@SuppressWarnings("deprecation")
+	private static long legacyVersionCodeOf(PackageInfo info) {
+		return info.versionCode;
+	}
+
+	private static String mimeTypeOf(String path) {
+		int dot = path.lastIndexOf('.');
+		if (dot < 0 || dot < path.lastIndexOf('/'))
+			return null;
+		return MIME_TYPES.get(path.substring(dot + 1).toLowerCase(Locale.US));
+	}
+
+	/**
+	 * 페이지 로딩 시간 기록 (BaseActivity 의 onPageStarted ~ onPageFinished)
+	 */
+	public void recordPageLoad(long millis) {
+		pageLoadCount.incrementAndGet();
+		pageLoadTotalMs.addAndGet(millis);
+	}
+
+	/**
+	 * 통계
+	 * hit/miss : LRU 적중, bypass : 기본 처리로 넘긴 요청, avgLoadMs : 요청당 응답 준비 시간,
+	 * avgPageLoadMs : 페이지 로딩 시간 (enabled 를 바꿔가며 비교)
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		long served = hitCount.get() + missCount.get();
+		long pages = pageLoadCount.get();
+		try {
+			metrics.put("enabled", enabled);
+			metrics.put("cacheBytes", cache.size());
+			metrics.put("cacheMaxBytes", maxBytes);
+			metrics.put("cacheEntries", cache.snapshot().size());
+			metrics.put("hit", hitCount.get());
+			metrics.put("miss", missCount.get());
+			metrics.put("bypass", bypassCount.get());
+			MountedBundle m = mounted;
+			metrics.put("bundleEntries", m == null ? 0 : m.bundle.size());
+			metrics.put("bundleBytes", m == null ? 0 : m.bundle.getFile().length());
+			metrics.put("bundleReads", bundleReadCount.get());
+			metrics.put("bundleBuildMs", bundleBuildMs);
+			metrics.put("servedBytes", servedBytes.get());
+			metrics.put("avgLoadMs", served == 0 ? 0 : (loadTotalNanos.get() / served) / 1000000.0);
+			metrics.put("pageLoads", pages);
+			metrics.put("avgPageLoadMs", pages == 0 ? 0 : pageLoadTotalMs.get() / pages);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public void resetMetrics() {
+		hitCount.set(0);
+		missCount.set(0);
+		bundleReadCount.set(0);
+		bypassCount.set(0);
+		servedBytes.set(0);
+		loadTotalNanos.set(0);
+		pageLoadCount.set(0);
+		pageLoadTotalMs.set(0);
+	}
+
+	/**
+	 * ByteBuffer 를 읽는 InputStream (버퍼는 요청마다 duplicate 하여 사용한다.)
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (!buffer.hasRemaining())
+				return -1;
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,962 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import m.client.android.library.core.utils.AESUtilSub;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * MappedPreferences Class
+ *
+ * 메모리 매핑된 추가 전용(append-only) 로그 파일에 저장하는 SharedPreferences 구현. <br/>
+ *
+ * - commit/apply 한 번이 레코드 하나([길이][CRC32][변경 목록])로 파일 끝에 추가된다. (SharedPreferences 는 매번 XML 전체를 다시 쓴다.) <br/>
+ * - 파일은 메모리 매핑되어 있어 apply 는 메모리 복사로 끝나고, 프로세스가 죽어도 커널이 파일에 반영한다. commit 은 디스크 동기화(force)까지 한다. <br/>
+ * - 로딩시 CRC 가 맞지 않는 마지막 레코드(쓰는 중에 종료된 경우)는 통째로 버린다. <br/>
+ * - 로그가 마지막 정리 크기의 2배를 넘으면 백그라운드에서 현재 값만으로 새 파일을 만들어 교체한다. (tmp + fsync + rename) <br/>
+ * - putEncryptedString 으로 저장한 값은 모피어스 AESUtilSub 로 암호화되어 저장되고, getString 에서 복호화된다. <br/>
+ * - 로딩은 백그라운드에서 시작되며, 로딩 전에 호출된 조회는 로딩이 끝날 때까지 기다린다. <br/>
+ * - 기존 SharedPreferences 값을 가져오면 기존 파일은 비우고 지운다. 암호화 키로 지정한 값은 가져올 때 암호화한다. <br/>
+ *
+ * 한 프로세스에서만 사용한다. (여러 프로세스에서 같은 파일을 쓰는 경우는 지원하지 않는다.)
+ */
+public class MappedPreferences implements SharedPreferences {
+
+	private final String CLASS_TAG = "MAPPED_PREFERENCES";
+
+	private static final int MAGIC = 0x4D4B5631; // "MKV1"
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final int PAGE_SIZE = 4096;
+	private static final int MIN_CAPACITY = 64 * 1024;
+	/** 로그가 이 크기 이상이고 마지막 정리 크기의 2배를 넘으면 정리한다. */
+	private static final int COMPACT_MIN_BYTES = 64 * 1024;
+
+	private static final byte OP_PUT = 1;
+	private static final byte OP_REMOVE = 2;
+	private static final byte OP_CLEAR = 3;
+
+	private static final byte TYPE_STRING = 1;
+	private static final byte TYPE_INT = 2;
+	private static final byte TYPE_LONG = 3;
+	private static final byte TYPE_FLOAT = 4;
+	private static final byte TYPE_BOOLEAN = 5;
+	private static final byte TYPE_STRING_SET = 6;
+	private static final byte TYPE_ENCRYPTED = 7;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Object CONTENT = new Object();
+
+	private static final HashMap<String, MappedPreferences> instances = new HashMap<String, MappedPreferences>();
+
+	// 로딩, 정리 작업 (파일별 작업 순서를 지키기 위해 단일 스레드)
+	private static final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "mapped-prefs");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * 암호화된 값 (복호화 결과는 처음 조회할 때 만든다.)
+	 */
+	private static class Encrypted {
+		final String cipherText;
+		String plainText;
+
+		Encrypted(String cipherText) {
+			this.cipherText = cipherText;
+		}
+	}
+
+	private final File file;
+	private final Context legacyContext;
+	private final String legacyName;
+	private final Set<String> encryptedKeys = new HashSet<String>();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final HashMap<String, Object> map = new HashMap<String, Object>();
+	private final WeakHashMap<OnSharedPreferenceChangeListener, Object> listeners = new WeakHashMap<OnSharedPreferenceChangeListener, Object>();
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int end = HEADER_SIZE;
+	private int compactedSize = 0;
+	private boolean loaded = false;
+	private boolean compacting = false;
+	private boolean closed = false;
+
+	// Metrics
+	private long loadMs = 0;
+	private int loadedRecords = 0;
+	private int droppedBytes = 0;
+	private int compactCount = 0;
+	private long lastCompactMs = 0;
+
+	/**
+	 * @param context context
+	 * @param name 파일 이름 (filesDir/kv/name.mkv)
+	 */
+	public static MappedPreferences getInstance(Context context, String name) {
+		return getInstance(context, name, null);
+	}
+
+	/**
+	 * @param context context
+	 * @param name 파일 이름 (filesDir/kv/name.mkv)
+	 * @param legacyName 파일이 아직 없으면 값을 가져올 기존 SharedPreferences 이름 (null 가능)
+	 * @param encryptedKeys 평문으로 남아 있으면 로딩시 암호화할 키 (기존 값을 가져오거나 이전 버전에서 평문으로 저장된 경우)
+	 */
+	public static MappedPreferences getInstance(Context context, String name, String legacyName, String... encryptedKeys) {
+		synchronized (instances) {
+			MappedPreferences prefs = instances.get(name);
+			if (prefs == null) {
+				Context app = context.getApplicationContext();
+				File dir = new File(app.getFilesDir(), "kv");
+				prefs = new MappedPreferences(new File(dir, name + ".mkv"), legacyName == null ? null : app, legacyName, encryptedKeys);
+				instances.put(name, prefs);
+			}
+			return prefs;
+		}
+	}
+
+	private MappedPreferences(File file, Context legacyContext, String legacyName, String[] encryptedKeys) {
+		this.file = file;
+		this.legacyContext = legacyContext;
+		this.legacyName = legacyName;
+		for (String key : encryptedKeys) {
+			this.encryptedKeys.add(key);
+		}
+		worker.execute(new Runnable() {
+			@Override
+			public void run() {
+				load();
+			}
+		});
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// 로딩
+
+	private synchronized void load() {
+		if (loaded)
+			return;
+		long start = System.currentTimeMillis();
+		boolean replayed = false;
+		try {
+			if (!file.exists()) {
+				file.getParentFile().mkdirs();
+				// 기존 값을 가져온 파일을 tmp 로 만든 후 교체하므로 가져오는 중에 종료되어도 다음에 다시 가져온다.
+				HashMap<String, Object> initial = new HashMap<String, Object>();
+				if (legacyContext != null) {
+					SharedPreferences legacy = legacyContext.getSharedPreferences(legacyName, Context.MODE_PRIVATE);
+					for (Map.Entry<String, ?> entry : legacy.getAll().entrySet()) {
+						if (entry.getValue() != null)
+							initial.put(entry.getKey(), protect(entry.getKey(), entry.getValue()));
+					}
+				}
+				File tmp = new File(file.getPath() + ".tmp");
+				writeSnapshot(tmp, initial);
+				if (!tmp.renameTo(file))
+					throw new IOException("rename failed : " + file);
+				if (!initial.isEmpty())
+					PLog.i(CLASS_TAG, "// " + file.getName() + " imported " + initial.size() + " values");
+			}
+			open();
+			replay();
+			encryptPlainValues();
+			replayed = true;
+		} catch (Exception e) {
+			// 읽은 데까지의 값으로 새 파일을 만든다.
+			PLog.e(CLASS_TAG, "// load failed : " + file + " " + e);
+			recreate();
+		} finally {
+			loaded = true;
+			loadMs = System.currentTimeMillis() - start;
+			notifyAll();
+		}
+		// 새 파일을 읽을 수 있을 때만 기존 값을 지운다.
+		if (replayed)
+			clearLegacy();
+		if (needsCompaction())
+			scheduleCompaction();
+	}
+
+	/**
+	 * 암호화 키의 평문 값은 암호화한 값으로 돌려준다. (암호화에 실패하면 값을 잃지 않도록 평문 그대로 두고 다음 로딩에서 다시 시도한다.)
+	 */
+	private Object protect(String key, Object value) {
+		if (!(value instanceof String) || !encryptedKeys.contains(key))
+			return value;
+		try {
+			return new Encrypted(new AESUtilSub().encrypt((String) value));
+		} catch (Exception e) {
+			PLog.e(CLASS_TAG, "// encrypt failed : " + key + " " + e);
+			return value;
+		}
+	}
+
+	/**
+	 * 로그에 평문으로 남은 암호화 키 값을 암호화한다. 로그의 평문 레코드는 정리하면서 새 파일로 교체되어 사라진다.
+	 */
+	private void encryptPlainValues() {
+		boolean changed = false;
+		for (String key : encryptedKeys) {
+			Object value = map.get(key);
+			Object protectedValue = protect(key, value);
+			if (protectedValue != value) {
+				map.put(key, protectedValue);
+				changed = true;
+			}
+		}
+		if (changed) {
+			PLog.i(CLASS_TAG, "// " + file.getName() + " encrypted plain values");
+			scheduleCompaction();
+		}
+	}
+
+	/**
+	 * 값을 가져온 기존 SharedPreferences 를 비우고 파일을 지운다. (평문 값이 기존 파일에 남지 않게 한다.)
+	 */
+	private void clearLegacy() {
+		if (legacyContext == null)
+			return;
+		File legacyFile = new File(new File(legacyContext.getApplicationInfo().dataDir, "shared_prefs"), legacyName + ".xml");
+		File backupFile = new File(legacyFile.getPath() + ".bak");
+		if (!legacyFile.exists() && !backupFile.exists())
+			return;
+		try {
+			legacyContext.getSharedPreferences(legacyName, Context.MODE_PRIVATE).edit().clear().commit();
+			if ((legacyFile.exists() && !legacyFile.delete()) || (backupFile.exists() && !backupFile.delete()))
+				PLog.w(CLASS_TAG, "// " + legacyName + " delete failed");
+			else
+				PLog.i(CLASS_TAG, "// " + legacyName + " cleared");
+		} catch (Exception e) {
+			PLog.e(CLASS_TAG, "// clear legacy failed : " + e);
+		}
+	}
+
+	private void open() throws IOException {
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		int length = (int) raf.length();
+		remap(Math.max(MIN_CAPACITY, roundUp(length)));
+	}
+
+	private void remap(int capacity) throws IOException {
+		if (raf.length() < capacity)
+			raf.setLength(capacity);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+	}
+
+	/**
+	 * 로그를 처음부터 읽어 현재 값을 만든다. 깨진 레코드를 만나면 그 뒤는 버린다.
+	 */
+	private void replay() throws IOException {
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException("invalid header");
+		int position = HEADER_SIZE;
+		int capacity = buffer.capacity();
+		while (position + RECORD_HEADER_SIZE <= capacity) {
+			int length = buffer.getInt(position);
+			if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity)
+				break;
+			byte[] payload = new byte[length];
+			ByteBuffer view = buffer.duplicate();
+			view.position(position + RECORD_HEADER_SIZE);
+			view.get(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if ((int) crc.getValue() != buffer.getInt(position + 4))
+				break;
+			applyRecord(payload);
+			loadedRecords++;
+			position += RECORD_HEADER_SIZE + length;
+		}
+		end = position;
+		compactedSize = Math.max(end, COMPACT_MIN_BYTES / 2);
+
+		// 쓰는 중에 종료된 레코드가 남아 있으면 지워서 다음 레코드와 섞이지 않게 한다.
+		if (position + 4 <= capacity && buffer.getInt(position) != 0) {
+			int dirtyEnd = position;
+			while (dirtyEnd < capacity) {
+				buffer.put(dirtyEnd++, (byte) 0);
+			}
+			droppedBytes = dirtyEnd - position;
+			buffer.force();
+			PLog.w(CLASS_TAG, "// " + file.getName() + " dropped torn record at " + position);
+		}
+	}
+
+	private void applyRecord(byte[] payload) {
+		ByteBuffer in = ByteBuffer.wrap(payload);
+		int count = in.getInt();
+		for (int i = 0; i < count; i++) {
+			byte op = in.get();
+			if (op == OP_CLEAR) {
+				map.clear();
+				continue;
+			}
+			String key = readString(in);
+			if (op == OP_REMOVE) {
+				map.remove(key);
+			} else {
+				map.put(key, readValue(in));
+			}
+		}
+	}
+
+	/**
+	 * 파일을 읽을 수 없는 경우 현재 값으로 새로 만든다. (깨진 파일은 .corrupt 로 남긴다.)
+	 */
+	private void recreate() {
+		closeFile();
+		try {
+			if (file.exists())
+				file.renameTo(new File(file.getPath() + ".corrupt"));
+			int size = writeSnapshot(file, map);
+			open();
+			end = size;
+			compactedSize = Math.max(size, COMPACT_MIN_BYTES / 2);
+		} catch (IOException e) {
+			PLog.e(CLASS_TAG, "// recreate failed : " + e);
+			buffer = null;
+		}
+	}
+
+	/**
+	 * 로딩이 끝날 때까지 기다린다. (처음 조회 전에 백그라운드에서 미리 읽어 둘 때 사용)
+	 */
+	public synchronized void awaitLoaded() {
+		boolean interrupted = false;
+		while (!loaded) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// 조회
+
+	@Override
+	public synchronized Map<String, ?> getAll() {
+		awaitLoaded();
+		HashMap<String, Object> all = new HashMap<String, Object>();
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			Object value = entry.getValue();
+			all.put(entry.getKey(), value instanceof Encrypted ? decrypt((Encrypted) value) : value);
+		}
+		return all;
+	}
+
+	@Override
+	public synchronized String getString(String key, String defValue) {
+		awaitLoaded();
+		Object value = map.get(key);
+		if (value instanceof Encrypted)
+			return decrypt((Encrypted) value);
+		return value != null ? (String) value : defValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public synchronized Set<String> getStringSet(String key, Set<String> defValues) {
+		awaitLoaded();
+		Set<String> value = (Set<String>) map.get(key);
+		return value != null ? new HashSet<String>(value) : defValues;
+	}
+
+	@Override
+	public synchronized int getInt(String key, int defValue) {
+		awaitLoaded();
+		Integer value = (Integer) map.get(key);
+		return value != null ? value : defValue;
+	}
+
+	@Override
+	public synchronized long getLong(String key, long defValue) {
+		awaitLoaded();
+		Long value = (Long) map.get(key);
+		return value != null ? value : defValue;
+	}
+
+	@Override
+	public synchronized float getFloat(String key, float defValue) {
+		awaitLoaded();
+		Float value = (Float) map.get(key);
+		return value != null ? value : defValue;
+	}
+
+	@Override
+	public synchronized boolean getBoolean(String key, boolean defValue) {
+		awaitLoaded();
+		Boolean value = (Boolean) map.get(key);
+		return value != null ? value : defValue;
+	}
+
+	@Override
+	public synchronized boolean contains(String key) {
+		awaitLoaded();
+		return map.containsKey(key);
+	}
+
+	private String decrypt(Encrypted value) {
+		if (value.plainText == null) {
+			try {
+				value.plainText = new AESUtilSub().decrypt(value.cipherText);
+			} catch (Exception e) {
+				PLog.e(CLASS_TAG, "// decrypt failed : " + e);
+				return null;
+			}
+		}
+		return value.plainText;
+	}
+
+	@Override
+	public Editor edit() {
+		return new Editor();
+	}
+
+	@Override
+	public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+		synchronized (listeners) {
+			listeners.put(listener, CONTENT);
+		}
+	}
+
+	@Override
+	public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+		synchronized (listeners) {
+			listeners.remove(listener);
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// 저장
+
+	/**
+	 * 변경 내용. commit/apply 한 번이 레코드 하나로 저장된다.
+	 */
+	public class Editor implements SharedPreferences.Editor {
+		private final LinkedHashMap<String, Object> changes = new LinkedHashMap<String, Object>();
+		private boolean clear = false;
+
+		@Override
+		public Editor putString(String key, String value) {
+			return put(key, value);
+		}
+
+		/**
+		 * 값을 암호화하여 저장한다. 조회는 getString 으로 한다.
+		 */
+		public Editor putEncryptedString(String key, String value) {
+			if (value == null)
+				return remove(key);
+			try {
+				return put(key, new Encrypted(new AESUtilSub().encrypt(value)));
+			} catch (Exception e) {
+				throw new IllegalStateException("encrypt failed", e);
+			}
+		}
+
+		@Override
+		public Editor putStringSet(String key, Set<String> values) {
+			return put(key, values == null ? null : new HashSet<String>(values));
+		}
+
+		@Override
+		public Editor putInt(String key, int value) {
+			return put(key, value);
+		}
+
+		@Override
+		public Editor putLong(String key, long value) {
+			return put(key, value);
+		}
+
+		@Override
+		public Editor putFloat(String key, float value) {
+			return put(key, value);
+		}
+
+		@Override
+		public Editor putBoolean(String key, boolean value) {
+			return put(key, value);
+		}
+
+		@Override
+		public synchronized Editor remove(String key) {
+			changes.put(key, this);
+			return this;
+		}
+
+		@Override
+		public synchronized Editor clear() {
+			clear = true;
+			return this;
+		}
+
+		private synchronized Editor put(String key, Object value) {
+			changes.put(key, value == null ? this : value);
+			return this;
+		}
+
+		@Override
+		public boolean commit() {
+			return write(this, true);
+		}
+
+		@Override
+		public void apply() {
+			write(this, false);
+		}
+	}
+
+	private boolean write(Editor editor, boolean sync) {
+		ArrayList<String> changedKeys = new ArrayList<String>();
+		boolean written;
+		synchronized (editor) {
+			synchronized (this) {
+				awaitLoaded();
+				byte[] payload;
+				try {
+					payload = encode(editor, changedKeys);
+				} catch (IOException e) {
+					PLog.e(CLASS_TAG, "// encode failed : " + e);
+					return false;
+				}
+				if (editor.clear)
+					map.clear();
+				for (Map.Entry<String, Object> entry : editor.changes.entrySet()) {
+					if (entry.getValue() == editor)
+						map.remove(entry.getKey());
+					else
+						map.put(entry.getKey(), entry.getValue());
+				}
+				written = append(payload, sync);
+				if (needsCompaction())
+					scheduleCompaction();
+			}
+			editor.changes.clear();
+			editor.clear = false;
+		}
+		notifyListeners(changedKeys);
+		return written;
+	}
+
+	private byte[] encode(Editor editor, ArrayList<String> changedKeys) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(editor.changes.size() + (editor.clear ? 1 : 0));
+		if (editor.clear) {
+			out.writeByte(OP_CLEAR);
+			changedKeys.addAll(map.keySet());
+		}
+		for (Map.Entry<String, Object> entry : editor.changes.entrySet()) {
+			if (entry.getValue() == editor) {
+				out.writeByte(OP_REMOVE);
+				writeString(out, entry.getKey());
+			} else {
+				out.writeByte(OP_PUT);
+				writeString(out, entry.getKey());
+				writeValue(out, entry.getValue());
+			}
+			if (!changedKeys.contains(entry.getKey()))
+				changedKeys.add(entry.getKey());
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * 레코드를 로그 끝에 추가한다. 본문을 먼저 쓰고 길이를 마지막에 써서, 길이가 보이면 본문은 이미 쓰여 있다.
+	 */
+	private boolean append(byte[] payload, boolean sync) {
+		if (buffer == null)
+			return false;
+		try {
+			int required = end + RECORD_HEADER_SIZE + payload.length;
+			if (required > buffer.capacity())
+				remap(roundUp(Math.max(required, buffer.capacity() * 2)));
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			ByteBuffer view = buffer.duplicate();
+			view.position(end + RECORD_HEADER_SIZE);
+			view.put(payload);
+			buffer.putInt(end + 4, (int) crc.getValue());
+			buffer.putInt(end, payload.length);
+			end = required;
+			if (sync)
+				buffer.force();
+			return true;
+		} catch (IOException e) {
+			PLog.e(CLASS_TAG, "// append failed : " + e);
+			return false;
+		}
+	}
+
+	private void notifyListeners(final ArrayList<String> changedKeys) {
+		final ArrayList<OnSharedPreferenceChangeListener> targets;
+		synchronized (listeners) {
+			if (listeners.isEmpty() || changedKeys.isEmpty())
+				return;
+			targets = new ArrayList<OnSharedPreferenceChangeListener>(listeners.keySet());
+		}
+		mainHandler.post(new Runnable() {
+			@Override
+			public void run() {
+				for (String key : changedKeys) {
+					for (OnSharedPreferenceChangeListener listener : targets) {
+						listener.onSharedPreferenceChanged(MappedPreferences.this, key);
+					}
+				}
+			}
+		});
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// 정리
+
+	private boolean needsCompaction() {
+		return !compacting && end >= COMPACT_MIN_BYTES && end > compactedSize * 2;
+	}
+
+	private void scheduleCompaction() {
+		compacting = true;
+		worker.execute(new Runnable() {
+			@Override
+			public void run() {
+				compact();
+			}
+		});
+	}
+
+	/**
+	 * 현재 값만으로 새 로그를 만들어 교체한다.
+	 */
+	public synchronized void compact() {
+		awaitLoaded();
+		if (closed)
+			return;
+		long start = System.currentTimeMillis();
+		int before = end;
+		try {
+			File tmp = new File(file.getPath() + ".tmp");
+			int size = writeSnapshot(tmp, map);
+			closeFile();
+			if (!tmp.renameTo(file))
+				throw new IOException("rename failed : " + file);
+			open();
+			end = size;
+			compactedSize = Math.max(size, COMPACT_MIN_BYTES / 2);
+			compactCount++;
+			lastCompactMs = System.currentTimeMillis() - start;
+			PLog.i(CLASS_TAG, "// " + file.getName() + " compacted " + before + " -> " + size + " bytes in " + lastCompactMs + "ms");
+		} catch (IOException e) {
+			PLog.e(CLASS_TAG, "// compact failed : " + e);
+			if (buffer == null || !channel.isOpen()) {
+				try {
+					open();
+				} catch (IOException reopen) {
+					PLog.e(CLASS_TAG, "// reopen failed : " + reopen);
+					buffer = null;
+				}
+			}
+		} finally {
+			compacting = false;
+		}
+	}
+
+	/**
+	 * 헤더와 값 전체를 담은 레코드 하나로 된 파일을 쓰고 동기화한다.
+	 * @return 로그 끝 위치
+	 */
+	private static int writeSnapshot(File target, Map<String, Object> values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(values.size());
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+			out.writeByte(OP_PUT);
+			writeString(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+		out.flush();
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + RECORD_HEADER_SIZE);
+		header.putInt(MAGIC).putInt(1).putInt(payload.length).putInt((int) crc.getValue());
+		FileOutputStream fos = new FileOutputStream(target);
+		try {
+			fos.write(header.array());
+			fos.write(payload);
+			fos.getFD().sync();
+		} finally {
+			fos.close();
+		}
+		return HEADER_SIZE + RECORD_HEADER_SIZE + payload.length;
+	}
+
+	/**
+	 * 파일을 닫는다. 이후 저장은 실패한다. (getInstance 로 얻은 인스턴스는 닫지 않는다.)
+	 */
+	synchronized void close() {
+		awaitLoaded();
+		closed = true;
+		closeFile();
+	}
+
+	private void closeFile() {
+		buffer = null;
+		try {
+			if (raf != null)
+				raf.close();
+		} catch (IOException e) {
+			PLog.printTrace(e);
+		}
+		raf = null;
+		channel = null;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	// 값 인코딩
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] data = value.getBytes(UTF8);
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	private static String readString(ByteBuffer in) {
+		byte[] data = new byte[in.getInt()];
+		in.get(data);
+		return new String(data, UTF8);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte(TYPE_STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(TYPE_INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Float) {
+			out.writeByte(TYPE_FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Set) {
+			Set<String> set = (Set<String>) value;
+			out.writeByte(TYPE_STRING_SET);
+			out.writeInt(set.size());
+			for (String item : set) {
+				writeString(out, item);
+			}
+		} else if (value instanceof Encrypted) {
+			out.writeByte(TYPE_ENCRYPTED);
+			writeString(out, ((Encrypted) value).cipherText);
+		} else {
+			throw new IOException("unsupported type : " + value);
+		}
+	}
+
+	private static Object readValue(ByteBuffer in) {
+		byte type = in.get();
+		switch (type) {
+		case TYPE_STRING:
+			return readString(in);
+		case TYPE_INT:
+			return in.getInt();
+		case TYPE_LONG:
+			return in.getLong();
+		case TYPE_FLOAT:
+			return in.getFloat();
+		case TYPE_BOOLEAN:
+			return in.get() != 0;
+		case TYPE_STRING_SET:
+			int size = in.getInt();
+			HashSet<String> set = new HashSet<String>();
+			for (int i = 0; i < size; i++) {
+				set.add(readString(in));
+			}
+			return set;
+		case TYPE_ENCRYPTED:
+			return new Encrypted(readString(in));
+		default:
+			throw new IllegalStateException("unknown type : " + type);
+		}
+	}
+
+	private static int roundUp(int size) {
+		return (size + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * SharedPreferences 와 비교 (키 count 개, 문자열 값)
+	 * put : 키마다 apply, get : 키마다 조회, commitOne : 값이 모두 있는 상태에서 키 하나 commit,
+	 * load : 같은 내용의 파일을 처음 열고 첫 조회까지의 시간. 백그라운드 스레드에서 호출한다.
+	 */
+	public static JSONObject benchmark(Context context, int count) throws JSONException, IOException {
+		Context app = context.getApplicationContext();
+		String name = "kv_bench_" + count;
+		JSONObject result = new JSONObject();
+		result.put("keys", count);
+
+		// SharedPreferences
+		File spDir = new File(app.getApplicationInfo().dataDir, "shared_prefs");
+		SharedPreferences sp = app.getSharedPreferences(name, Context.MODE_PRIVATE);
+		sp.edit().clear().commit();
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			sp.edit().putString("key" + i, "value" + i).apply();
+		}
+		long put = System.nanoTime() - start;
+		start = System.nanoTime();
+		sp.edit().putString("key0", "value0-").commit();
+		long commitOne = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			sp.getString("key" + i, null);
+		}
+		long get = System.nanoTime() - start;
+		copyFile(new File(spDir, name + ".xml"), new File(spDir, name + "_load.xml"));
+		start = System.nanoTime();
+		SharedPreferences spLoaded = app.getSharedPreferences(name + "_load", Context.MODE_PRIVATE);
+		spLoaded.getString("key0", null);
+		long load = System.nanoTime() - start;
+		result.put("sharedPreferences", benchmarkResult(count, put, get, commitOne, load, new File(spDir, name + ".xml").length()));
+		sp.edit().clear().commit();
+		spLoaded.edit().clear().commit();
+		new File(spDir, name + ".xml").delete();
+		new File(spDir, name + "_load.xml").delete();
+
+		// MappedPreferences
+		File dir = new File(app.getFilesDir(), "kv");
+		dir.mkdirs();
+		File kvFile = new File(dir, name + ".mkv");
+		File kvLoadFile = new File(dir, name + "_load.mkv");
+		kvFile.delete();
+		MappedPreferences kv = new MappedPreferences(kvFile, null, null, new String[0]);
+		start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			kv.edit().putString("key" + i, "value" + i).apply();
+		}
+		put = System.nanoTime() - start;
+		start = System.nanoTime();
+		kv.edit().putString("key0", "value0-").commit();
+		commitOne = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			kv.getString("key" + i, null);
+		}
+		get = System.nanoTime() - start;
+		kv.compact();
+		copyFile(kvFile, kvLoadFile);
+		start = System.nanoTime();
+		MappedPreferences kvLoaded = new MappedPreferences(kvLoadFile, null, null, new String[0]);
+		kvLoaded.getString("key0", null);
+		load = System.nanoTime() - start;
+		result.put("mapped", benchmarkResult(count, put, get, commitOne, load, kvFile.length()));
+		kv.close();
+		kvLoaded.close();
+		kvFile.delete();
+		kvLoadFile.delete();
+		return result;
+	}
+
+	private static JSONObject benchmarkResult(int count, long putNanos, long getNanos, long commitOneNanos, long loadNanos, long fileBytes) throws JSONException {
+		JSONObject obj = new JSONObject();
+		obj.put("putTotalMs", putNanos / 1000000);
+		obj.put("putAvgUs", putNanos / 1000 / Math.max(1, count));
+		obj.put("getTotalMs", getNanos / 1000000);
+		obj.put("getAvgUs", getNanos / 1000 / Math.max(1, count));
+		obj.put("commitOneMs", commitOneNanos / 1000000.0);
+		obj.put("loadMs", loadNanos / 1000000.0);
+		obj.put("fileBytes", fileBytes);
+		return obj;
+	}
+
+	private static void copyFile(File from, File to) throws IOException {
+		FileInputStream in = new FileInputStream(from);
+		try {
+			FileOutputStream out = new FileOutputStream(to);
+			try {
+				byte[] buf = new byte[32 * 1024];
+				int read;
+				while ((read = in.read(buf)) > 0) {
+					out.write(buf, 0, read);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 파일 상태와 로딩/정리 시간
+	 */
+	public synchronized JSONObject getMetrics() {
+		awaitLoaded();
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("file", file.getName());
+			metrics.put("entries", map.size());
+			metrics.put("logBytes", end);
+			metrics.put("capacity", buffer == null ? 0 : buffer.capacity());
+			metrics.put("loadMs", loadMs);
+			metrics.put("loadedRecords", loadedRecords);
+			metrics.put("droppedBytes", droppedBytes);
+			metrics.put("compactions", compactCount);
+			metrics.put("lastCompactMs", lastCompactMs);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
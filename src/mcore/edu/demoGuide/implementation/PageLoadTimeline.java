@@ -0,0 +1,290 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.webkit.WebView;
+
+/**
+ * PageLoadTimeline Class
+ *
+ * html 페이지별 로딩 과정을 기록하고 페이지별 백분위 시간을 집계한다. <br/>
+ *
+ * 기록하는 단계 (모두 화면 이동 요청 시각 기준, 요청이 없으면 Activity 생성 시각 기준) <br/>
+ * - navigation : 화면 이동 요청 (Controller.actionMoveActivity 호출 전, 웹의 페이지 이동 브릿지 호출) <br/>
+ * - create : BaseActivity 생성 <br/>
+ * - webViewAttach : WebView 생성(또는 WebViewPool 에서 가져옴) 및 브릿지 연결 <br/>
+ * - pageStarted / pageFinished : WebViewClient 의 onPageStarted / onPageFinished <br/>
+ * - firstBridgeCall : 페이지에서 처음 호출한 브릿지 (wnCommonInterface) <br/>
+ *
+ * 웹에서는 exWNPageTimeline 으로 조회/초기화한다.
+ */
+public class PageLoadTimeline {
+
+	private final String CLASS_TAG = "PAGE_LOAD_TIMELINE";
+
+	public static final String NAVIGATION = "navigation";
+	public static final String CREATE = "create";
+	public static final String WEBVIEW_ATTACH = "webViewAttach";
+	public static final String PAGE_STARTED = "pageStarted";
+	public static final String PAGE_FINISHED = "pageFinished";
+	public static final String FIRST_BRIDGE_CALL = "firstBridgeCall";
+
+	private static final String[] PHASES = { CREATE, WEBVIEW_ATTACH, PAGE_STARTED, PAGE_FINISHED, FIRST_BRIDGE_CALL };
+
+	/** 이 시간 안에 생성된 화면만 이동 요청과 연결한다. */
+	private static final long NAVIGATION_TIMEOUT_MS = 10 * 1000;
+
+	/** 페이지, 단계별로 보관하는 최근 측정 수 */
+	private static final int SAMPLE_SIZE = 100;
+
+	/** 보관하는 최근 타임라인 수 */
+	private static final int RECENT_SIZE = 20;
+
+	private static PageLoadTimeline instance;
+
+	/**
+	 * 페이지 한 번의 로딩 기록
+	 */
+	private static class Trace {
+		final String page;
+		final long originNanos;
+		final boolean fromNavigation;
+		final LinkedHashMap<String, Long> marks = new LinkedHashMap<String, Long>();
+
+		Trace(String page, long originNanos, boolean fromNavigation) {
+			this.page = page;
+			this.originNanos = originNanos;
+			this.fromNavigation = fromNavigation;
+		}
+
+		JSONObject toJson() throws JSONException {
+			JSONObject obj = new JSONObject();
+			obj.put("page", page);
+			obj.put("origin", fromNavigation ? NAVIGATION : CREATE);
+			JSONObject phases = new JSONObject();
+			for (Map.Entry<String, Long> entry : marks.entrySet()) {
+				phases.put(entry.getKey(), entry.getValue());
+			}
+			obj.put("phases", phases);
+			return obj;
+		}
+	}
+
+	/**
+	 * 단계별 최근 측정값 (ms)
+	 */
+	private static class Samples {
+		final long[] values = new long[SAMPLE_SIZE];
+		int count = 0;
+		long total = 0;
+
+		void add(long ms) {
+			values[(int) (total % SAMPLE_SIZE)] = ms;
+			total++;
+			if (count < SAMPLE_SIZE)
+				count++;
+		}
+
+		JSONObject toJson() throws JSONException {
+			long[] sorted = Arrays.copyOf(values, count);
+			Arrays.sort(sorted);
+			JSONObject obj = new JSONObject();
+			obj.put("count", total);
+			obj.put("p50", percentile(sorted, 50));
+			obj.put("p90", percentile(sorted, 90));
+			obj.put("p99", percentile(sorted, 99));
+			obj.put("max", count == 0 ? 0 : sorted[count - 1]);
+			return obj;
+		}
+
+		private static long percentile(long[] sorted, int p) {
+			if (sorted.length == 0)
+				return 0;
+			int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+		}
+	}
+
+	private final WeakHashMap<WebView, Trace> traces = new WeakHashMap<WebView, Trace>();
+	private final HashMap<String, HashMap<String, Samples>> pages = new HashMap<String, HashMap<String, Samples>>();
+	private final ArrayDeque<Trace> recent = new ArrayDeque<Trace>();
+	private long pendingNavigationNanos = 0;
+	private volatile boolean enabled = true;
+
+	public static synchronized PageLoadTimeline getInstance() {
+		if (instance == null) {
+			instance = new PageLoadTimeline();
+		}
+		return instance;
+	}
+
+	private PageLoadTimeline() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * 화면 이동 요청 기록. 다음에 생성되는 화면의 기준 시각이 된다.
+	 */
+	public synchronized void markNavigation() {
+		if (!enabled)
+			return;
+		pendingNavigationNanos = System.nanoTime();
+	}
+
+	/**
+	 * 화면(BaseActivity)의 기록을 시작한다. WebView 가 준비된 시점에 호출한다.
+	 * @param webView 화면의 WebView
+	 * @param url 로딩할 html
+	 * @param createNanos Activity 생성 시각 (System.nanoTime)
+	 */
+	public synchronized void begin(WebView webView, String url, long createNanos) {
+		if (!enabled || webView == null)
+			return;
+		long navigation = pendingNavigationNanos;
+		boolean fromNavigation = navigation != 0 && navigation <= createNanos
+				&& (createNanos - navigation) / 1000000 < NAVIGATION_TIMEOUT_MS;
+		pendingNavigationNanos = 0;
+
+		Trace trace = new Trace(pageOf(url), fromNavigation ? navigation : createNanos, fromNavigation);
+		traces.put(webView, trace);
+		record(trace, CREATE, createNanos);
+		record(trace, WEBVIEW_ATTACH, System.nanoTime());
+	}
+
+	/**
+	 * 단계 기록. 단계별로 처음 한 번만 기록된다.
+	 * 같은 화면에서 다른 페이지로 이동한 경우(pageStarted 가 다시 호출된 경우) 새 기록을 시작한다.
+	 * @param webView 화면의 WebView
+	 * @param phase 단계
+	 * @param url pageStarted 인 경우 페이지 url (그 외 null)
+	 * @return 기준 시각부터의 시간(ms), 기록되지 않았으면 -1
+	 */
+	public synchronized long mark(WebView webView, String phase, String url) {
+		if (!enabled || webView == null)
+			return -1;
+		long now = System.nanoTime();
+		Trace trace = traces.get(webView);
+		if (PAGE_STARTED.equals(phase) && url != null && (trace == null || trace.marks.containsKey(PAGE_STARTED))) {
+			if (url.startsWith("about:"))
+				return -1;
+			trace = new Trace(pageOf(url), now, false);
+			traces.put(webView, trace);
+		}
+		if (trace == null || trace.marks.containsKey(phase))
+			return -1;
+		long ms = record(trace, phase, now);
+
+		if (PAGE_FINISHED.equals(phase))
+			PLog.d(CLASS_TAG, "// " + trace.page + " finished in " + ms + "ms");
+		return ms;
+	}
+
+	/**
+	 * 화면 종료시 호출한다.
+	 */
+	public synchronized void end(WebView webView) {
+		traces.remove(webView);
+	}
+
+	private long record(Trace trace, String phase, long nanos) {
+		long ms = Math.max(0, (nanos - trace.originNanos) / 1000000);
+		if (trace.marks.isEmpty()) {
+			recent.addFirst(trace);
+			if (recent.size() > RECENT_SIZE)
+				recent.removeLast();
+		}
+		trace.marks.put(phase, ms);
+
+		HashMap<String, Samples> phases = pages.get(trace.page);
+		if (phases == null) {
+			phases = new HashMap<String, Samples>();
+			pages.put(trace.page, phases);
+		}
+		Samples samples = phases.get(phase);
+		if (samples == null) {
+			samples = new Samples();
+			phases.put(phase, samples);
+		}
+		samples.add(ms);
+		return ms;
+	}
+
+	/**
+	 * 페이지 이름 (html 디렉토리 기준 경로, query 제외)
+	 */
+	static String pageOf(String url) {
+		if (url == null)
+			return "";
+		String page = url;
+		int end = page.indexOf('?');
+		if (end < 0)
+			end = page.indexOf('#');
+		if (end >= 0)
+			page = page.substring(0, end);
+
+		String htmlDir = CommonLibHandler.getInstance().g_strHTMLDirForWeb;
+		if (htmlDir != null && htmlDir.length() > 0 && page.startsWith(htmlDir))
+			return page.substring(htmlDir.length());
+		int html = page.indexOf("/html/");
+		if (html >= 0)
+			return page.substring(html + "/html/".length());
+		return page.substring(page.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * 페이지별 단계 백분위 (ms) 와 최근 타임라인
+	 * { "pages" : { "page.html" : { "pageFinished" : { "count", "p50", "p90", "p99", "max" }, ... } }, "recent" : [ ... ] }
+	 */
+	public synchronized JSONObject snapshot() {
+		JSONObject obj = new JSONObject();
+		try {
+			obj.put("enabled", enabled);
+			JSONObject pageObj = new JSONObject();
+			for (Map.Entry<String, HashMap<String, Samples>> entry : pages.entrySet()) {
+				JSONObject phaseObj = new JSONObject();
+				for (String phase : PHASES) {
+					Samples samples = entry.getValue().get(phase);
+					if (samples != null)
+						phaseObj.put(phase, samples.toJson());
+				}
+				pageObj.put(entry.getKey(), phaseObj);
+			}
+			obj.put("pages", pageObj);
+			JSONArray recentArray = new JSONArray();
+			Iterator<Trace> it = recent.iterator();
+			while (it.hasNext()) {
+				recentArray.put(it.next().toJson());
+			}
+			obj.put("recent", recentArray);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return obj;
+	}
+
+	public synchronized void reset() {
+		pages.clear();
+		recent.clear();
+		PLog.i(CLASS_TAG, "// reset");
+	}
+}
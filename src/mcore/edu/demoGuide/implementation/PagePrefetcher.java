@@ -0,0 +1,378 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.TargetApi;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Process;
+
+/**
+ * PagePrefetcher Class
+ *
+ * 화면 이동 기록으로 다음에 열릴 가능성이 높은 html 을 예측하여,
+ * 해당 페이지와 페이지가 사용하는 정적 리소스(js, css, 이미지)를 LocalAssetServer 에 미리 읽어 둔다. <br/>
+ *
+ * - 이동 확률은 화면 이동 기록(이전 페이지 -> 새 페이지)을 누적하여 계산하며 앱 재시작 후에도 유지된다. <br/>
+ * - www/prefetch-hints.json 이 있으면 고정 흐름의 힌트로 함께 사용한다.
+ *   { "sample/s10_noticeList_nhlife.html" : [ "sample/s10_noticeView_nhlife.html" ], ... } <br/>
+ * - 저사양 단말(low RAM, 4코어 미만)에서는 동작하지 않으며, 한 번에 한 페이지만 백그라운드에서 읽는다. <br/>
+ *
+ * 모피어스의 JS 브릿지는 Activity 에 묶여 있어 숨겨진 WebView 에서 페이지를 미리 실행할 수 없으므로
+ * 페이지 로딩에 필요한 파일 읽기를 미리 수행한다. (WebView 생성은 WebViewPool 에서 미리 수행된다.)
+ */
+public class PagePrefetcher {
+
+	private final String CLASS_TAG = "PAGE_PREFETCHER";
+
+	private static final String PREF_NAME = "page_prefetcher";
+	private static final String PREF_KEY_TRANSITIONS = "transitions";
+
+	private static final String HINT_FILE_NAME = "prefetch-hints.json";
+	/** 힌트 한 개를 이동 기록 몇 건으로 볼지 */
+	private static final int HINT_WEIGHT = 3;
+
+	/** 이 확률 이상인 페이지만 미리 읽는다. */
+	private static final double MIN_PROBABILITY = 0.4;
+	/** 이동 기록이 이 수 미만이면 (힌트가 없는 한) 예측하지 않는다. */
+	private static final int MIN_SAMPLES = 3;
+	/** 페이지 하나에 대해 미리 읽는 최대 크기 */
+	private static final long MAX_PREFETCH_BYTES = 2 * 1024 * 1024;
+	/** 이동 기록을 저장하는 간격 */
+	private static final int SAVE_INTERVAL = 5;
+
+	private static final Pattern RESOURCE_PATTERN = Pattern.compile(
+			"(?:src|href)\\s*=\\s*[\"']([^\"'?#:]+\\.(?:js|css|png|jpg|jpeg|gif|svg|woff2?|ttf))[\"']",
+			Pattern.CASE_INSENSITIVE);
+
+	private static PagePrefetcher instance;
+
+	private final SharedPreferences prefs;
+	private final boolean enabled;
+	private final ThreadPoolExecutor executor;
+
+	// 이전 페이지 -> (다음 페이지 -> 횟수)
+	private final HashMap<String, HashMap<String, Integer>> transitions = new HashMap<String, HashMap<String, Integer>>();
+	private final HashMap<String, HashSet<String>> hints = new HashMap<String, HashSet<String>>();
+	private String lastPage;
+	private String predictedPage;
+	private int unsavedCount = 0;
+
+	// Metrics
+	private long predictionCount = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long prefetchCount = 0;
+	private long prefetchBytes = 0;
+	private long prefetchTotalMs = 0;
+
+	public static synchronized PagePrefetcher getInstance() {
+		if (instance == null) {
+			instance = new PagePrefetcher(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	private PagePrefetcher(Context context) {
+		prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+
+		ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+		enabled = !(am != null && isLowRamDevice(am)) && Runtime.getRuntime().availableProcessors() >= 4;
+
+		// 작업은 하나만 대기한다. (새 예측이 들어오면 대기 중인 이전 예측은 버린다.)
+		executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(1),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable r) {
+						Thread t = new Thread(new Runnable() {
+							@Override
+							public void run() {
+								Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+								r.run();
+							}
+						}, "page-prefetcher");
+						t.setDaemon(true);
+						return t;
+					}
+				}, new ThreadPoolExecutor.DiscardOldestPolicy());
+		executor.allowCoreThreadTimeOut(true);
+
+		loadTransitions();
+		if (enabled) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					loadHints();
+				}
+			});
+		}
+		PLog.i(CLASS_TAG, "// enabled[" + enabled + "]");
+	}
+
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	private static boolean isLowRamDevice(ActivityManager am) {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && am.isLowRamDevice();
+	}
+
+	/**
+	 * 새 화면이 열렸을 때 호출한다. 이동 기록을 남기고 다음 페이지를 예측한다.
+	 * @param url 화면의 html
+	 */
+	public synchronized void onPageEnter(String url) {
+		String page = PageLoadTimeline.pageOf(url);
+		if (page.length() == 0)
+			return;
+
+		if (predictedPage != null) {
+			if (predictedPage.equals(page))
+				hitCount++;
+			else
+				missCount++;
+			predictedPage = null;
+		}
+
+		if (lastPage != null && !lastPage.equals(page)) {
+			HashMap<String, Integer> next = transitions.get(lastPage);
+			if (next == null) {
+				next = new HashMap<String, Integer>();
+				transitions.put(lastPage, next);
+			}
+			Integer count = next.get(page);
+			next.put(page, count == null ? 1 : count + 1);
+			if (++unsavedCount >= SAVE_INTERVAL)
+				saveTransitions();
+		}
+		lastPage = page;
+		predict(page);
+	}
+
+	/**
+	 * 이전 화면으로 돌아왔을 때 호출한다. (이동 기록은 남기지 않는다.)
+	 */
+	public synchronized void onPageResume(String url) {
+		String page = PageLoadTimeline.pageOf(url);
+		if (page.length() == 0 || page.equals(lastPage))
+			return;
+		lastPage = page;
+		predictedPage = null;
+		predict(page);
+	}
+
+	private void predict(String page) {
+		if (!enabled)
+			return;
+
+		String best = null;
+		double bestProbability = 0;
+		int total = 0;
+		HashMap<String, Integer> weights = new HashMap<String, Integer>();
+		HashMap<String, Integer> next = transitions.get(page);
+		if (next != null)
+			weights.putAll(next);
+		HashSet<String> hinted = hints.get(page);
+		if (hinted != null) {
+			for (String h : hinted) {
+				Integer count = weights.get(h);
+				weights.put(h, (count == null ? 0 : count) + HINT_WEIGHT);
+			}
+		}
+		for (Integer count : weights.values()) {
+			total += count;
+		}
+		if (total < MIN_SAMPLES)
+			return;
+		for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+			double probability = (double) entry.getValue() / total;
+			if (probability > bestProbability) {
+				bestProbability = probability;
+				best = entry.getKey();
+			}
+		}
+		if (best == null || bestProbability < MIN_PROBABILITY)
+			return;
+
+		predictionCount++;
+		predictedPage = best;
+		final String target = best;
+		PLog.d(CLASS_TAG, "// predict " + page + " -> " + target + " (" + Math.round(bestProbability * 100) + "%)");
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				prefetch(target);
+			}
+		});
+	}
+
+	/**
+	 * html 과 html 이 참조하는 정적 리소스를 LocalAssetServer 에 읽어 둔다.
+	 */
+	private void prefetch(String page) {
+		String htmlDir = CommonLibHandler.getInstance().g_strHTMLDirForWeb;
+		if (htmlDir == null)
+			return;
+
+		long start = System.currentTimeMillis();
+		long bytes = 0;
+		try {
+			URI pageUri = new URI(htmlDir + page);
+			LocalAssetServer server = LocalAssetServer.getInstance();
+			ByteBuffer html = server.prefetch(pageUri.getPath());
+			if (html == null)
+				return;
+			bytes += html.remaining();
+
+			byte[] raw = new byte[html.remaining()];
+			html.get(raw);
+			Matcher m = RESOURCE_PATTERN.matcher(new String(raw, Charset.forName("UTF-8")));
+			HashSet<String> seen = new HashSet<String>();
+			while (m.find() && bytes < MAX_PREFETCH_BYTES) {
+				try {
+					String path = pageUri.resolve(m.group(1)).getPath();
+					if (path == null || !seen.add(path))
+						continue;
+					ByteBuffer data = server.prefetch(path);
+					if (data != null)
+						bytes += data.remaining();
+				} catch (Exception e) {
+					// 없는 파일, 잘못된 경로는 건너뛴다.
+				}
+			}
+		} catch (Exception e) {
+			PLog.w(CLASS_TAG, "// prefetch failed, page[" + page + "] : " + e);
+			return;
+		}
+
+		synchronized (this) {
+			prefetchCount++;
+			prefetchBytes += bytes;
+			prefetchTotalMs += System.currentTimeMillis() - start;
+		}
+	}
+
+	private void loadTransitions() {
+		String saved = prefs.getString(PREF_KEY_TRANSITIONS, null);
+		if (saved == null)
+			return;
+		try {
+			JSONObject obj = new JSONObject(saved);
+			Iterator<?> froms = obj.keys();
+			while (froms.hasNext()) {
+				String from = (String) froms.next();
+				JSONObject nextObj = obj.getJSONObject(from);
+				HashMap<String, Integer> next = new HashMap<String, Integer>();
+				Iterator<?> tos = nextObj.keys();
+				while (tos.hasNext()) {
+					String to = (String) tos.next();
+					next.put(to, nextObj.getInt(to));
+				}
+				transitions.put(from, next);
+			}
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+	}
+
+	private void saveTransitions() {
+		unsavedCount = 0;
+		try {
+			prefs.edit().putString(PREF_KEY_TRANSITIONS, transitionsToJson().toString()).apply();
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+	}
+
+	private JSONObject transitionsToJson() throws JSONException {
+		JSONObject obj = new JSONObject();
+		for (Map.Entry<String, HashMap<String, Integer>> entry : transitions.entrySet()) {
+			obj.put(entry.getKey(), new JSONObject(entry.getValue()));
+		}
+		return obj;
+	}
+
+	/**
+	 * www/prefetch-hints.json (없으면 무시)
+	 */
+	private void loadHints() {
+		String wwwDir = CommonLibHandler.getInstance().g_strWWWDirForWeb;
+		if (wwwDir == null)
+			return;
+		try {
+			ByteBuffer data = LocalAssetServer.getInstance().prefetch(Uri.parse(wwwDir + HINT_FILE_NAME).getPath());
+			if (data == null)
+				return;
+			byte[] raw = new byte[data.remaining()];
+			data.get(raw);
+			JSONObject obj = new JSONObject(new String(raw, Charset.forName("UTF-8")));
+			synchronized (this) {
+				Iterator<?> froms = obj.keys();
+				while (froms.hasNext()) {
+					String from = (String) froms.next();
+					HashSet<String> next = new HashSet<String>();
+					for (int i = 0; i < obj.getJSONArray(from).length(); i++) {
+						next.add(obj.getJSONArray(from).getString(i));
+					}
+					hints.put(from, next);
+				}
+			}
+		} catch (IOException e) {
+			// 힌트 파일 없음
+		} catch (JSONException e) {
+			PLog.w(CLASS_TAG, "// invalid " + HINT_FILE_NAME + " : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 통계
+	 * hit/miss : 예측한 페이지가 실제로 열렸는지, prefetchBytes : 미리 읽은 크기
+	 */
+	public synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("enabled", enabled);
+			metrics.put("pages", transitions.size());
+			metrics.put("hints", hints.size());
+			metrics.put("predictions", predictionCount);
+			metrics.put("hit", hitCount);
+			metrics.put("miss", missCount);
+			metrics.put("hitRate", hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount));
+			metrics.put("prefetched", prefetchCount);
+			metrics.put("prefetchBytes", prefetchBytes);
+			metrics.put("avgPrefetchMs", prefetchCount == 0 ? 0 : prefetchTotalMs / prefetchCount);
+			metrics.put("transitions", transitionsToJson());
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	/**
+	 * 이동 기록 삭제
+	 */
+	public synchronized void clear() {
+		transitions.clear();
+		predictedPage = null;
+		saveTransitions();
+	}
+}
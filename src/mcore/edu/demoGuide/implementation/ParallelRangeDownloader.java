@@ -0,0 +1,372 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * ParallelRangeDownloader Class
+ *
+ * 파일을 여러 구간(span)으로 나누어 HTTP Range 요청으로 동시에 받는다. <br/>
+ *
+ * - 구간은 받는 대로 파일의 같은 위치에 쓰며, 구간이 끝나면 바로 확인(SpanVerifier)한다. (확인도 받는 쓰레드에서 병렬로 진행된다.) <br/>
+ * - 끝난 구간은 journal(파일 경로 + ".journal")에 기록하여 중단된 후 다시 받을 때 이어받는다. <br/>
+ * - 서버 파일이 바뀌었으면(ETag / Last-Modified, If-Range) 처음부터 다시 받는다. <br/>
+ *
+ * 리소스 업데이트(HttpDefaultNetworkManager, ResourceDeltaUpdater)에서 사용한다.
+ */
+public class ParallelRangeDownloader {
+
+	private final String CLASS_TAG = "PARALLEL_RANGE_DOWNLOADER";
+
+	/** 전체 파일을 받을 때 구간 크기 */
+	public static final int CHUNK_SIZE = 512 * 1024;
+
+	private static final int MAX_WORKERS = 4;
+	private static final int CONNECT_TIMEOUT = 10 * 1000;
+	private static final int READ_TIMEOUT = 10 * 1000;
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	/**
+	 * 구간을 다 받은 후 내용 확인. 맞지 않으면 IOException 을 던진다.
+	 */
+	public interface SpanVerifier {
+		void verify(int index, RandomAccessFile file) throws IOException;
+	}
+
+	// Metrics (마지막 다운로드)
+	private static long lastSize = 0;
+	private static long lastResumedBytes = 0;
+	private static int lastWorkers = 0;
+	private static long lastElapsedMs = 0;
+
+	private final String url;
+	private final File file;
+	private final File journalFile;
+	private final ResourceDeltaUpdater.ProgressListener listener;
+	private String validator;
+
+	/**
+	 * @param url 받을 url
+	 * @param file 쓸 파일 (받는 중인 파일, 다 받은 후 호출한 쪽에서 rename 한다.)
+	 * @param listener 진행률
+	 */
+	public ParallelRangeDownloader(String url, File file, ResourceDeltaUpdater.ProgressListener listener) {
+		this.url = url.trim();
+		this.file = file;
+		this.journalFile = new File(file.getPath() + ".journal");
+		this.listener = listener;
+	}
+
+	/**
+	 * 서버 파일 크기와 Range 지원 여부를 확인한다.
+	 * @return 파일 크기, Range 를 지원하지 않으면 -1
+	 */
+	public long probe() throws IOException {
+		HttpURLConnection con = open();
+		try {
+			con.setRequestProperty("Range", "bytes=0-0");
+			if (con.getResponseCode() != HttpURLConnection.HTTP_PARTIAL)
+				return -1;
+			// Content-Range: bytes 0-0/12345
+			String range = con.getHeaderField("Content-Range");
+			int slash = range == null ? -1 : range.lastIndexOf('/');
+			if (slash < 0 || range.endsWith("*"))
+				return -1;
+			validator = con.getHeaderField("ETag");
+			if (validator == null)
+				validator = con.getHeaderField("Last-Modified");
+			return Long.parseLong(range.substring(slash + 1).trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		} finally {
+			con.disconnect();
+		}
+	}
+
+	/**
+	 * 파일 전체를 CHUNK_SIZE 구간으로 나누어 받는다.
+	 * @param size probe() 로 확인한 크기
+	 */
+	public void downloadAll(long size) throws IOException {
+		ArrayList<long[]> spans = new ArrayList<long[]>();
+		for (long start = 0; start < size; start += CHUNK_SIZE) {
+			spans.add(new long[] { start, Math.min(size, start + CHUNK_SIZE) - 1 });
+		}
+		download(spans, size, null);
+	}
+
+	/**
+	 * 구간들을 동시에 받아 파일의 같은 위치에 쓴다.
+	 * @param spans { 시작, 끝(포함) } 목록
+	 * @param size 파일 크기
+	 * @param verifier 구간 확인 (없으면 null)
+	 */
+	public void download(final ArrayList<long[]> spans, long size, final SpanVerifier verifier) throws IOException {
+		long start = System.currentTimeMillis();
+		final String layout = layoutOf(spans, size);
+		final boolean[] done = loadJournal(layout, spans.size());
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			if (raf.length() != size)
+				raf.setLength(size);
+		} finally {
+			raf.close();
+		}
+
+		final ArrayList<Integer> pending = new ArrayList<Integer>();
+		long resumed = 0;
+		for (int i = 0; i < spans.size(); i++) {
+			if (done[i])
+				resumed += spans.get(i)[1] - spans.get(i)[0] + 1;
+			else
+				pending.add(i);
+		}
+		// 이어받은 구간은 바로 진행률에 반영한다.
+		for (long remaining = resumed; remaining > 0; remaining -= Integer.MAX_VALUE) {
+			listener.onBytes((int) Math.min(Integer.MAX_VALUE, remaining));
+		}
+		if (resumed > 0)
+			PLog.i(CLASS_TAG, "// resume " + file.getName() + " from " + resumed + " / " + size);
+
+		int workers = Math.min(pending.size(), Math.min(MAX_WORKERS, Math.max(2, Runtime.getRuntime().availableProcessors())));
+		if (workers > 0) {
+			final AtomicInteger next = new AtomicInteger(0);
+			final AtomicBoolean failed = new AtomicBoolean(false);
+			// 처음 발생한 오류 (다른 쓰레드는 이 오류로 중단된다.)
+			final AtomicReference<IOException> error = new AtomicReference<IOException>();
+			ExecutorService executor = Executors.newFixedThreadPool(workers);
+			ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+			try {
+				for (int w = 0; w < workers; w++) {
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							RandomAccessFile out = new RandomAccessFile(file, "rw");
+							try {
+								int n;
+								while (!failed.get() && (n = next.getAndIncrement()) < pending.size()) {
+									int index = pending.get(n);
+									try {
+										fetch(spans.get(index), out, failed);
+										if (verifier != null)
+											verifier.verify(index, out);
+									} catch (IOException e) {
+										error.compareAndSet(null, e);
+										failed.set(true);
+										throw e;
+									}
+									markDone(layout, done, index);
+								}
+							} finally {
+								out.close();
+							}
+							return null;
+						}
+					}));
+				}
+				for (Future<Void> future : futures) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				failed.set(true);
+				throw new InterruptedIOException("download interrupted");
+			} catch (ExecutionException e) {
+				failed.set(true);
+				if (error.get() != null)
+					throw error.get();
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+				throw new IOException(e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		journalFile.delete();
+		synchronized (ParallelRangeDownloader.class) {
+			lastSize = size;
+			lastResumedBytes = resumed;
+			lastWorkers = workers;
+			lastElapsedMs = System.currentTimeMillis() - start;
+		}
+		PLog.i(CLASS_TAG, "// " + file.getName() + " " + size + " bytes, " + spans.size() + " spans, "
+				+ workers + " workers in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * 구간 하나를 받아 파일에 쓴다.
+	 */
+	private void fetch(long[] span, RandomAccessFile out, AtomicBoolean failed) throws IOException {
+		HttpURLConnection con = open();
+		try {
+			con.setRequestProperty("Range", "bytes=" + span[0] + "-" + span[1]);
+			if (validator != null)
+				con.setRequestProperty("If-Range", validator);
+			int code = con.getResponseCode();
+			if (code == HttpURLConnection.HTTP_OK) {
+				// 서버 파일이 바뀌었다. 이어받은 내용을 버린다.
+				journalFile.delete();
+				throw new IOException("resource changed : " + url);
+			}
+			if (code != HttpURLConnection.HTTP_PARTIAL)
+				throw new IOException("unexpected response : " + code);
+
+			InputStream in = new BufferedInputStream(con.getInputStream(), BUFFER_SIZE);
+			try {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				long position = span[0];
+				long remaining = span[1] - span[0] + 1;
+				while (remaining > 0) {
+					if (failed.get())
+						throw new InterruptedIOException("cancelled");
+					int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+					if (n < 0)
+						throw new EOFException(url);
+					out.seek(position);
+					out.write(buffer, 0, n);
+					position += n;
+					remaining -= n;
+					listener.onBytes(n);
+				}
+			} finally {
+				in.close();
+			}
+		} finally {
+			con.disconnect();
+		}
+	}
+
+	private HttpURLConnection open() throws IOException {
+		HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+		con.setRequestMethod("GET");
+		con.setConnectTimeout(CONNECT_TIMEOUT);
+		con.setReadTimeout(READ_TIMEOUT);
+		con.setUseCaches(false);
+		con.setDoInput(true);
+		con.setDoOutput(false);
+		return con;
+	}
+
+	/**
+	 * 같은 url, 크기, 구간 구성, 서버 파일(validator)에 대한 journal 이면 끝난 구간을 돌려준다.
+	 */
+	private boolean[] loadJournal(String layout, int count) {
+		boolean[] done = new boolean[count];
+		if (!journalFile.exists() || !file.exists())
+			return done;
+		try {
+			JSONObject journal = new JSONObject(readText(journalFile));
+			if (!layout.equals(journal.optString("layout")) || validator == null
+					|| !validator.equals(journal.optString("validator")))
+				return done;
+			JSONArray array = journal.getJSONArray("done");
+			for (int i = 0; i < array.length(); i++) {
+				int index = array.getInt(i);
+				if (index >= 0 && index < count)
+					done[index] = true;
+			}
+		} catch (Exception e) {
+			PLog.e(CLASS_TAG, "// load journal failed : " + e);
+		}
+		return done;
+	}
+
+	/**
+	 * 끝난 구간을 journal 에 기록한다. (tmp 에 쓴 후 rename)
+	 */
+	private synchronized void markDone(String layout, boolean[] done, int index) {
+		done[index] = true;
+		if (validator == null)
+			return;
+		File tmp = new File(journalFile.getPath() + ".tmp");
+		try {
+			JSONArray array = new JSONArray();
+			for (int i = 0; i < done.length; i++) {
+				if (done[i])
+					array.put(i);
+			}
+			JSONObject journal = new JSONObject();
+			journal.put("layout", layout);
+			journal.put("validator", validator);
+			journal.put("done", array);
+			FileOutputStream out = new FileOutputStream(tmp);
+			try {
+				out.write(journal.toString().getBytes("UTF-8"));
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(journalFile))
+				tmp.delete();
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		} catch (IOException e) {
+			PLog.e(CLASS_TAG, "// save journal failed : " + e);
+		}
+	}
+
+	private String layoutOf(ArrayList<long[]> spans, long size) {
+		long hash = size;
+		for (long[] span : spans) {
+			hash = hash * 31 + span[0];
+			hash = hash * 31 + span[1];
+		}
+		return url + "#" + spans.size() + "#" + Long.toHexString(hash);
+	}
+
+	private static String readText(File f) throws IOException {
+		InputStream in = new FileInputStream(f);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4 * 1024];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+			}
+			return new String(out.toByteArray(), "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 통계 (마지막 다운로드)
+	 */
+	public static synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("lastSize", lastSize);
+			metrics.put("lastResumedBytes", lastResumedBytes);
+			metrics.put("lastWorkers", lastWorkers);
+			metrics.put("lastElapsedMs", lastElapsedMs);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -12,6 +12,8 @@ import m.client.android.library.core.managers.ActivityHistoryManager;
 import m.client.android.library.core.utils.CommonLibUtil;
 import m.client.android.library.core.utils.PLog;
 import m.client.android.library.core.utils.PushWakeLock;
+import mcore.edu.demoGuide.manager.InterfaceManager;
+import mcore.edu.demoGuide.manager.JavascriptDispatcher;
 import mcore.edu.demoGuide.samples.activity.ShowPushPopup;
 import android.app.Activity;
 import android.app.AlertDialog;
@@ -20,7 +22,6 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 import android.os.Vibrator;
 import android.widget.Toast;
 
@@ -144,12 +145,15 @@ public class PushServiceManager extends BroadcastReceiver {
 
 	        	// 현재 최상위 화면(액티비티)가 웹 화면인 경우에는 
 	        	// extendWNInterface.js에 공통 정의 되어 있는 CBCommonPushNotification 함수로 메시지를 전달하여 처리한다.
-	        	new Handler().post(new Runnable() {
+	        	// 메시지는 JavascriptDispatcher 에서 escape 되어 다음 화면 프레임에 전달된다.
+	        	// 메시지가 웹 화면에 전달된 후에 wake lock 을 해제한다.
+	        	InterfaceManager.getInstance().loadUrl(topAct, "CBCommonPushNotification", message);
+	        	JavascriptDispatcher.getInstance().runAfterFlush(new Runnable() {
 					public void run() {
-						topAct.getWebView().loadUrl("javascript:CBCommonPushNotification('" + message + "')");
 						PushWakeLock.releaseCpuLock();
 					}
-				});	
+				});
+	        	return;
 	        	
 	        } else {	
 	        	
@@ -190,7 +194,7 @@ public class PushServiceManager extends BroadcastReceiver {
 			}
 			
 			// 화면에서 사용할 전역 변수 설정(WNSetVariable, WNGetVariable) 
-			CommonLibHandler.getInstance().setVariable("user_id", "reborn");	//WNGetvarible();
+			GlobalStateStore.getInstance().set("user_id", "reborn");	//WNGetvarible();
 
 			// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(WNSetVariableToStorage, WNGetVariableFromStorage)
 			CommonLibUtil.setConfigInfomation("save-info-to-file", "information", this)
@@ -200,6 +204,7 @@ public class PushServiceManager extends BroadcastReceiver {
 			param.putParam("ORIENT_TYPE", "PORT");
 			param.putParam("TARGET_URL", CommonLibHandler.getInstance().g_strHTMLDirForWeb + "intro.html" );
 			int actionType = CommonLibUtil.getActionType("NEW_SCR");
+		    PageLoadTimeline.getInstance().markNavigation();
 		    Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 		    actionType, 
 		    this, 
@@ -248,7 +253,7 @@ public class PushServiceManager extends BroadcastReceiver {
 				}
 				
 				// 화면에서 사용할 전역 변수 설정(WNSetVariable, WNGetVariable) 
-				CommonLibHandler.getInstance().setVariable("user_id", "reborn");	//WNGetvarible();
+				GlobalStateStore.getInstance().set("user_id", "reborn");	//WNGetvarible();
 
 				// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(WNSetVariableToStorage, WNGetVariableFromStorage)
 				//CommonLibUtil.setConfigInfomation("save-info-to-file", "information", this);
@@ -258,6 +263,7 @@ public class PushServiceManager extends BroadcastReceiver {
 				param.putParam("ORIENT_TYPE", "PORT");
 				param.putParam("TARGET_URL", CommonLibHandler.getInstance().g_strHTMLDirForWeb + "15_current_total.html" );
 				int actionType = CommonLibUtil.getActionType("NEW_SCR");
+			    PageLoadTimeline.getInstance().markNavigation();
 			    Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 			    actionType, 
 			    topAct, 
@@ -0,0 +1,412 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.common.DataHandler;
+import m.client.android.library.core.utils.PLog;
+import mcore.edu.demoGuide.manager.JavascriptDispatcher;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.webkit.WebView;
+
+/**
+ * RealtimeSubscriptionManager Class
+ *
+ * 소켓 실시간 데이터(0x20 Ticker, 0x5B 실시간 데이터, 0x5C 실시간 멀티)의 구독을 관리한다. <br/>
+ *
+ * 수신 데이터는 구독 아이디(winID) 단위로 최신 값만 유지(conflation)되며,
+ * 화면 프레임 주기(Choreographer)에 맞춰 한 번씩 UI 스레드에서 리스너로 전달된다.
+ * 전달되기 전에 새 값으로 덮어쓰여진 데이터는 dropped 로 집계된다.
+ * 웹 화면의 구독은 WebView 별로 관리되며 페이지 이동, 화면 종료시 해제된다. (unsubscribeAll) <br/>
+ *
+ * 라이브러리의 SocketRealtimePacketManager 는 사용하지 않는다.
+ * 전문 코드 - 화면(AbstractActivity) - tagId 로 SocketRealtimeItemsInfo 만 보관하는 구조라 구독 아이디(winID)별 수신 데이터를 찾을 수 없고,
+ * AbstractActivity.onDestroy 가 호출하는 removeRealtimeDistributionInfo 는 화면이 아닌 내부 Map 과 비교하여 실제로는 아무것도 지우지 않는다.
+ */
+public class RealtimeSubscriptionManager {
+
+	private final String CLASS_TAG = "REALTIME_SUBSCRIPTION";
+
+	/** Choreographer 를 사용할 수 없는 단말(API 16 미만)의 프레임 간격 */
+	private static final long FALLBACK_FRAME_INTERVAL_MS = 16;
+
+	/** 구독 아이디 시작 값 (일반 TR 패킷 아이디와 겹치지 않도록 큰 값에서 시작한다.) */
+	private static final int SUBSCRIPTION_ID_BASE = 0x40000000;
+
+	private static RealtimeSubscriptionManager instance;
+
+	/**
+	 * 실시간 데이터 수신 리스너
+	 * 모든 콜백은 UI 스레드에서 호출된다.
+	 */
+	public interface RealtimeListener {
+		/**
+		 * @param subscriptionId 구독 아이디
+		 * @param trCode 전문 코드
+		 * @param data 최신 수신 데이터
+		 */
+		void onRealtimeData(int subscriptionId, String trCode, byte[] data);
+	}
+
+	private static class Subscription {
+		final int id;
+		final String trCode;
+		final DataHandler sendBuf;
+		final RealtimeListener listener;
+		// 구독한 웹 화면 (네이티브 구독은 null)
+		final WeakReference<WebView> webView;
+
+		Subscription(int id, String trCode, DataHandler sendBuf, RealtimeListener listener, WebView webView) {
+			this.id = id;
+			this.trCode = trCode;
+			this.sendBuf = sendBuf;
+			this.listener = listener;
+			this.webView = webView == null ? null : new WeakReference<WebView>(webView);
+		}
+	}
+
+	private static class PendingUpdate {
+		final String trCode;
+		final byte[] data;
+		final long receivedNanos;
+
+		PendingUpdate(String trCode, byte[] data, long receivedNanos) {
+			this.trCode = trCode;
+			this.data = data;
+			this.receivedNanos = receivedNanos;
+		}
+	}
+
+	private final AtomicInteger subscriptionSeq = new AtomicInteger(SUBSCRIPTION_ID_BASE);
+	private final Map<Integer, Subscription> subscriptions = new ConcurrentHashMap<Integer, Subscription>();
+	private final ConcurrentHashMap<Integer, PendingUpdate> pending = new ConcurrentHashMap<Integer, PendingUpdate>();
+
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private boolean frameScheduled = false;
+	private Object frameCallback;
+
+	// 실시간 요청을 보낼 네트워크와 그 타겟 서버 이름
+	private SocketDataNetworkManager network;
+	private String targetServer;
+	private String ignoredServer;
+
+	// Metrics
+	private final AtomicLong receivedCount = new AtomicLong();
+	private final AtomicLong deliveredCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong unknownCount = new AtomicLong();
+	private final AtomicLong frameCount = new AtomicLong();
+	private final AtomicLong latencyCount = new AtomicLong();
+	private final AtomicLong latencyTotalNanos = new AtomicLong();
+	private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+	public static synchronized RealtimeSubscriptionManager getInstance() {
+		if (instance == null) {
+			instance = new RealtimeSubscriptionManager();
+		}
+		return instance;
+	}
+
+	private RealtimeSubscriptionManager() {
+	}
+
+	/**
+	 * 실시간 요청(0x5A)을 보낼 타겟 서버 이름 (AppManifest.xml 의 소켓 서버 이름)
+	 * 소켓 네트워크가 여러 개인 경우 앱 초기화시(Startup 등) 설정한다.
+	 * 설정하지 않으면 처음 등록된 소켓 네트워크의 서버를 사용한다.
+	 */
+	public synchronized void setTargetServer(String targetServer) {
+		this.targetServer = targetServer;
+		if (network != null && !network.getTargetServerName().equals(targetServer))
+			network = null;
+	}
+
+	/**
+	 * 실시간 요청(0x5A)을 보낼 소켓 네트워크를 등록한다.
+	 * SocketDataNetworkManager 의 서버 정보 설정시 호출된다.
+	 * 실시간 타겟 서버의 네트워크만 등록되며, 같은 서버의 네트워크가 다시 생성되면 새 네트워크로 바뀐다.
+	 */
+	synchronized void setNetwork(SocketDataNetworkManager network) {
+		String server = network.getTargetServerName();
+		if (targetServer == null)
+			targetServer = server;
+		if (!targetServer.equals(server)) {
+			// 라이브러리는 요청마다 서버 정보를 설정하므로 한 번만 기록한다.
+			if (!server.equals(ignoredServer))
+				PLog.w(CLASS_TAG, "// socket network[" + server + "] is not the realtime target server[" + targetServer + "]. ignored.");
+			ignoredServer = server;
+			return;
+		}
+		this.network = network;
+	}
+
+	/**
+	 * 웹 화면의 실시간 데이터 구독. 수신 데이터는 구독한 WebView 로 callback(subscriptionId, { id, trCode, data }) 형태로 전달된다.
+	 * 페이지 이동, 화면 종료시 unsubscribeAll(webView) 로 해제한다.
+	 * @param webView 구독한 화면
+	 * @param trCode 실시간 전문 코드
+	 * @param sendBuf 요청 데이터(JSON 형식의 DataHandler, 없으면 null)
+	 * @param callback JS 함수명
+	 * @return 구독 아이디, 소켓 네트워크가 설정되어 있지 않으면 -1
+	 */
+	public int subscribe(WebView webView, String trCode, DataHandler sendBuf, final String callback) {
+		final WeakReference<WebView> viewRef = new WeakReference<WebView>(webView);
+		return subscribe(trCode, sendBuf, new RealtimeListener() {
+			@Override
+			public void onRealtimeData(int subscriptionId, String trCode, byte[] data) {
+				WebView target = viewRef.get();
+				if (target == null)
+					return;
+				JSONObject obj = new JSONObject();
+				try {
+					obj.put("id", subscriptionId);
+					obj.put("trCode", trCode);
+					obj.put("data", new String(data, "UTF-8"));
+				} catch (Exception e) {
+					PLog.printTrace(e);
+				}
+				JavascriptDispatcher.getInstance().dispatch(target, callback, String.valueOf(subscriptionId), obj);
+			}
+		}, webView);
+	}
+
+	/**
+	 * 실시간 데이터를 구독한다.
+	 * @param trCode 실시간 전문 코드
+	 * @param sendBuf 요청 데이터(JSON 형식의 DataHandler, 없으면 null)
+	 * @param listener 수신 리스너 (UI 스레드에서 호출)
+	 * @return 구독 아이디, 소켓 네트워크가 설정되어 있지 않으면 -1
+	 */
+	public int subscribe(String trCode, DataHandler sendBuf, RealtimeListener listener) {
+		return subscribe(trCode, sendBuf, listener, null);
+	}
+
+	private int subscribe(String trCode, DataHandler sendBuf, RealtimeListener listener, WebView webView) {
+		SocketDataNetworkManager net;
+		synchronized (this) {
+			net = network;
+		}
+		if (net == null) {
+			PLog.w(CLASS_TAG, "// subscribe failed, socket network is not initialized. trCode[" + trCode + "]");
+			return -1;
+		}
+
+		int subscriptionId = subscriptionSeq.incrementAndGet();
+		subscriptions.put(subscriptionId, new Subscription(subscriptionId, trCode, sendBuf, listener, webView));
+		net.requestRealtime(subscriptionId, trCode, sendBuf);
+
+		PLog.i(CLASS_TAG, "// subscribe trCode[" + trCode + "], subscriptionId[" + subscriptionId + "]");
+		return subscriptionId;
+	}
+
+	/**
+	 * 소켓 재연결 후 기존 구독을 같은 구독 아이디로 다시 요청한다.
+	 */
+	public void resubscribeAll(SocketDataNetworkManager net) {
+		for (Subscription s : subscriptions.values()) {
+			net.requestRealtime(s.id, s.trCode, s.sendBuf);
+		}
+	}
+
+	/**
+	 * 구독을 해제한다.
+	 * 해제 이후 수신되는 해당 아이디의 데이터는 버려진다.
+	 */
+	public void unsubscribe(int subscriptionId) {
+		subscriptions.remove(subscriptionId);
+		pending.remove(subscriptionId);
+		PLog.i(CLASS_TAG, "// unsubscribe subscriptionId[" + subscriptionId + "]");
+	}
+
+	/**
+	 * 모든 구독을 해제한다.
+	 */
+	public void unsubscribeAll() {
+		subscriptions.clear();
+		pending.clear();
+	}
+
+	/**
+	 * 화면의 모든 구독을 해제한다. (페이지 이동, 화면 종료)
+	 */
+	public void unsubscribeAll(WebView webView) {
+		if (webView == null)
+			return;
+		for (Subscription s : subscriptions.values()) {
+			if (s.webView != null && s.webView.get() == webView)
+				unsubscribe(s.id);
+		}
+	}
+
+	/**
+	 * 구독 중인 실시간 데이터가 있는지 여부 (연결이 끊어졌을 때 재연결 여부 판단)
+	 */
+	public boolean hasSubscriptions() {
+		return !subscriptions.isEmpty();
+	}
+
+	public boolean isSubscribed(int subscriptionId) {
+		return subscriptions.containsKey(subscriptionId);
+	}
+
+	/**
+	 * 수신 스레드에서 호출된다.
+	 * 같은 구독 아이디로 아직 전달되지 않은 데이터가 있으면 최신 값으로 교체한다.
+	 * @param subscriptionId 구독 아이디(winID)
+	 * @param trCode 전문 코드
+	 * @param data 수신 데이터
+	 */
+	public void publish(int subscriptionId, String trCode, byte[] data) {
+		receivedCount.incrementAndGet();
+
+		if (!subscriptions.containsKey(subscriptionId)) {
+			unknownCount.incrementAndGet();
+			return;
+		}
+
+		PendingUpdate prev = pending.put(subscriptionId, new PendingUpdate(trCode, data, System.nanoTime()));
+		if (prev != null) {
+			droppedCount.incrementAndGet();
+		}
+		scheduleFrame();
+	}
+
+	private synchronized void scheduleFrame() {
+		if (frameScheduled)
+			return;
+		frameScheduled = true;
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			mainHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					postFrameCallback();
+				}
+			});
+		} else {
+			mainHandler.postDelayed(new Runnable() {
+				@Override
+				public void run() {
+					dispatchFrame();
+				}
+			}, FALLBACK_FRAME_INTERVAL_MS);
+		}
+	}
+
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private void postFrameCallback() {
+		if (frameCallback == null) {
+			frameCallback = new Choreographer.FrameCallback() {
+				@Override
+				public void doFrame(long frameTimeNanos) {
+					dispatchFrame();
+				}
+			};
+		}
+		Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) frameCallback);
+	}
+
+	/**
+	 * 프레임마다 한 번, UI 스레드에서 구독 아이디별 최신 값을 전달한다.
+	 */
+	private void dispatchFrame() {
+		synchronized (this) {
+			frameScheduled = false;
+		}
+		frameCount.incrementAndGet();
+
+		// 웹 구독은 JavascriptDispatcher 가 다음 프레임에 WebView 로 보내므로 그 후에 지연을 기록한다.
+		final ArrayList<Long> webReceivedNanos = new ArrayList<Long>();
+		ArrayList<Integer> ids = new ArrayList<Integer>(pending.keySet());
+		for (Integer id : ids) {
+			PendingUpdate update = pending.remove(id);
+			if (update == null)
+				continue;
+
+			Subscription subscription = subscriptions.get(id);
+			if (subscription == null)
+				continue;
+
+			try {
+				subscription.listener.onRealtimeData(subscription.id, update.trCode, update.data);
+			} catch (Exception e) {
+				PLog.printTrace(e);
+			}
+
+			deliveredCount.incrementAndGet();
+			if (subscription.webView != null)
+				webReceivedNanos.add(update.receivedNanos);
+			else
+				recordLatency(update.receivedNanos);
+		}
+
+		if (!webReceivedNanos.isEmpty()) {
+			JavascriptDispatcher.getInstance().runAfterFlush(new Runnable() {
+				@Override
+				public void run() {
+					for (Long receivedNanos : webReceivedNanos) {
+						recordLatency(receivedNanos);
+					}
+				}
+			});
+		}
+	}
+
+	private void recordLatency(long receivedNanos) {
+		long latency = System.nanoTime() - receivedNanos;
+		latencyCount.incrementAndGet();
+		latencyTotalNanos.addAndGet(latency);
+		long max = latencyMaxNanos.get();
+		while (latency > max && !latencyMaxNanos.compareAndSet(max, latency)) {
+			max = latencyMaxNanos.get();
+		}
+	}
+
+	/**
+	 * 실시간 채널 통계
+	 * received : 수신 건수, delivered : 화면 전달 건수, dropped : conflation 으로 버려진 건수,
+	 * unknown : 구독되지 않은 아이디로 수신된 건수,
+	 * avgLatencyMs/maxLatencyMs : 수신-전달 지연 (네이티브는 리스너 호출까지, 웹은 JavascriptDispatcher 가 WebView 로 보낼 때까지)
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		long delivered = deliveredCount.get();
+		long measured = latencyCount.get();
+		try {
+			metrics.put("subscriptions", subscriptions.size());
+			metrics.put("received", receivedCount.get());
+			metrics.put("delivered", delivered);
+			metrics.put("dropped", droppedCount.get());
+			metrics.put("unknown", unknownCount.get());
+			metrics.put("frames", frameCount.get());
+			metrics.put("avgLatencyMs", measured == 0 ? 0 : (latencyTotalNanos.get() / measured) / 1000000.0);
+			metrics.put("maxLatencyMs", latencyMaxNanos.get() / 1000000.0);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	public void resetMetrics() {
+		receivedCount.set(0);
+		deliveredCount.set(0);
+		droppedCount.set(0);
+		unknownCount.set(0);
+		frameCount.set(0);
+		latencyCount.set(0);
+		latencyTotalNanos.set(0);
+		latencyMaxNanos.set(0);
+	}
+}
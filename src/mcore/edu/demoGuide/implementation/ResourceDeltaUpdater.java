@@ -0,0 +1,460 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+
+/**
+ * ResourceDeltaUpdater Class
+ *
+ * 리소스 패키지(zip)의 변경된 부분만 내려받아 패키지를 다시 만든다. <br/>
+ *
+ * 서버는 패키지 옆에 구간별 해시 목록(manifest, 패키지 url + ".manifest.json")을 둔다. <br/>
+ * { "size" : 패키지 크기, "ranges" : [ { "path" : zip 엔트리 경로, "offset", "length", "sha1" }, ... ] } <br/>
+ * - ranges 는 패키지 전체를 순서대로 빈틈없이 나눈 구간이다. (엔트리별 local header + 데이터, 마지막은 central directory) <br/>
+ * - 단말에 남겨둔 이전 패키지(base)에 같은 해시의 구간이 있으면 복사하고, 없는 구간만 HTTP Range 요청으로 받는다. <br/>
+ *   (ParallelRangeDownloader 로 동시에 받으며, 중단되면 이어받는다.) <br/>
+ * - 모든 구간의 해시를 확인하므로 만들어진 패키지는 서버 패키지와 같으며, 이후 md5 확인과 압축 해제는 기존 업데이트 과정을 따른다. <br/>
+ *
+ * manifest 가 없거나, 서버가 Range 요청을 지원하지 않거나, 해시가 맞지 않으면 false 를 돌려주고 호출한 쪽에서 전체 패키지를 받는다.
+ */
+public class ResourceDeltaUpdater {
+
+	private final String CLASS_TAG = "RESOURCE_DELTA_UPDATER";
+
+	public static final String MANIFEST_SUFFIX = ".manifest.json";
+
+	private static final int CONNECT_TIMEOUT = 10 * 1000;
+	private static final int READ_TIMEOUT = 10 * 1000;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** 다운로드 구간 사이에 있는 이 크기 이하의 재사용 구간은 요청을 나누지 않고 함께 받는다. */
+	private static final int MERGE_GAP = 16 * 1024;
+
+	private static final String BASE_ZIP = "base.zip";
+	private static final String BASE_MANIFEST = "base.json";
+
+	private static ResourceDeltaUpdater instance;
+
+	/**
+	 * 받은 양 전달 (진행률 표시)
+	 * 업데이트를 중단해야 하면 IOException 을 던진다.
+	 */
+	public interface ProgressListener {
+		void onBytes(int bytes) throws IOException;
+	}
+
+	private static class Range {
+		final String path;
+		final long offset;
+		final int length;
+		final String sha1;
+
+		Range(String path, long offset, int length, String sha1) {
+			this.path = path;
+			this.offset = offset;
+			this.length = length;
+			this.sha1 = sha1;
+		}
+	}
+
+	private static class Manifest {
+		final long size;
+		final ArrayList<Range> ranges;
+		final String json;
+
+		Manifest(long size, ArrayList<Range> ranges, String json) {
+			this.size = size;
+			this.ranges = ranges;
+			this.json = json;
+		}
+	}
+
+	private final File dir;
+
+	// Metrics
+	private String lastMode = "none";
+	private long lastReusedBytes = 0;
+	private long lastDownloadedBytes = 0;
+	private long lastElapsedMs = 0;
+	private long deltaCount = 0;
+	private long fallbackCount = 0;
+
+	public static synchronized ResourceDeltaUpdater getInstance() {
+		if (instance == null) {
+			instance = new ResourceDeltaUpdater(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	private ResourceDeltaUpdater(Context context) {
+		dir = new File(context.getFilesDir(), "res_delta");
+	}
+
+	/**
+	 * 패키지를 변경된 구간만 받아 target 에 만든다.
+	 * @param url 패키지 url
+	 * @param target 만들 패키지 파일 (HttpAppUpdatingManager 가 md5 확인 후 압축 해제한다.)
+	 * @param listener 진행률
+	 * @return 만들었으면 true, manifest 가 없거나 실패하면 false (전체 패키지를 받아야 한다.)
+	 */
+	public synchronized boolean download(String url, File target, ProgressListener listener) {
+		long start = System.currentTimeMillis();
+		Manifest manifest;
+		try {
+			manifest = fetchManifest(url + MANIFEST_SUFFIX);
+		} catch (Exception e) {
+			PLog.i(CLASS_TAG, "// no manifest : " + e);
+			lastMode = "full";
+			return false;
+		}
+
+		HashMap<String, Range> local = loadBase();
+		File part = new File(target.getPath() + ".part");
+		RandomAccessFile base = null;
+		RandomAccessFile out = null;
+		long reused = 0;
+		long downloaded = 0;
+		try {
+			// 1. 받을 구간을 모은다. 이어지는 다운로드 구간은 CHUNK_SIZE 까지 한 번에 요청한다.
+			final ArrayList<Range> ranges = manifest.ranges;
+			final ArrayList<int[]> groups = new ArrayList<int[]>();
+			ArrayList<long[]> spans = new ArrayList<long[]>();
+			boolean[] fetched = new boolean[ranges.size()];
+			int i = 0;
+			while (i < ranges.size()) {
+				if (isLocal(local, ranges.get(i))) {
+					i++;
+					continue;
+				}
+				int end = i + 1;
+				long length = ranges.get(i).length;
+				while (end < ranges.size() && length < ParallelRangeDownloader.CHUNK_SIZE) {
+					Range next = ranges.get(end);
+					if (!isLocal(local, next)
+							|| (next.length <= MERGE_GAP && end + 1 < ranges.size() && !isLocal(local, ranges.get(end + 1)))) {
+						length += next.length;
+						end++;
+					} else {
+						break;
+					}
+				}
+				for (int r = i; r < end; r++) {
+					fetched[r] = true;
+				}
+				groups.add(new int[] { i, end });
+				spans.add(new long[] { ranges.get(i).offset, ranges.get(i).offset + length - 1 });
+				downloaded += length;
+				i = end;
+			}
+
+			// 2. 이전 패키지에 있는 구간을 복사한다.
+			if (downloaded < manifest.size) {
+				base = new RandomAccessFile(new File(dir, BASE_ZIP), "r");
+				out = new RandomAccessFile(part, "rw");
+				out.setLength(manifest.size);
+				MessageDigest digest = MessageDigest.getInstance("SHA-1");
+				byte[] buffer = new byte[BUFFER_SIZE];
+				for (int r = 0; r < ranges.size(); r++) {
+					if (fetched[r])
+						continue;
+					copy(base, local.get(ranges.get(r).sha1), ranges.get(r), out, digest, buffer, listener);
+					reused += ranges.get(r).length;
+				}
+				out.close();
+				out = null;
+			}
+
+			// 3. 나머지 구간을 동시에 받는다. 구간을 다 받는 대로 해시를 확인한다.
+			if (!spans.isEmpty()) {
+				ParallelRangeDownloader downloader = new ParallelRangeDownloader(url, part, listener);
+				long size = downloader.probe();
+				if (size != manifest.size)
+					throw new IOException("range not supported or size mismatch : " + size);
+				downloader.download(spans, manifest.size, new ParallelRangeDownloader.SpanVerifier() {
+					@Override
+					public void verify(int index, RandomAccessFile file) throws IOException {
+						verifyGroup(ranges, groups.get(index), file);
+					}
+				});
+			}
+
+			if (part.length() != manifest.size)
+				throw new IOException("size mismatch : " + part.length() + " / " + manifest.size);
+			if (target.exists() && !target.delete())
+				throw new IOException("delete failed : " + target.getPath());
+			if (!part.renameTo(target))
+				throw new IOException("rename failed : " + target.getPath());
+		} catch (Exception e) {
+			PLog.e(CLASS_TAG, "// delta update failed : " + e);
+			// 받은 구간은 이어받을 수 있도록 남겨둔다. (해시가 맞지 않거나 서버 파일이 바뀐 경우는 journal 이 지워진다.)
+			lastMode = "full";
+			fallbackCount++;
+			return false;
+		} finally {
+			closeQuietly(out);
+			closeQuietly(base);
+		}
+
+		saveBase(target, manifest);
+
+		lastMode = "delta";
+		lastReusedBytes = reused;
+		lastDownloadedBytes = downloaded;
+		lastElapsedMs = System.currentTimeMillis() - start;
+		deltaCount++;
+		PLog.i(CLASS_TAG, "// " + target.getName() + " reused[" + reused + "] downloaded[" + downloaded + "] in " + lastElapsedMs + "ms");
+		return true;
+	}
+
+	private static boolean isLocal(HashMap<String, Range> local, Range range) {
+		Range source = local.get(range.sha1);
+		return source != null && source.length == range.length;
+	}
+
+	/**
+	 * 이전 패키지에서 구간을 복사한다.
+	 */
+	private void copy(RandomAccessFile base, Range source, Range range, RandomAccessFile out, MessageDigest digest,
+			byte[] buffer, ProgressListener listener) throws IOException {
+		digest.reset();
+		base.seek(source.offset);
+		out.seek(range.offset);
+		int remaining = source.length;
+		while (remaining > 0) {
+			int n = Math.min(buffer.length, remaining);
+			base.readFully(buffer, 0, n);
+			digest.update(buffer, 0, n);
+			out.write(buffer, 0, n);
+			remaining -= n;
+			listener.onBytes(n);
+		}
+		verify(digest, range);
+	}
+
+	/**
+	 * 받은 구간(ranges[group[0], group[1]))의 해시를 확인한다. 받는 쓰레드에서 호출된다.
+	 */
+	private static void verifyGroup(ArrayList<Range> ranges, int[] group, RandomAccessFile file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e.toString());
+		}
+		byte[] buffer = new byte[BUFFER_SIZE];
+		for (int r = group[0]; r < group[1]; r++) {
+			Range range = ranges.get(r);
+			digest.reset();
+			file.seek(range.offset);
+			int remaining = range.length;
+			while (remaining > 0) {
+				int n = Math.min(buffer.length, remaining);
+				file.readFully(buffer, 0, n);
+				digest.update(buffer, 0, n);
+				remaining -= n;
+			}
+			verify(digest, range);
+		}
+	}
+
+	private static void verify(MessageDigest digest, Range range) throws IOException {
+		if (!range.sha1.equalsIgnoreCase(toHex(digest.digest())))
+			throw new IOException("hash mismatch : " + range.path);
+	}
+
+	private HttpURLConnection open(String url) throws IOException {
+		HttpURLConnection con = (HttpURLConnection) new URL(url.trim()).openConnection();
+		con.setRequestMethod("GET");
+		con.setConnectTimeout(CONNECT_TIMEOUT);
+		con.setReadTimeout(READ_TIMEOUT);
+		con.setUseCaches(false);
+		con.setDoInput(true);
+		con.setDoOutput(false);
+		return con;
+	}
+
+	private Manifest fetchManifest(String url) throws IOException, JSONException {
+		HttpURLConnection con = open(url);
+		try {
+			if (con.getResponseCode() != HttpURLConnection.HTTP_OK)
+				throw new IOException("response " + con.getResponseCode());
+			InputStream in = con.getInputStream();
+			try {
+				return parseManifest(new String(readFully(in), "UTF-8"));
+			} finally {
+				in.close();
+			}
+		} finally {
+			con.disconnect();
+		}
+	}
+
+	/**
+	 * manifest 해석. 구간이 패키지 전체를 빈틈없이 덮는지 확인한다.
+	 */
+	private static Manifest parseManifest(String json) throws JSONException {
+		JSONObject obj = new JSONObject(json);
+		long size = obj.getLong("size");
+		JSONArray array = obj.getJSONArray("ranges");
+		ArrayList<Range> ranges = new ArrayList<Range>(array.length());
+		long position = 0;
+		for (int i = 0; i < array.length(); i++) {
+			JSONObject item = array.getJSONObject(i);
+			Range range = new Range(item.optString("path"), item.getLong("offset"), item.getInt("length"), item.getString("sha1"));
+			if (range.offset != position || range.length <= 0)
+				throw new JSONException("invalid range : " + range.path);
+			position += range.length;
+			ranges.add(range);
+		}
+		if (position != size)
+			throw new JSONException("ranges do not cover package : " + position + " / " + size);
+		return new Manifest(size, ranges, json);
+	}
+
+	/**
+	 * 이전 패키지의 구간 (해시 -> 구간)
+	 */
+	private HashMap<String, Range> loadBase() {
+		HashMap<String, Range> result = new HashMap<String, Range>();
+		File zip = new File(dir, BASE_ZIP);
+		File json = new File(dir, BASE_MANIFEST);
+		if (!zip.exists() || !json.exists())
+			return result;
+		try {
+			Manifest manifest = parseManifest(new String(readFully(new FileInputStream(json)), "UTF-8"));
+			if (zip.length() != manifest.size)
+				return result;
+			for (Range range : manifest.ranges) {
+				result.put(range.sha1, range);
+			}
+		} catch (Exception e) {
+			PLog.e(CLASS_TAG, "// load base failed : " + e);
+		}
+		return result;
+	}
+
+	/**
+	 * 만든 패키지를 다음 업데이트의 base 로 남긴다.
+	 * 모든 구간의 해시를 확인한 패키지이므로 설치 결과와 관계없이 재사용할 수 있다.
+	 */
+	private void saveBase(File packageFile, Manifest manifest) {
+		File zipTmp = new File(dir, BASE_ZIP + ".tmp");
+		File jsonTmp = new File(dir, BASE_MANIFEST + ".tmp");
+		try {
+			if (!dir.exists() && !dir.mkdirs())
+				throw new IOException("mkdirs failed : " + dir.getPath());
+			FileInputStream in = new FileInputStream(packageFile);
+			FileOutputStream out = new FileOutputStream(zipTmp);
+			try {
+				FileChannel src = in.getChannel();
+				long size = src.size();
+				long position = 0;
+				while (position < size) {
+					position += src.transferTo(position, size - position, out.getChannel());
+				}
+				out.getFD().sync();
+			} finally {
+				in.close();
+				out.close();
+			}
+			FileOutputStream jsonOut = new FileOutputStream(jsonTmp);
+			try {
+				jsonOut.write(manifest.json.getBytes("UTF-8"));
+				jsonOut.getFD().sync();
+			} finally {
+				jsonOut.close();
+			}
+
+			// manifest 를 먼저 지워 zip 과 manifest 가 어긋난 상태로 남지 않도록 한다.
+			new File(dir, BASE_MANIFEST).delete();
+			if (!zipTmp.renameTo(new File(dir, BASE_ZIP)) || !jsonTmp.renameTo(new File(dir, BASE_MANIFEST)))
+				throw new IOException("rename failed");
+		} catch (IOException e) {
+			PLog.e(CLASS_TAG, "// save base failed : " + e);
+			zipTmp.delete();
+			jsonTmp.delete();
+		}
+	}
+
+	/**
+	 * 남겨둔 이전 패키지를 지운다. (다음 업데이트는 전체 구간을 받는다.)
+	 */
+	public synchronized void clear() {
+		new File(dir, BASE_MANIFEST).delete();
+		new File(dir, BASE_ZIP).delete();
+	}
+
+	/**
+	 * 통계
+	 * lastMode : 마지막 패키지를 받은 방식 (delta / full), reused / downloaded : 마지막 패키지에서 재사용한 / 받은 크기
+	 */
+	public synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("lastMode", lastMode);
+			metrics.put("lastReusedBytes", lastReusedBytes);
+			metrics.put("lastDownloadedBytes", lastDownloadedBytes);
+			metrics.put("lastElapsedMs", lastElapsedMs);
+			metrics.put("deltaCount", deltaCount);
+			metrics.put("fallbackCount", fallbackCount);
+			metrics.put("baseBytes", new File(dir, BASE_ZIP).length());
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8 * 1024];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable == null)
+			return;
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import m.client.android.library.core.common.LibDefinitions;
+import m.client.android.library.core.model.NetReqOptions;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * SocketConnectionSupervisor Class
+ *
+ * 소켓 연결이 끊어졌을 때 backoff 를 두고 재연결한다. <br/>
+ *
+ * 연결이 끊어진 시점에 응답을 받지 못한 TR 중 재전송해도 안전한(idempotent) TR 은
+ * 새 연결에서 같은 패킷 아이디로 다시 보내고, 그 외의 TR 은 바로 에러로 처리한다.
+ * 재연결에 최종 실패하면 남은 TR 도 모두 에러로 처리한다. <br/>
+ *
+ * 재전송할 TR 이나 실시간 구독이 없으면 재연결하지 않는다. (다음 요청시 다시 연결한다.)
+ * 앱의 요청 없이 반복되는 재연결은 maxRecoveries 회까지만 시도한다.
+ */
+public class SocketConnectionSupervisor {
+
+	private final String CLASS_TAG = "SOCKET_SUPERVISOR";
+
+	public static final long DEFAULT_BASE_DELAY_MS = 500;
+	public static final long DEFAULT_MAX_DELAY_MS = 30 * 1000;
+	public static final int DEFAULT_MAX_ATTEMPTS = 8;
+	public static final int DEFAULT_MAX_RECOVERIES = 5;
+
+	/** 재전송해도 되는 TR 코드 (모든 SocketDataNetworkManager 공통) */
+	private static final Set<String> idempotentTrCodes = Collections.synchronizedSet(new HashSet<String>());
+
+	/**
+	 * 응답 대기 중인 TR 정보
+	 */
+	static class InFlight {
+		final int packetSeq;
+		final String trCode;
+		final byte[] frame;
+		final NetReqOptions options;
+		final boolean idempotent;
+
+		InFlight(int packetSeq, String trCode, byte[] frame, NetReqOptions options, boolean idempotent) {
+			this.packetSeq = packetSeq;
+			this.trCode = trCode;
+			this.frame = frame;
+			this.options = options;
+			this.idempotent = idempotent;
+		}
+	}
+
+	private final SocketDataNetworkManager network;
+	// 재연결 스레드 (재연결이 필요할 때 만든다.)
+	private ScheduledExecutorService executor;
+	private final Random random = new Random();
+
+	private final TreeMap<Integer, InFlight> inFlight = new TreeMap<Integer, InFlight>();
+
+	private long baseDelayMs = DEFAULT_BASE_DELAY_MS;
+	private long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private int maxRecoveries = DEFAULT_MAX_RECOVERIES;
+
+	private volatile boolean recovering = false;
+	private int attempt = 0;
+	// 마지막 앱 요청 이후 시작한 재연결 횟수
+	private int recoveries = 0;
+	private long lostAtNanos;
+
+	// Metrics
+	private long disconnectCount = 0;
+	private long attemptCount = 0;
+	private long recoverCount = 0;
+	private long giveUpCount = 0;
+	private long idleCount = 0;
+	private long capCount = 0;
+	private long replayCount = 0;
+	private long failCount = 0;
+	private long lastRecoverMs = 0;
+	private long recoverTotalMs = 0;
+
+	public SocketConnectionSupervisor(SocketDataNetworkManager network) {
+		this.network = network;
+	}
+
+	/**
+	 * 재연결이 끊겨도 다시 보낼 수 있는 TR 코드를 등록한다. (조회성 TR 등)
+	 * NetReqOptions.method 가 "GET" 인 TR 도 idempotent 로 본다.
+	 */
+	public static void registerIdempotentTrCode(String trCode) {
+		idempotentTrCodes.add(trCode);
+	}
+
+	public static void unregisterIdempotentTrCode(String trCode) {
+		idempotentTrCodes.remove(trCode);
+	}
+
+	static boolean isIdempotent(String trCode, NetReqOptions options) {
+		if (idempotentTrCodes.contains(trCode))
+			return true;
+		return options != null && "GET".equalsIgnoreCase(options.method);
+	}
+
+	/**
+	 * 재연결 backoff 설정
+	 * @param baseDelayMs 첫 재시도 대기 시간
+	 * @param maxDelayMs 최대 대기 시간
+	 * @param maxAttempts 최대 재시도 횟수
+	 */
+	public synchronized void setBackoff(long baseDelayMs, long maxDelayMs, int maxAttempts) {
+		this.baseDelayMs = baseDelayMs;
+		this.maxDelayMs = maxDelayMs;
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * 앱의 요청 없이 연속으로 시작할 수 있는 재연결 횟수 (재연결마다 maxAttempts 회까지 시도한다.)
+	 */
+	public synchronized void setMaxRecoveries(int maxRecoveries) {
+		this.maxRecoveries = maxRecoveries;
+	}
+
+	/**
+	 * 앱의 TR 요청으로 연결된 경우 호출한다. 재연결 횟수를 다시 센다.
+	 */
+	public synchronized void resetRecoveries() {
+		recoveries = 0;
+	}
+
+	public boolean isRecovering() {
+		return recovering;
+	}
+
+	/**
+	 * 송신한 TR 을 응답 대기 목록에 추가한다.
+	 */
+	public synchronized void track(int packetSeq, String trCode, byte[] frame, NetReqOptions options) {
+		inFlight.put(packetSeq, new InFlight(packetSeq, trCode, frame, options, isIdempotent(trCode, options)));
+	}
+
+	/**
+	 * 응답 수신 또는 에러 처리 후 대기 목록에서 제거한다.
+	 */
+	public synchronized void complete(int packetSeq) {
+		inFlight.remove(packetSeq);
+	}
+
+	/**
+	 * 의도하지 않은 연결 종료(세션 종료, 예외, heartbeat timeout)시 호출된다.
+	 * 재전송할 TR 이나 실시간 구독이 없으면 재연결하지 않으며, 재연결 횟수를 넘으면 남은 TR 을 에러로 처리한다.
+	 * @param reason 로그용 사유
+	 */
+	public void onConnectionLost(String reason) {
+		ArrayList<InFlight> failed = new ArrayList<InFlight>();
+		String skipReason = null;
+		int waiting;
+		synchronized (this) {
+			if (recovering)
+				return;
+			disconnectCount++;
+
+			// idempotent 하지 않은 TR 은 재연결을 기다리지 않고 바로 실패 처리한다.
+			for (Map.Entry<Integer, InFlight> entry : new ArrayList<Map.Entry<Integer, InFlight>>(inFlight.entrySet())) {
+				if (!entry.getValue().idempotent) {
+					failed.add(entry.getValue());
+					inFlight.remove(entry.getKey());
+				}
+			}
+
+			boolean subscribed = network.carriesRealtime() && RealtimeSubscriptionManager.getInstance().hasSubscriptions();
+			if (inFlight.isEmpty() && !subscribed) {
+				// 기다리는 작업이 없으면 서버의 idle 종료를 따른다.
+				skipReason = "idle";
+				idleCount++;
+			} else if (recoveries >= maxRecoveries) {
+				skipReason = "recovery limit";
+				capCount++;
+				failed.addAll(inFlight.values());
+				inFlight.clear();
+			} else {
+				recovering = true;
+				recoveries++;
+				attempt = 0;
+				lostAtNanos = System.nanoTime();
+			}
+			waiting = inFlight.size();
+			failCount += failed.size();
+		}
+
+		if (skipReason == null)
+			PLog.w(CLASS_TAG, "// connection lost[" + reason + "], fail[" + failed.size() + "], wait replay[" + waiting + "], recovery[" + recoveries + "/" + maxRecoveries + "]");
+		else
+			PLog.w(CLASS_TAG, "// connection lost[" + reason + "], fail[" + failed.size() + "], no recovery[" + skipReason + "]");
+		for (InFlight f : failed) {
+			network.failInFlight(f.packetSeq, f.trCode, f.options);
+		}
+
+		if (skipReason == null)
+			scheduleAttempt();
+	}
+
+	/**
+	 * 재연결 중에 연결하지 못한 새 TR 을 재연결 후 보내도록 대기 목록에 추가한다.
+	 * @return 재연결 중이 아니거나 idempotent TR 이 아니면 false (호출한 쪽에서 에러로 처리한다.)
+	 */
+	public synchronized boolean queueForReplay(int packetSeq, String trCode, byte[] frame, NetReqOptions options) {
+		if (!recovering || !isIdempotent(trCode, options))
+			return false;
+		inFlight.put(packetSeq, new InFlight(packetSeq, trCode, frame, options, true));
+		return true;
+	}
+
+	/**
+	 * 사용자가 연결을 종료한 경우 재연결을 중단하고 응답을 기다리는 TR 은 에러로 처리한다.
+	 */
+	public void cancel() {
+		cancel(LibDefinitions.errstatus.ERROR_CONNECTION, "");
+	}
+
+	/**
+	 * 재연결을 중단하고 응답을 기다리는 TR 을 주어진 에러로 처리한다. (라이브러리의 응답 대기 timeout 등)
+	 * @return 에러로 처리한 TR 수
+	 */
+	public int cancel(int errCode, String errMessage) {
+		ArrayList<InFlight> failed;
+		synchronized (this) {
+			recovering = false;
+			recoveries = 0;
+			failed = new ArrayList<InFlight>(inFlight.values());
+			inFlight.clear();
+			failCount += failed.size();
+		}
+		for (InFlight f : failed) {
+			network.failInFlight(f.packetSeq, f.trCode, f.options, errCode, errMessage);
+		}
+		return failed.size();
+	}
+
+	/**
+	 * 재연결을 중단하고 재연결 스레드를 종료한다. (연결 종료, 레인 정리시)
+	 * 이후 연결이 끊어지면 스레드를 다시 만든다.
+	 */
+	public void shutdown() {
+		cancel();
+		synchronized (this) {
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	private synchronized void scheduleAttempt() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "socket-supervisor");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 16));
+		// 여러 단말이 동시에 재접속하지 않도록 ±20% jitter
+		delay = delay - delay / 5 + (long) (random.nextDouble() * (delay * 2 / 5));
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				attemptReconnect();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void attemptReconnect() {
+		synchronized (this) {
+			if (!recovering)
+				return;
+			attempt++;
+			attemptCount++;
+		}
+
+		PLog.i(CLASS_TAG, "// reconnect attempt[" + attempt + "]");
+		if (network.reconnect()) {
+			onReconnected();
+			return;
+		}
+
+		boolean giveUp;
+		synchronized (this) {
+			giveUp = attempt >= maxAttempts;
+		}
+		if (giveUp)
+			onGiveUp();
+		else
+			scheduleAttempt();
+	}
+
+	private void onReconnected() {
+		ArrayList<InFlight> replay;
+		synchronized (this) {
+			recovering = false;
+			lastRecoverMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lostAtNanos);
+			recoverTotalMs += lastRecoverMs;
+			recoverCount++;
+			// 패킷 아이디 순서(요청 순서)로 재전송한다.
+			replay = new ArrayList<InFlight>(inFlight.values());
+			replayCount += replay.size();
+		}
+
+		PLog.i(CLASS_TAG, "// reconnected in [" + lastRecoverMs + "ms], replay[" + replay.size() + "]");
+		for (InFlight f : replay) {
+			network.replayFrame(f.frame);
+		}
+		if (network.carriesRealtime())
+			RealtimeSubscriptionManager.getInstance().resubscribeAll(network);
+	}
+
+	private void onGiveUp() {
+		ArrayList<InFlight> failed;
+		synchronized (this) {
+			recovering = false;
+			giveUpCount++;
+			failed = new ArrayList<InFlight>(inFlight.values());
+			inFlight.clear();
+			failCount += failed.size();
+		}
+
+		PLog.w(CLASS_TAG, "// reconnect give up after [" + attempt + "] attempts, fail[" + failed.size() + "]");
+		for (InFlight f : failed) {
+			network.failInFlight(f.packetSeq, f.trCode, f.options);
+		}
+	}
+
+	/**
+	 * 재연결 통계
+	 * idleCloses : 기다리는 작업이 없어 재연결하지 않은 종료, recoveryLimited : 재연결 횟수를 넘어 재연결하지 않은 종료,
+	 * lastRecoverMs/avgRecoverMs : 연결 끊김부터 재연결까지 걸린 시간
+	 */
+	public synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("recovering", recovering);
+			metrics.put("inFlight", inFlight.size());
+			metrics.put("disconnects", disconnectCount);
+			metrics.put("attempts", attemptCount);
+			metrics.put("recovered", recoverCount);
+			metrics.put("giveUps", giveUpCount);
+			metrics.put("idleCloses", idleCount);
+			metrics.put("recoveryLimited", capCount);
+			metrics.put("recoveries", recoveries);
+			metrics.put("maxRecoveries", maxRecoveries);
+			metrics.put("replayed", replayCount);
+			metrics.put("failed", failCount);
+			metrics.put("lastRecoverMs", lastRecoverMs);
+			metrics.put("avgRecoverMs", recoverCount == 0 ? 0 : recoverTotalMs / recoverCount);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -16,6 +16,12 @@ import m.client.android.library.core.utils.PLog;
 import m.client.android.library.core.utils.Utils;
 import m.client.android.library.core.view.AbstractActivity;
 import m.client.android.library.core.view.IActivityNetworkable;
+
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import android.app.ProgressDialog;
 import android.widget.Toast;
 
@@ -44,6 +50,17 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	private final int RECV_HEAD_LEN = 5;
 	private final int RECV_TAIL_LEN = 2;
 	
+	// cmd
+	private static final byte CMD_TICKER = 0x20;
+	private static final byte CMD_POLLING = 0x2a;
+	private static final byte CMD_GENERAL_TR = 0x40;
+	private static final byte CMD_REALTIME_REQUEST = 0x5a;
+	private static final byte CMD_REALTIME_DATA = 0x5b;
+	private static final byte CMD_REALTIME_MULTI = 0x5c;
+	
+	// 라이브러리의 응답 대기 timeout 에러 코드 (AsyncSocketNetwork.sessionIdle)
+	private static final int ERROR_WAITING_TIMEOUT = 9998;
+	
 	private boolean isContinuePacket = false;
 	private Integer packetSeqId;
 	private String recvTrCode;
@@ -51,6 +68,41 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	private String message;
 	private byte[] recvData;
 	
+	private SocketHeartbeatScheduler heartbeat;
+	private final SocketConnectionSupervisor supervisor = new SocketConnectionSupervisor(this);
+	
+	// 사용자 요청(close)에 의한 연결 종료 여부
+	private volatile boolean closedByUser = false;
+	// 라이브러리의 응답 대기 timeout(READER_IDLE)에 의한 연결 종료 여부
+	private volatile boolean closedByIdle = false;
+	
+	/**
+	 * connect() 중에 라이브러리가 알려준 연결 에러
+	 */
+	private static class ConnectError {
+		int code = LibDefinitions.errstatus.ERROR_CONNECTION;
+		String message = "";
+	}
+	
+	// 연결 시도 중인 스레드의 연결 에러 (연결을 요청한 쪽에서 처리한다.)
+	private final ThreadLocal<ConnectError> connectError = new ThreadLocal<ConnectError>();
+	// 요청 스레드에서 처리중인 패킷 아이디 (송신 실패시 해당 TR 을 에러로 처리한다.)
+	private final ThreadLocal<Integer> requestSeq = new ThreadLocal<Integer>();
+	
+	// write coalescing (기본값은 사용하지 않음)
+	private static long defaultCoalesceWindowMs = 0;
+	private static int defaultCoalesceMaxBytes = 16 * 1024;
+	private SocketWriteCoalescer coalescer;
+	
+	// 클라이언트 heartbeat (기본값은 사용하지 않음, 서버 Polling 에 대한 echo 만 보낸다.)
+	private static boolean defaultClientHeartbeat = false;
+	
+	// 연결 분리 (기본값은 사용하지 않음, 하나의 연결로 모든 cmd 를 처리)
+	private static boolean defaultLaneSeparation = false;
+	private final int lane;
+	private SocketLanePool lanePool;
+	private final SocketLanePool.LaneStats laneStats = new SocketLanePool.LaneStats();
+	
 	CommonLibHandler commHandle = CommonLibHandler.getInstance();
 	
 	/**
@@ -59,6 +111,183 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	 */
 	public SocketDataNetworkManager() {
 		super();
+		this.lane = SocketLanePool.LANE_GENERAL;
+		
+		if (defaultCoalesceWindowMs > 0)
+			setWriteCoalescing(true, defaultCoalesceWindowMs, defaultCoalesceMaxBytes);
+		
+		if (defaultLaneSeparation)
+			setLaneSeparation(true);
+	}
+	
+	/**
+	 * 보조 레인 생성용 (SocketLanePool 에서 호출)
+	 * 보조 레인은 지연을 줄이기 위해 write coalescing 을 사용하지 않는다.
+	 */
+	private SocketDataNetworkManager(int lane) {
+		super();
+		this.lane = lane;
+	}
+	
+	/**
+	 * 서버 정보 설정
+	 * 실시간 타겟 서버의 네트워크이면 실시간 요청(0x5A)은 이 네트워크를 통해 전송된다. (연결 분리시 REALTIME 레인으로 전달)
+	 */
+	@Override
+	public void initNetowrkInfo(String targetServer, String host, int port, int timeout, String encoding) {
+		super.initNetowrkInfo(targetServer, host, port, timeout, encoding);
+		if (lane == SocketLanePool.LANE_GENERAL)
+			RealtimeSubscriptionManager.getInstance().setNetwork(this);
+	}
+	
+	String getTargetServerName() {
+		return TARGET_SERVER == null ? "" : TARGET_SERVER;
+	}
+	
+	/**
+	 * 이 연결과 같은 서버 정보를 가지는 보조 레인을 생성한다.
+	 */
+	SocketDataNetworkManager createLane(int lane) {
+		SocketDataNetworkManager network = new SocketDataNetworkManager(lane);
+		network.initNetowrkInfo(TARGET_SERVER, HOST, PORT, CONNECTION_TIMEOUT, ENCODING);
+		return network;
+	}
+	
+	/**
+	 * 이후 생성되는 소켓 네트워크의 연결 분리 기본값을 설정한다.
+	 * 네트워크 객체는 라이브러리에서 생성되므로 앱 초기화시(Startup 등) 호출한다.
+	 * @param enable true 이면 실시간 요청과 등록된 실시간성 TR 을 별도 연결로 보낸다.
+	 */
+	public static void setDefaultLaneSeparation(boolean enable) {
+		defaultLaneSeparation = enable;
+	}
+	
+	/**
+	 * 연결 분리 사용 여부 설정
+	 * 사용시 실시간 요청(0x5A)과 SocketLanePool.registerRealtimeTrCode() 로 등록한 TR 은
+	 * REALTIME 레인으로, 나머지 TR 은 이 연결(GENERAL 레인)로 전송된다.
+	 * 서버가 단말당 여러 세션을 허용해야 한다.
+	 */
+	public synchronized void setLaneSeparation(boolean enable) {
+		if (lane != SocketLanePool.LANE_GENERAL)
+			return;
+		if (enable) {
+			if (lanePool == null)
+				lanePool = new SocketLanePool(this);
+		} else if (lanePool != null) {
+			lanePool.shutdownLanes();
+			lanePool = null;
+		}
+	}
+	
+	/**
+	 * 라우팅 규칙에 따라 요청을 보낼 레인
+	 * @param realtimeRequest 실시간 요청(0x5A) 여부
+	 * @param trCode 전문 코드
+	 */
+	private SocketDataNetworkManager laneFor(boolean realtimeRequest, String trCode) {
+		SocketLanePool pool;
+		synchronized (this) {
+			pool = lanePool;
+		}
+		if (pool == null)
+			return this;
+		return pool.getLane(SocketLanePool.route(realtimeRequest, trCode));
+	}
+	
+	/**
+	 * 실시간 요청(0x5A)을 보내는 연결인지 여부
+	 * 재연결 후 실시간 구독은 이 값이 true 인 연결에서만 다시 요청한다.
+	 */
+	boolean carriesRealtime() {
+		if (lane == SocketLanePool.LANE_REALTIME)
+			return true;
+		synchronized (this) {
+			return lanePool == null;
+		}
+	}
+	
+	/**
+	 * 이 연결의 송수신 통계
+	 */
+	JSONObject getLaneMetrics() {
+		return laneStats.getMetrics();
+	}
+	
+	/**
+	 * 이후 생성되는 소켓 네트워크의 클라이언트 heartbeat 사용 여부를 설정한다.
+	 * 서버가 클라이언트의 Polling(0x2A)에 응답하는 경우에만 사용한다. 응답이 없으면 연결이 끊긴 것으로 판단하여 재연결한다.
+	 * 네트워크 객체는 라이브러리에서 생성되므로 앱 초기화시(Startup 등) 호출한다.
+	 * @param enable 사용 여부
+	 */
+	public static void setDefaultClientHeartbeat(boolean enable) {
+		defaultClientHeartbeat = enable;
+	}
+	
+	/**
+	 * 이후 생성되는 소켓 네트워크의 write coalescing 기본값을 설정한다.
+	 * 네트워크 객체는 라이브러리에서 생성되므로 앱 초기화시(Startup 등) 호출한다.
+	 * @param windowMs 프레임을 모으는 시간(ms), 0 이면 사용하지 않음
+	 * @param maxBytes 이 크기 이상 모이면 바로 전송
+	 */
+	public static void setDefaultWriteCoalescing(long windowMs, int maxBytes) {
+		defaultCoalesceWindowMs = windowMs;
+		defaultCoalesceMaxBytes = maxBytes;
+	}
+	
+	/**
+	 * write coalescing 사용 여부 설정
+	 * 사용시 window 안에 요청된 TR 프레임들은 한 번의 write 로 전송된다.
+	 * @param enable 사용 여부
+	 * @param windowMs 프레임을 모으는 시간(ms)
+	 * @param maxBytes 이 크기 이상 모이면 바로 전송
+	 */
+	public synchronized void setWriteCoalescing(boolean enable, long windowMs, int maxBytes) {
+		if (coalescer != null) {
+			coalescer.shutdown();
+			coalescer = null;
+		}
+		if (enable && windowMs > 0)
+			coalescer = new SocketWriteCoalescer(this, windowMs, maxBytes);
+	}
+	
+	/**
+	 * 요청 프레임 송신
+	 * write coalescing 을 사용하는 경우 모아서 전송한다.
+	 */
+	private void writeFrame(DataHandler senData) {
+		SocketWriteCoalescer c;
+		synchronized (this) {
+			c = coalescer;
+		}
+		if (c == null) {
+			sendRequest(senData);
+			return;
+		}
+		c.enqueue(senData.array());
+	}
+	
+	/**
+	 * 소켓 네트워크 통계 (heartbeat, write coalescing, 레인별 송수신)
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("heartbeat", getHeartbeat().getMetrics());
+			metrics.put("supervisor", supervisor.getMetrics());
+			SocketWriteCoalescer c;
+			SocketLanePool pool;
+			synchronized (this) {
+				c = coalescer;
+				pool = lanePool;
+			}
+			if (c != null)
+				metrics.put("coalescing", c.getMetrics());
+			metrics.put("lanes", pool != null ? pool.getMetrics() : new JSONObject().put("general", getLaneMetrics()));
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
 	}
 	
 	/**
@@ -69,6 +298,13 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	public synchronized void requestData(final String trCode, final DataHandler sendBuf,
 			final String otherInfos, final Object objSender, NetReqOptions netReqOptions) {
 		
+		// 연결 분리시 REALTIME 레인으로 등록된 TR 은 해당 레인에서 처리한다.
+		SocketDataNetworkManager target = laneFor(false, trCode);
+		if (target != this) {
+			target.requestData(trCode, sendBuf, otherInfos, objSender, netReqOptions);
+			return;
+		}
+		
 		// 화면에서 네트워크 메시지를 초기화 하지 않은 경우 기본 설정 적용
 		if (netReqOptions == null)
 			netReqOptions = new NetReqOptions();	// Default option setting
@@ -98,27 +334,23 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 		// @param otherInfos 기타정보(수신 JS 함수명)
 		// @param progressDialog 프로그래스 다이얼로그 (Object)
 		// @param objSender 보내는 화면 객체(Object)
-		packetSeqId = SocketPacketManager.getInstance().putPacketInfo(trCode, finalNetReqOptions, otherInfos, progressDialog, objSender);
+		// 수신 스레드가 사용하는 packetSeqId 필드는 변경하지 않는다.
+		final int requestSeqId = SocketPacketManager.getInstance().putPacketInfo(trCode, finalNetReqOptions, otherInfos, progressDialog, objSender);
 		
 		// Start thread for request data
 		new Thread() {
             public void run() {
             	
+            	requestSeq.set(requestSeqId);
             	try {
             		
             		PLog.i(CLASS_TAG, "////////////////////////////////////////////////////////////////////////////////");
-					PLog.i(CLASS_TAG, "// Request Data trCode[" + trCode + "], Options[dummy:" + finalNetReqOptions.dummy + ", encrypt:" + finalNetReqOptions.encrypt + ", indicator:" + finalNetReqOptions.indicator + ", indicatorMsg:" + finalNetReqOptions.indicatorMsg + "], packetSeqId:" + packetSeqId + "]" );
+					PLog.i(CLASS_TAG, "// Request Data trCode[" + trCode + "], Options[dummy:" + finalNetReqOptions.dummy + ", encrypt:" + finalNetReqOptions.encrypt + ", indicator:" + finalNetReqOptions.indicator + ", indicatorMsg:" + finalNetReqOptions.indicatorMsg + "], requestSeqId:" + requestSeqId + "]" );
 					PLog.i(CLASS_TAG, "////////////////////////////////////////////////////////////////////////////////");
 					
 					// Initialization
 					DataHandler sh, sb, senData;
 					sh = sb = senData = null;
-					
-					// Connect Network
-					if (connect() == false) {
-						PLog.i(CLASS_TAG, "connect is false.");
-						return;
-					}
 						
 					// Convert javascript objects to DataHandler
 					// 화면에서 정의한 JSON 형식의 데이터를 서버로 보내기위한 Packet Data로 변환한다.
@@ -133,33 +365,190 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 					// 수신 받을 고정 꼬리 길이를 설정한다.
 					setRecvTailLen(RECV_TAIL_LEN);
 					// Making request header
-					sh = setRequestHeader(trCode, packetSeqId, headInfoMap, sb);
+					sh = setRequestHeader(trCode, requestSeqId, headInfoMap, sb);
 					PLog.i(CLASS_TAG, "setRequestHeader: " + sh.toString());
 					// Making all packet data (HEAD + BODY + TAIL)
 					senData = setRequestData(sh, sb, finalNetReqOptions);
 					PLog.i(CLASS_TAG, "setRequestData: " + senData.toString());
+					
+					// Connect Network
+					ConnectError error = new ConnectError();
+					if (ensureConnected(error) == false) {
+						PLog.i(CLASS_TAG, "connect is false.");
+						// 재연결 중이면 idempotent TR 은 재연결 후 보내고, 그 외에는 에러로 처리한다.
+						if (!supervisor.queueForReplay(requestSeqId, trCode, senData.array(), finalNetReqOptions))
+							failInFlight(requestSeqId, trCode, finalNetReqOptions, error.code, error.message);
+						return;
+					}
+					
+					// 앱의 요청으로 연결되었으므로 재연결 횟수를 다시 센다.
+					supervisor.resetRecoveries();
+					// 재연결시 재전송 또는 실패 처리를 위해 응답 대기 목록에 추가한다.
+					supervisor.track(requestSeqId, trCode, senData.array(), finalNetReqOptions);
 					// Send data to server
-					sendRequest(senData);
+					writeFrame(senData);
 					
             	} 
             	catch (Exception e) {
                     e.printStackTrace();
-                    // 다이얼로그 제거
-                    SocketPacketManager.getInstance().removeProgressDialog(packetSeqId);
                     
                     // Process error
-                    handlingError(LibDefinitions.errstatus.ERROR_INTERNAL_NETWORK, 
-                    		Utils.getDynamicID(commHandle.getApplicationContext(), "string", "mp_addon_net_error_msg_internal_network1"));
-
-                    // If sending packet is failed, remove sending failed packet.
-                    // 요청이 실패하는 경우 이미 저장된 패킷 정보를 제거한다.
-                    SocketPacketManager.getInstance().removePacketInfo(packetSeqId);
+                    // 다이얼로그와 이미 저장된 패킷 정보를 제거하고 요청한 화면에 에러를 전달한다.
+                    supervisor.complete(requestSeqId);
+                    failInFlight(requestSeqId, trCode, finalNetReqOptions, LibDefinitions.errstatus.ERROR_INTERNAL_NETWORK, 
+                    		commHandle.getApplicationContext().getString(Utils.getDynamicID(commHandle.getApplicationContext(), "string", "mp_addon_net_error_msg_internal_network1")));
                 }
+            	finally {
+            		requestSeq.remove();
+            	}
             }
 		}.start();
 					
 	}
 	
+	/**
+	 * 실시간 데이터 요청 (cmd 0x5A)
+	 * 수신되는 실시간 데이터(0x5B, 0x5C)는 winID 에 설정한 구독 아이디로 구분된다.
+	 * @param subscriptionId 구독 아이디(winID)
+	 * @param trCode 실시간 전문코드
+	 * @param sendBuf 요청 데이터(JSON), 없으면 null
+	 */
+	public void requestRealtime(final int subscriptionId, final String trCode, final DataHandler sendBuf) {
+		
+		SocketDataNetworkManager target = laneFor(true, trCode);
+		if (target != this) {
+			target.requestRealtime(subscriptionId, trCode, sendBuf);
+			return;
+		}
+		
+		new Thread() {
+			public void run() {
+				try {
+					PLog.i(CLASS_TAG, "// Request Realtime trCode[" + trCode + "], subscriptionId[" + subscriptionId + "]");
+					
+					ConnectError error = new ConnectError();
+					if (ensureConnected(error) == false) {
+						PLog.i(CLASS_TAG, "connect is false. errCode[" + error.code + "], errMessage[" + error.message + "]");
+						return;
+					}
+					
+					DataHandler sb;
+					if (sendBuf != null)
+						sb = SocketPacketManager.getInstance().convertRequestJsonToPacket(sendBuf.getAllString(), ENCODING, (byte)0x00);
+					else
+						sb = new DataHandler(0, ENCODING);
+					
+					setRecvHeadLen(RECV_HEAD_LEN);
+					setRecvTailLen(RECV_TAIL_LEN);
+					
+					DataHandler sh = makeRequestHeader(CMD_REALTIME_REQUEST, trCode, subscriptionId, sb);
+					writeFrame(setRequestData(sh, sb, null));
+				}
+				catch (Exception e) {
+					PLog.printTrace(e);
+					RealtimeSubscriptionManager.getInstance().unsubscribe(subscriptionId);
+				}
+			}
+		}.start();
+	}
+	
+	/**
+	 * 네트워크 연결 후 heartbeat 를 시작한다.
+	 * 연결 실패시 라이브러리가 알려주는 에러는 화면에 표시하지 않고 error 에 기록한다.
+	 * @param error 연결 에러를 받을 객체
+	 */
+	private boolean ensureConnected(ConnectError error) {
+		boolean connected;
+		connectError.set(error);
+		try {
+			connected = connect();
+		} finally {
+			connectError.remove();
+		}
+		if (connected == false)
+			return false;
+		closedByUser = false;
+		closedByIdle = false;
+		getHeartbeat().start();
+		return true;
+	}
+	
+	/**
+	 * 재연결 (SocketConnectionSupervisor 에서 호출)
+	 * 재연결 중의 연결 실패는 화면에 에러를 표시하지 않는다.
+	 */
+	boolean reconnect() {
+		return ensureConnected(new ConnectError());
+	}
+	
+	/**
+	 * 재연결 후 응답을 받지 못한 TR 프레임을 다시 보낸다.
+	 */
+	void replayFrame(byte[] frame) {
+		writeFrame(new DataHandler(frame));
+	}
+	
+	/**
+	 * 재전송할 수 없는 TR 을 연결 에러로 처리한다.
+	 */
+	void failInFlight(int packetSeq, String trCode, NetReqOptions options) {
+		failInFlight(packetSeq, trCode, options, LibDefinitions.errstatus.ERROR_CONNECTION, "");
+	}
+	
+	/**
+	 * 요청한 TR 을 에러로 처리한다. (다이얼로그, 패킷 정보 제거 후 요청한 화면에 에러 전달)
+	 */
+	void failInFlight(int packetSeq, String trCode, NetReqOptions options, int errCode, String errMessage) {
+		AbstractActivity activity = (AbstractActivity)SocketPacketManager.getInstance().getCallerObject(packetSeq);
+		SocketPacketManager.getInstance().removeProgressDialog(packetSeq);
+		handlingError(activity, trCode, errCode, errMessage, options);
+		SocketPacketManager.getInstance().removePacketInfo(packetSeq);
+	}
+	
+	/**
+	 * 재연결 관리자 (재전송 TR 등록, 재연결 통계)
+	 */
+	public SocketConnectionSupervisor getSupervisor() {
+		return supervisor;
+	}
+	
+	/**
+	 * Polling(0x2A) echo 및 heartbeat 를 전용 스레드에서 처리하는 스케줄러
+	 * 클라이언트 heartbeat 는 setDefaultClientHeartbeat(true) 인 경우에만 보낸다.
+	 */
+	public synchronized SocketHeartbeatScheduler getHeartbeat() {
+		if (heartbeat == null) {
+			heartbeat = new SocketHeartbeatScheduler(this, commHandle.getApplicationContext());
+			if (defaultClientHeartbeat)
+				heartbeat.setHeartbeatFrame(makeHeartbeatFrame());
+			heartbeat.setListener(new SocketHeartbeatScheduler.HeartbeatListener() {
+				@Override
+				public void onConnectionDead(long idleMillis) {
+					PLog.w(CLASS_TAG, "// heartbeat timeout, idle[" + idleMillis + "ms]. reconnect.");
+					supervisor.onConnectionLost("heartbeat timeout");
+					netDisconnect();
+				}
+			});
+		}
+		return heartbeat;
+	}
+	
+	/**
+	 * 클라이언트 heartbeat 프레임 (winID 0, 빈 전문코드의 Polling(0x2A) 프레임)
+	 * @return 프레임, 만들 수 없으면 null (heartbeat 를 보내지 않는다.)
+	 */
+	private byte[] makeHeartbeatFrame() {
+		try {
+			DataHandler sb = new DataHandler(new byte[0]);
+			DataHandler sh = makeRequestHeader(CMD_POLLING, "     ", 0, sb);
+			return setRequestData(sh, sb, null).array();
+		} catch (Exception e) {
+			PLog.printTrace(e);
+			PLog.w(CLASS_TAG, "// heartbeat frame failed. client heartbeat disabled.");
+			return null;
+		}
+	}
+	
 	/**
 	 * 요청 헤더 설정
 	 * @param trCode 전문코드 
@@ -169,6 +558,14 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	 */
 	@Override
 	public DataHandler setRequestHeader(String trCode, int packetSeq, Map<String, Object> headInfo, DataHandler sendData) throws Exception {
+		return makeRequestHeader(CMD_GENERAL_TR, trCode, packetSeq, sendData);
+	}
+	
+	/**
+	 * cmd 별 요청 헤더 생성
+	 * @param cmd 0x20 : Ticker, 0x2A : Polling, 0x5A : 실시간 요청, 0x5b : 실시간 데이터, 0x40 : 일반TR, 0x5c : 실시간 멀티
+	 */
+	private DataHandler makeRequestHeader(byte cmd, String trCode, int packetSeq, DataHandler sendData) throws Exception {
 		
 		DataHandler sh = new DataHandler(5 + 106, ENCODING);
 			
@@ -187,9 +584,9 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	    sh.putByte((byte)0x20);
 	    
 		// Packet Data
-		// cmd : 일반 TR
+		// cmd
 		// 0x20 : Ticker, 0x2A : Polling, 0x5A : 실시간 요청, 0x5b : 실시간 데이터, 0x40 : 일반TR, 0x5c : 실시간 멀티
-	    sh.putByte((byte)0x40);
+	    sh.putByte(cmd);
 	    
 		// winID(packet sequence number)
 	    sh.putInt(packetSeq);
@@ -256,15 +653,38 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 		return bLen;
 	}
 	
+	/**
+	 * 송신 (heartbeat, coalescing 을 포함한 모든 송신은 이 메서드를 거친다.)
+	 */
+	@Override
+	public void sendRequest(DataHandler data) {
+		laneStats.onSent(data.length());
+		super.sendRequest(data);
+	}
+	
 	/**
 	 * 응답 데이터 처리
 	 * 모든 응답 데이터는 DataHandler 객체 형태로 이 메서드가 받는다.
+	 * 처리 시간은 같은 연결의 다음 프레임이 기다린 시간이므로 레인 통계에 기록한다.
 	 * @param DataHandler 응답 데이터 버퍼
 	 */
 	@Override
 	public void getResponseData(DataHandler rd) {
+		long start = System.nanoTime();
+		int frameLen = rd.length();
+		try {
+			handleResponseData(rd);
+		} finally {
+			laneStats.onReceived(frameLen, System.nanoTime() - start);
+		}
+	}
+	
+	private void handleResponseData(DataHandler rd) {
 		System.out.println("getResponseData: " + rd.toString());
 		
+		// 수신된 프레임이 있으면 연결이 살아있는 것으로 본다.
+		getHeartbeat().onFrameReceived();
+		
 		// 수신 받은 데이터에서 헤드 정보 추출
 		DataHandler rh = getResponseHeader(rd);
 		
@@ -314,6 +734,7 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 			// 요청 패킷 풀에서 수신한 패킷의 정보를 제거한다.
 			SocketPacketManager.getInstance().removePacketInfo(this.packetSeqId);
 		} 
+		supervisor.complete(this.packetSeqId);
 		
 	}
 	@Override
@@ -364,11 +785,18 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 			try {
 				// cmd : 일반 TR
 				// 0x20 : Ticker, 0x2A : Polling, 0x5A : 실시간 요청, 0x5b : 실시간 데이터, 0x40 : 일반TR, 0x5c : 실시간 멀티
-				switch(rd.getByte()) {
-					case 0x2a:
+				byte cmd = rd.getByte();
+				switch(cmd) {
+					case CMD_POLLING:
 						PLog.i(CLASS_TAG, "// CTEST SOCKET RESPONSE Polling..");
-						DataHandler dh = new DataHandler(rd.array());
-						sendRequest(dh);
+						// 수신한 프레임을 그대로 돌려준다. echo 는 heartbeat 스레드에서 보낸다. (수신 경로에서 직접 송신하지 않는다.)
+						getHeartbeat().onPollingReceived(rd.array());
+						return null;
+					case CMD_TICKER:
+					case CMD_REALTIME_DATA:
+					case CMD_REALTIME_MULTI:
+						// 실시간 데이터는 요청 패킷 정보 없이 구독 채널로 전달한다.
+						publishRealtimeData(rd, bodyLen);
 						return null;
 				}
 				
@@ -411,6 +839,28 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 		return null;
 	}
 	
+	/**
+	 * 실시간 데이터 처리
+	 * 실시간 데이터 패킷은 일반 TR 과 동일한 헤더(WinID, TrCode, MsgCode1, Msg, ...)를 가지며
+	 * WinID 에는 실시간 요청시 보낸 구독 아이디가 설정되어 있다.
+	 * 0x5C(실시간 멀티)의 데이터 영역은 그대로 전달하며 해석은 구독자가 한다.
+	 * @param rd 수신 데이터 (cmd 다음 위치)
+	 * @param bodyLen 바디 길이
+	 */
+	private void publishRealtimeData(DataHandler rd, int bodyLen) throws Exception {
+		
+		int subscriptionId = rd.getInt();
+		String trCode = new String(rd.getBytes(5), ENCODING);
+		
+		// MsgCode1, Msg, ErrorPos, MsgCode2Len, APDataLen
+		rd.skip(6 + 82 + 2 + 3 + 3);
+		
+		int realDataLen = bodyLen - (1 + 4 + 5 + 6 + 82 + 8);
+		byte[] data = realDataLen > 0 ? rd.getBytes(realDataLen) : new byte[0];
+		
+		RealtimeSubscriptionManager.getInstance().publish(subscriptionId, trCode, data);
+	}
+	
 	/**
 	 * 네트워크 에러 처리 <br/>
 	 * 화면(Activity)에 에러 메시지를 전달한다.
@@ -462,12 +912,32 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 	@Override
 	public void handlingError(int errCode, String errMessage) {
 		
-		NetReqOptions options = SocketPacketManager.getInstance().getNetworkOptions(this.packetSeqId);
-        System.out.println("packetSeqId: " + packetSeqId);
-        System.out.println("options: " + options.targetServerName);
+		// 연결 시도 중의 에러는 연결을 요청한 쪽(요청 스레드, 재연결 관리자)에서 처리한다.
+		ConnectError error = connectError.get();
+		if (error != null) {
+			PLog.i(CLASS_TAG, "// Handling Error while connecting errCode[" + errCode + "], errMessage[" + errMessage + "]");
+			error.code = errCode;
+			error.message = errMessage;
+			return;
+		}
+		
+		// 응답 대기 timeout 으로 연결이 끊어진 경우 기다리던 TR 을 각 화면에 에러로 처리한다. (재연결하지 않는다.)
+		if (closedByIdle && errCode == ERROR_WAITING_TIMEOUT) {
+			if (supervisor.cancel(errCode, errMessage) > 0)
+				return;
+		}
+		
+		// 요청 스레드에서 송신이 실패한 경우 해당 TR 을 에러로 처리한다.
+		Integer seq = requestSeq.get();
+		if (seq != null) {
+			supervisor.complete(seq);
+			failInFlight(seq, "-1", SocketPacketManager.getInstance().getNetworkOptions(seq), errCode, errMessage);
+			return;
+		}
+		
 		// 내부에서 에러가 리턴되는 경우에는 현재 화면으로 에러 메시지를 전달한다.
 		AbstractActivity topAct = (AbstractActivity)ActivityHistoryManager.getInstance().getTopActivity();
-		handlingError(topAct, "-1", errCode, errMessage, options);
+		handlingError(topAct, "-1", errCode, errMessage, null);
 
 		// Clear all packet information
 		//SocketPacketManager.getInstance().clearAllPacketInfo();
@@ -480,12 +950,92 @@ public class SocketDataNetworkManager extends AsyncSocketNetwork  {
 		handlingError(errCode, strErrMsg);
 	}
 	
+	/**
+	 * 세션 idle
+	 * 라이브러리는 응답을 기다리는 중에 READER_IDLE 이 되면 연결을 끊고 handlingError(9998) 를 호출한다.
+	 * 이 종료는 최종 종료로 보고 재연결하지 않는다.
+	 */
+	@Override
+	public void sessionIdle(IoSession session, IdleStatus status) {
+		if (status == IdleStatus.READER_IDLE && SocketPacketManager.getInstance().getPacketInfoCount() > 0)
+			closedByIdle = true;
+		super.sessionIdle(session, status);
+	}
+	
+	/**
+	 * 세션 종료
+	 * 사용자 요청, 응답 대기 timeout 에 의한 종료가 아니면 재연결 관리자에 알린다.
+	 * (재전송할 TR 이나 실시간 구독이 있을 때만 재연결한다.)
+	 */
+	@Override
+	public void sessionClosed(IoSession session) throws Exception {
+		super.sessionClosed(session);
+		getHeartbeat().stop();
+		if (!closedByUser && !closedByIdle)
+			supervisor.onConnectionLost("session closed");
+	}
+	
+	@Override
+	public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+		super.exceptionCaught(session, cause);
+		if (!closedByUser && !closedByIdle && !isConnected())
+			supervisor.onConnectionLost("exception : " + cause);
+	}
+	
+	/**
+	 * 사용자 요청에 의한 연결 종료
+	 * 재연결을 중단하고 응답을 기다리는 TR 은 에러로 처리한다. 보조 레인의 연결도 종료한다.
+	 * 이후 요청이 있으면 다시 연결한다.
+	 */
+	public void close() {
+		closedByUser = true;
+		supervisor.shutdown();
+		
+		SocketLanePool pool;
+		synchronized (this) {
+			pool = lanePool;
+		}
+		if (pool != null)
+			pool.shutdownLanes();
+		
+		disconnect();
+	}
+	
+	/**
+	 * 보조 레인 정리 (SocketLanePool 에서 호출)
+	 * 연결을 종료하고 heartbeat, 재연결, write coalescing 스레드를 모두 종료한다.
+	 */
+	void shutdownLane() {
+		close();
+		setWriteCoalescing(false, 0, 0);
+	}
+	
+	/**
+	 * 연결 종료
+	 * 라이브러리는 연결 실패, idle 시에도 호출하므로 재연결은 중단하지 않는다. (사용자 요청에 의한 종료는 close)
+	 */
 	@Override
 	public void disconnect() {
 		
 		// Clear all packet information
 		//SocketPacketManager.getInstance().clearAllPacketInfo();
 		
+		// heartbeat 스레드는 다음 연결시 다시 만든다.
+		SocketHeartbeatScheduler hb;
+		synchronized (this) {
+			hb = heartbeat;
+		}
+		if (hb != null)
+			hb.shutdown();
+		
+		// 모아둔 프레임이 있으면 연결 종료 전에 전송한다.
+		SocketWriteCoalescer c;
+		synchronized (this) {
+			c = coalescer;
+		}
+		if (c != null)
+			c.flush();
+		
 		// You must call disconnect method of super below
 		super.netDisconnect();
 	}
@@ -0,0 +1,305 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.common.DataHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.Build;
+
+/**
+ * SocketHeartbeatScheduler Class
+ *
+ * 소켓 연결의 Polling(0x2A) 처리를 수신 스레드에서 분리하여 전용 스레드에서 수행한다. <br/>
+ *
+ * - 서버 Polling 에는 수신한 프레임을 그대로 돌려준다. (echo) <br/>
+ *
+ * 클라이언트 heartbeat 는 서버가 클라이언트의 Polling(0x2A)에 응답하는 경우에만 사용한다. (기본값은 사용하지 않음, setHeartbeatFrame) <br/>
+ * - 마지막 수신 이후 일정 시간 이상 트래픽이 없을 때만 heartbeat 를 보낸다. (idle-aware) <br/>
+ * - 연속으로 응답이 없는 heartbeat 가 허용 횟수를 넘으면 연결이 끊긴 것으로 판단한다. <br/>
+ * - heartbeat 주기는 네트워크 종류(WIFI / MOBILE)에 따라 달라진다.
+ */
+public class SocketHeartbeatScheduler {
+
+	private final String CLASS_TAG = "SOCKET_HEARTBEAT";
+
+	/** WIFI, ETHERNET 연결시 heartbeat 주기 */
+	public static final long DEFAULT_WIFI_INTERVAL_MS = 60 * 1000;
+	/** 모바일 네트워크 연결시 heartbeat 주기 (통신사 NAT 타임아웃이 짧으므로 더 자주 보낸다.) */
+	public static final long DEFAULT_MOBILE_INTERVAL_MS = 25 * 1000;
+	/** 연결 끊김으로 판단하기 전까지 허용되는 무응답 heartbeat 횟수 */
+	public static final int DEFAULT_MAX_MISSED = 2;
+
+	/**
+	 * 연결 상태 리스너
+	 */
+	public interface HeartbeatListener {
+		/**
+		 * heartbeat 응답이 허용 횟수 이상 없을 때 heartbeat 스레드에서 호출된다.
+		 * @param idleMillis 마지막 수신 이후 경과 시간
+		 */
+		void onConnectionDead(long idleMillis);
+	}
+
+	private final SocketDataNetworkManager network;
+	private final Context context;
+	// 클라이언트 heartbeat 프레임 (null 이면 heartbeat 를 보내지 않는다.)
+	private volatile byte[] heartbeatFrame;
+
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> tickFuture;
+	private HeartbeatListener listener;
+
+	private long wifiIntervalMs = DEFAULT_WIFI_INTERVAL_MS;
+	private long mobileIntervalMs = DEFAULT_MOBILE_INTERVAL_MS;
+	private int maxMissed = DEFAULT_MAX_MISSED;
+	private long currentIntervalMs;
+
+	private volatile long lastReceivedNanos = System.nanoTime();
+	private volatile int missed = 0;
+
+	// Metrics
+	private final AtomicLong echoCount = new AtomicLong();
+	private final AtomicLong heartbeatCount = new AtomicLong();
+	private final AtomicLong skippedCount = new AtomicLong();
+	private final AtomicLong deadCount = new AtomicLong();
+
+	/**
+	 * @param network echo, heartbeat 를 보낼 소켓 네트워크
+	 * @param context 네트워크 종류 확인용 Context
+	 */
+	public SocketHeartbeatScheduler(SocketDataNetworkManager network, Context context) {
+		this.network = network;
+		this.context = context;
+	}
+
+	/**
+	 * 클라이언트 heartbeat 프레임 (HEAD + BODY + TAIL)
+	 * 서버가 응답하는 프레임만 설정한다. 응답이 없으면 연결이 끊긴 것으로 판단하여 재연결한다.
+	 * 실행 중이면 다음 start() 부터 적용된다.
+	 * @param frame heartbeat 프레임, null 이면 사용하지 않음
+	 */
+	public void setHeartbeatFrame(byte[] frame) {
+		this.heartbeatFrame = frame;
+	}
+
+	public void setListener(HeartbeatListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * 네트워크 종류별 heartbeat 주기와 무응답 허용 횟수를 설정한다.
+	 * 실행 중이면 다음 start() 부터 적용된다.
+	 */
+	public void setIntervals(long wifiIntervalMs, long mobileIntervalMs, int maxMissed) {
+		this.wifiIntervalMs = wifiIntervalMs;
+		this.mobileIntervalMs = mobileIntervalMs;
+		this.maxMissed = maxMissed;
+	}
+
+	/**
+	 * 연결 성공 후 호출한다. 이미 실행 중이거나 클라이언트 heartbeat 를 사용하지 않으면 무시한다.
+	 */
+	public synchronized void start() {
+		lastReceivedNanos = System.nanoTime();
+		missed = 0;
+		if (heartbeatFrame == null || (tickFuture != null && !tickFuture.isDone()))
+			return;
+
+		currentIntervalMs = resolveInterval();
+
+		// 주기보다 짧은 간격으로 검사해야 idle 판단이 주기에 가깝게 맞는다.
+		long tick = Math.max(1000, currentIntervalMs / 2);
+		tickFuture = executor().scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				tick();
+			}
+		}, tick, tick, TimeUnit.MILLISECONDS);
+
+		PLog.i(CLASS_TAG, "// heartbeat start interval[" + currentIntervalMs + "ms]");
+	}
+
+	private synchronized ScheduledExecutorService executor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "socket-heartbeat");
+					t.setDaemon(true);
+					t.setPriority(Thread.MIN_PRIORITY);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * 연결 종료시 호출한다.
+	 */
+	public synchronized void stop() {
+		if (tickFuture != null) {
+			tickFuture.cancel(false);
+			tickFuture = null;
+		}
+	}
+
+	/**
+	 * heartbeat 스레드를 종료한다. (연결 종료, 레인 정리시)
+	 * 이후 start() 를 호출하면 스레드를 다시 만든다.
+	 */
+	public synchronized void shutdown() {
+		stop();
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * 수신 스레드에서 모든 프레임 수신시 호출된다.
+	 * 어떤 데이터든 수신되면 연결이 살아있는 것으로 본다.
+	 */
+	public void onFrameReceived() {
+		lastReceivedNanos = System.nanoTime();
+		missed = 0;
+	}
+
+	/**
+	 * 서버 Polling(0x2A) 수신시 호출된다.
+	 * 수신한 프레임을 그대로 돌려주며, heartbeat 스레드에서 보내므로 수신 스레드는 바로 다음 프레임을 처리할 수 있다.
+	 * @param frame 수신한 Polling 프레임
+	 */
+	public void onPollingReceived(final byte[] frame) {
+		onFrameReceived();
+		executor().execute(new Runnable() {
+			@Override
+			public void run() {
+				sendEcho(frame);
+			}
+		});
+	}
+
+	private void sendEcho(byte[] frame) {
+		if (!network.isConnected())
+			return;
+		network.sendRequest(new DataHandler(frame));
+		echoCount.incrementAndGet();
+	}
+
+	private void tick() {
+		long interval = resolveInterval();
+		if (interval <= 0) {
+			// 연결된 네트워크가 없으면 heartbeat 를 보내지 않는다.
+			skippedCount.incrementAndGet();
+			return;
+		}
+		currentIntervalMs = interval;
+
+		long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceivedNanos);
+		if (idleMillis < interval) {
+			// 최근에 수신한 데이터가 있으면 heartbeat 는 필요없다.
+			skippedCount.incrementAndGet();
+			return;
+		}
+
+		if (missed >= maxMissed) {
+			deadCount.incrementAndGet();
+			PLog.w(CLASS_TAG, "// connection dead, idle[" + idleMillis + "ms], missed[" + missed + "]");
+			stop();
+			HeartbeatListener l = listener;
+			if (l != null)
+				l.onConnectionDead(idleMillis);
+			return;
+		}
+
+		byte[] frame = heartbeatFrame;
+		if (frame == null || !network.isConnected())
+			return;
+
+		missed++;
+		network.sendRequest(new DataHandler(frame));
+		heartbeatCount.incrementAndGet();
+	}
+
+	/**
+	 * 현재 연결된 네트워크 종류에 맞는 heartbeat 주기
+	 * @return 주기(ms), 연결된 네트워크가 없으면 0
+	 */
+	private long resolveInterval() {
+		try {
+			ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+			if (cm == null)
+				return 0;
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+				return resolveInterval(cm);
+			return resolveIntervalLegacy(cm);
+		} catch (Exception e) {
+			PLog.printTrace(e);
+			return mobileIntervalMs;
+		}
+	}
+
+	@TargetApi(Build.VERSION_CODES.M)
+	private long resolveInterval(ConnectivityManager cm) {
+		Network network = cm.getActiveNetwork();
+		NetworkCapabilities caps = network == null ? null : cm.getNetworkCapabilities(network);
+		if (caps == null || !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET))
+			return 0;
+		if (caps.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) || caps.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET))
+			return wifiIntervalMs;
+		return mobileIntervalMs;
+	}
+
+	/**
+	 * API 23 미만 (NetworkCapabilities 를 사용할 수 없는 단말)
+	 */
+	@SuppressWarnings("deprecation")
+	private long resolveIntervalLegacy(ConnectivityManager cm) {
+		NetworkInfo info = cm.getActiveNetworkInfo();
+		if (info == null || !info.isConnected())
+			return 0;
+
+		switch (info.getType()) {
+			case ConnectivityManager.TYPE_WIFI:
+			case ConnectivityManager.TYPE_ETHERNET:
+				return wifiIntervalMs;
+			default:
+				return mobileIntervalMs;
+		}
+	}
+
+	/**
+	 * heartbeat 통계
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("clientHeartbeat", heartbeatFrame != null);
+			metrics.put("intervalMs", currentIntervalMs);
+			metrics.put("echo", echoCount.get());
+			metrics.put("heartbeat", heartbeatCount.get());
+			metrics.put("skipped", skippedCount.get());
+			metrics.put("dead", deadCount.get());
+			metrics.put("missed", missed);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,168 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * SocketLanePool Class
+ *
+ * 같은 서버로 용도별 소켓 연결(lane)을 나누어 관리한다. <br/>
+ *
+ * - GENERAL 레인 : 라이브러리가 생성한 기본 연결. 일반 TR(0x40)과 대용량 응답을 처리한다. <br/>
+ * - REALTIME 레인 : 실시간 요청(0x5A)과 등록된 실시간성 TR 을 처리한다. 처음 사용할 때 연결된다. <br/>
+ *
+ * 레인마다 별도의 세션(수신 버퍼, 수신 lock), heartbeat, 재연결 관리자, write coalescer 를 가지므로
+ * 큰 TR 응답을 수신하는 동안에도 실시간 데이터가 뒤에서 기다리지 않는다.
+ */
+public class SocketLanePool {
+
+	private final String CLASS_TAG = "SOCKET_LANE_POOL";
+
+	public static final int LANE_GENERAL = 0;
+	public static final int LANE_REALTIME = 1;
+
+	/** REALTIME 레인으로 보낼 일반 TR 코드 (모든 SocketDataNetworkManager 공통) */
+	private static final Set<String> realtimeTrCodes = Collections.synchronizedSet(new HashSet<String>());
+
+	/**
+	 * 레인별 송수신 통계
+	 */
+	public static class LaneStats {
+		private final AtomicLong txFrames = new AtomicLong();
+		private final AtomicLong txBytes = new AtomicLong();
+		private final AtomicLong rxFrames = new AtomicLong();
+		private final AtomicLong rxBytes = new AtomicLong();
+		private final AtomicLong rxMaxBytes = new AtomicLong();
+		private final AtomicLong rxHandleTotalNanos = new AtomicLong();
+		private final AtomicLong rxHandleMaxNanos = new AtomicLong();
+
+		void onSent(int bytes) {
+			txFrames.incrementAndGet();
+			txBytes.addAndGet(bytes);
+		}
+
+		/**
+		 * @param bytes 수신 프레임 크기
+		 * @param handleNanos 수신 스레드에서 프레임을 처리한 시간 (같은 레인의 다음 프레임이 기다린 시간)
+		 */
+		void onReceived(int bytes, long handleNanos) {
+			rxFrames.incrementAndGet();
+			rxBytes.addAndGet(bytes);
+			updateMax(rxMaxBytes, bytes);
+			rxHandleTotalNanos.addAndGet(handleNanos);
+			updateMax(rxHandleMaxNanos, handleNanos);
+		}
+
+		private static void updateMax(AtomicLong max, long value) {
+			long cur = max.get();
+			while (value > cur && !max.compareAndSet(cur, value)) {
+				cur = max.get();
+			}
+		}
+
+		public JSONObject getMetrics() {
+			JSONObject metrics = new JSONObject();
+			long rx = rxFrames.get();
+			try {
+				metrics.put("txFrames", txFrames.get());
+				metrics.put("txBytes", txBytes.get());
+				metrics.put("rxFrames", rx);
+				metrics.put("rxBytes", rxBytes.get());
+				metrics.put("rxMaxBytes", rxMaxBytes.get());
+				metrics.put("avgHandleMs", rx == 0 ? 0 : (rxHandleTotalNanos.get() / rx) / 1000000.0);
+				metrics.put("maxHandleMs", rxHandleMaxNanos.get() / 1000000.0);
+			} catch (JSONException e) {
+				PLog.printTrace(e);
+			}
+			return metrics;
+		}
+	}
+
+	private final SocketDataNetworkManager general;
+	private SocketDataNetworkManager realtime;
+
+	SocketLanePool(SocketDataNetworkManager general) {
+		this.general = general;
+	}
+
+	/**
+	 * REALTIME 레인으로 보낼 일반 TR 코드를 등록한다. (시세 조회 등 작고 지연에 민감한 TR)
+	 */
+	public static void registerRealtimeTrCode(String trCode) {
+		realtimeTrCodes.add(trCode);
+	}
+
+	public static void unregisterRealtimeTrCode(String trCode) {
+		realtimeTrCodes.remove(trCode);
+	}
+
+	/**
+	 * 라우팅 규칙
+	 * 실시간 요청(0x5A)은 항상 REALTIME 레인, 일반 TR 은 등록된 TR 코드만 REALTIME 레인으로 보낸다.
+	 * @param realtimeRequest 실시간 요청(0x5A) 여부
+	 * @param trCode 전문 코드
+	 */
+	static int route(boolean realtimeRequest, String trCode) {
+		if (realtimeRequest)
+			return LANE_REALTIME;
+		if (trCode != null && realtimeTrCodes.contains(trCode.trim()))
+			return LANE_REALTIME;
+		return LANE_GENERAL;
+	}
+
+	/**
+	 * 레인에 해당하는 네트워크. REALTIME 레인은 처음 요청시 GENERAL 레인과 같은 서버 정보로 생성된다.
+	 */
+	synchronized SocketDataNetworkManager getLane(int lane) {
+		if (lane == LANE_GENERAL)
+			return general;
+
+		if (realtime == null) {
+			realtime = general.createLane(LANE_REALTIME);
+			PLog.i(CLASS_TAG, "// realtime lane created");
+		}
+		return realtime;
+	}
+
+	/**
+	 * 생성된 보조 레인(GENERAL 제외)의 연결을 종료하고 레인의 스레드(heartbeat, 재연결)를 정리한다.
+	 * 이후 요청이 있으면 레인을 새로 만든다.
+	 */
+	void shutdownLanes() {
+		SocketDataNetworkManager lane;
+		synchronized (this) {
+			lane = realtime;
+			realtime = null;
+		}
+		if (lane != null) {
+			lane.shutdownLane();
+			PLog.i(CLASS_TAG, "// realtime lane shut down");
+		}
+	}
+
+	/**
+	 * 레인별 통계 (REALTIME 레인은 생성된 경우만 포함)
+	 */
+	JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		SocketDataNetworkManager lane;
+		synchronized (this) {
+			lane = realtime;
+		}
+		try {
+			metrics.put("general", general.getLaneMetrics());
+			if (lane != null)
+				metrics.put("realtime", lane.getLaneMetrics());
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,197 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import m.client.android.library.core.common.DataHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * SocketWriteCoalescer Class
+ *
+ * 짧은 시간(window) 안에 요청된 송신 프레임들을 모아 한 번의 socket write 로 보낸다. <br/>
+ *
+ * 첫 프레임이 들어온 시점부터 window 가 지나거나, 모인 크기가 maxBytes 이상이 되면 전송한다.
+ * 프레임은 요청된 순서대로 이어붙여지며 순서가 바뀌지 않는다.
+ */
+public class SocketWriteCoalescer {
+
+	private final String CLASS_TAG = "SOCKET_WRITE_COALESCER";
+
+	private final SocketDataNetworkManager network;
+	private final long windowMs;
+	private final int maxBytes;
+
+	private final Object lock = new Object();
+	private final ArrayList<byte[]> frames = new ArrayList<byte[]>();
+	private final ArrayList<Long> enqueuedNanos = new ArrayList<Long>();
+	private int pendingBytes = 0;
+	private ScheduledFuture<?> flushFuture;
+
+	private final ScheduledExecutorService executor;
+
+	// Metrics
+	private long frameCount = 0;
+	private long writeCount = 0;
+	private long byteCount = 0;
+	private long thresholdFlushCount = 0;
+	private long windowFlushCount = 0;
+	private long delayTotalNanos = 0;
+	private long delayMaxNanos = 0;
+
+	/**
+	 * @param network 송신할 소켓 네트워크
+	 * @param windowMs 프레임을 모으는 최대 시간(ms)
+	 * @param maxBytes 이 크기 이상 모이면 window 와 관계없이 바로 전송
+	 */
+	public SocketWriteCoalescer(SocketDataNetworkManager network, long windowMs, int maxBytes) {
+		this.network = network;
+		this.windowMs = windowMs;
+		this.maxBytes = maxBytes;
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "socket-write-coalescer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * 송신 프레임(HEAD + BODY + TAIL)을 추가한다.
+	 */
+	public void enqueue(byte[] frame) {
+		synchronized (lock) {
+			frames.add(frame);
+			enqueuedNanos.add(System.nanoTime());
+			pendingBytes += frame.length;
+
+			if (pendingBytes >= maxBytes) {
+				thresholdFlushCount++;
+				flushLocked();
+				return;
+			}
+
+			if (flushFuture == null) {
+				flushFuture = executor.schedule(new Runnable() {
+					@Override
+					public void run() {
+						synchronized (lock) {
+							if (frames.isEmpty())
+								return;
+							windowFlushCount++;
+							flushLocked();
+						}
+					}
+				}, windowMs, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * 모인 프레임을 즉시 전송한다.
+	 */
+	public void flush() {
+		synchronized (lock) {
+			flushLocked();
+		}
+	}
+
+	/**
+	 * 전송하지 않은 프레임을 버린다. (연결 종료시)
+	 */
+	public void discard() {
+		synchronized (lock) {
+			cancelTimerLocked();
+			frames.clear();
+			enqueuedNanos.clear();
+			pendingBytes = 0;
+		}
+	}
+
+	private void flushLocked() {
+		cancelTimerLocked();
+		if (frames.isEmpty())
+			return;
+
+		DataHandler data;
+		if (frames.size() == 1) {
+			data = new DataHandler(frames.get(0));
+		} else {
+			byte[] merged = new byte[pendingBytes];
+			int pos = 0;
+			for (byte[] frame : frames) {
+				System.arraycopy(frame, 0, merged, pos, frame.length);
+				pos += frame.length;
+			}
+			data = new DataHandler(merged);
+		}
+
+		long now = System.nanoTime();
+		for (Long t : enqueuedNanos) {
+			long delay = now - t;
+			delayTotalNanos += delay;
+			if (delay > delayMaxNanos)
+				delayMaxNanos = delay;
+		}
+		frameCount += frames.size();
+		byteCount += pendingBytes;
+		writeCount++;
+
+		frames.clear();
+		enqueuedNanos.clear();
+		pendingBytes = 0;
+
+		// 순서 보장을 위해 lock 을 잡은 상태에서 전송한다.
+		try {
+			network.sendRequest(data);
+		} catch (Exception e) {
+			PLog.printTrace(e);
+		}
+	}
+
+	private void cancelTimerLocked() {
+		if (flushFuture != null) {
+			flushFuture.cancel(false);
+			flushFuture = null;
+		}
+	}
+
+	/**
+	 * write coalescing 통계
+	 * framesPerWrite 가 클수록 write 횟수가 줄고, avgDelayMs 는 그 대가로 늘어난 송신 지연이다.
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		synchronized (lock) {
+			try {
+				metrics.put("windowMs", windowMs);
+				metrics.put("maxBytes", maxBytes);
+				metrics.put("frames", frameCount);
+				metrics.put("writes", writeCount);
+				metrics.put("bytes", byteCount);
+				metrics.put("framesPerWrite", writeCount == 0 ? 0 : (double) frameCount / writeCount);
+				metrics.put("thresholdFlushes", thresholdFlushCount);
+				metrics.put("windowFlushes", windowFlushCount);
+				metrics.put("avgDelayMs", frameCount == 0 ? 0 : (delayTotalNanos / frameCount) / 1000000.0);
+				metrics.put("maxDelayMs", delayMaxNanos / 1000000.0);
+			} catch (JSONException e) {
+				PLog.printTrace(e);
+			}
+		}
+		return metrics;
+	}
+
+	public void shutdown() {
+		flush();
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,319 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * StartupOrchestrator Class
+ *
+ * 앱 구동시 초기화 작업(컴포넌트)을 의존 관계에 따라 실행하고 컴포넌트별 시간을 기록한다. (StartupTrace 에도 기록) <br/>
+ *
+ * - 메인 스레드 컴포넌트 : 화면/Activity 가 필요한 작업 (processAppInit 등). 메인 스레드에서 호출되면 바로 실행된다. <br/>
+ * - 백그라운드 컴포넌트 : 서로 독립적인 작업은 스레드 풀에서 병렬로 실행된다. <br/>
+ * - 의존하는 컴포넌트가 모두 끝나야 실행되며, 의존 컴포넌트가 실패하면 실행하지 않는다(skipped). <br/>
+ * - start() 이후에 추가된 컴포넌트도 의존 컴포넌트가 끝나 있으면 바로 실행된다. <br/>
+ *
+ * 웹에서는 exWNStartupMetrics 로 조회한다.
+ */
+public class StartupOrchestrator {
+
+	private final String CLASS_TAG = "STARTUP_ORCHESTRATOR";
+
+	private static final String STATUS_WAITING = "waiting";
+	private static final String STATUS_RUNNING = "running";
+	private static final String STATUS_DONE = "done";
+	private static final String STATUS_FAILED = "failed";
+	private static final String STATUS_SKIPPED = "skipped";
+
+	private static StartupOrchestrator instance;
+
+	/**
+	 * 초기화 작업 하나
+	 */
+	private static class Component {
+		final String name;
+		final boolean mainThread;
+		final String[] dependsOn;
+		final Runnable task;
+		final ArrayList<Component> dependents = new ArrayList<Component>();
+		int pending = 0;
+		String status = STATUS_WAITING;
+		String thread;
+		long readyAt = -1;
+		long startAt = -1;
+		long endAt = -1;
+
+		Component(String name, boolean mainThread, String[] dependsOn, Runnable task) {
+			this.name = name;
+			this.mainThread = mainThread;
+			this.dependsOn = dependsOn == null ? new String[0] : dependsOn;
+			this.task = task;
+		}
+
+		boolean isFinished() {
+			return STATUS_DONE.equals(status) || STATUS_FAILED.equals(status) || STATUS_SKIPPED.equals(status);
+		}
+
+		JSONObject toJson() throws JSONException {
+			JSONObject obj = new JSONObject();
+			obj.put("name", name);
+			obj.put("status", status);
+			obj.put("mainThread", mainThread);
+			obj.put("dependsOn", new JSONArray(Arrays.asList(dependsOn)));
+			if (thread != null)
+				obj.put("thread", thread);
+			if (startAt >= 0) {
+				obj.put("startMs", startAt);
+				obj.put("waitMs", startAt - readyAt);
+			}
+			if (endAt >= 0)
+				obj.put("durationMs", endAt - startAt);
+			return obj;
+		}
+	}
+
+	private final LinkedHashMap<String, Component> components = new LinkedHashMap<String, Component>();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private ExecutorService executor;
+	private boolean started = false;
+	private long originMs = 0;
+	private long finishedAt = -1;
+
+	public static synchronized StartupOrchestrator getInstance() {
+		if (instance == null) {
+			instance = new StartupOrchestrator();
+		}
+		return instance;
+	}
+
+	/**
+	 * 새 구동 기록을 시작한다. Startup 이 다시 생성된 경우 이전 기록을 대신한다.
+	 */
+	public static synchronized StartupOrchestrator begin() {
+		instance = new StartupOrchestrator();
+		return instance;
+	}
+
+	private StartupOrchestrator() {
+	}
+
+	/**
+	 * 컴포넌트 추가
+	 * @param name 이름 (중복 불가)
+	 * @param mainThread 메인 스레드에서 실행할지 여부
+	 * @param dependsOn 먼저 끝나야 하는 컴포넌트 이름 (먼저 추가되어 있어야 한다.)
+	 * @param task 작업
+	 */
+	public void add(String name, boolean mainThread, String[] dependsOn, Runnable task) {
+		Component component = new Component(name, mainThread, dependsOn, task);
+		boolean ready;
+		synchronized (this) {
+			if (components.containsKey(name))
+				throw new IllegalArgumentException("duplicate component : " + name);
+			boolean skip = false;
+			for (String dependency : component.dependsOn) {
+				Component parent = components.get(dependency);
+				if (parent == null)
+					throw new IllegalArgumentException("unknown dependency : " + name + " -> " + dependency);
+				if (!parent.isFinished()) {
+					component.pending++;
+					parent.dependents.add(component);
+				} else if (!STATUS_DONE.equals(parent.status)) {
+					skip = true;
+				}
+			}
+			components.put(name, component);
+			finishedAt = -1;
+			if (skip) {
+				skip(component);
+				return;
+			}
+			ready = started && component.pending == 0;
+			if (ready)
+				component.readyAt = now();
+		}
+		if (ready)
+			dispatch(component);
+	}
+
+	/**
+	 * 실행 시작. 메인 스레드에서 호출하며, 의존 관계가 없는 메인 스레드 컴포넌트는 반환 전에 실행된다.
+	 */
+	public void start() {
+		ArrayList<Component> ready = new ArrayList<Component>();
+		synchronized (this) {
+			if (started)
+				return;
+			started = true;
+			originMs = SystemClock.elapsedRealtime();
+			for (Component component : components.values()) {
+				if (component.pending == 0 && STATUS_WAITING.equals(component.status)) {
+					component.readyAt = 0;
+					ready.add(component);
+				}
+			}
+		}
+		for (Component component : ready) {
+			dispatch(component);
+		}
+	}
+
+	private void dispatch(final Component component) {
+		if (!component.mainThread) {
+			executor().execute(new Runnable() {
+				@Override
+				public void run() {
+					execute(component);
+				}
+			});
+		} else if (Looper.myLooper() == Looper.getMainLooper()) {
+			execute(component);
+		} else {
+			mainHandler.post(new Runnable() {
+				@Override
+				public void run() {
+					execute(component);
+				}
+			});
+		}
+	}
+
+	private void execute(Component component) {
+		synchronized (this) {
+			component.status = STATUS_RUNNING;
+			component.thread = Thread.currentThread().getName();
+			component.startAt = now();
+		}
+		long startNanos = System.nanoTime();
+		Throwable error = null;
+		try {
+			component.task.run();
+		} catch (Throwable e) {
+			error = e;
+		}
+		StartupTrace.getInstance().complete(component.name, startNanos, System.nanoTime());
+
+		ArrayList<Component> ready = new ArrayList<Component>();
+		synchronized (this) {
+			component.endAt = now();
+			component.status = error == null ? STATUS_DONE : STATUS_FAILED;
+			for (Component dependent : component.dependents) {
+				if (!STATUS_WAITING.equals(dependent.status))
+					continue;
+				if (error != null) {
+					skip(dependent);
+				} else if (--dependent.pending == 0) {
+					dependent.readyAt = component.endAt;
+					ready.add(dependent);
+				}
+			}
+			checkFinished();
+		}
+
+		if (error == null) {
+			PLog.i(CLASS_TAG, "// " + component.name + " " + (component.endAt - component.startAt) + "ms on " + component.thread);
+		} else {
+			PLog.e(CLASS_TAG, "// " + component.name + " failed", error);
+			// 메인 스레드 작업(processAppInit 등)의 실패는 이전과 같이 앱에서 처리되도록 다시 던진다.
+			if (component.mainThread) {
+				if (error instanceof RuntimeException)
+					throw (RuntimeException) error;
+				if (error instanceof Error)
+					throw (Error) error;
+			}
+		}
+		for (Component dependent : ready) {
+			dispatch(dependent);
+		}
+	}
+
+	private void skip(Component component) {
+		component.status = STATUS_SKIPPED;
+		PLog.w(CLASS_TAG, "// " + component.name + " skipped");
+		for (Component dependent : component.dependents) {
+			if (STATUS_WAITING.equals(dependent.status))
+				skip(dependent);
+		}
+		checkFinished();
+	}
+
+	private void checkFinished() {
+		for (Component component : components.values()) {
+			if (!component.isFinished())
+				return;
+		}
+		finishedAt = now();
+		PLog.i(CLASS_TAG, "// startup finished in " + finishedAt + "ms (" + components.size() + " components)");
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	private synchronized ExecutorService executor() {
+		if (executor == null) {
+			int threads = Math.min(4, Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread thread = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+							r.run();
+						}
+					}, "startup-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	private long now() {
+		return SystemClock.elapsedRealtime() - originMs;
+	}
+
+	/**
+	 * 컴포넌트별 시간 (ms, start() 호출 시각 기준)
+	 * processStartMs : 프로세스 시작부터 start() 호출까지의 시간 (Android 7.0 미만은 -1)
+	 */
+	public synchronized JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			long processStart = -1;
+			if (started && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N)
+				processStart = originMs - Process.getStartElapsedRealtime();
+			metrics.put("processStartMs", processStart);
+			metrics.put("totalMs", finishedAt);
+			JSONArray array = new JSONArray();
+			for (Component component : components.values()) {
+				array.put(component.toJson());
+			}
+			metrics.put("components", array);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,405 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * StartupTrace Class
+ *
+ * 앱 구동(Application.onCreate, Startup → processAppInit → StartActivity 리소스 업데이트 → 화면 캡쳐 →
+ * intro.html 로딩 완료)까지의 단계를 단조 시각(System.nanoTime)으로 기록한다. <br/>
+ *
+ * - 기록은 Chrome trace-event 형식(JSON)으로 저장되어 chrome://tracing, Perfetto 에서 열 수 있다. <br/>
+ * - 구동할 때마다 단계별 시간 요약을 남기고(최근 HISTORY_SIZE 건), 목표 시간(budget)을 넘으면 경고 로그를 남긴다. <br/>
+ * - 프로세스가 새로 시작된 구동은 cold, 이미 떠 있는 프로세스에서 Startup 이 다시 시작된 구동은 warm 으로 구분한다. <br/>
+ *
+ * 웹에서는 exWNStartupTrace, exWNStartupLaunches, exWNStartupBudget 으로 조회/설정한다.
+ */
+public class StartupTrace {
+
+	private final String CLASS_TAG = "STARTUP_TRACE";
+
+	public static final String APPLICATION = "Application.onCreate";
+	public static final String STARTUP = "Startup.onCreate";
+	public static final String START_ACTIVITY = "StartActivity.onCreate";
+	public static final String RESOURCE_UPDATE = "resourceUpdate";
+	public static final String CAPTURE_VIEW = "captureView";
+	public static final String NAVIGATION = "navigation";
+	public static final String WEBVIEW_SETUP = "webViewSetup";
+	public static final String PAGE_LOAD = "pageLoad";
+
+	private static final String PREF_NAME = "startup_trace";
+	private static final String PREF_KEY_HISTORY = "history";
+	private static final String PREF_KEY_BUDGET = "budget_ms";
+	private static final String TRACE_FILE = "startup_trace.json";
+
+	/** 기본 목표 시간 (ms) */
+	private static final long DEFAULT_BUDGET_MS = 3000;
+	/** 보관하는 구동 요약 수 */
+	private static final int HISTORY_SIZE = 30;
+	/** 이 시간 안에 첫 페이지가 끝나지 않으면 기록을 버린다. */
+	private static final long TIMEOUT_MS = 60 * 1000;
+
+	private static StartupTrace instance;
+
+	/**
+	 * 구동 한 번의 기록
+	 */
+	private static class Launch {
+		final boolean cold;
+		final long originNanos;
+		final long wallTime = System.currentTimeMillis();
+		final JSONArray events = new JSONArray();
+		final HashMap<String, long[]> open = new HashMap<String, long[]>();
+		final LinkedHashMap<String, Long> phases = new LinkedHashMap<String, Long>();
+		final HashMap<Integer, String> threads = new HashMap<Integer, String>();
+
+		Launch(boolean cold, long originNanos) {
+			this.cold = cold;
+			this.originNanos = originNanos;
+		}
+
+		long micros(long nanos) {
+			return Math.max(0, (nanos - originNanos) / 1000);
+		}
+	}
+
+	private final Context appContext;
+	private final SharedPreferences prefs;
+	private Launch launch;
+	// 이 프로세스에서 구동 기록을 한 번이라도 시작했는지 (이후 구동은 warm)
+	private boolean launched = false;
+	private JSONObject lastTrace;
+
+	public static synchronized StartupTrace getInstance() {
+		if (instance == null) {
+			instance = new StartupTrace(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	/**
+	 * Application.onCreate 에서는 CommonLibHandler 의 context 가 아직 없으므로 Application 을 넘긴다.
+	 */
+	public static synchronized StartupTrace getInstance(Context context) {
+		if (instance == null) {
+			instance = new StartupTrace(context);
+		}
+		return instance;
+	}
+
+	private StartupTrace(Context context) {
+		appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+		prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+	}
+
+	/**
+	 * 구동 기록을 시작한다. 이미 시작된 기록이 있으면(Application.onCreate 에서 시작된 cold 구동) 이어서 기록한다.
+	 */
+	public synchronized void startLaunch() {
+		if (launch != null && launch.micros(System.nanoTime()) < TIMEOUT_MS * 1000)
+			return;
+		launch = null;
+		ensureLaunch();
+	}
+
+	private Launch ensureLaunch() {
+		if (launch != null)
+			return launch;
+		long now = System.nanoTime();
+		boolean cold = !launched;
+		launched = true;
+		long origin = now;
+		long processStartNanos = -1;
+		if (cold && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+			// 프로세스 시작 시각 (elapsedRealtime 기준)을 nanoTime 기준으로 바꾼다.
+			long sinceProcessStart = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+			processStartNanos = now - sinceProcessStart * 1000000;
+			origin = processStartNanos;
+		}
+		launch = new Launch(cold, origin);
+		if (processStartNanos >= 0)
+			complete("processStart", processStartNanos, now);
+		return launch;
+	}
+
+	/**
+	 * 단계 시작. 같은 이름의 end 가 호출될 때까지를 하나의 단계로 기록한다. (이미 시작된 단계이면 무시)
+	 */
+	public synchronized void begin(String name) {
+		if (launch == null && launched)
+			return;
+		Launch current = ensureLaunch();
+		if (!current.open.containsKey(name))
+			current.open.put(name, new long[] { System.nanoTime() });
+	}
+
+	/**
+	 * 단계 끝. begin 되지 않은 단계는 무시한다.
+	 */
+	public synchronized void end(String name) {
+		if (launch == null)
+			return;
+		long[] start = launch.open.remove(name);
+		if (start != null)
+			complete(name, start[0], System.nanoTime());
+	}
+
+	/**
+	 * 시작, 끝 시각을 알고 있는 단계 기록 (StartupOrchestrator 컴포넌트 등)
+	 * @param startNanos 시작 시각 (System.nanoTime)
+	 * @param endNanos 끝 시각 (System.nanoTime)
+	 */
+	public synchronized void complete(String name, long startNanos, long endNanos) {
+		if (launch == null)
+			return;
+		int tid = Process.myTid();
+		try {
+			JSONObject event = new JSONObject();
+			event.put("name", name);
+			event.put("cat", "startup");
+			event.put("ph", "X");
+			event.put("ts", launch.micros(startNanos));
+			event.put("dur", Math.max(0, (endNanos - startNanos) / 1000));
+			event.put("pid", Process.myPid());
+			event.put("tid", tid);
+			launch.events.put(event);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		if (!launch.threads.containsKey(tid))
+			launch.threads.put(tid, Thread.currentThread().getName());
+		if (!launch.phases.containsKey(name))
+			launch.phases.put(name, (endNanos - startNanos) / 1000000);
+	}
+
+	/**
+	 * 첫 페이지 로딩 완료 (BaseActivity.onPageFinished). 구동 기록을 끝내고 저장한다.
+	 * @param url 페이지 url
+	 */
+	public void finish(String url) {
+		JSONObject trace;
+		JSONObject summary;
+		synchronized (this) {
+			if (launch == null)
+				return;
+			end(PAGE_LOAD);
+			Launch finished = launch;
+			launch = null;
+			long now = System.nanoTime();
+			long totalMs = (now - finished.originNanos) / 1000000;
+			long budgetMs = getBudgetMs();
+			try {
+				summary = new JSONObject();
+				summary.put("launch", finished.cold ? "cold" : "warm");
+				summary.put("at", finished.wallTime);
+				summary.put("page", PageLoadTimeline.pageOf(url));
+				summary.put("totalMs", totalMs);
+				summary.put("fromProcessStart", finished.cold && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
+				summary.put("budgetMs", budgetMs);
+				summary.put("overBudget", totalMs > budgetMs);
+				JSONObject phases = new JSONObject();
+				for (Map.Entry<String, Long> entry : finished.phases.entrySet()) {
+					phases.put(entry.getKey(), entry.getValue());
+				}
+				summary.put("phases", phases);
+
+				JSONObject instantEvent = new JSONObject();
+				instantEvent.put("name", "firstPageFinished");
+				instantEvent.put("cat", "startup");
+				instantEvent.put("ph", "i");
+				instantEvent.put("s", "g");
+				instantEvent.put("ts", finished.micros(now));
+				instantEvent.put("pid", Process.myPid());
+				instantEvent.put("tid", Process.myTid());
+				finished.events.put(instantEvent);
+				for (Map.Entry<Integer, String> entry : finished.threads.entrySet()) {
+					JSONObject meta = new JSONObject();
+					meta.put("name", "thread_name");
+					meta.put("ph", "M");
+					meta.put("pid", Process.myPid());
+					meta.put("tid", entry.getKey());
+					meta.put("args", new JSONObject().put("name", entry.getValue()));
+					finished.events.put(meta);
+				}
+
+				trace = new JSONObject();
+				trace.put("traceEvents", finished.events);
+				trace.put("displayTimeUnit", "ms");
+				trace.put("metadata", summary);
+			} catch (JSONException e) {
+				PLog.printTrace(e);
+				return;
+			}
+			lastTrace = trace;
+			addHistory(summary);
+		}
+
+		if (summary.optBoolean("overBudget"))
+			PLog.w(CLASS_TAG, "// startup " + summary.optLong("totalMs") + "ms exceeds budget " + summary.optLong("budgetMs") + "ms : " + summary.optJSONObject("phases"));
+		else
+			PLog.i(CLASS_TAG, "// startup " + summary.optLong("totalMs") + "ms (" + summary.optString("launch") + ")");
+		save(trace);
+	}
+
+	private void addHistory(JSONObject summary) {
+		JSONArray history = getHistory();
+		JSONArray trimmed = new JSONArray();
+		trimmed.put(summary);
+		for (int i = 0; i < history.length() && trimmed.length() < HISTORY_SIZE; i++) {
+			trimmed.put(history.opt(i));
+		}
+		prefs.edit().putString(PREF_KEY_HISTORY, trimmed.toString()).apply();
+	}
+
+	private JSONArray getHistory() {
+		try {
+			return new JSONArray(prefs.getString(PREF_KEY_HISTORY, "[]"));
+		} catch (JSONException e) {
+			return new JSONArray();
+		}
+	}
+
+	/**
+	 * 마지막 구동 기록을 파일로 저장한다. (구동 중인 메인 스레드를 막지 않도록 별도 스레드에서 쓴다.)
+	 */
+	private void save(final JSONObject trace) {
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				File file = new File(appContext.getFilesDir(), TRACE_FILE);
+				File tmp = new File(file.getPath() + ".tmp");
+				OutputStream out = null;
+				try {
+					out = new FileOutputStream(tmp);
+					out.write(trace.toString().getBytes("UTF-8"));
+					out.close();
+					out = null;
+					if (!tmp.renameTo(file))
+						throw new IOException("rename failed : " + file);
+				} catch (IOException e) {
+					PLog.printTrace(e);
+				} finally {
+					if (out != null) {
+						try {
+							out.close();
+						} catch (IOException e) {
+						}
+					}
+				}
+			}
+		}, "startup-trace").start();
+	}
+
+	/**
+	 * 마지막 구동 기록 (Chrome trace-event JSON). 이번 프로세스에서 끝난 기록이 없으면 저장된 파일을 읽는다.
+	 */
+	public synchronized String getLastTrace() {
+		if (lastTrace != null)
+			return lastTrace.toString();
+		File file = new File(appContext.getFilesDir(), TRACE_FILE);
+		if (!file.exists())
+			return "{}";
+		try {
+			return new String(readFully(file), "UTF-8");
+		} catch (IOException e) {
+			PLog.printTrace(e);
+			return "{}";
+		}
+	}
+
+	private static byte[] readFully(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] data = new byte[(int) file.length()];
+			int offset = 0;
+			while (offset < data.length) {
+				int read = in.read(data, offset, data.length - offset);
+				if (read < 0)
+					break;
+				offset += read;
+			}
+			return offset == data.length ? data : Arrays.copyOf(data, offset);
+		} finally {
+			in.close();
+		}
+	}
+
+	public long getBudgetMs() {
+		return prefs.getLong(PREF_KEY_BUDGET, DEFAULT_BUDGET_MS);
+	}
+
+	public void setBudgetMs(long budgetMs) {
+		prefs.edit().putLong(PREF_KEY_BUDGET, budgetMs).apply();
+	}
+
+	/**
+	 * 구동 요약 (최근 순), cold 구동의 백분위와 목표 시간 초과 수
+	 */
+	public synchronized JSONObject getLaunches() {
+		JSONObject obj = new JSONObject();
+		try {
+			JSONArray history = getHistory();
+			ArrayList<Long> cold = new ArrayList<Long>();
+			int overBudget = 0;
+			for (int i = 0; i < history.length(); i++) {
+				JSONObject summary = history.optJSONObject(i);
+				if (summary == null)
+					continue;
+				if ("cold".equals(summary.optString("launch")))
+					cold.add(summary.optLong("totalMs"));
+				if (summary.optBoolean("overBudget"))
+					overBudget++;
+			}
+			long[] sorted = new long[cold.size()];
+			for (int i = 0; i < sorted.length; i++) {
+				sorted[i] = cold.get(i);
+			}
+			Arrays.sort(sorted);
+			obj.put("budgetMs", getBudgetMs());
+			obj.put("coldCount", sorted.length);
+			obj.put("coldP50", percentile(sorted, 50));
+			obj.put("coldP90", percentile(sorted, 90));
+			obj.put("overBudget", overBudget);
+			obj.put("launches", history);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return obj;
+	}
+
+	private static long percentile(long[] sorted, int p) {
+		if (sorted.length == 0)
+			return 0;
+		int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	public synchronized void clear() {
+		prefs.edit().remove(PREF_KEY_HISTORY).apply();
+		lastTrace = null;
+		new File(appContext.getFilesDir(), TRACE_FILE).delete();
+	}
+}
@@ -0,0 +1,371 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import android.content.res.AssetManager;
+
+/**
+ * WebResourceBundle Class
+ *
+ * www 리소스 트리를 하나의 파일로 묶은 번들. <br/>
+ *
+ * 구성 : [header][index][data] <br/>
+ * - header : magic(4) version(4) stamp(8) count(4) <br/>
+ * - index : 경로 순으로 정렬된 엔트리 목록. 엔트리는 path(UTF-8, short 길이) flags(1) offset(8) storedLength(4) length(4) <br/>
+ * - data : 엔트리 내용. 텍스트 리소스는 줄어드는 경우 deflate 로 압축하여 저장한다. <br/>
+ *
+ * 번들은 memory-map 으로 열고 경로는 이진 탐색으로 찾는다.
+ * 생성(build)은 임시 파일에 쓴 후 rename 하므로 기존 번들은 한 번에 교체된다.
+ */
+public class WebResourceBundle {
+
+	private static final int MAGIC = 0x4d575242; // "MWRB"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+	private static final int FLAG_DEFLATE = 0x01;
+
+	/** 압축 대상 확장자 */
+	private static final String[] COMPRESSIBLE = { "html", "htm", "js", "css", "json", "svg", "txt", "xml" };
+
+	private final File file;
+	private final long stamp;
+	private final ByteBuffer mapped;
+	private final String[] paths;
+	private final long[] offsets;
+	private final int[] storedLengths;
+	private final int[] lengths;
+	private final byte[] flags;
+	private final long builtAt;
+
+	private WebResourceBundle(File file, ByteBuffer mapped) throws IOException {
+		this.file = file;
+		this.mapped = mapped;
+		this.builtAt = file.lastModified();
+
+		ByteBuffer header = mapped.duplicate();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
+			throw new IOException("invalid bundle : " + file.getAbsolutePath());
+		stamp = header.getLong();
+		int count = header.getInt();
+
+		paths = new String[count];
+		offsets = new long[count];
+		storedLengths = new int[count];
+		lengths = new int[count];
+		flags = new byte[count];
+		for (int i = 0; i < count; i++) {
+			byte[] name = new byte[header.getShort() & 0xffff];
+			header.get(name);
+			paths[i] = new String(name, "UTF-8");
+			flags[i] = header.get();
+			offsets[i] = header.getLong();
+			storedLengths[i] = header.getInt();
+			lengths[i] = header.getInt();
+			if (offsets[i] + storedLengths[i] > mapped.capacity())
+				throw new IOException("truncated bundle : " + file.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * 번들을 memory-map 으로 연다.
+	 */
+	public static WebResourceBundle open(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			return new WebResourceBundle(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 생성할 때 지정한 원본 식별값 (원본이 바뀌었는지 판단하는데 사용한다.)
+	 */
+	public long getStamp() {
+		return stamp;
+	}
+
+	/**
+	 * 번들 생성 시각
+	 */
+	public long getBuiltAt() {
+		return builtAt;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int size() {
+		return paths.length;
+	}
+
+	public boolean contains(String path) {
+		return Arrays.binarySearch(paths, path) >= 0;
+	}
+
+	/**
+	 * 엔트리 내용
+	 * 압축되지 않은 엔트리는 mapping 된 영역을 그대로, 압축된 엔트리는 풀어서 돌려준다.
+	 * @param path www 기준 상대 경로 (예 : js/mcore.min.js)
+	 * @return 없으면 null
+	 */
+	public ByteBuffer get(String path) throws IOException {
+		int i = Arrays.binarySearch(paths, path);
+		if (i < 0)
+			return null;
+
+		ByteBuffer stored = mapped.duplicate();
+		stored.position((int) offsets[i]);
+		stored.limit((int) offsets[i] + storedLengths[i]);
+		stored = stored.slice();
+		if ((flags[i] & FLAG_DEFLATE) == 0)
+			return stored;
+
+		byte[] input = new byte[storedLengths[i]];
+		stored.get(input);
+		byte[] output = new byte[lengths[i]];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(input);
+			int n = 0;
+			while (n < output.length && !inflater.finished()) {
+				int read = inflater.inflate(output, n, output.length - n);
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				n += read;
+			}
+			if (n != output.length)
+				throw new IOException("corrupted entry : " + path);
+		} catch (DataFormatException e) {
+			throw new IOException("corrupted entry : " + path);
+		} finally {
+			inflater.end();
+		}
+		return ByteBuffer.wrap(output);
+	}
+
+	/**
+	 * 번들 원본 (디렉토리 또는 asset)
+	 */
+	public interface Source {
+		/** www 기준 상대 경로 목록 */
+		ArrayList<String> list() throws IOException;
+
+		InputStream open(String path) throws IOException;
+	}
+
+	public static Source directorySource(final File root) {
+		return new Source() {
+			@Override
+			public ArrayList<String> list() {
+				ArrayList<String> result = new ArrayList<String>();
+				collect(root, "", result);
+				return result;
+			}
+
+			private void collect(File dir, String prefix, ArrayList<String> result) {
+				File[] files = dir.listFiles();
+				if (files == null)
+					return;
+				for (File f : files) {
+					if (f.isDirectory())
+						collect(f, prefix + f.getName() + "/", result);
+					else
+						result.add(prefix + f.getName());
+				}
+			}
+
+			@Override
+			public InputStream open(String path) throws IOException {
+				return new FileInputStream(new File(root, path));
+			}
+		};
+	}
+
+	public static Source assetSource(final AssetManager assets, final String root) {
+		return new Source() {
+			@Override
+			public ArrayList<String> list() throws IOException {
+				ArrayList<String> result = new ArrayList<String>();
+				collect(root, "", result);
+				return result;
+			}
+
+			private void collect(String dir, String prefix, ArrayList<String> result) throws IOException {
+				String[] names = assets.list(dir);
+				if (names == null)
+					return;
+				for (String name : names) {
+					String child = dir + "/" + name;
+					String[] children = assets.list(child);
+					// asset 은 디렉토리 여부를 알 수 없으므로 하위 목록이 있으면 디렉토리로 본다.
+					if (children != null && children.length > 0)
+						collect(child, prefix + name + "/", result);
+					else
+						result.add(prefix + name);
+				}
+			}
+
+			@Override
+			public InputStream open(String path) throws IOException {
+				return assets.open(root + "/" + path, AssetManager.ACCESS_STREAMING);
+			}
+		};
+	}
+
+	/**
+	 * 번들을 생성한다.
+	 * 임시 파일에 모두 쓴 후 target 으로 rename 하므로, 실패하면 기존 번들은 그대로 남는다.
+	 * @param source 원본
+	 * @param target 번들 파일
+	 * @param stamp 원본 식별값
+	 * @return 생성된 엔트리 수
+	 */
+	public static int build(Source source, File target, long stamp) throws IOException {
+		ArrayList<String> list = source.list();
+		Collections.sort(list);
+
+		File dataFile = new File(target.getParentFile(), target.getName() + ".data.tmp");
+		File tmpFile = new File(target.getParentFile(), target.getName() + ".tmp");
+
+		int count = list.size();
+		byte[] entryFlags = new byte[count];
+		long[] entryOffsets = new long[count];
+		int[] entryStored = new int[count];
+		int[] entryLengths = new int[count];
+
+		// 1. 내용을 data 임시 파일에 쓴다.
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		FileOutputStream dataOut = new FileOutputStream(dataFile);
+		long dataSize = 0;
+		try {
+			for (int i = 0; i < count; i++) {
+				byte[] raw = readFully(source.open(list.get(i)));
+				byte[] stored = raw;
+				if (isCompressible(list.get(i))) {
+					byte[] compressed = deflate(deflater, raw);
+					// 10% 이상 줄어드는 경우만 압축하여 저장한다.
+					if (compressed.length < raw.length * 0.9) {
+						stored = compressed;
+						entryFlags[i] = FLAG_DEFLATE;
+					}
+				}
+				dataOut.write(stored);
+				entryOffsets[i] = dataSize;
+				entryStored[i] = stored.length;
+				entryLengths[i] = raw.length;
+				dataSize += stored.length;
+			}
+		} finally {
+			deflater.end();
+			dataOut.close();
+		}
+
+		// 2. header, index 를 쓰고 data 를 붙인다.
+		ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(indexBytes);
+		byte[][] names = new byte[count][];
+		int indexSize = 0;
+		for (int i = 0; i < count; i++) {
+			names[i] = list.get(i).getBytes("UTF-8");
+			indexSize += 2 + names[i].length + 1 + 8 + 4 + 4;
+		}
+		long dataStart = HEADER_SIZE + indexSize;
+		index.writeInt(MAGIC);
+		index.writeInt(VERSION);
+		index.writeLong(stamp);
+		index.writeInt(count);
+		for (int i = 0; i < count; i++) {
+			index.writeShort(names[i].length);
+			index.write(names[i]);
+			index.writeByte(entryFlags[i]);
+			index.writeLong(dataStart + entryOffsets[i]);
+			index.writeInt(entryStored[i]);
+			index.writeInt(entryLengths[i]);
+		}
+		index.flush();
+
+		RandomAccessFile out = new RandomAccessFile(tmpFile, "rw");
+		FileInputStream dataIn = new FileInputStream(dataFile);
+		try {
+			out.setLength(0);
+			out.write(indexBytes.toByteArray());
+			FileChannel src = dataIn.getChannel();
+			FileChannel dst = out.getChannel();
+			long position = 0;
+			while (position < dataSize) {
+				position += src.transferTo(position, dataSize - position, dst);
+			}
+			out.getFD().sync();
+		} finally {
+			dataIn.close();
+			out.close();
+			dataFile.delete();
+		}
+
+		// 3. 교체
+		if (!tmpFile.renameTo(target)) {
+			tmpFile.delete();
+			throw new IOException("rename failed : " + target.getAbsolutePath());
+		}
+		return count;
+	}
+
+	private static boolean isCompressible(String path) {
+		int dot = path.lastIndexOf('.');
+		if (dot < 0)
+			return false;
+		String ext = path.substring(dot + 1).toLowerCase(Locale.US);
+		for (String c : COMPRESSIBLE) {
+			if (c.equals(ext))
+				return true;
+		}
+		return false;
+	}
+
+	private static byte[] deflate(Deflater deflater, byte[] raw) {
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+		byte[] buffer = new byte[16 * 1024];
+		while (!deflater.finished()) {
+			int n = deflater.deflate(buffer);
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+			byte[] buffer = new byte[16 * 1024];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}
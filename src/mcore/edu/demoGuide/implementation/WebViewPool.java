@@ -0,0 +1,239 @@
+package mcore.edu.demoGuide.implementation;
+
+import java.util.ArrayDeque;
+
+import m.client.android.library.core.common.CommonLibHandler;
+import m.client.android.library.core.customview.MPWebView;
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * WebViewPool Class
+ *
+ * 미리 생성해 둔 WebView 를 BaseActivity 에 넘겨주어 화면 전환시 WebView 생성 시간을 줄인다. <br/>
+ *
+ * - WebView 는 MutableContextWrapper(Application) 로 생성되며, 넘겨줄 때 Activity 로 교체한다. <br/>
+ * - 채우기는 메인 스레드가 한가할 때(IdleHandler) 한 개씩 진행한다. (WebView 는 메인 스레드에서만 생성할 수 있다.) <br/>
+ * - 풀 크기는 앱 메모리 한도로 정하며, 메모리가 부족하면(onTrimMemory) 비운다. <br/>
+ * - 화면이 종료되면 WebView 를 정리(about:blank, 히스토리 삭제, 클라이언트 해제)하여 돌려받는다. <br/>
+ *
+ * JS 브릿지(WNInterfaceManager)는 Activity 가 필요하므로 넘겨줄 때 BaseActivity 에서 연결한다.
+ */
+public class WebViewPool implements MessageQueue.IdleHandler, ComponentCallbacks2 {
+
+	private final String CLASS_TAG = "WEBVIEW_POOL";
+
+	/** 풀에서 가져온 WebView 의 브릿지(WNInterfaceManager) 인터페이스 이름 */
+	public static final String BRIDGE_INTERFACE_NAME = "Native";
+
+	/** WebView 한 개가 사용하는 메모리 추정치 */
+	private static final long ESTIMATED_WEBVIEW_BYTES = 8 * 1024 * 1024;
+
+	private static final int MAX_POOL_SIZE = 2;
+
+	private static WebViewPool instance;
+
+	private final Context appContext;
+	private final ArrayDeque<MPWebView> idle = new ArrayDeque<MPWebView>();
+	private final int capacity;
+	private boolean idleScheduled = false;
+
+	// Metrics
+	private long createdCount = 0;
+	private long createTotalNanos = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long returnedCount = 0;
+	private long trimmedCount = 0;
+
+	/**
+	 * 메인 스레드에서 호출해야 한다.
+	 */
+	public static synchronized WebViewPool getInstance() {
+		if (instance == null) {
+			instance = new WebViewPool(CommonLibHandler.getInstance().getApplicationContext());
+		}
+		return instance;
+	}
+
+	private WebViewPool(Context context) {
+		appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+		appContext.registerComponentCallbacks(this);
+
+		// 앱 메모리 한도의 1/16 안에서 WebView 개수를 정한다.
+		ActivityManager am = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+		int memoryClassMb = am == null ? 64 : am.getMemoryClass();
+		long budget = memoryClassMb * 1024L * 1024L / 16;
+		int size = (int) Math.min(MAX_POOL_SIZE, budget / ESTIMATED_WEBVIEW_BYTES);
+		if (am != null && isLowRamDevice(am))
+			size = 0;
+		capacity = size;
+		PLog.i(CLASS_TAG, "// capacity[" + capacity + "]");
+	}
+
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	private static boolean isLowRamDevice(ActivityManager am) {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && am.isLowRamDevice();
+	}
+
+	/**
+	 * 메인 스레드가 한가할 때 풀을 채우도록 예약한다. (Startup 이후, 화면이 WebView 를 가져간 후)
+	 */
+	public void warmUp() {
+		if (capacity == 0 || idleScheduled || idle.size() >= capacity)
+			return;
+		idleScheduled = true;
+		Looper.myQueue().addIdleHandler(this);
+	}
+
+	@Override
+	public boolean queueIdle() {
+		if (idle.size() >= capacity || !hasMemoryHeadroom()) {
+			idleScheduled = false;
+			return false;
+		}
+
+		long start = System.nanoTime();
+		try {
+			MPWebView webView = new MPWebView(new MutableContextWrapper(appContext));
+			idle.add(webView);
+			createdCount++;
+			createTotalNanos += System.nanoTime() - start;
+		} catch (Throwable e) {
+			// WebView 패키지 업데이트 중 등
+			PLog.e(CLASS_TAG, "// create failed : " + e);
+			idleScheduled = false;
+			return false;
+		}
+
+		// 다음 idle 에 하나씩 더 만든다.
+		idleScheduled = idle.size() < capacity;
+		return idleScheduled;
+	}
+
+	private boolean hasMemoryHeadroom() {
+		Runtime rt = Runtime.getRuntime();
+		long available = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+		return available > ESTIMATED_WEBVIEW_BYTES * 2;
+	}
+
+	/**
+	 * 미리 생성된 WebView 를 가져온다. 메인 스레드에서 호출해야 한다.
+	 * @param activity WebView 를 사용할 Activity
+	 * @return 풀이 비어 있으면 null (호출한 쪽에서 새로 생성한다.)
+	 */
+	public MPWebView acquire(Activity activity) {
+		MPWebView webView = idle.poll();
+		if (webView == null) {
+			missCount++;
+			warmUp();
+			return null;
+		}
+		hitCount++;
+		((MutableContextWrapper) webView.getContext()).setBaseContext(activity);
+		webView.onResume();
+		warmUp();
+		return webView;
+	}
+
+	/**
+	 * 화면이 종료될 때 WebView 를 정리하여 돌려받는다. 메인 스레드에서 호출해야 한다.
+	 * 풀에서 생성되지 않은 WebView 이거나 풀이 가득 차 있으면 destroy 한다.
+	 */
+	public void release(MPWebView webView) {
+		if (webView == null)
+			return;
+		if (!(webView.getContext() instanceof MutableContextWrapper))
+			return;
+
+		ViewParent parent = webView.getParent();
+		if (parent instanceof ViewGroup)
+			((ViewGroup) parent).removeView(webView);
+
+		AsyncBridgeExecutor.getInstance().cancelAll(webView);
+		webView.stopLoading();
+		// 브릿지(ExtendWNInterface)와 클라이언트는 종료된 Activity 를 참조하므로 풀에 넣기 전에 제거한다.
+		// (removeJavascriptInterface 는 아래 about:blank 로딩부터 적용된다.)
+		webView.removeJavascriptInterface(BRIDGE_INTERFACE_NAME);
+		webView.setWebChromeClient(null);
+		webView.setWebViewClient(null);
+		webView.setWNInterfaceManager(null);
+		webView.setName("");
+		webView.loadUrl("about:blank");
+		webView.clearHistory();
+		webView.onPause();
+		// 종료된 Activity 를 참조하지 않도록 한다.
+		((MutableContextWrapper) webView.getContext()).setBaseContext(appContext);
+
+		if (idle.size() < capacity && hasMemoryHeadroom()) {
+			idle.add(webView);
+			returnedCount++;
+		} else {
+			webView.destroy();
+		}
+	}
+
+	/**
+	 * 풀을 비운다.
+	 */
+	public void clear() {
+		MPWebView webView;
+		while ((webView = idle.poll()) != null) {
+			webView.destroy();
+			trimmedCount++;
+		}
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		if (level >= TRIM_MEMORY_RUNNING_LOW) {
+			PLog.i(CLASS_TAG, "// trim memory, level[" + level + "]");
+			clear();
+		}
+	}
+
+	@Override
+	public void onLowMemory() {
+		clear();
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+	}
+
+	/**
+	 * 통계
+	 * hit : 풀에서 가져감, miss : 풀이 비어 새로 생성, avgCreateMs : 풀에서 WebView 생성 시간
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("capacity", capacity);
+			metrics.put("idle", idle.size());
+			metrics.put("created", createdCount);
+			metrics.put("avgCreateMs", createdCount == 0 ? 0 : (createTotalNanos / createdCount) / 1000000.0);
+			metrics.put("hit", hitCount);
+			metrics.put("miss", missCount);
+			metrics.put("returned", returnedCount);
+			metrics.put("trimmed", trimmedCount);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
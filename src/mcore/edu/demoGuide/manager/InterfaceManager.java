@@ -23,49 +23,34 @@ public class InterfaceManager {
         return mJavaScriptCallBackManager;
     }
 
+    /**
+     * 최상위 화면의 WebView 로 JS 함수를 호출한다.
+     * 호출은 JavascriptDispatcher 에 모였다가 다음 화면 프레임에 한 번에 실행되며, 인자는 JSON 으로 escape 된다.
+     */
     public void loadUrl(final Activity activity, final String method, final String data1) {
-        final Activity topAct = (AbstractActivity) ActivityHistoryManager.getInstance().getTopActivity();
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                String script = String.format("javascript:" + method + "('%s')", data1);
-                PLog.i(LOG_TAG, "client InterfaceManager loadUrl = " + script);
-                ((MainActivity) topAct).getWebView().loadUrl(script);
-            }
-        });
+        PLog.i(LOG_TAG, "client InterfaceManager loadUrl = " + method);
+        dispatch(method, data1);
     }
 
     public void loadUrl(final Activity activity, final String method, final String data1, final String data2) {
-        final Activity topAct = (AbstractActivity) ActivityHistoryManager.getInstance().getTopActivity();
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                String script = String.format("javascript:" + method + "('%s','%s')", data1, data2);
-                ((MainActivity) topAct).getWebView().loadUrl(script);
-            }
-        });
+        dispatch(method, data1, data2);
     }
 
     public void loadUrl(final Activity activity, final String method, final String data1, final JSONObject data2) {
-        final Activity topAct = (AbstractActivity) ActivityHistoryManager.getInstance().getTopActivity();
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                String script = String.format("javascript:" + method + "('%s',", data1);
-                ((MainActivity) topAct).getWebView().loadUrl(script + data2+")");
-            }
-        });
+        dispatch(method, data1, data2);
     }
 
     public void loadUrl(final Activity activity, final String method, final String data1, final String data2, final String data3) {
+        dispatch(method, data1, data2, data3);
+    }
+
+    private void dispatch(String method, Object... args) {
         final Activity topAct = (AbstractActivity) ActivityHistoryManager.getInstance().getTopActivity();
-        activity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                String script = String.format("javascript:" + method + "('%s','%s','%s')", data1, data2, data3);
-                ((MainActivity) topAct).getWebView().loadUrl(script);
-            }
-        });
+        if (!(topAct instanceof MainActivity)) {
+            PLog.w(LOG_TAG, "client InterfaceManager loadUrl skipped, top activity is not a web activity. method = " + method);
+            return;
+        }
+        JavascriptDispatcher.getInstance().dispatch(((MainActivity) topAct).getWebView(), method, args);
     }
 
     // 간편인증 핀 결과값 전달
@@ -0,0 +1,305 @@
+package mcore.edu.demoGuide.manager;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.webkit.WebView;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import m.client.android.library.core.utils.PLog;
+import mcore.edu.demoGuide.common.Const;
+import mcore.edu.demoGuide.implementation.BridgeProfiler;
+
+/**
+ * 네이티브 -> JS 콜백을 모아서 화면 프레임마다 한 번씩 WebView 로 전달한다.
+ *
+ * 같은 프레임 안에 요청된 콜백은 WebView 별로 [[함수명, [인자...]], ...] 형태의 JSON 배열 하나로 묶여
+ * 한 번의 evaluateJavascript (KitKat 미만은 loadUrl) 로 실행된다.
+ * 인자는 JSON 으로 직렬화되므로 따옴표, 줄바꿈 등이 포함되어도 스크립트가 깨지지 않는다.
+ */
+public class JavascriptDispatcher {
+    private final String LOG_TAG = Const.GLOBAL_LOG_TAG;
+
+    /** Choreographer 를 사용할 수 없는 단말(API 16 미만)의 프레임 간격 */
+    private static final long FALLBACK_FRAME_INTERVAL_MS = 16;
+
+    /**
+     * 배치를 실행하는 스크립트.
+     * 함수명은 "a.b.c" 형태를 허용하며 window 부터 찾아서 호출한다. 하나의 콜백 에러가 나머지 콜백 실행을 막지 않는다.
+     */
+    private static final String BATCH_SCRIPT_PREFIX =
+            "(function(q){for(var i=0;i<q.length;i++){try{"
+            + "var p=q[i][0].split('.'),o=window,t=window;"
+            + "for(var j=0;j<p.length;j++){t=o;o=o[p[j]];}"
+            + "if(typeof o==='function'){o.apply(t,q[i][1]);}"
+            + "else if(window.console){console.warn('JavascriptDispatcher: '+q[i][0]+' is not a function');}"
+            + "}catch(e){if(window.console){console.error(e);}}}})(";
+    private static final String BATCH_SCRIPT_SUFFIX = ");";
+
+    private static JavascriptDispatcher mInstance;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Object mLock = new Object();
+
+    // WebView 별 대기 중인 콜백 (요청 순서 유지)
+    private LinkedHashMap<WebView, JSONArray> mPending = new LinkedHashMap<WebView, JSONArray>();
+    private long mFirstQueuedNanos = 0;
+    // 콜백별 요청 시각 (BridgeProfiler 사용시)
+    private ArrayList<String> mPendingMethods = new ArrayList<String>();
+    private ArrayList<Long> mPendingNanos = new ArrayList<Long>();
+    // 다음 실행이 끝난 후 호출할 작업
+    private ArrayList<Runnable> mAfterFlush = new ArrayList<Runnable>();
+    private boolean mFrameScheduled = false;
+    private Object mFrameCallback;
+
+    // Metrics
+    private long mCallbackCount = 0;
+    private long mBatchCount = 0;
+    private long mFlushCount = 0;
+    private long mBatchMaxSize = 0;
+    private long mScriptBytes = 0;
+    private long mLatencyTotalNanos = 0;
+    private long mLatencyMaxNanos = 0;
+
+    public static synchronized JavascriptDispatcher getInstance() {
+        if (mInstance == null) {
+            mInstance = new JavascriptDispatcher();
+        }
+        return mInstance;
+    }
+
+    private JavascriptDispatcher() {
+    }
+
+    /**
+     * JS 함수 호출을 예약한다. 어느 스레드에서나 호출할 수 있다.
+     * @param webView 실행할 WebView
+     * @param method JS 함수명 ("a.b.c" 형태 가능)
+     * @param args 인자 (String, Number, Boolean, JSONObject, JSONArray, null)
+     */
+    public void dispatch(WebView webView, String method, Object... args) {
+        if (webView == null || method == null || method.length() == 0) {
+            PLog.w(LOG_TAG, "JavascriptDispatcher dispatch skipped, method = " + method);
+            return;
+        }
+
+        JSONArray argArray = new JSONArray();
+        if (args != null) {
+            for (Object arg : args) {
+                argArray.put(arg == null ? JSONObject.NULL : arg);
+            }
+        }
+        JSONArray call = new JSONArray();
+        call.put(method);
+        call.put(argArray);
+
+        synchronized (mLock) {
+            JSONArray queue = mPending.get(webView);
+            if (queue == null) {
+                queue = new JSONArray();
+                mPending.put(webView, queue);
+            }
+            queue.put(call);
+            long now = System.nanoTime();
+            if (mFirstQueuedNanos == 0) {
+                mFirstQueuedNanos = now;
+            }
+            if (BridgeProfiler.getInstance().isEnabled()) {
+                mPendingMethods.add(method);
+                mPendingNanos.add(now);
+            }
+            mCallbackCount++;
+            scheduleFrameLocked();
+        }
+    }
+
+    /**
+     * 지금까지 예약된 콜백이 WebView 로 전달된 후 UI 스레드에서 작업을 실행한다. 어느 스레드에서나 호출할 수 있다.
+     * (예약된 콜백이 없으면 다음 프레임에 실행한다.)
+     * @param task 실행할 작업
+     */
+    public void runAfterFlush(Runnable task) {
+        if (task == null)
+            return;
+        synchronized (mLock) {
+            mAfterFlush.add(task);
+            scheduleFrameLocked();
+        }
+    }
+
+    private void scheduleFrameLocked() {
+        if (mFrameScheduled)
+            return;
+        mFrameScheduled = true;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    postFrameCallback();
+                }
+            });
+        } else {
+            mMainHandler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, FALLBACK_FRAME_INTERVAL_MS);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    flush();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    /**
+     * 대기 중인 콜백을 WebView 별로 한 번에 실행한다. UI 스레드에서 호출된다.
+     */
+    private void flush() {
+        LinkedHashMap<WebView, JSONArray> batches;
+        long firstQueued;
+        ArrayList<String> methods;
+        ArrayList<Long> queuedNanos;
+        ArrayList<Runnable> afterFlush;
+        synchronized (mLock) {
+            mFrameScheduled = false;
+            afterFlush = mAfterFlush;
+            if (!afterFlush.isEmpty())
+                mAfterFlush = new ArrayList<Runnable>();
+            if (mPending.isEmpty()) {
+                batches = null;
+                firstQueued = 0;
+                methods = null;
+                queuedNanos = null;
+            } else {
+                batches = mPending;
+                firstQueued = mFirstQueuedNanos;
+                mPending = new LinkedHashMap<WebView, JSONArray>();
+                mFirstQueuedNanos = 0;
+                methods = mPendingMethods;
+                queuedNanos = mPendingNanos;
+                mPendingMethods = new ArrayList<String>();
+                mPendingNanos = new ArrayList<Long>();
+            }
+        }
+        if (batches == null) {
+            runAll(afterFlush);
+            return;
+        }
+
+        int scriptBytes = 0;
+        int maxBatch = 0;
+        for (Map.Entry<WebView, JSONArray> entry : batches.entrySet()) {
+            String script = BATCH_SCRIPT_PREFIX + escapeLineSeparators(entry.getValue().toString()) + BATCH_SCRIPT_SUFFIX;
+            scriptBytes += script.length();
+            maxBatch = Math.max(maxBatch, entry.getValue().length());
+            try {
+                evaluate(entry.getKey(), script);
+            } catch (Exception e) {
+                PLog.printTrace(e);
+            }
+        }
+
+        long now = System.nanoTime();
+        long latency = now - firstQueued;
+        for (int i = 0; i < methods.size(); i++) {
+            BridgeProfiler.getInstance().recordCallback(methods.get(i), now - queuedNanos.get(i));
+        }
+        synchronized (mLock) {
+            mFlushCount++;
+            mBatchCount += batches.size();
+            mBatchMaxSize = Math.max(mBatchMaxSize, maxBatch);
+            mScriptBytes += scriptBytes;
+            mLatencyTotalNanos += latency;
+            mLatencyMaxNanos = Math.max(mLatencyMaxNanos, latency);
+        }
+        runAll(afterFlush);
+    }
+
+    private void runAll(ArrayList<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                PLog.printTrace(e);
+            }
+        }
+    }
+
+    private void evaluate(WebView webView, String script) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            evaluateJavascript(webView, script);
+        } else {
+            webView.loadUrl("javascript:" + script);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private void evaluateJavascript(WebView webView, String script) {
+        webView.evaluateJavascript(script, null);
+    }
+
+    /**
+     * JSON 에서는 허용되지만 (ES2019 이전) JS 문자열 리터럴에서는 허용되지 않는 U+2028, U+2029 를 escape 한다.
+     */
+    private static String escapeLineSeparators(String json) {
+        if (json.indexOf('\u2028') < 0 && json.indexOf('\u2029') < 0)
+            return json;
+        return json.replace("\u2028", "\\u2028").replace("\u2029", "\\u2029");
+    }
+
+    /**
+     * 통계
+     * callbacks : 요청된 콜백 수, flushes : 프레임 실행 횟수, batches : evaluateJavascript 호출 수,
+     * avgBatchSize/maxBatchSize : 한 번에 실행된 콜백 수, avgFlushLatencyMs/maxFlushLatencyMs : 첫 요청부터 실행까지 지연
+     */
+    public JSONObject getMetrics() {
+        JSONObject metrics = new JSONObject();
+        synchronized (mLock) {
+            try {
+                metrics.put("callbacks", mCallbackCount);
+                metrics.put("flushes", mFlushCount);
+                metrics.put("batches", mBatchCount);
+                metrics.put("avgBatchSize", mBatchCount == 0 ? 0 : (double) mCallbackCount / mBatchCount);
+                metrics.put("maxBatchSize", mBatchMaxSize);
+                metrics.put("scriptBytes", mScriptBytes);
+                metrics.put("avgFlushLatencyMs", mFlushCount == 0 ? 0 : (mLatencyTotalNanos / mFlushCount) / 1000000.0);
+                metrics.put("maxFlushLatencyMs", mLatencyMaxNanos / 1000000.0);
+            } catch (JSONException e) {
+                PLog.printTrace(e);
+            }
+        }
+        return metrics;
+    }
+
+    public void resetMetrics() {
+        synchronized (mLock) {
+            mCallbackCount = 0;
+            mFlushCount = 0;
+            mBatchCount = 0;
+            mBatchMaxSize = 0;
+            mScriptBytes = 0;
+            mLatencyTotalNanos = 0;
+            mLatencyMaxNanos = 0;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import mcore.edu.demoGuide.patternlock.ViewAccessibilityCompat;
 import mcore.edu.demoGuide.patternlock.util.PatternLockUtils;
 import mcore.edu.demoGuide.patternlock.util.PreferenceContract;
 import mcore.edu.demoGuide.patternlock.util.PreferenceUtils;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
 
 public class ConfirmPatternLayoutActivity extends Activity implements OnPatternListener {
 	private static final String TAG = ConfirmPatternLayoutActivity.class.getSimpleName();
@@ -168,6 +169,7 @@ public class ConfirmPatternLayoutActivity extends Activity implements OnPatternL
 		Parameters param = new Parameters();
 		param.putParam("TARGET_URL", url);
 		//param.putParam("PARAMETERS", param.toString());
+		PageLoadTimeline.getInstance().markNavigation();
 		CommonLibHandler.getInstance().getController().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN,
 				CommonLibUtil.getActionType(null),
 				ConfirmPatternLayoutActivity.this,
@@ -30,6 +30,7 @@ import mcore.edu.demoGuide.patternlock.ViewAccessibilityCompat;
 import mcore.edu.demoGuide.patternlock.util.PatternLockUtils;
 import mcore.edu.demoGuide.patternlock.util.PreferenceContract;
 import mcore.edu.demoGuide.patternlock.util.PreferenceUtils;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
 
 public class SetPatternLayoutActivity extends Activity implements PatternView.OnPatternListener {
 	private static final String TAG = SetPatternLayoutActivity.class.getSimpleName();
@@ -342,6 +343,7 @@ public class SetPatternLayoutActivity extends Activity implements PatternView.On
 		Parameters param = new Parameters();
 		param.putParam("TARGET_URL", url);
 		//param.putParam("PARAMETERS", param.toString());
+		PageLoadTimeline.getInstance().markNavigation();
 		CommonLibHandler.getInstance().getController().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN,
 				CommonLibUtil.getActionType(null),
 				SetPatternLayoutActivity.this,
@@ -17,7 +17,7 @@ public class PatternLockUtils {
 	public static final int REQUEST_CODE_CONFIRM_PATTERN = 19951208;
 	
 	public static void setPattern(List<PatternView.Cell> pattern, Context context) {
-		PreferenceUtils.putString(PreferenceContract.KEY_PATTERN_SHA256,
+		PreferenceUtils.putEncryptedString(PreferenceContract.KEY_PATTERN_SHA256,
 				PatternUtils.patternToSha1String(pattern), context);
 	}
 	
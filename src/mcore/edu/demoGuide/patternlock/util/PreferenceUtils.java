@@ -2,16 +2,30 @@ package mcore.edu.demoGuide.patternlock.util;
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.preference.PreferenceManager;
 
 import java.util.Set;
 
+import mcore.edu.demoGuide.implementation.MappedPreferences;
+
 public class PreferenceUtils {
 	
+	public static final String STORE_NAME = "preferences";
+	
 	private PreferenceUtils() {}
 	
-	public static SharedPreferences getPreferences(Context context) {
-		return PreferenceManager.getDefaultSharedPreferences(context);
+	/**
+	 * 메모리 매핑 저장소 (처음 사용할 때 기본 SharedPreferences 의 값을 가져온다.)
+	 */
+	public static MappedPreferences getPreferences(Context context) {
+		return MappedPreferences.getInstance(context, STORE_NAME, context.getPackageName() + "_preferences",
+				PreferenceContract.KEY_PATTERN_SHA256);
+	}
+	
+	/**
+	 * 저장소를 읽어 둔다. (로딩이 끝날 때까지 기다린다.)
+	 */
+	public static void preload(Context context) {
+		getPreferences(context).awaitLoaded();
 	}
 	
 	public static String getString(String key, String defaultValue, Context context) {
@@ -46,6 +60,13 @@ public class PreferenceUtils {
 		getEditor(context).putString(key, value).apply();
 	}
 	
+	/**
+	 * 값을 암호화하여 저장한다. 조회는 getString 으로 한다.
+	 */
+	public static void putEncryptedString(String key, String value, Context context) {
+		getPreferences(context).edit().putEncryptedString(key, value).apply();
+	}
+	
 	public static void putStringSet(String key, Set<String> value, Context context) {
 		getEditor(context).putStringSet(key, value).apply();
 	}
@@ -10,6 +10,7 @@ import m.client.android.library.core.common.Parameters;
 import m.client.android.library.core.utils.CommonLibUtil;
 import m.client.android.library.core.utils.PLog;
 import mcore.edu.demoGuide.R;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.res.Configuration;
@@ -110,6 +111,7 @@ public class BatchTempActivity extends AbstractActivity {
 			    	
 			    	setViewForMovingScreen(getRootView(thisObj));
 			    	
+			    	PageLoadTimeline.getInstance().markNavigation();
 			    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 			    												actionType, 
 			    												thisObj, 
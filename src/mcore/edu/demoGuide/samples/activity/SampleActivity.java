@@ -10,6 +10,8 @@ import m.client.android.library.core.common.Parameters;
 import m.client.android.library.core.utils.CommonLibUtil;
 import m.client.android.library.core.utils.PLog;
 import mcore.edu.demoGuide.R;
+import mcore.edu.demoGuide.implementation.GlobalStateStore;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -131,7 +133,8 @@ public class SampleActivity extends AbstractActivity {
 			public void onClick(View arg0) {
 				
 				// 화면에서 사용할 전역 변수 설정(웹화면에서의 사용:WNSetVariable, WNGetVariable) 
-				CommonLibUtil.setVariable("native_global1", "네이티브 글로별 변수값1");	//WNGetvarible();
+				// (GlobalStateStore 로 저장하면 값을 구독한 웹 화면에 바로 전달된다.)
+				GlobalStateStore.getInstance().set("native_global1", "네이티브 글로별 변수값1");	//WNGetvarible();
 
 				// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(웹화면에서의 사용:WNSetVariableToStorage, WNGetVariableFromStorage)
 				CommonLibUtil.setVariableToStorage("natvie_storage1", "네이티브 저장 변수값1", thisObj.getApplicationContext());
@@ -193,7 +196,7 @@ public class SampleActivity extends AbstractActivity {
 			public void onClick(View arg0) {
 				
 				// 화면에서 사용할 전역 변수 설정(웹화면에서의 사용:WNSetVariable, WNGetVariable) 
-				CommonLibUtil.setVariable("web_global1", "네이티브 화면에서 저장되는 전역변수 값1");	//WNGetvarible();
+				GlobalStateStore.getInstance().set("web_global1", "네이티브 화면에서 저장되는 전역변수 값1");	//WNGetvarible();
 
 				// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(웹화면에서의 사용:WNSetVariableToStorage, WNGetVariableFromStorage)
 				CommonLibUtil.setVariableToStorage("web_storage1", "네이티브 화면에서 저장되는 영속변수 값1", thisObj.getApplicationContext());
@@ -242,6 +245,7 @@ public class SampleActivity extends AbstractActivity {
 		    	//NANIVE_ANIM
 		    	setViewForMovingScreen(getRootView(thisObj));
 		    	
+		    	PageLoadTimeline.getInstance().markNavigation();
 		    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 		    												actionType, 
 		    												thisObj, 
@@ -1,7 +1,5 @@
 package mcore.edu.demoGuide.samples.activity;
 
-import java.util.ArrayList;
-
 import m.client.android.library.core.control.Controller;
 import m.client.android.library.core.model.NetReqOptions;
 import m.client.android.library.core.view.AbstractActivity;
@@ -11,33 +9,44 @@ import m.client.android.library.core.common.LibDefinitions;
 import m.client.android.library.core.common.Parameters;
 import m.client.android.library.core.utils.CommonLibUtil;
 import m.client.android.library.core.utils.PLog;
-import mcore.edu.demoGuide.samples.utils.ListAdapter;
+import mcore.edu.demoGuide.samples.utils.ListPager;
+import mcore.edu.demoGuide.samples.utils.RecyclerListAdapter;
+import mcore.edu.demoGuide.samples.utils.RegisterTable;
 import mcore.edu.demoGuide.R;
+import mcore.edu.demoGuide.implementation.FrameTimeMonitor;
+import mcore.edu.demoGuide.implementation.GlobalStateStore;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import android.app.Activity;
-import android.content.Context;
 import android.content.Intent;
 import android.content.res.Configuration;
 import android.os.Bundle;
 import android.os.Handler;
-import android.view.LayoutInflater;
 import android.view.View;
-import android.view.ViewGroup;
 import android.view.Window;
 import android.widget.Button;
 import android.widget.EditText;
-import android.widget.LinearLayout;
-import android.widget.ListView;
 import android.widget.TextView;
 
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
 public class SampleNativeListActivity extends AbstractActivity {
-	private ArrayList<String[]> mArray;
-	private ListAdapter<String[]> mAdapter;
-	private int mItemResourceId;
+	private static final String LIST_NAME = "SampleNativeListActivity";
+	// 페이지 행 수 (rsc.sample_list 요청의 limit)
+	private static final int PAGE_SIZE = 50;
+	// 리스트 끝에서 이 행 수 이내로 스크롤되면 다음 페이지를 미리 요청한다.
+	private static final int PREFETCH_DISTANCE = 20;
+	// 메모리에 보관할 페이지 수
+	private static final int MAX_PAGES = 5;
+	
+	private RecyclerListAdapter<RegisterTable.Row> mAdapter;
+	private ListPager<RegisterTable.Row> mPager;
+	// 스크롤 측정용 행 수 (action 이 BENCHMARK 인 경우)
+	private int mBenchmarkRows = 0;
 	
 	private Activity thisObj;
 	
@@ -128,6 +137,7 @@ public class SampleNativeListActivity extends AbstractActivity {
 		    	//NANIVE_ANIM
 		    	setViewForMovingScreen(getRootView(thisObj));
 		    	
+		    	PageLoadTimeline.getInstance().markNavigation();
 		    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 		    												actionType, 
 		    												thisObj, 
@@ -136,6 +146,7 @@ public class SampleNativeListActivity extends AbstractActivity {
 			}
 		});
 		
+		setupList();
 		
 		Handler handler = new Handler();
 		handler.postDelayed(new Runnable() {
@@ -183,6 +194,7 @@ public class SampleNativeListActivity extends AbstractActivity {
 			    	
 			    	setViewForMovingScreen(getRootView(thisObj));
 			    	
+			    	PageLoadTimeline.getInstance().markNavigation();
 			    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 			    												actionType, 
 			    												thisObj, 
@@ -190,6 +202,10 @@ public class SampleNativeListActivity extends AbstractActivity {
 			    												pubParams);
 				}else if(action.equals("GOBACK")){
 					onBackPressed();
+				}else if(action.equals("BENCHMARK")){
+					String rows = (String)receivedParams.getParam("rows");
+					mBenchmarkRows = rows == null || rows.length() == 0 ? 10000 : Integer.parseInt(rows);
+					requestListData();
 				}else{
 					requestListData();
 				}
@@ -247,6 +263,7 @@ public class SampleNativeListActivity extends AbstractActivity {
 	@Override
 	public void handlingError(String callerServerName, String trCode, String errCode, String errMessage, NetReqOptions netReqOpt) {
 		
+		mPager.onPageFailed();
 		EditText handlingError = (EditText)findViewById(R.id.handling_error);
 		handlingError.setText(errMessage);
 
@@ -281,178 +298,223 @@ public class SampleNativeListActivity extends AbstractActivity {
 	@Override
 	public void responseData(int nDataType, String stTrCode, String otherInfos, String dhRecvData, NetReqOptions netReqOpt) {
 		
+		// otherInfos : 요청한 페이지 번호
+		int requestedPage = mPager.getLoadingPage();
+		try {
+			requestedPage = Integer.parseInt(otherInfos);
+		} catch (NumberFormatException e) {
+		}
+		final int page = requestedPage;
+		
 		if(dhRecvData != null && dhRecvData.length() > 0){
-			JSONObject jsonData = null;
-			try {
-				jsonData = new JSONObject(dhRecvData);
-				
-				JSONArray jsonArray = jsonData.getJSONArray("registers");
-
-				mArray = new ArrayList<String[]>();
-				
-				int count = jsonArray.length();
-				for(int i=0; i < count; i++){
-					JSONObject arrayData =  (JSONObject)jsonArray.get(i);
-					String[] data = new String[5];
-					data[0] = arrayData.getString("name");
-					data[1] = arrayData.getString("date");
-					data[2] = arrayData.getString("latitude");
-					data[3] = arrayData.getString("longitude");
-					data[4] = arrayData.getString("id");
-					mArray.add(data);
+			// 응답은 백그라운드 스레드에서 열 단위 목록으로 읽는다. (UI 스레드에서 JSON 을 파싱하지 않는다.)
+			final int benchmarkRows = mBenchmarkRows;
+			mBenchmarkRows = 0;
+			RegisterTable.decodeAsync(dhRecvData, benchmarkRows, new RegisterTable.Callback() {
+				@Override
+				public void onDecoded(RegisterTable table) {
+					if (isFinishing())
+						return;
+					if (table == null) {
+						mPager.onPageFailed();
+						return;
+					}
+					// 스크롤 측정은 반복해서 채운 첫 페이지만 사용한다. (다음 페이지를 요청하지 않는다.)
+					mPager.onPageLoaded(page, table, benchmarkRows > 0 ? null : table.getNextCursor());
+					if (benchmarkRows > 0)
+						runScrollBenchmark();
 				}
-				
-				mItemResourceId = R.layout.listitem;
-				mAdapter = new ListAdapter<String[]>(this, mItemResourceId, mArray) {
-					
+			});
+		} else {
+			mPager.onPageFailed();
+		}
+	}
+
+	/**
+	 * 리스트 설정
+	 * 행의 list_item, list_location 클릭은 어댑터의 리스너 하나가 받아서 onItemClick 으로 전달한다.
+	 */
+	private void setupList() {
+		mAdapter = new RecyclerListAdapter<RegisterTable.Row>(this, R.layout.listitem, R.id.list_item, R.id.list_location) {
+			@Override
+			protected long getStableId(RegisterTable.Row item) {
+				return item.getStableId();
+			}
+			
+			@Override
+			protected boolean areContentsTheSame(RegisterTable.Row oldItem, RegisterTable.Row newItem) {
+				return oldItem.contentEquals(newItem);
+			}
+			
+			@Override
+			protected void onBind(ItemViewHolder holder, RegisterTable.Row item, int position) {
+				((TextView) holder.getView(R.id.list_name)).setText(item.getName());
+				((TextView) holder.getView(R.id.list_date)).setText(item.getDate());
+				((TextView) holder.getView(R.id.list_location)).setText(item.getLocationText());
+			}
+		};
+		mAdapter.setOnItemClickListener(new RecyclerListAdapter.OnItemClickListener<RegisterTable.Row>() {
+			@Override
+			public void onItemClick(View view, RegisterTable.Row item, int position) {
+				if (view.getId() == R.id.list_location)
+					moveToMap(item);
+				else
+					moveToDetail(item);
+			}
+		});
+		
+		RecyclerView listview = (RecyclerView) findViewById(R.id.listView);
+		listview.setLayoutManager(new LinearLayoutManager(this));
+		listview.setHasFixedSize(true);
+		listview.setAdapter(mAdapter);
+		FrameTimeMonitor.getInstance().attach(LIST_NAME, listview);
+		
+		mPager = new ListPager<RegisterTable.Row>(mAdapter, new ListPager.PageLoader() {
+			@Override
+			public void loadPage(int page, String cursor, int limit) {
+				requestPage(page, cursor, limit);
+			}
+		}, PAGE_SIZE, PREFETCH_DISTANCE, MAX_PAGES);
+		mPager.attach(listview);
+	}
+	
+	/**
+	 * 리스트 끝까지 스크롤하면서 프레임 시간을 측정한다. (action 이 BENCHMARK 인 경우)
+	 */
+	private void runScrollBenchmark() {
+		final int pxPerFrame = (int) (100 * getResources().getDisplayMetrics().density);
+		findViewById(R.id.listView).post(new Runnable() {
+			@Override
+			public void run() {
+				FrameTimeMonitor.getInstance().benchmark(LIST_NAME, pxPerFrame, new FrameTimeMonitor.BenchmarkCallback() {
 					@Override
-					public View getView(final int position, View convertView, ViewGroup parent) {
-						// TODO Auto-generated method stub
-						LayoutInflater intInflater = (LayoutInflater) SampleNativeListActivity.this.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-						convertView =  intInflater.inflate(mItemResourceId, null);
-						
-						((LinearLayout)convertView.findViewById(R.id.list_item)).setOnClickListener(new View.OnClickListener() {
-							@Override
-							public void onClick(View v) {
-								// TODO Auto-generated method stub
-								//Detail View 화면 이동
+					public void onFinished(JSONObject metrics) {
+						PLog.i(LIST_NAME, "scroll benchmark " + metrics);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Detail View 화면 이동
+	 */
+	private void moveToDetail(RegisterTable.Row item) {
+		// 화면에서 사용할 전역 변수 설정(웹화면에서의 사용:WNSetVariable, WNGetVariable) 
+		//CommonLibUtil.setVariable("web_global1", "네이티브 화면에서 저장되는 전역변수 값1");	//WNGetvarible();
 
-								// 화면에서 사용할 전역 변수 설정(웹화면에서의 사용:WNSetVariable, WNGetVariable) 
-								//CommonLibUtil.setVariable("web_global1", "네이티브 화면에서 저장되는 전역변수 값1");	//WNGetvarible();
+		// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(웹화면에서의 사용:WNSetVariableToStorage, WNGetVariableFromStorage)
+		//CommonLibUtil.setVariableToStorage("web_storage1", "네이티브 화면에서 저장되는 영속변수 값1", thisObj.getApplicationContext());
+		
+		// 파라메터 설정
+		Parameters pubParams = new Parameters();
+		
+		// 파라메터 정보를 보내는 경우 
+		Parameters inParam = new Parameters();
+		inParam.putParam("REQUEST_PARAM", "이 메시지는 네이티브 화면에서 보냅니다.");
+		inParam.putParam("idx", item.getId());
+		pubParams.putParam("PARAMETERS", inParam.getParamString());
+		
+		// 웹 컨테이너에서 보여질 html 페이지
+		pubParams.putParam("TARGET_URL", CommonLibHandler.getInstance().g_strHTMLDirForWeb + "mp_detailView.html");	
 
-								// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(웹화면에서의 사용:WNSetVariableToStorage, WNGetVariableFromStorage)
-								//CommonLibUtil.setVariableToStorage("web_storage1", "네이티브 화면에서 저장되는 영속변수 값1", thisObj.getApplicationContext());
-								
-								// 파라메터 설정
-								Parameters pubParams = new Parameters();
-								
-								// 파라메터 정보를 보내는 경우 
-								Parameters inParam = new Parameters();
-								inParam.putParam("REQUEST_PARAM", "이 메시지는 네이티브 화면에서 보냅니다.");
-								inParam.putParam("idx", mArray.get(position)[4]);
-								pubParams.putParam("PARAMETERS", inParam.getParamString());
-								
-								// 웹 컨테이너에서 보여질 html 페이지
-								pubParams.putParam("TARGET_URL", CommonLibHandler.getInstance().g_strHTMLDirForWeb + "mp_detailView.html");	
+		// 화면 방향 설정 
+		// DEFAULT : 단말기에서 기본적으로 제공되는 방향 설정 적용
+	    // PORT : 세로 고정
+	    // LAND : 가로 고정
+	    // ALL : 가로, 세로 방향 변경 가능
+		pubParams.putParam("ORIENT_TYPE", "DEFAULT");
+		
+		// Action type
+		// NEW_SCR : 대상이 되는 화면을 화면 관리 스택에 새롭게 추가한다.
+        // NO_HISTORY : 대상이 되는 화면을 화면 관리 스택에 추가하지 않는다.
+        // CLEAR_TOP : 대상이 되는 이전 화면으로 이동한다. 이동시 현재 화면에서 대상 화면 사이의 모든 화면들은 제거된다.
+    	int actionType = CommonLibUtil.getActionType("NEW_SCR");
+    	
+    	// Animation Type
+    	// DEFALUT : 왼쪽으로 이동되는 슬라이드 효과(SLIDE_LEFT)
+        // NONE : 애니메이션 효과 없음
+        // SLIDE_LEFT : 왼쪽으로 이동되는 슬라이드 효과
+        // SLIDE_RIGHT : 오른쪽으로 이동되는 슬라이드 효과
+        // SLIDE_TOP : 위쪽으로 이동되는 슬라이드 효과
+        // SLIDE_BOTTOM : 아래쪽으로 이동되는 슬라이드 효과
+        // ZOOM_IN : 줌인 효과
+        // ZOOM_OUT : 줌아웃 효과
+        // FADE : 페이드 효과
+        // MODAL_UP : 원본 화면은 고정되어 있고 대상 화면만 위쪽으로 이동되는 슬라이드 효과
+        // MODAL_DOWN : 원본 화면은 고정되어 있고 대상 화면만 아래쪽으로 이동되는 슬라이드 효과
+    	
+    	// 하이브리드 웹화면으로 이동시에는 타겟 클래스 인텍스가 반드시 LibDefinitions.libactivities.ACTY_MAIN 이어야 한다.
+    	
+    	//NANIVE_ANIM
+    	setViewForMovingScreen(getRootView(thisObj));
+    	
+    	PageLoadTimeline.getInstance().markNavigation();
+    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
+    												actionType, 
+    												thisObj, 
+    												"SLIDE_LEFT",
+    												pubParams);
+	}
+	
+	/**
+	 * Map 이동
+	 */
+	private void moveToMap(RegisterTable.Row item) {
+		// 화면에서 사용할 전역 변수 설정(웹화면에서의 사용:WNSetVariable, WNGetVariable) 
+		GlobalStateStore.getInstance().set("native_global1", "네이티브 글로별 변수값1");	//WNGetvarible();
 
-								// 화면 방향 설정 
-								// DEFAULT : 단말기에서 기본적으로 제공되는 방향 설정 적용
-							    // PORT : 세로 고정
-							    // LAND : 가로 고정
-							    // ALL : 가로, 세로 방향 변경 가능
-								pubParams.putParam("ORIENT_TYPE", "DEFAULT");
-								
-								// Action type
-								// NEW_SCR : 대상이 되는 화면을 화면 관리 스택에 새롭게 추가한다.
-						        // NO_HISTORY : 대상이 되는 화면을 화면 관리 스택에 추가하지 않는다.
-						        // CLEAR_TOP : 대상이 되는 이전 화면으로 이동한다. 이동시 현재 화면에서 대상 화면 사이의 모든 화면들은 제거된다.
-						    	int actionType = CommonLibUtil.getActionType("NEW_SCR");
-						    	
-						    	// Animation Type
-						    	// DEFALUT : 왼쪽으로 이동되는 슬라이드 효과(SLIDE_LEFT)
-						        // NONE : 애니메이션 효과 없음
-						        // SLIDE_LEFT : 왼쪽으로 이동되는 슬라이드 효과
-						        // SLIDE_RIGHT : 오른쪽으로 이동되는 슬라이드 효과
-						        // SLIDE_TOP : 위쪽으로 이동되는 슬라이드 효과
-						        // SLIDE_BOTTOM : 아래쪽으로 이동되는 슬라이드 효과
-						        // ZOOM_IN : 줌인 효과
-						        // ZOOM_OUT : 줌아웃 효과
-						        // FADE : 페이드 효과
-						        // MODAL_UP : 원본 화면은 고정되어 있고 대상 화면만 위쪽으로 이동되는 슬라이드 효과
-						        // MODAL_DOWN : 원본 화면은 고정되어 있고 대상 화면만 아래쪽으로 이동되는 슬라이드 효과
-						    	
-						    	// 하이브리드 웹화면으로 이동시에는 타겟 클래스 인텍스가 반드시 LibDefinitions.libactivities.ACTY_MAIN 이어야 한다.
-						    	
-						    	//NANIVE_ANIM
-						    	setViewForMovingScreen(getRootView(thisObj));
-						    	
-						    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
-						    												actionType, 
-						    												thisObj, 
-						    												"SLIDE_LEFT",
-						    												pubParams);
-							}
-						});
-						
-						((TextView)convertView.findViewById(R.id.list_name)).setText(mArray.get(position)[0]);
-						((TextView)convertView.findViewById(R.id.list_date)).setText(mArray.get(position)[1]);
-						((TextView)convertView.findViewById(R.id.list_location)).setText(mArray.get(position)[2]+ "\n" + mArray.get(position)[3]);
-						((TextView)convertView.findViewById(R.id.list_location)).setOnClickListener(new View.OnClickListener() {
-							@Override
-							public void onClick(View v) {
-								// TODO Auto-generated method stub
-								//Map 이동
-								// 화면에서 사용할 전역 변수 설정(웹화면에서의 사용:WNSetVariable, WNGetVariable) 
-								CommonLibUtil.setVariable("native_global1", "네이티브 글로별 변수값1");	//WNGetvarible();
+		// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(웹화면에서의 사용:WNSetVariableToStorage, WNGetVariableFromStorage)
+		CommonLibUtil.setVariableToStorage("natvie_storage1", "네이티브 저장 변수값1", thisObj.getApplicationContext());
 		
-								// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(웹화면에서의 사용:WNSetVariableToStorage, WNGetVariableFromStorage)
-								CommonLibUtil.setVariableToStorage("natvie_storage1", "네이티브 저장 변수값1", thisObj.getApplicationContext());
-								
-								// 파라메터 설정
-								Parameters pubParams = new Parameters();
-								
-								// 파라메터 정보를 보내는 경우 
-								Parameters inParam = new Parameters();
-								inParam.putParam("latitude", mArray.get(position)[2]);
-								inParam.putParam("longitude", mArray.get(position)[3]);
-								inParam.putParam("name", mArray.get(position)[0]); 
-								pubParams.putParam("PARAMETERS", inParam.getParamString());
-								
-								// 화면 방향 설정 
-								// DEFAULT : 단말기에서 기본적으로 제공되는 방향 설정 적용
-							    // PORT : 세로 고정
-							    // LAND : 가로 고정
-							    // ALL : 가로, 세로 방향 변경 가능
-								pubParams.putParam("ORIENT_TYPE", "DEFAULT");
-								
-								// Action type
-								// NEW_SCR : 대상이 되는 화면을 화면 관리 스택에 새롭게 추가한다.
-						        // NO_HISTORY : 대상이 되는 화면을 화면 관리 스택에 추가하지 않는다.
-						        // CLEAR_TOP : 대상이 되는 이전 화면으로 이동한다. 이동시 현재 화면에서 대상 화면 사이의 모든 화면들은 제거된다.
-						    	int actionType = CommonLibUtil.getActionType("NEW_SCR");
-						    	
-						    	// Animation Type
-						    	// DEFALUT : 왼쪽으로 이동되는 슬라이드 효과(SLIDE_LEFT)
-						        // NONE : 애니메이션 효과 없음
-						        // SLIDE_LEFT : 왼쪽으로 이동되는 슬라이드 효과
-						        // SLIDE_RIGHT : 오른쪽으로 이동되는 슬라이드 효과
-						        // SLIDE_TOP : 위쪽으로 이동되는 슬라이드 효과
-						        // SLIDE_BOTTOM : 아래쪽으로 이동되는 슬라이드 효과
-						        // ZOOM_IN : 줌인 효과
-						        // ZOOM_OUT : 줌아웃 효과
-						        // FADE : 페이드 효과
-						        // MODAL_UP : 원본 화면은 고정되어 있고 대상 화면만 위쪽으로 이동되는 슬라이드 효과
-						        // MODAL_DOWN : 원본 화면은 고정되어 있고 대상 화면만 아래쪽으로 이동되는 슬라이드 효과
-						    	
-						    	// 네이티브 화면으로의 이동
-						    	// 타켓 클래스 인덱스는 Definitions.activities 에 정의된 이동할 네이티브 화면의 인덱스 (예 : Definitions.activities.ACTY_SAMPLE2)
-						    	
-						    	//NANIVE_ANIM
-						    	setViewForMovingScreen(getRootView(thisObj));
-						    							    	
-						    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_CUSTOM, 
-						    												actionType, 
-						    												thisObj, 
-						    												"SLIDE_LEFT",
-						    												pubParams,
-						    												"SampleNativeMapActivity");
-							}
-						});
-						
-						return convertView;
-					}
-				};
-				
-				
-				ListView listview = (ListView) findViewById(R.id.listView);
-				
-				listview.setAdapter(mAdapter);
-			} catch (JSONException e) {
-				// TODO Auto-generated catch block
-				PLog.printTrace(e);
-			}	
-			
-		}
+		// 파라메터 설정
+		Parameters pubParams = new Parameters();
+		
+		// 파라메터 정보를 보내는 경우 
+		Parameters inParam = new Parameters();
+		inParam.putParam("latitude", item.getLatitudeText());
+		inParam.putParam("longitude", item.getLongitudeText());
+		inParam.putParam("name", item.getName()); 
+		pubParams.putParam("PARAMETERS", inParam.getParamString());
+		
+		// 화면 방향 설정 
+		// DEFAULT : 단말기에서 기본적으로 제공되는 방향 설정 적용
+	    // PORT : 세로 고정
+	    // LAND : 가로 고정
+	    // ALL : 가로, 세로 방향 변경 가능
+		pubParams.putParam("ORIENT_TYPE", "DEFAULT");
+		
+		// Action type
+		// NEW_SCR : 대상이 되는 화면을 화면 관리 스택에 새롭게 추가한다.
+        // NO_HISTORY : 대상이 되는 화면을 화면 관리 스택에 추가하지 않는다.
+        // CLEAR_TOP : 대상이 되는 이전 화면으로 이동한다. 이동시 현재 화면에서 대상 화면 사이의 모든 화면들은 제거된다.
+    	int actionType = CommonLibUtil.getActionType("NEW_SCR");
+    	
+    	// Animation Type
+    	// DEFALUT : 왼쪽으로 이동되는 슬라이드 효과(SLIDE_LEFT)
+        // NONE : 애니메이션 효과 없음
+        // SLIDE_LEFT : 왼쪽으로 이동되는 슬라이드 효과
+        // SLIDE_RIGHT : 오른쪽으로 이동되는 슬라이드 효과
+        // SLIDE_TOP : 위쪽으로 이동되는 슬라이드 효과
+        // SLIDE_BOTTOM : 아래쪽으로 이동되는 슬라이드 효과
+        // ZOOM_IN : 줌인 효과
+        // ZOOM_OUT : 줌아웃 효과
+        // FADE : 페이드 효과
+        // MODAL_UP : 원본 화면은 고정되어 있고 대상 화면만 위쪽으로 이동되는 슬라이드 효과
+        // MODAL_DOWN : 원본 화면은 고정되어 있고 대상 화면만 아래쪽으로 이동되는 슬라이드 효과
+    	
+    	// 네이티브 화면으로의 이동
+    	// 타켓 클래스 인덱스는 Definitions.activities 에 정의된 이동할 네이티브 화면의 인덱스 (예 : Definitions.activities.ACTY_SAMPLE2)
+    	
+    	//NANIVE_ANIM
+    	setViewForMovingScreen(getRootView(thisObj));
+    							    	
+    	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_CUSTOM, 
+    												actionType, 
+    												thisObj, 
+    												"SLIDE_LEFT",
+    												pubParams,
+    												"SampleNativeMapActivity");
 	}
 
 	@Override
@@ -493,12 +555,31 @@ public class SampleNativeListActivity extends AbstractActivity {
 		
 	}
 	
+	/**
+	 * 첫 페이지부터 다시 요청한다. 다음 페이지는 스크롤에 따라 ListPager 가 요청한다.
+	 */
 	public void requestListData() {
+		mPager.start();
+	}
+	
+	/**
+	 * 페이지 요청
+	 * @param page 페이지 번호 (응답의 otherInfos 로 돌려받는다.)
+	 * @param cursor 요청 커서 (첫 페이지는 "", 이후는 이전 응답의 nextCursor)
+	 * @param limit 페이지 행 수
+	 */
+	private void requestPage(int page, String cursor, int limit) {
 
         /* 
          * 요청 전문 데이터 생성
          */
 		JSONObject sendData = new JSONObject();
+		try {
+			sendData.put("cursor", cursor);
+			sendData.put("limit", limit);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
 		
 		/*
 		 *  전문 송신에 관한 옵션
@@ -523,7 +604,9 @@ public class SampleNativeListActivity extends AbstractActivity {
 		 */
 		netReqOptions.targetServerName = "HTTP_HH_MAIN";  // (중요 : 반드시 AppManifext.xml에서 정의한 타켓 서버 이름을 설정해야 한다.)
 		netReqOptions.indicatorMsg = "데이터 요청중입니다..";
-		requestData("rsc.sample_list", "", new DataHandler(sendData), netReqOptions);
+		// 스크롤 중에 미리 요청하는 페이지는 인디케이터로 화면을 막지 않는다.
+		netReqOptions.indicator = page == 0;
+		requestData("rsc.sample_list", String.valueOf(page), new DataHandler(sendData), netReqOptions);
 		
 		
 	}
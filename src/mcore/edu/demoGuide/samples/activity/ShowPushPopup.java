@@ -23,6 +23,8 @@ import android.provider.Settings;
 import android.view.LayoutInflater;
 import android.view.Window;
 import android.view.WindowManager;
+import mcore.edu.demoGuide.implementation.GlobalStateStore;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
 
 
 public class ShowPushPopup extends Activity {
@@ -84,7 +86,7 @@ public class ShowPushPopup extends Activity {
 				}
 				
 				// 화면에서 사용할 전역 변수 설정(WNSetVariable, WNGetVariable) 
-				CommonLibUtil.setVariable("user_id", "reborn");	//WNGetvarible();
+				GlobalStateStore.getInstance().set("user_id", "reborn");	//WNGetvarible();
 
 				// 프로그램이 설치되어 있는 동안 영구적으로 사용할 수 있는 영역(파일)에 정보 저장(WNSetVariableToStorage, WNGetVariableFromStorage)
 				//CommonLibUtil.setConfigInfomation("save-info-to-file", "information", this);
@@ -94,6 +96,7 @@ public class ShowPushPopup extends Activity {
 				param.putParam("ORIENT_TYPE", "PORT");
 				param.putParam("TARGET_URL", CommonLibHandler.getInstance().g_strHTMLDirForWeb + "intro.html" );
 				int actionType = CommonLibUtil.getActionType("NO_HISTORY");
+			    PageLoadTimeline.getInstance().markNavigation();
 			    Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
 			    actionType, 
 			    thisObj, 
@@ -11,12 +11,13 @@ import m.client.android.library.core.utils.CommonLibUtil;
 import m.client.android.library.core.utils.CommonLibUtil.ResourceApdateCallBack;
 import m.client.android.library.core.utils.PLog;
 import mcore.edu.demoGuide.R;
+import mcore.edu.demoGuide.implementation.BitmapLoader;
+import mcore.edu.demoGuide.implementation.CodeCacheWarmup;
+import mcore.edu.demoGuide.implementation.PageLoadTimeline;
+import mcore.edu.demoGuide.implementation.StartupTrace;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.res.Configuration;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.view.Gravity;
@@ -54,6 +55,7 @@ public class StartActivity extends AbstractActivity {
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
+		StartupTrace.getInstance().begin(StartupTrace.START_ACTIVITY);
 		super.onCreate(savedInstanceState);
 		
 		requestWindowFeature(Window.FEATURE_NO_TITLE);
@@ -64,9 +66,8 @@ public class StartActivity extends AbstractActivity {
     																			FrameLayout.LayoutParams.FILL_PARENT);
 		
 		imgView.setLayoutParams(imgLayoutParams);
-		Bitmap bmp = BitmapFactory.decodeResource(getResources(), R.drawable.start_bg);
-		BitmapDrawable bitmapDrawable = new BitmapDrawable(bmp);
-		imgView.setImageDrawable(bitmapDrawable);
+		// 화면 크기로 줄여서 백그라운드에서 디코딩한다. (같은 프로세스에서 다시 실행되면 캐시된 이미지를 바로 사용)
+		BitmapLoader.getInstance().loadInto(imgView, R.drawable.start_bg);
 		
 		// Main Layout
 		RelativeLayout mainLayout = new RelativeLayout(this);  
@@ -87,6 +88,7 @@ public class StartActivity extends AbstractActivity {
 //    	 }
 //    	});
 		
+		StartupTrace.getInstance().end(StartupTrace.START_ACTIVITY);
     	requestResource();
 		// 통신 테스트
 //        findViewById(R.id.comm).setOnClickListener(new OnClickListener() {
@@ -333,6 +335,8 @@ public class StartActivity extends AbstractActivity {
 	}
 
 	public void requestResource(){
+		final long requestedAt = System.currentTimeMillis();
+		StartupTrace.getInstance().begin(StartupTrace.RESOURCE_UPDATE);
 		CommonLibUtil.ResourceApdateCallBack callback = new ResourceApdateCallBack() {
 			
 			@Override
@@ -341,6 +345,10 @@ public class StartActivity extends AbstractActivity {
 				// result => intro.html 페이지로 전달되는 이벤트가 동일하게 String 형태로 전달됨
 				// appInfo => Application APK버전을 체크를 위해 추가되었으며 서버에 값을 내려주면 JSON 형태의 data가 String 형태로 전달
 				PLog.i("StartActivity", "onSuccess result => " + result + "   => " + appInfo);
+				PLog.i("StartActivity", "resource update took " + (System.currentTimeMillis() - requestedAt) + "ms");
+				StartupTrace trace = StartupTrace.getInstance();
+				trace.end(StartupTrace.RESOURCE_UPDATE);
+				trace.begin(StartupTrace.CAPTURE_VIEW);
 				Handler handler = new Handler();
 				handler.postDelayed(new Runnable() {
 					
@@ -439,6 +447,7 @@ public class StartActivity extends AbstractActivity {
 	 */
 	@Override
 	public void onFinishedCaptureView() {
+		StartupTrace.getInstance().end(StartupTrace.CAPTURE_VIEW);
 		
 		// 파라메터 설정
 		Parameters pubParams = new Parameters();
@@ -478,7 +487,12 @@ public class StartActivity extends AbstractActivity {
         // MODAL_UP : 원본 화면은 고정되어 있고 대상 화면만 위쪽으로 이동되는 슬라이드 효과
         // MODAL_DOWN : 원본 화면은 고정되어 있고 대상 화면만 아래쪽으로 이동되는 슬라이드 효과
     	
+    	// 리소스 업데이트가 끝난 시점이므로, 설치/업데이트 후 첫 실행이면 공통 스크립트를 미리 컴파일해 둔다.
+    	CodeCacheWarmup.getInstance().schedule();
+    	
     	// 하이브리드 웹화면으로 이동시에는 타겟 클래스 인텍스가 반드시 LibDefinitions.libactivities.ACTY_MAIN 이어야 한다. 
+    	PageLoadTimeline.getInstance().markNavigation();
+    	StartupTrace.getInstance().begin(StartupTrace.NAVIGATION);
     	Controller.getInstance().actionMoveActivity(LibDefinitions.libactivities.ACTY_MAIN, 
     												actionType, 
     												thisObj, 
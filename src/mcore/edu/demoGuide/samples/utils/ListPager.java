@@ -0,0 +1,317 @@
+package mcore.edu.demoGuide.samples.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 커서 기반 페이지 목록 (무한 스크롤)
+ *
+ * - 페이지는 cursor, limit 로 요청하며, 응답의 다음 커서로 다음 페이지를 요청한다. (다음 커서가 없으면 마지막 페이지) <br/>
+ * - 리스트 끝(또는 처음)에서 prefetchDistance 행 이내로 스크롤되면 다음(또는 이전) 페이지를 미리 요청한다. <br/>
+ * - 메모리에는 연속된 maxPages 페이지만 보관하고, 반대쪽 끝의 페이지는 버린다. 버린 페이지는 보관한 커서로 다시 요청한다. <br/>
+ * - 요청은 한 번에 하나만 보낸다. <br/>
+ *
+ * 모든 메소드는 메인 스레드에서 호출한다.
+ *
+ * @param <T> 항목 타입
+ */
+public class ListPager<T> {
+	private final String CLASS_TAG = "LIST_PAGER";
+
+	/**
+	 * 페이지 요청 (응답은 onPageLoaded, 실패는 onPageFailed 로 알려준다.)
+	 */
+	public interface PageLoader {
+		/**
+		 * @param page 페이지 번호 (0 부터)
+		 * @param cursor 요청 커서 (첫 페이지는 "")
+		 * @param limit 페이지 행 수
+		 */
+		void loadPage(int page, String cursor, int limit);
+	}
+
+	private final RecyclerListAdapter<T> mAdapter;
+	private final PageLoader mLoader;
+	private final int mPageSize;
+	private final int mPrefetchDistance;
+	private final int mMaxPages;
+
+	// 페이지 번호별 요청 커서 (알 수 없으면 null)
+	private final ArrayList<String> mCursors = new ArrayList<String>();
+	// 보관중인 페이지 (mFirstPage 부터 연속)
+	private final ArrayList<List<T>> mWindow = new ArrayList<List<T>>();
+	private int mFirstPage = 0;
+	// 마지막 페이지 번호 (모르면 -1)
+	private int mLastPage = -1;
+	// 요청중인 페이지 번호 (없으면 -1)
+	private int mLoadingPage = -1;
+	private long mLoadingStart = 0;
+	private RecyclerView mRecyclerView;
+
+	private final Runnable mPrefetchCheck = new Runnable() {
+		@Override
+		public void run() {
+			checkPrefetch();
+		}
+	};
+
+	// Metrics
+	private long mPagesLoaded = 0;
+	private long mPagesDropped = 0;
+	private long mPagesReloaded = 0;
+	private long mFailures = 0;
+	private long mLoadTotalMs = 0;
+	private long mLastLoadMs = 0;
+	private int mMaxLoadedPage = -1;
+
+	/**
+	 * @param adapter 페이지를 표시할 어댑터 (보관중인 페이지를 이어붙인 목록을 submitList 한다.)
+	 * @param loader 페이지 요청
+	 * @param pageSize 페이지 행 수 (요청의 limit)
+	 * @param prefetchDistance 리스트 끝에서 이 행 수 이내로 스크롤되면 다음 페이지를 요청한다.
+	 * @param maxPages 메모리에 보관할 페이지 수 (2 이상)
+	 */
+	public ListPager(RecyclerListAdapter<T> adapter, PageLoader loader, int pageSize, int prefetchDistance, int maxPages) {
+		mAdapter = adapter;
+		mLoader = loader;
+		mPageSize = Math.max(1, pageSize);
+		mPrefetchDistance = Math.max(0, prefetchDistance);
+		mMaxPages = Math.max(2, maxPages);
+	}
+
+	/**
+	 * 스크롤 위치를 확인할 리스트 (LinearLayoutManager 를 사용하는 리스트)
+	 */
+	public void attach(RecyclerView view) {
+		mRecyclerView = view;
+		view.addOnScrollListener(new RecyclerView.OnScrollListener() {
+			@Override
+			public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+				checkPrefetch();
+			}
+		});
+		// 페이지가 반영된 후(목록 비교가 끝난 후) 화면이 다 차지 않았으면 이어서 요청한다.
+		mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+			@Override
+			public void onChanged() {
+				postPrefetchCheck();
+			}
+
+			@Override
+			public void onItemRangeInserted(int positionStart, int itemCount) {
+				postPrefetchCheck();
+			}
+
+			@Override
+			public void onItemRangeRemoved(int positionStart, int itemCount) {
+				postPrefetchCheck();
+			}
+		});
+	}
+
+	/**
+	 * 보관중인 페이지를 버리고 첫 페이지부터 다시 요청한다.
+	 */
+	public void start() {
+		mCursors.clear();
+		mCursors.add("");
+		mWindow.clear();
+		mFirstPage = 0;
+		mLastPage = -1;
+		mLoadingPage = -1;
+		mMaxLoadedPage = -1;
+		mAdapter.submitList(null);
+		load(0);
+	}
+
+	/**
+	 * 페이지 응답
+	 * @param page 요청한 페이지 번호 (요청중인 페이지가 아니면 버린다.)
+	 * @param rows 페이지 행 (변경되지 않는 목록)
+	 * @param nextCursor 다음 페이지 커서 (마지막 페이지이면 null)
+	 */
+	public void onPageLoaded(int page, List<T> rows, String nextCursor) {
+		if (page != mLoadingPage)
+			return;
+		mLoadingPage = -1;
+		mLastLoadMs = System.currentTimeMillis() - mLoadingStart;
+		mLoadTotalMs += mLastLoadMs;
+		mPagesLoaded++;
+		if (page <= mMaxLoadedPage)
+			mPagesReloaded++;
+		mMaxLoadedPage = Math.max(mMaxLoadedPage, page);
+
+		if (mWindow.isEmpty()) {
+			mFirstPage = page;
+			mWindow.add(rows);
+		} else if (page == mFirstPage + mWindow.size()) {
+			mWindow.add(rows);
+			if (mWindow.size() > mMaxPages) {
+				mWindow.remove(0);
+				mFirstPage++;
+				mPagesDropped++;
+			}
+		} else if (page == mFirstPage - 1) {
+			mWindow.add(0, rows);
+			mFirstPage--;
+			if (mWindow.size() > mMaxPages) {
+				mWindow.remove(mWindow.size() - 1);
+				mPagesDropped++;
+			}
+		} else {
+			return;
+		}
+
+		if (nextCursor == null || nextCursor.length() == 0) {
+			mLastPage = page;
+		} else {
+			while (mCursors.size() <= page + 1) {
+				mCursors.add(null);
+			}
+			mCursors.set(page + 1, nextCursor);
+		}
+		mAdapter.submitList(new WindowList<T>(mWindow));
+		PLog.i(CLASS_TAG, "// page " + page + " loaded " + getMetrics());
+	}
+
+	/**
+	 * 요청중인 페이지의 실패. 다음 스크롤에서 다시 요청한다.
+	 */
+	public void onPageFailed() {
+		if (mLoadingPage < 0)
+			return;
+		PLog.w(CLASS_TAG, "// page " + mLoadingPage + " failed");
+		mLoadingPage = -1;
+		mFailures++;
+	}
+
+	private void postPrefetchCheck() {
+		if (mRecyclerView != null) {
+			mRecyclerView.removeCallbacks(mPrefetchCheck);
+			mRecyclerView.post(mPrefetchCheck);
+		}
+	}
+
+	private void checkPrefetch() {
+		if (mLoadingPage >= 0 || mWindow.isEmpty() || mRecyclerView == null
+				|| !(mRecyclerView.getLayoutManager() instanceof LinearLayoutManager))
+			return;
+		LinearLayoutManager layoutManager = (LinearLayoutManager) mRecyclerView.getLayoutManager();
+		int first = layoutManager.findFirstVisibleItemPosition();
+		int last = layoutManager.findLastVisibleItemPosition();
+		int count = mAdapter.getItemCount();
+		if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION)
+			return;
+
+		int nextPage = mFirstPage + mWindow.size();
+		if (count - 1 - last <= mPrefetchDistance && (mLastPage < 0 || nextPage <= mLastPage)
+				&& nextPage < mCursors.size() && mCursors.get(nextPage) != null) {
+			load(nextPage);
+		} else if (first <= mPrefetchDistance && mFirstPage > 0) {
+			load(mFirstPage - 1);
+		}
+	}
+
+	private void load(int page) {
+		mLoadingPage = page;
+		mLoadingStart = System.currentTimeMillis();
+		mLoader.loadPage(page, mCursors.get(page), mPageSize);
+	}
+
+	/**
+	 * 요청중인 페이지 번호 (없으면 -1)
+	 */
+	public int getLoadingPage() {
+		return mLoadingPage;
+	}
+
+	/**
+	 * 통계
+	 * firstPage/windowPages/windowRows : 보관중인 페이지, lastPage : 마지막 페이지 (모르면 -1),
+	 * pagesLoaded : 받은 페이지 수, pagesDropped : 버린 페이지 수, pagesReloaded : 버린 후 다시 받은 페이지 수,
+	 * failures : 실패 수, avgLoadMs/lastLoadMs : 요청부터 응답까지의 시간
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			int rows = 0;
+			for (List<T> page : mWindow) {
+				rows += page.size();
+			}
+			metrics.put("pageSize", mPageSize);
+			metrics.put("prefetchDistance", mPrefetchDistance);
+			metrics.put("maxPages", mMaxPages);
+			metrics.put("firstPage", mFirstPage);
+			metrics.put("windowPages", mWindow.size());
+			metrics.put("windowRows", rows);
+			metrics.put("lastPage", mLastPage);
+			metrics.put("pagesLoaded", mPagesLoaded);
+			metrics.put("pagesDropped", mPagesDropped);
+			metrics.put("pagesReloaded", mPagesReloaded);
+			metrics.put("failures", mFailures);
+			metrics.put("avgLoadMs", mPagesLoaded == 0 ? 0 : mLoadTotalMs / mPagesLoaded);
+			metrics.put("lastLoadMs", mLastLoadMs);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+
+	/**
+	 * 보관중인 페이지를 이어붙인 변경되지 않는 목록 (행은 복사하지 않는다.)
+	 */
+	private static class WindowList<T> extends AbstractList<T> implements RandomAccess {
+		private final Object[] mPages;
+		// 페이지별 시작 위치
+		private final int[] mOffsets;
+		private final int mSize;
+
+		WindowList(List<List<T>> pages) {
+			mPages = pages.toArray();
+			mOffsets = new int[mPages.length];
+			int size = 0;
+			for (int i = 0; i < mPages.length; i++) {
+				mOffsets[i] = size;
+				size += page(i).size();
+			}
+			mSize = size;
+		}
+
+		@SuppressWarnings("unchecked")
+		private List<T> page(int index) {
+			return (List<T>) mPages[index];
+		}
+
+		@Override
+		public T get(int location) {
+			if (location < 0 || location >= mSize)
+				throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + mSize);
+			int index = Arrays.binarySearch(mOffsets, location);
+			if (index < 0) {
+				index = -index - 2;
+			} else {
+				// 빈 페이지는 건너뛴다.
+				while (page(index).isEmpty()) {
+					index++;
+				}
+			}
+			return page(index).get(location - mOffsets[index]);
+		}
+
+		@Override
+		public int size() {
+			return mSize;
+		}
+	}
+}
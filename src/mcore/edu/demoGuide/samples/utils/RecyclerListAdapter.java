@@ -0,0 +1,277 @@
+package mcore.edu.demoGuide.samples.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * RecyclerView 용 네이티브 리스트 어댑터
+ *
+ * - 행 레이아웃은 ViewHolder 단위로 재사용하며, 행 안의 뷰는 ViewHolder 마다 한 번만 찾는다. (getView) <br/>
+ * - 항목의 고유 아이디(getStableId)로 stable id 를 사용한다. <br/>
+ * - submitList 는 이전 목록과의 차이를 백그라운드에서 계산(DiffUtil)하여 바뀐 행만 갱신한다. <br/>
+ * - 클릭은 어댑터 하나의 리스너가 받아서 OnItemClickListener 로 전달한다. (행마다 리스너를 만들지 않는다.) <br/>
+ *
+ * @param <T> 항목 타입
+ */
+public abstract class RecyclerListAdapter<T> extends RecyclerView.Adapter<RecyclerListAdapter.ItemViewHolder> {
+	private final String CLASS_TAG = "RECYCLER_LIST_ADAPTER";
+
+	// 목록 비교(DiffUtil)를 실행하는 스레드 (모든 어댑터가 같이 사용한다.)
+	private static ExecutorService sDiffExecutor;
+
+	/**
+	 * 행 클릭 리스너
+	 */
+	public interface OnItemClickListener<T> {
+		/**
+		 * @param view 클릭된 뷰 (clickableIds 의 뷰)
+		 * @param item 항목
+		 * @param position 위치
+		 */
+		void onItemClick(View view, T item, int position);
+	}
+
+	/**
+	 * 행 ViewHolder. 행 안의 뷰를 아이디별로 보관한다.
+	 */
+	public static class ItemViewHolder extends RecyclerView.ViewHolder {
+		private final SparseArray<View> mViews = new SparseArray<View>();
+
+		public ItemViewHolder(View itemView) {
+			super(itemView);
+		}
+
+		/**
+		 * 행 안의 뷰 (처음 한 번만 findViewById 한다.)
+		 */
+		@SuppressWarnings("unchecked")
+		public <V extends View> V getView(int id) {
+			View view = mViews.get(id);
+			if (view == null) {
+				view = itemView.findViewById(id);
+				mViews.put(id, view);
+			}
+			return (V) view;
+		}
+	}
+
+	private final LayoutInflater mInflater;
+	private final int mResourceId;
+	private final int[] mClickableIds;
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	private List<T> mItems = Collections.emptyList();
+	private int mSubmitGeneration = 0;
+	private OnItemClickListener<T> mOnItemClickListener;
+
+	private final View.OnClickListener mClickDispatcher = new View.OnClickListener() {
+		@Override
+		public void onClick(View v) {
+			ItemViewHolder holder = (ItemViewHolder) v.getTag();
+			int position = holder == null ? RecyclerView.NO_POSITION : holder.getAdapterPosition();
+			if (position == RecyclerView.NO_POSITION || position >= mItems.size() || mOnItemClickListener == null)
+				return;
+			mOnItemClickListener.onItemClick(v, mItems.get(position), position);
+		}
+	};
+
+	// Metrics
+	private long mCreateCount = 0;
+	private long mBindCount = 0;
+	private long mBindTotalNanos = 0;
+	private long mDiffCount = 0;
+	private long mLastDiffMs = 0;
+	private long mMaxDiffMs = 0;
+
+	/**
+	 * @param context Context
+	 * @param resourceId 행 레이아웃
+	 * @param clickableIds 클릭을 받을 행 안의 뷰 아이디 (OnItemClickListener 로 전달)
+	 */
+	public RecyclerListAdapter(Context context, int resourceId, int... clickableIds) {
+		mInflater = LayoutInflater.from(context);
+		mResourceId = resourceId;
+		mClickableIds = clickableIds == null ? new int[0] : clickableIds;
+		setHasStableIds(true);
+	}
+
+	/**
+	 * 항목의 고유 아이디 (목록이 바뀌어도 같은 항목은 같은 값)
+	 */
+	protected abstract long getStableId(T item);
+
+	/**
+	 * 행에 항목을 표시한다. 메인 스레드에서 호출되므로 새 객체를 만들지 않는다.
+	 */
+	protected abstract void onBind(ItemViewHolder holder, T item, int position);
+
+	/**
+	 * 같은 아이디의 항목이 표시 내용도 같은지 여부 (다르면 행을 다시 그린다.) 목록 비교 스레드에서 호출된다.
+	 */
+	protected boolean areContentsTheSame(T oldItem, T newItem) {
+		return oldItem.equals(newItem);
+	}
+
+	public void setOnItemClickListener(OnItemClickListener<T> listener) {
+		mOnItemClickListener = listener;
+	}
+
+	/**
+	 * 목록을 바꾼다. 이전 목록과의 차이만 갱신하며, 메인 스레드에서 호출한다.
+	 * 비교가 끝나기 전에 다시 호출되면 이전 요청은 버린다.
+	 * 목록은 복사하지 않고 그대로 사용하므로 넘긴 후에 변경하지 않는다. (RegisterTable 처럼 변경되지 않는 목록)
+	 * @param items 새 목록
+	 */
+	public void submitList(List<T> items) {
+		final List<T> oldItems = mItems;
+		final List<T> newItems = items == null ? Collections.<T>emptyList() : items;
+		final int generation = ++mSubmitGeneration;
+
+		if (oldItems.isEmpty() || newItems.isEmpty()) {
+			mItems = newItems;
+			if (!oldItems.isEmpty())
+				notifyItemRangeRemoved(0, oldItems.size());
+			if (!newItems.isEmpty())
+				notifyItemRangeInserted(0, newItems.size());
+			return;
+		}
+
+		diffExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				long start = System.currentTimeMillis();
+				final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+					@Override
+					public int getOldListSize() {
+						return oldItems.size();
+					}
+
+					@Override
+					public int getNewListSize() {
+						return newItems.size();
+					}
+
+					@Override
+					public boolean areItemsTheSame(int oldPosition, int newPosition) {
+						return getStableId(oldItems.get(oldPosition)) == getStableId(newItems.get(newPosition));
+					}
+
+					@Override
+					public boolean areContentsTheSame(int oldPosition, int newPosition) {
+						return RecyclerListAdapter.this.areContentsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+					}
+				}, false);
+				final long elapsed = System.currentTimeMillis() - start;
+
+				mMainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						if (generation != mSubmitGeneration)
+							return;
+						mItems = newItems;
+						result.dispatchUpdatesTo(RecyclerListAdapter.this);
+						mDiffCount++;
+						mLastDiffMs = elapsed;
+						mMaxDiffMs = Math.max(mMaxDiffMs, elapsed);
+						PLog.i(CLASS_TAG, "// diff " + oldItems.size() + " -> " + newItems.size() + " in " + elapsed + "ms");
+					}
+				});
+			}
+		});
+	}
+
+	public T getItem(int position) {
+		return mItems.get(position);
+	}
+
+	@Override
+	public int getItemCount() {
+		return mItems.size();
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return getStableId(mItems.get(position));
+	}
+
+	@Override
+	public ItemViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+		ItemViewHolder holder = new ItemViewHolder(mInflater.inflate(mResourceId, parent, false));
+		for (int id : mClickableIds) {
+			View view = holder.getView(id);
+			if (view != null) {
+				view.setTag(holder);
+				view.setOnClickListener(mClickDispatcher);
+			}
+		}
+		mCreateCount++;
+		return holder;
+	}
+
+	@Override
+	public void onBindViewHolder(ItemViewHolder holder, int position) {
+		long start = System.nanoTime();
+		onBind(holder, mItems.get(position), position);
+		mBindTotalNanos += System.nanoTime() - start;
+		mBindCount++;
+	}
+
+	private static synchronized ExecutorService diffExecutor() {
+		if (sDiffExecutor == null) {
+			sDiffExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread thread = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+							r.run();
+						}
+					}, "list-diff");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sDiffExecutor;
+	}
+
+	/**
+	 * 통계 (메인 스레드에서 조회한다.)
+	 * items : 항목 수, createdHolders : 만든 ViewHolder 수, binds : bind 수, avgBindUs : bind 평균 시간, diffs/lastDiffMs/maxDiffMs : 목록 비교
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			metrics.put("items", mItems.size());
+			metrics.put("createdHolders", mCreateCount);
+			metrics.put("binds", mBindCount);
+			metrics.put("avgBindUs", mBindCount == 0 ? 0 : (mBindTotalNanos / mBindCount) / 1000.0);
+			metrics.put("diffs", mDiffCount);
+			metrics.put("lastDiffMs", mLastDiffMs);
+			metrics.put("maxDiffMs", mMaxDiffMs);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,449 @@
+package mcore.edu.demoGuide.samples.utils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import m.client.android.library.core.utils.PLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+/**
+ * 등록자 리스트(rsc.sample_list 의 registers) 응답을 열(column) 단위로 보관하는 변경되지 않는 목록
+ *
+ * - 응답 JSON 은 백그라운드 스레드에서 JsonReader 로 바로 읽는다. (JSONObject 트리를 만들지 않는다.) <br/>
+ * - 이름, 날짜, 아이디, 좌표 문자열은 중복을 제거한 문자열 테이블의 인덱스로 보관한다. 좌표는 숫자로 쓸 때를 위해 double 배열로도 보관한다. <br/>
+ * - 행(Row)은 열 배열의 위치만 가지며, RecyclerListAdapter 에 그대로 넘길 수 있다. <br/>
+ */
+public class RegisterTable extends AbstractList<RegisterTable.Row> implements RandomAccess {
+	private static final String CLASS_TAG = "REGISTER_TABLE";
+
+	// 응답을 읽는 스레드
+	private static ExecutorService sDecodeExecutor;
+	private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+	// 숫자가 아닌 아이디의 stable id (18자리 숫자보다 큰 2^60 부터)
+	private static final long FIRST_OTHER_ID = 1L << 60;
+	private static final HashMap<String, Long> sOtherIds = new HashMap<String, Long>();
+
+	/**
+	 * 디코딩 결과 (메인 스레드에서 호출된다.)
+	 */
+	public interface Callback {
+		/**
+		 * @param table 실패시 null
+		 */
+		void onDecoded(RegisterTable table);
+	}
+
+	/**
+	 * 행 하나 (열 배열의 위치)
+	 */
+	public final class Row {
+		private final int mIndex;
+
+		private Row(int index) {
+			mIndex = index;
+		}
+
+		public String getName() {
+			return mStrings[mName[mIndex]];
+		}
+
+		public String getDate() {
+			return mStrings[mDate[mIndex]];
+		}
+
+		/**
+		 * 등록자 아이디 (반복해서 만든 측정용 행은 stable id 문자열)
+		 */
+		public String getId() {
+			return mId[mIndex] < 0 ? String.valueOf(mStableId[mIndex]) : mStrings[mId[mIndex]];
+		}
+
+		public long getStableId() {
+			return mStableId[mIndex];
+		}
+
+		/**
+		 * 위도 (숫자가 아니면 0)
+		 */
+		public double getLatitude() {
+			return mLatitude[mIndex];
+		}
+
+		/**
+		 * 경도 (숫자가 아니면 0)
+		 */
+		public double getLongitude() {
+			return mLongitude[mIndex];
+		}
+
+		/**
+		 * 서버에서 받은 위도 문자열
+		 */
+		public String getLatitudeText() {
+			return mStrings[mLatitudeText[mIndex]];
+		}
+
+		/**
+		 * 서버에서 받은 경도 문자열
+		 */
+		public String getLongitudeText() {
+			return mStrings[mLongitudeText[mIndex]];
+		}
+
+		/**
+		 * "위도\n경도" 표시 문자열 (받은 문자열 그대로). 처음 표시될 때 한 번만 만든다.
+		 */
+		public String getLocationText() {
+			String text = mLocationText[mIndex];
+			if (text == null) {
+				text = getLatitudeText() + "\n" + getLongitudeText();
+				mLocationText[mIndex] = text;
+			}
+			return text;
+		}
+
+		/**
+		 * 표시 내용이 같은지 여부 (다른 목록의 행과 비교)
+		 */
+		public boolean contentEquals(Row other) {
+			return getStableId() == other.getStableId()
+					&& getName().equals(other.getName())
+					&& getDate().equals(other.getDate())
+					&& getLatitudeText().equals(other.getLatitudeText())
+					&& getLongitudeText().equals(other.getLongitudeText());
+		}
+	}
+
+	private final int mSize;
+	private final String[] mStrings;
+	private final int[] mName;
+	private final int[] mDate;
+	private final int[] mId;
+	private final long[] mStableId;
+	private final double[] mLatitude;
+	private final double[] mLongitude;
+	private final int[] mLatitudeText;
+	private final int[] mLongitudeText;
+	private final String[] mLocationText;
+	private final Row[] mRows;
+	private final String mNextCursor;
+	private final long mDecodeMs;
+
+	private RegisterTable(Builder builder, long decodeMs) {
+		mSize = builder.size;
+		mStrings = Arrays.copyOf(builder.strings, builder.stringCount);
+		mName = Arrays.copyOf(builder.name, mSize);
+		mDate = Arrays.copyOf(builder.date, mSize);
+		mId = Arrays.copyOf(builder.id, mSize);
+		mStableId = Arrays.copyOf(builder.stableId, mSize);
+		mLatitude = Arrays.copyOf(builder.latitude, mSize);
+		mLongitude = Arrays.copyOf(builder.longitude, mSize);
+		mLatitudeText = Arrays.copyOf(builder.latitudeText, mSize);
+		mLongitudeText = Arrays.copyOf(builder.longitudeText, mSize);
+		mLocationText = new String[mSize];
+		mRows = new Row[mSize];
+		for (int i = 0; i < mSize; i++) {
+			mRows[i] = new Row(i);
+		}
+		mNextCursor = builder.nextCursor;
+		mDecodeMs = decodeMs;
+	}
+
+	/**
+	 * 응답을 백그라운드 스레드에서 읽는다.
+	 * @param json 응답 데이터 ({ "registers" : [ { name, date, latitude, longitude, id }, ... ], "nextCursor" : 다음 페이지 커서 })
+	 * @param repeatTo 0 보다 크면 받은 행을 반복하여 이 행 수만큼 채운다. (스크롤 측정용, 아이디는 음수)
+	 * @param callback 결과 (메인 스레드)
+	 */
+	public static void decodeAsync(final String json, final int repeatTo, final Callback callback) {
+		decodeExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				RegisterTable table = null;
+				try {
+					table = decode(json, repeatTo);
+				} catch (Exception e) {
+					PLog.printTrace(e);
+				}
+				final RegisterTable result = table;
+				sMainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						callback.onDecoded(result);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * 응답을 읽는다. (호출한 스레드에서 실행)
+	 */
+	public static RegisterTable decode(String json, int repeatTo) throws IOException {
+		long start = System.currentTimeMillis();
+		Builder builder = new Builder();
+		JsonReader reader = new JsonReader(new StringReader(json));
+		try {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String field = reader.nextName();
+				if ("registers".equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						readRow(reader, builder);
+					}
+					reader.endArray();
+				} else if ("nextCursor".equals(field) && (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER)) {
+					builder.nextCursor = reader.nextString();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		} finally {
+			reader.close();
+		}
+		builder.repeat(repeatTo);
+		RegisterTable table = new RegisterTable(builder, System.currentTimeMillis() - start);
+		PLog.i(CLASS_TAG, "// decoded " + table.mSize + " rows in " + table.mDecodeMs + "ms");
+		return table;
+	}
+
+	private static void readRow(JsonReader reader, Builder builder) throws IOException {
+		String name = "", date = "", id = "", latitude = "", longitude = "";
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String field = reader.nextName();
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+			} else if ("name".equals(field)) {
+				name = reader.nextString();
+			} else if ("date".equals(field)) {
+				date = reader.nextString();
+			} else if ("id".equals(field)) {
+				id = reader.nextString();
+			} else if ("latitude".equals(field)) {
+				latitude = reader.nextString();
+			} else if ("longitude".equals(field)) {
+				longitude = reader.nextString();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		builder.add(name, date, id, latitude, longitude);
+	}
+
+	private static double parseDouble(String value) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * 등록자 아이디를 stable id 로 바꾼다.
+	 * 18자리 이하 숫자는 그대로 사용하고, 그 밖의 아이디는 처음 받은 순서대로 2^60 부터 번호를 붙인다.
+	 * 번호는 프로세스 안에서 유지되므로 여러 페이지(목록)의 행이 섞여도 겹치지 않는다. (음수는 측정용 행이 사용한다.)
+	 */
+	static long stableIdOf(String id) {
+		int length = id.length();
+		boolean numeric = length > 0 && length <= 18;
+		for (int i = 0; numeric && i < length; i++) {
+			char c = id.charAt(i);
+			numeric = c >= '0' && c <= '9';
+		}
+		if (numeric)
+			return Long.parseLong(id);
+		synchronized (sOtherIds) {
+			Long stableId = sOtherIds.get(id);
+			if (stableId == null) {
+				stableId = FIRST_OTHER_ID + sOtherIds.size();
+				sOtherIds.put(id, stableId);
+			}
+			return stableId;
+		}
+	}
+
+	/**
+	 * 열 배열을 채운다. (디코딩 스레드)
+	 */
+	private static class Builder {
+		int size = 0;
+		String nextCursor = null;
+		String[] strings = new String[64];
+		int stringCount = 0;
+		final HashMap<String, Integer> stringIndex = new HashMap<String, Integer>();
+		int[] name = new int[64];
+		int[] date = new int[64];
+		int[] id = new int[64];
+		long[] stableId = new long[64];
+		double[] latitude = new double[64];
+		double[] longitude = new double[64];
+		int[] latitudeText = new int[64];
+		int[] longitudeText = new int[64];
+
+		void add(String nameValue, String dateValue, String idValue, String latitudeValue, String longitudeValue) {
+			ensureCapacity(size + 1);
+			name[size] = intern(nameValue);
+			date[size] = intern(dateValue);
+			id[size] = intern(idValue);
+			stableId[size] = stableIdOf(idValue);
+			latitude[size] = parseDouble(latitudeValue);
+			longitude[size] = parseDouble(longitudeValue);
+			latitudeText[size] = intern(latitudeValue);
+			longitudeText[size] = intern(longitudeValue);
+			size++;
+		}
+
+		/**
+		 * 받은 행을 반복하여 count 행까지 채운다. 아이디 문자열은 만들지 않고 음수 stable id 를 사용한다.
+		 */
+		void repeat(int count) {
+			int received = size;
+			if (received == 0 || count <= received)
+				return;
+			ensureCapacity(count);
+			for (int i = received; i < count; i++) {
+				int source = i % received;
+				name[i] = name[source];
+				date[i] = date[source];
+				id[i] = -1;
+				stableId[i] = -(i + 1);
+				latitude[i] = latitude[source];
+				longitude[i] = longitude[source];
+				latitudeText[i] = latitudeText[source];
+				longitudeText[i] = longitudeText[source];
+			}
+			size = count;
+		}
+
+		private int intern(String value) {
+			Integer index = stringIndex.get(value);
+			if (index != null)
+				return index;
+			if (stringCount == strings.length)
+				strings = Arrays.copyOf(strings, stringCount * 2);
+			strings[stringCount] = value;
+			stringIndex.put(value, stringCount);
+			return stringCount++;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity <= name.length)
+				return;
+			int newCapacity = Math.max(capacity, name.length * 2);
+			name = Arrays.copyOf(name, newCapacity);
+			date = Arrays.copyOf(date, newCapacity);
+			id = Arrays.copyOf(id, newCapacity);
+			stableId = Arrays.copyOf(stableId, newCapacity);
+			latitude = Arrays.copyOf(latitude, newCapacity);
+			longitude = Arrays.copyOf(longitude, newCapacity);
+			latitudeText = Arrays.copyOf(latitudeText, newCapacity);
+			longitudeText = Arrays.copyOf(longitudeText, newCapacity);
+		}
+	}
+
+	private static synchronized ExecutorService decodeExecutor() {
+		if (sDecodeExecutor == null) {
+			sDecodeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread thread = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+							r.run();
+						}
+					}, "list-decode");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sDecodeExecutor;
+	}
+
+	/**
+	 * 다음 페이지를 요청할 커서 (응답에 없거나 빈 값이면 마지막 페이지이며 null)
+	 */
+	public String getNextCursor() {
+		return mNextCursor == null || mNextCursor.length() == 0 ? null : mNextCursor;
+	}
+
+	@Override
+	public Row get(int location) {
+		return mRows[location];
+	}
+
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * 문자열 하나의 대략적인 크기 (String 객체 + 문자 배열)
+	 */
+	private static long stringBytes(String value) {
+		return stringBytes(value.length());
+	}
+
+	private static long stringBytes(int length) {
+		return 24 + align(16 + 2L * length);
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * 통계
+	 * rows : 행 수, strings : 문자열 테이블 크기, decodeMs : 디코딩 시간,
+	 * estimatedBytes : 이 목록의 대략적인 크기, rowArrayEstimatedBytes : 같은 데이터를 행마다 String[] 로 보관했을 때의 크기
+	 */
+	public JSONObject getMetrics() {
+		JSONObject metrics = new JSONObject();
+		try {
+			long stringTableBytes = align(16 + 4L * mStrings.length);
+			for (String value : mStrings) {
+				stringTableBytes += stringBytes(value);
+			}
+			// 행마다 열 배열 (int 5개, long, double 2개, 표시 문자열 참조, Row 참조) + Row 객체 (처음 표시될 때 만드는 표시 문자열은 제외)
+			long estimated = stringTableBytes + mSize * (5 * 4 + 8 + 2 * 8 + 4 + 4 + 24L) + 10 * 16;
+			// ArrayList<String[]> : 참조 + String[6] + 문자열 6개 (이름, 날짜, 위도, 경도, 아이디, 좌표 표시)
+			long rowArray = 16;
+			for (int i = 0; i < mSize; i++) {
+				int latitudeLength = mStrings[mLatitudeText[i]].length();
+				int longitudeLength = mStrings[mLongitudeText[i]].length();
+				rowArray += 4 + align(16 + 6 * 4)
+						+ stringBytes(mStrings[mName[i]]) + stringBytes(mStrings[mDate[i]]) + stringBytes(mRows[i].getId())
+						+ stringBytes(latitudeLength) + stringBytes(longitudeLength) + stringBytes(latitudeLength + 1 + longitudeLength);
+			}
+			metrics.put("rows", mSize);
+			metrics.put("strings", mStrings.length);
+			metrics.put("decodeMs", mDecodeMs);
+			metrics.put("estimatedBytes", estimated);
+			metrics.put("rowArrayEstimatedBytes", rowArray);
+		} catch (JSONException e) {
+			PLog.printTrace(e);
+		}
+		return metrics;
+	}
+}